@@ -18,6 +18,7 @@
  */
 package org.sleuthkit.autopsy.casemodule;
 
+import org.sleuthkit.autopsy.ingest.GeneralIngestConfigurator;
 import org.sleuthkit.autopsy.ingest.IngestConfigurator;
 import java.awt.Color;
 import java.awt.Component;
@@ -69,6 +70,10 @@ class AddImageWizardIngestConfigPanel implements WizardDescriptor.Panel<WizardDe
      */
     private Component component = null;
     private final List<Content> newContents = Collections.synchronizedList(new ArrayList<Content>());
+    // the parts of the data source that are committed while the rest of it is added
+    private final List<Content> committedContents = Collections.synchronizedList(new ArrayList<Content>());
+    // number of the committed parts already queued to file ingest, only used in the EDT
+    private int fileIngestedCount = 0;
     private boolean ingested = false;
     private boolean readyToIngest = false;
     // the paths of the image files to be added
@@ -187,6 +192,8 @@ public void readSettings(WizardDescriptor settings) {
         readyToIngest = false;
 
         newContents.clear();
+        committedContents.clear();
+        fileIngestedCount = 0;
         dataSourcePath = (String) settings.getProperty(AddImageAction.DATASOURCEPATH_PROP);
         dataSourceType = (ContentType) settings.getProperty(AddImageAction.DATASOURCETYPE_PROP);
         timeZone = settings.getProperty(AddImageAction.TIMEZONE_PROP).toString();
@@ -218,23 +225,56 @@ public void storeSettings(WizardDescriptor settings) {
         ingestConfig.save();
         // Start ingest if it hasn't already been started
         readyToIngest = true;
+        startCommittedFileIngest();
         startIngest();
     }
 
     /**
      * Start ingest after verifying we have a new image, we are ready to ingest,
-     * and we haven't already ingested.
+     * and we haven't already ingested. If the file-level ingest was started on
+     * the parts of the data source committed while it was added, only the
+     * data source-level ingest is started on the data source.
      */
     private void startIngest() {
         if (!newContents.isEmpty() && readyToIngest && !ingested) {
-            ingested = true;
-            ingestConfig.setContent(newContents);
-            ingestConfig.start();
+            if (fileIngestedCount == 0) {
+                ingested = true;
+                ingestConfig.setContent(newContents);
+                ingestConfig.start();
+            } else {
+                // the parts committed last
+                startCommittedFileIngest();
+                ingested = true;
+                ingestConfig.setContent(newContents);
+                ((GeneralIngestConfigurator) ingestConfig).startDataSourceIngest();
+            }
             progressPanel.setStateFinished();
 
         }
     }
 
+    /**
+     * Start the file-level ingest on the parts of the data source that were
+     * committed since it was last started, if we are ready to ingest and the
+     * data source is still being added. Other configurators than the general
+     * one can only start all of the modules, so they ingest the data source
+     * when it is added. Runs in the EDT.
+     */
+    private void startCommittedFileIngest() {
+        if (!readyToIngest || ingested || !(ingestConfig instanceof GeneralIngestConfigurator)) {
+            return;
+        }
+        List<Content> toIngest;
+        synchronized (committedContents) {
+            toIngest = new ArrayList<>(committedContents.subList(fileIngestedCount, committedContents.size()));
+        }
+        if (!toIngest.isEmpty()) {
+            fileIngestedCount += toIngest.size();
+            ingestConfig.setContent(toIngest);
+            ((GeneralIngestConfigurator) ingestConfig).startFileIngest();
+        }
+    }
+
     /**
      * Class for getting the currently processing directory.
      *
@@ -331,7 +371,19 @@ void cleanup() throws Exception {
                 for (String path : paths) {
                     absLocalPaths.add(path);
                 }
-                newContents.add(fileManager.addLocalFilesDirs(absLocalPaths, progUpdater));
+                // analyze the committed files/dirs of the set while the rest is added
+                newContents.add(fileManager.addLocalFilesDirs(absLocalPaths, progUpdater, new FileManager.LocalFilesCommitListener() {
+                    @Override
+                    public void localFilesCommitted(AbstractFile addedFile) {
+                        committedContents.add(addedFile);
+                        EventQueue.invokeLater(new Runnable() {
+                            @Override
+                            public void run() {
+                                startCommittedFileIngest();
+                            }
+                        });
+                    }
+                }));
             } catch (TskCoreException ex) {
                 logger.log(Level.WARNING, "Errors occurred while running add logical files. ", ex);
                 hasCritError = true;
@@ -410,11 +462,11 @@ protected void postProcess() {
         }
 
         /**
-         * Updates the wizard status with logical file/folder
+         * Updates the wizard status with logical file/folder. The file manager
+         * notifies of the added files at a bounded rate.
          */
         private class LocalFilesAddProgressUpdater implements FileManager.FileAddProgressUpdater {
 
-            private int count = 0;
             private JProgressBar prog;
             private AddImageWizardAddingProgressVisual wiz;
 
@@ -425,7 +477,7 @@ private class LocalFilesAddProgressUpdater implements FileManager.FileAddProgres
 
             @Override
             public void fileAdded(final AbstractFile newFile) {
-                if (count++ % 10 == 0 && (prog.getValue() < 100 || prog.isIndeterminate())) {
+                if (prog.getValue() < 100 || prog.isIndeterminate()) {
                     EventQueue.invokeLater(new Runnable() {
                         @Override
                         public void run() {
@@ -440,7 +492,10 @@ public void run() {
 
     /**
      * Thread that will make the JNI call to add image to database, and then
-     * kick-off ingest modules.
+     * kick-off ingest modules. The add-image process walks the file systems
+     * in a single transaction that is reverted if the wizard is cancelled, so
+     * unlike the local files, none of the image can be ingested before it is
+     * committed.
      */
     private class AddImageTask extends SwingWorker<Integer, Integer> {
 
@@ -234,6 +234,17 @@ public static boolean isCaseOpen() {
      * @param newCase the new current case
      */
     private static void changeCase(Case newCase) {
+        changeCase(newCase, null);
+    }
+
+    /**
+     * Updates the current case to the given case and fires off the appropriate
+     * property-change, timing the phases of the change
+     *
+     * @param newCase the new current case
+     * @param timer   timer of the phases, or null
+     */
+    private static void changeCase(Case newCase, PhaseTimer timer) {
 
         Case oldCase = Case.currentCase;
         Case.currentCase = null;
@@ -252,12 +263,15 @@ private static void changeCase(Case newCase) {
             currentCase = newCase;
 
             pcs.firePropertyChange(CASE_CURRENT_CASE, null, currentCase);
+            PhaseTimer.end(timer, "case listeners");
             doCaseChange(currentCase);
+            PhaseTimer.end(timer, "windows");
 
             pcs.firePropertyChange(CASE_NAME, "", currentCase.name);
             doCaseNameChange(currentCase.name);
 
             RecentCases.getInstance().addRecentCase(currentCase.name, currentCase.configFilePath); // update the recent cases
+            PhaseTimer.end(timer, "case name listeners");
         }
     }
 
@@ -314,6 +328,7 @@ public static void create(String caseDir, String caseName, String caseNumber, St
     public static void open(String configFilePath) throws CaseActionException {
         logger.log(Level.INFO, "Opening case.\nconfigFilePath: {0}", configFilePath);
 
+        PhaseTimer timer = new PhaseTimer();
         try {
             XMLCaseManagement xmlcm = new XMLCaseManagement();
 
@@ -330,13 +345,18 @@ public static void open(String configFilePath) throws CaseActionException {
 
             String caseDir = xmlcm.getCaseDirectory();
             String dbPath = caseDir + File.separator + "autopsy.db";
+            PhaseTimer.end(timer, "case config");
             SleuthkitCase db = SleuthkitCase.openCase(dbPath);
+            PhaseTimer.end(timer, "case database");
 
             checkImagesExist(db);
+            PhaseTimer.end(timer, "data source check");
 
             Case openedCase = new Case(caseName, caseNumber, examiner, configFilePath, xmlcm, db);
+            PhaseTimer.end(timer, "case services");
 
-            changeCase(openedCase);
+            changeCase(openedCase, timer);
+            timer.log("Opened case " + caseName);
 
         } catch (Exception ex) {
             logger.log(Level.SEVERE, "Error opening the case: ", ex);
@@ -1088,4 +1108,33 @@ private void doDeleteImage() {
     public void receiveError(String context, String errorMessage) {
         MessageNotifyUtil.Notify.error(context, errorMessage);
     }
+
+    /**
+     * Times the phases of opening a case, so that the phases that make a
+     * case slow to open can be seen in the log.
+     */
+    private static class PhaseTimer {
+
+        private final long start = System.nanoTime();
+        private long phaseStart = start;
+        private final StringBuilder phases = new StringBuilder();
+
+        /**
+         * End the current phase of a timer, and start the next one.
+         *
+         * @param timer timer, or null if the phases are not timed
+         * @param phase name of the phase that ended
+         */
+        static void end(PhaseTimer timer, String phase) {
+            if (timer != null) {
+                long now = System.nanoTime();
+                timer.phases.append("\n").append(phase).append(": ").append((now - timer.phaseStart) / 1000000).append(" ms");
+                timer.phaseStart = now;
+            }
+        }
+
+        void log(String message) {
+            logger.log(Level.INFO, "{0} in {1} ms{2}", new Object[]{message, (System.nanoTime() - start) / 1000000, phases});
+        }
+    }
 }
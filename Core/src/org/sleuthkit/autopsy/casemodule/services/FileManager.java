@@ -22,13 +22,39 @@
  */
 package org.sleuthkit.autopsy.casemodule.services;
 
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
 import java.io.Closeable;
 import java.io.IOException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
+import java.util.regex.Pattern;
 import org.sleuthkit.autopsy.coreutils.Logger;
 import org.sleuthkit.autopsy.datamodel.VirtualDirectoryNode;
+import org.sleuthkit.autopsy.ingest.IngestManager;
+import org.sleuthkit.autopsy.ingest.IngestManager.IngestModuleEvent;
 import org.sleuthkit.autopsy.ingest.IngestServices;
 import org.sleuthkit.autopsy.ingest.ModuleContentEvent;
 import org.sleuthkit.datamodel.AbstractFile;
@@ -44,16 +70,35 @@
 
 /**
  * Abstraction to facilitate access to files and directories.
+ *
+ * The results of the name lookups are cached per data source, until content is
+ * added to the case (a ModuleContentEvent is fired or files are added through
+ * the file manager). The lookups do not lock the file manager, so that modules
+ * looking up files concurrently do not wait for each other; only adding local
+ * file sets is serialized.
  */
 public class FileManager implements Closeable {
 
-    private SleuthkitCase tskCase;
+    private volatile SleuthkitCase tskCase;
     private static final Logger logger = Logger.getLogger(FileManager.class.getName());
     private volatile int curNumFileSets;  //current number of filesets (root virt dir objects)
+    // cached lookup results, by data source id and then by name and dir pattern
+    private final ConcurrentHashMap<Long, Map<String, List<AbstractFile>>> findCache = new ConcurrentHashMap<>();
+    // incremented when the cache is invalidated, so that lookups that started before do not fill it
+    private final AtomicLong cacheGeneration = new AtomicLong();
+    private final PropertyChangeListener contentListener = new PropertyChangeListener() {
+        @Override
+        public void propertyChange(PropertyChangeEvent evt) {
+            if (evt.getPropertyName().equals(IngestModuleEvent.CONTENT_CHANGED.toString())) {
+                clearCache();
+            }
+        }
+    };
 
     public FileManager(SleuthkitCase tskCase) {
         this.tskCase = tskCase;
         init();
+        IngestManager.addPropertyChangeListener(contentListener);
     }
 
     /**
@@ -77,6 +122,19 @@ private synchronized void init() {
 
     }
 
+    /**
+     * @return the case, if the file manager is not closed
+     *
+     * @throws TskCoreException if the file manager has been closed
+     */
+    private SleuthkitCase getCase() throws TskCoreException {
+        SleuthkitCase sleuthkitCase = tskCase;
+        if (sleuthkitCase == null) {
+            throw new TskCoreException("Attempted to use FileManager after it was closed.");
+        }
+        return sleuthkitCase;
+    }
+
     /**
      * Finds a set of files that meets the name criteria.
      *
@@ -88,11 +146,8 @@ private synchronized void init() {
      * @return a list of AbstractFile for files/directories whose name matches
      *         the given fileName
      */
-    public synchronized List<AbstractFile> findFiles(Content dataSource, String fileName) throws TskCoreException {
-        if (tskCase == null) {
-            throw new TskCoreException("Attempted to use FileManager after it was closed.");
-        }
-        return tskCase.findFiles(dataSource, fileName);
+    public List<AbstractFile> findFiles(Content dataSource, String fileName) throws TskCoreException {
+        return findFiles(dataSource, fileName, (String) null);
     }
 
     /**
@@ -109,11 +164,24 @@ public synchronized List<AbstractFile> findFiles(Content dataSource, String file
      * @return a list of AbstractFile for files/directories whose name matches
      *         fileName and whose parent directory contains dirName.
      */
-    public synchronized List<AbstractFile> findFiles(Content dataSource, String fileName, String dirName) throws TskCoreException {
-        if (tskCase == null) {
-            throw new TskCoreException("Attempted to use FileManager after it was closed.");
+    public List<AbstractFile> findFiles(Content dataSource, String fileName, String dirName) throws TskCoreException {
+        SleuthkitCase sleuthkitCase = getCase();
+        String key = getCacheKey(fileName, dirName);
+        Map<String, List<AbstractFile>> dataSourceCache = getDataSourceCache(dataSource);
+        List<AbstractFile> files = dataSourceCache.get(key);
+        if (files == null) {
+            long generation = cacheGeneration.get();
+            if (dirName == null) {
+                files = sleuthkitCase.findFiles(dataSource, fileName);
+            } else {
+                files = sleuthkitCase.findFiles(dataSource, fileName, dirName);
+            }
+            files = Collections.unmodifiableList(new ArrayList<>(files));
+            if (generation == cacheGeneration.get()) {
+                dataSourceCache.put(key, files);
+            }
         }
-        return tskCase.findFiles(dataSource, fileName, dirName);
+        return new ArrayList<>(files);
     }
 
     /**
@@ -129,13 +197,103 @@ public synchronized List<AbstractFile> findFiles(Content dataSource, String file
      *         fileName and that were inside a directory described by
      *         parentFsContent.
      */
-    public synchronized List<AbstractFile> findFiles(Content dataSource, String fileName, AbstractFile parentFile) throws TskCoreException {
-        if (tskCase == null) {
-            throw new TskCoreException("Attempted to use FileManager after it was closed.");
-        }
+    public List<AbstractFile> findFiles(Content dataSource, String fileName, AbstractFile parentFile) throws TskCoreException {
         return findFiles(dataSource, fileName, parentFile.getName());
     }
 
+    /**
+     * Finds the files that meet any of a set of name criteria, with one query
+     * for all the names that were not looked up before.
+     *
+     * @param dataSource Root data source to limit search results to (Image,
+     *                   VirtualDirectory, etc.).
+     * @param fileNames  Patterns of the names of the files or directories to
+     *                   match (case insensitive, used in LIKE SQL statement).
+     *
+     * @return the files/directories whose name matches each pattern, by
+     *         pattern, in the order of fileNames
+     */
+    public Map<String, List<AbstractFile>> findFiles(Content dataSource, Collection<String> fileNames) throws TskCoreException {
+        return findFiles(dataSource, fileNames, null);
+    }
+
+    /**
+     * Finds the files that meet any of a set of name criteria, with one query
+     * for all the names that were not looked up before.
+     *
+     * @param dataSource Root data source to limit search results to (Image,
+     *                   VirtualDirectory, etc.).
+     * @param fileNames  Patterns of the names of the files or directories to
+     *                   match (case insensitive, used in LIKE SQL statement).
+     * @param dirName    Pattern of the name of the parent directory to use as
+     *                   the root of the search (case insensitive, used in LIKE
+     *                   SQL statement), or null to search all directories.
+     *
+     * @return the files/directories whose name matches each pattern and whose
+     *         parent directory contains dirName, by pattern, in the order of
+     *         fileNames
+     */
+    public Map<String, List<AbstractFile>> findFiles(Content dataSource, Collection<String> fileNames, String dirName) throws TskCoreException {
+        SleuthkitCase sleuthkitCase = getCase();
+        Map<String, List<AbstractFile>> dataSourceCache = getDataSourceCache(dataSource);
+        Map<String, List<AbstractFile>> results = new LinkedHashMap<>();
+        Set<String> missing = new LinkedHashSet<>();
+        for (String fileName : fileNames) {
+            List<AbstractFile> files = dataSourceCache.get(getCacheKey(fileName, dirName));
+            if (files != null) {
+                results.put(fileName, new ArrayList<>(files));
+            } else {
+                missing.add(fileName);
+            }
+        }
+        if (missing.isEmpty()) {
+            return results;
+        }
+
+        long generation = cacheGeneration.get();
+        StringBuilder where = new StringBuilder("(");
+        for (String fileName : missing) {
+            if (where.length() > 1) {
+                where.append(" OR ");
+            }
+            where.append("LOWER(name) LIKE LOWER(").append(quote(fileName)).append(")");
+        }
+        where.append(")");
+        if (dirName != null) {
+            where.append(" AND LOWER(parent_path) LIKE LOWER(").append(quote("%" + dirName + "%")).append(")");
+        }
+
+        // one query for all the names, the matches are sorted out by pattern here
+        Map<String, List<AbstractFile>> found = new LinkedHashMap<>();
+        Map<String, Pattern> patterns = new LinkedHashMap<>();
+        for (String fileName : missing) {
+            found.put(fileName, new ArrayList<AbstractFile>());
+            patterns.put(fileName, toPattern(fileName));
+        }
+        for (AbstractFile file : sleuthkitCase.findAllFilesWhere(where.toString())) {
+            if (!sleuthkitCase.isFileFromSource(dataSource, file.getId())) {
+                continue;
+            }
+            for (Map.Entry<String, Pattern> pattern : patterns.entrySet()) {
+                if (pattern.getValue().matcher(file.getName()).matches()) {
+                    found.get(pattern.getKey()).add(file);
+                }
+            }
+        }
+
+        if (generation == cacheGeneration.get()) {
+            for (Map.Entry<String, List<AbstractFile>> entry : found.entrySet()) {
+                dataSourceCache.put(getCacheKey(entry.getKey(), dirName), Collections.unmodifiableList(new ArrayList<>(entry.getValue())));
+            }
+        }
+        // keep the order of fileNames
+        Map<String, List<AbstractFile>> ordered = new LinkedHashMap<>();
+        for (String fileName : fileNames) {
+            ordered.put(fileName, results.containsKey(fileName) ? results.get(fileName) : found.get(fileName));
+        }
+        return ordered;
+    }
+
     /**
      * @param dataSource data source Content (Image, parent-less
      *                   VirtualDirectory) where to find files
@@ -144,11 +302,60 @@ public synchronized List<AbstractFile> findFiles(Content dataSource, String file
      *
      * @return a list of AbstractFile that have the given file path.
      */
-    public synchronized List<AbstractFile> openFiles(Content dataSource, String filePath) throws TskCoreException {
-        if (tskCase == null) {
-            throw new TskCoreException("Attempted to use FileManager after it was closed.");
+    public List<AbstractFile> openFiles(Content dataSource, String filePath) throws TskCoreException {
+        return getCase().openFiles(dataSource, filePath);
+    }
+
+    /**
+     * Forget the cached lookup results, because content was added to the case.
+     */
+    private void clearCache() {
+        cacheGeneration.incrementAndGet();
+        findCache.clear();
+    }
+
+    private Map<String, List<AbstractFile>> getDataSourceCache(Content dataSource) {
+        Map<String, List<AbstractFile>> dataSourceCache = findCache.get(dataSource.getId());
+        if (dataSourceCache == null) {
+            dataSourceCache = new ConcurrentHashMap<>();
+            Map<String, List<AbstractFile>> existing = findCache.putIfAbsent(dataSource.getId(), dataSourceCache);
+            if (existing != null) {
+                dataSourceCache = existing;
+            }
+        }
+        return dataSourceCache;
+    }
+
+    private static String getCacheKey(String fileName, String dirName) {
+        // '/' is not in file names, so the key of a name without a dir pattern is distinct
+        return dirName == null ? fileName.toLowerCase() : fileName.toLowerCase() + "/" + dirName.toLowerCase();
+    }
+
+    private static String quote(String value) {
+        return "'" + value.replace("'", "''") + "'";
+    }
+
+    /**
+     * Convert a LIKE pattern to a case insensitive regular expression.
+     */
+    private static Pattern toPattern(String likePattern) {
+        StringBuilder regex = new StringBuilder();
+        StringBuilder literal = new StringBuilder();
+        for (char c : likePattern.toCharArray()) {
+            if (c == '%' || c == '_') {
+                if (literal.length() > 0) {
+                    regex.append(Pattern.quote(literal.toString()));
+                    literal.setLength(0);
+                }
+                regex.append(c == '%' ? ".*" : ".");
+            } else {
+                literal.append(c);
+            }
+        }
+        if (literal.length() > 0) {
+            regex.append(Pattern.quote(literal.toString()));
         }
-        return tskCase.openFiles(dataSource, filePath);
+        return Pattern.compile(regex.toString(), Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE | Pattern.DOTALL);
     }
 
     /**
@@ -181,18 +388,16 @@ public synchronized List<AbstractFile> openFiles(Content dataSource, String file
      *                          manager has already been closed
      *
      */
-    public synchronized DerivedFile addDerivedFile(String fileName, String localPath, long size,
+    public DerivedFile addDerivedFile(String fileName, String localPath, long size,
             long ctime, long crtime, long atime, long mtime,
             boolean isFile, AbstractFile parentFile,
             String rederiveDetails, String toolName, String toolVersion, String otherDetails) throws TskCoreException {
 
-        if (tskCase == null) {
-            throw new TskCoreException("Attempted to use FileManager after it was closed.");
-        }
-
-        return tskCase.addDerivedFile(fileName, localPath, size,
+        DerivedFile derivedFile = getCase().addDerivedFile(fileName, localPath, size,
                 ctime, crtime, atime, mtime,
                 isFile, parentFile, rederiveDetails, toolName, toolVersion, otherDetails);
+        clearCache();
+        return derivedFile;
     }
 
     /**
@@ -209,14 +414,12 @@ public synchronized DerivedFile addDerivedFile(String fileName, String localPath
      * @throws TskCoreException exception thrown when critical tsk error
      *                          occurred and carved file could not be added
      */
-    public synchronized LayoutFile addCarvedFile(String carvedFileName, long carvedFileSize,
+    public LayoutFile addCarvedFile(String carvedFileName, long carvedFileSize,
             long systemId, List<TskFileRange> sectors) throws TskCoreException {
 
-        if (tskCase == null) {
-            throw new TskCoreException("Attempted to use FileManager after it was closed.");
-        }
-
-        return tskCase.addCarvedFile(carvedFileName, carvedFileSize, systemId, sectors);
+        LayoutFile carvedFile = getCase().addCarvedFile(carvedFileName, carvedFileSize, systemId, sectors);
+        clearCache();
+        return carvedFile;
     }
 
     /**
@@ -233,6 +436,21 @@ public interface FileAddProgressUpdater {
         public void fileAdded(AbstractFile newFile);
     }
 
+    /**
+     * Interface for receiving notifications, via a callback, when all of the
+     * files under one of the local files/dirs of a set are committed to the
+     * database, and can be analyzed while the rest of the set is added.
+     */
+    public interface LocalFilesCommitListener {
+
+        /**
+         * Called when a local file/dir and all of its contents are committed
+         *
+         * @param addedFile the file/folder of the set that was added
+         */
+        public void localFilesCommitted(AbstractFile addedFile);
+    }
+
     /**
      * Add a set of local/logical files and dirs.
      *
@@ -250,7 +468,38 @@ public interface FileAddProgressUpdater {
      *                          The addition stops with the first error
      *                          encountered.
      */
-    public synchronized VirtualDirectory addLocalFilesDirs(List<String> localAbsPaths, FileAddProgressUpdater addProgressUpdater) throws TskCoreException {
+    public VirtualDirectory addLocalFilesDirs(List<String> localAbsPaths, FileAddProgressUpdater addProgressUpdater) throws TskCoreException {
+        return addLocalFilesDirs(localAbsPaths, addProgressUpdater, null);
+    }
+
+    /**
+     * Add a set of local/logical files and dirs.
+     *
+     * The directories are listed by a pool of threads, while the files and
+     * dirs are added to the database in batches, each batch in a transaction
+     * of its own.
+     *
+     * @param localAbsPaths      list of absolute paths to local files and dirs
+     * @param addProgressUpdater notifier to receive progress notifications on
+     *                           files and folders added, at most a few times a
+     *                           second, or null if not used
+     * @param commitListener     notifier to receive the local files and dirs
+     *                           of the set whose contents are all committed,
+     *                           or null if not used
+     *
+     * @return file set root VirtualDirectory contained containing all
+     *         AbstractFile objects added
+     *
+     * @throws TskCoreException exception thrown if the object creation failed
+     *                          due to a critical system error or of the file
+     *                          manager has already been closed. There is no
+     *                          "revert" logic if one of the additions fails.
+     *                          The addition stops with the first error
+     *                          encountered, the batches committed before it
+     *                          stay in the database.
+     */
+    public synchronized VirtualDirectory addLocalFilesDirs(List<String> localAbsPaths, FileAddProgressUpdater addProgressUpdater,
+            LocalFilesCommitListener commitListener) throws TskCoreException {
         final List<java.io.File> rootsToAdd = new ArrayList<>();
         //first validate all the inputs before any additions
         for (String absPath : localAbsPaths) {
@@ -263,36 +512,11 @@ public synchronized VirtualDirectory addLocalFilesDirs(List<String> localAbsPath
             rootsToAdd.add(localFile);
         }
 
-        Transaction trans = tskCase.createTransaction();
-        // make a virtual top-level directory for this set of files/dirs
-        final VirtualDirectory fileSetRootDir = addLocalFileSetRootDir(trans);
-
         try {
-            // recursively add each item in the set
-            for (java.io.File localRootToAdd : rootsToAdd) {
-                AbstractFile localFileAdded = addLocalDirInt(trans, fileSetRootDir, localRootToAdd, addProgressUpdater);
-
-                if (localFileAdded == null) {
-                    String msg = "One of the local files/dirs could not be added: " + localRootToAdd.getAbsolutePath();
-                    logger.log(Level.SEVERE, msg);
-                    throw new TskCoreException(msg);
-                } else {
-                    //added.add(localFileAdded);
-                    //send new content event
-                    //for now reusing ingest events, in future this will be replaced by datamodel / observer sending out events
-                    // @@@ Is this the right place for this? A directory tree refresh will be triggered, so this may be creating a race condition
-                    // since the transaction is not yet committed.   
-                    IngestServices.getDefault().fireModuleContentEvent(new ModuleContentEvent(localFileAdded));
-                }
-            }
-
-            trans.commit();
-        } catch (TskCoreException ex) {
-            trans.rollback();
+            return new LocalFilesImport(getCase(), addProgressUpdater, commitListener).run(rootsToAdd);
         } finally {
-            trans.close();
+            clearCache();
         }
-        return fileSetRootDir;
     }
 
     /**
@@ -322,63 +546,14 @@ private VirtualDirectory addLocalFileSetRootDir(Transaction trans) throws TskCor
         return created;
     }
 
-    /**
-     * Helper (internal) method to recursively add contents of a folder. Node
-     * passed in can be a file or directory. Children of directories are added.
-     *
-     * @param parentVd           Dir that is the parent of localFile
-     * @param localFile          File/Dir that we are adding
-     * @param addProgressUpdater notifier to receive progress notifications on
-     *                           folders added, or null if not used
-     *
-     * @returns File object of file added or new virtualdirectory for the
-     * directory.
-     * @throws TskCoreException
-     */
-    private AbstractFile addLocalDirInt(Transaction trans, VirtualDirectory parentVd,
-            java.io.File localFile, FileAddProgressUpdater addProgressUpdater) throws TskCoreException {
-
-        if (tskCase == null) {
-            throw new TskCoreException("Attempted to use FileManager after it was closed.");
-        }
-
-        //final String localName = localDir.getName();
-        if (!localFile.exists()) {
-            throw new TskCoreException("Attempted to add a local dir that does not exist: " + localFile.getAbsolutePath());
-        }
-        if (!localFile.canRead()) {
-            throw new TskCoreException("Attempted to add a local dir that is not readable: " + localFile.getAbsolutePath());
-        }
-
-
-        if (localFile.isDirectory()) {
-            //create virtual folder
-            final VirtualDirectory childVd = tskCase.addVirtualDirectory(parentVd.getId(), localFile.getName(), trans);
-            if (childVd != null && addProgressUpdater != null) {
-                addProgressUpdater.fileAdded(childVd);
-            }
-            //add children recursively
-            final java.io.File[] childrenFiles = localFile.listFiles();
-            if (childrenFiles != null) {
-                for (java.io.File childFile : childrenFiles) {
-                    addLocalDirInt(trans, childVd, childFile, addProgressUpdater);
-                }
-            }
-            return childVd;
-        } else {
-            //add leaf file, base case
-            return this.addLocalFileInt(parentVd, localFile, trans);
-        }
-    }
-
     /**
      * Adds a single local/logical file to the case. Adds it to the database.
-     * Does not refresh the views of data. Assumes that the local file exists
-     * and can be read. This checking is done by addLocalDirInt().
+     * Does not refresh the views of data.
      *
      * @param parentFile parent file object container (such as virtual
      *                   directory, another local file, or fscontent File),
-     * @param localFile  File that we are adding
+     * @param localFile  path of the file that we are adding
+     * @param attrs      attributes of the file
      *
      * @return newly created local file object added to the database
      *
@@ -386,31 +561,254 @@ private AbstractFile addLocalDirInt(Transaction trans, VirtualDirectory parentVd
      *                          due to a critical system error or of the file
      *                          manager has already been closed
      */
-    private synchronized LocalFile addLocalFileInt(AbstractFile parentFile, java.io.File localFile, Transaction trans) throws TskCoreException {
+    private LocalFile addLocalFileInt(AbstractFile parentFile, Path localFile, BasicFileAttributes attrs, Transaction trans) throws TskCoreException {
 
         if (tskCase == null) {
             throw new TskCoreException("Attempted to use FileManager after it was closed.");
         }
 
-        long size = localFile.length();
-        boolean isFile = localFile.isFile();
+        long size = attrs.size();
+        boolean isFile = attrs.isRegularFile();
 
         long ctime = 0;
         long crtime = 0;
         long atime = 0;
         long mtime = 0;
 
-        String fileName = localFile.getName();
+        String fileName = localFile.getFileName().toString();
 
-        LocalFile lf = tskCase.addLocalFile(fileName, localFile.getAbsolutePath(), size,
+        LocalFile lf = tskCase.addLocalFile(fileName, localFile.toAbsolutePath().toString(), size,
                 ctime, crtime, atime, mtime,
                 isFile, parentFile, trans);
 
         return lf;
     }
 
+    /**
+     * The contents of a local dir, listed by a listing thread.
+     */
+    private static class DirListing {
+
+        private final Path dir;
+        // the virtual dir the contents are added to
+        private final VirtualDirectory parent;
+        // the file/dir of the set the dir is in
+        private final AbstractFile addedRoot;
+        private final Map<Path, BasicFileAttributes> entries = new LinkedHashMap<>();
+        private IOException error;
+
+        DirListing(Path dir, VirtualDirectory parent, AbstractFile addedRoot) {
+            this.dir = dir;
+            this.parent = parent;
+            this.addedRoot = addedRoot;
+        }
+
+        /**
+         * List the dir, following links like java.io.File does. The entries
+         * that cannot be read are skipped.
+         */
+        DirListing list() {
+            try {
+                Files.walkFileTree(dir, EnumSet.of(FileVisitOption.FOLLOW_LINKS), 1, new SimpleFileVisitor<Path>() {
+                    @Override
+                    public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                        entries.put(file, attrs);
+                        return FileVisitResult.CONTINUE;
+                    }
+
+                    @Override
+                    public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                        if (file.equals(dir)) {
+                            error = exc;
+                            return FileVisitResult.TERMINATE;
+                        }
+                        logger.log(Level.WARNING, "Local file could not be read, skipping it: " + file.toAbsolutePath(), exc);
+                        return FileVisitResult.CONTINUE;
+                    }
+                });
+            } catch (IOException ex) {
+                error = ex;
+            }
+            return this;
+        }
+    }
+
+    /**
+     * Adds a set of local files and dirs. The dirs are listed by a pool of
+     * threads, because the listing of a network share is bound by the latency
+     * of the share, and the contents are added by the calling thread in
+     * batches as the listings come in.
+     */
+    private class LocalFilesImport {
+
+        private static final int LISTING_THREADS = 8;
+        private static final int BATCH_SIZE = 5000;
+        private static final long PROGRESS_INTERVAL_MS = 250;
+        private final SleuthkitCase sleuthkitCase;
+        private final FileAddProgressUpdater progressUpdater;
+        private final LocalFilesCommitListener commitListener;
+        private final ExecutorService listingExecutor;
+        private final BlockingQueue<DirListing> listings = new LinkedBlockingQueue<>();
+        // listings not taken from the queue yet, in all and by file/dir of the set
+        private int pendingListings = 0;
+        private final Map<Long, Integer> pendingListingsByRoot = new HashMap<>();
+        // files/dirs of the set that are all added, but not committed yet
+        private final List<AbstractFile> addedRoots = new ArrayList<>();
+        private Transaction trans = null;
+        private int uncommitted = 0;
+        private long lastProgressTime = 0;
+
+        LocalFilesImport(SleuthkitCase sleuthkitCase, FileAddProgressUpdater progressUpdater, LocalFilesCommitListener commitListener) {
+            this.sleuthkitCase = sleuthkitCase;
+            this.progressUpdater = progressUpdater;
+            this.commitListener = commitListener;
+            this.listingExecutor = Executors.newFixedThreadPool(LISTING_THREADS, new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "Local files listing");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+
+        VirtualDirectory run(List<java.io.File> rootsToAdd) throws TskCoreException {
+            try {
+                // make a virtual top-level directory for this set of files/dirs
+                final VirtualDirectory fileSetRootDir = addLocalFileSetRootDir(getTransaction());
+                for (java.io.File localRootToAdd : rootsToAdd) {
+                    Path path = localRootToAdd.toPath();
+                    BasicFileAttributes attrs;
+                    try {
+                        attrs = Files.readAttributes(path, BasicFileAttributes.class);
+                    } catch (IOException ex) {
+                        String msg = "One of the local files/dirs could not be added: " + localRootToAdd.getAbsolutePath();
+                        logger.log(Level.SEVERE, msg, ex);
+                        throw new TskCoreException(msg, ex);
+                    }
+                    AbstractFile added = add(fileSetRootDir, path, attrs, null);
+                    if (!attrs.isDirectory()) {
+                        addedRoots.add(added);
+                    }
+                }
+
+                while (pendingListings > 0) {
+                    DirListing listing = listings.take();
+                    --pendingListings;
+                    if (listing.error != null) {
+                        // like java.io.File.listFiles() returning null, the dir is added without its contents
+                        logger.log(Level.WARNING, "Local dir could not be listed, adding it without its contents: "
+                                + listing.dir.toAbsolutePath(), listing.error);
+                    }
+                    for (Map.Entry<Path, BasicFileAttributes> entry : listing.entries.entrySet()) {
+                        add(listing.parent, entry.getKey(), entry.getValue(), listing.addedRoot);
+                    }
+                    long rootId = listing.addedRoot.getId();
+                    int rootListings = pendingListingsByRoot.get(rootId) - 1;
+                    if (rootListings == 0) {
+                        pendingListingsByRoot.remove(rootId);
+                        addedRoots.add(listing.addedRoot);
+                    } else {
+                        pendingListingsByRoot.put(rootId, rootListings);
+                    }
+                }
+                commit();
+                return fileSetRootDir;
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new TskCoreException("Interrupted while adding local files/dirs", ex);
+            } finally {
+                listingExecutor.shutdownNow();
+                if (trans != null) {
+                    trans.rollback();
+                    trans.close();
+                    trans = null;
+                }
+            }
+        }
+
+        /**
+         * Add a file or dir to the database, and have the contents of a dir
+         * listed.
+         *
+         * @param addedRoot the file/dir of the set the file is in, or null if
+         *                  it is one
+         */
+        private AbstractFile add(VirtualDirectory parent, Path path, BasicFileAttributes attrs, AbstractFile addedRoot) throws TskCoreException {
+            AbstractFile added;
+            if (attrs.isDirectory()) {
+                //create virtual folder, its children are added when it is listed
+                VirtualDirectory dir = sleuthkitCase.addVirtualDirectory(parent.getId(), path.getFileName().toString(), getTransaction());
+                submitListing(path, dir, addedRoot == null ? dir : addedRoot);
+                added = dir;
+            } else {
+                added = addLocalFileInt(parent, path, attrs, getTransaction());
+            }
+            if (added == null) {
+                String msg = "One of the local files/dirs could not be added: " + path.toAbsolutePath();
+                logger.log(Level.SEVERE, msg);
+                throw new TskCoreException(msg);
+            }
+
+            long now = System.currentTimeMillis();
+            if (progressUpdater != null && now - lastProgressTime >= PROGRESS_INTERVAL_MS) {
+                lastProgressTime = now;
+                progressUpdater.fileAdded(added);
+            }
+            if (++uncommitted >= BATCH_SIZE) {
+                commit();
+            }
+            return added;
+        }
+
+        private void submitListing(Path dir, VirtualDirectory parent, AbstractFile addedRoot) {
+            ++pendingListings;
+            Integer rootListings = pendingListingsByRoot.get(addedRoot.getId());
+            pendingListingsByRoot.put(addedRoot.getId(), rootListings == null ? 1 : rootListings + 1);
+            final DirListing listing = new DirListing(dir, parent, addedRoot);
+            listingExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    listings.add(listing.list());
+                }
+            });
+        }
+
+        private Transaction getTransaction() throws TskCoreException {
+            if (trans == null) {
+                trans = sleuthkitCase.createTransaction();
+            }
+            return trans;
+        }
+
+        /**
+         * Commit the current batch, and notify of the files/dirs of the set
+         * that are now committed with all their contents.
+         */
+        private void commit() throws TskCoreException {
+            if (trans != null) {
+                trans.commit();
+                trans.close();
+                trans = null;
+            }
+            uncommitted = 0;
+            clearCache();
+            for (AbstractFile addedRoot : addedRoots) {
+                //send new content event
+                //for now reusing ingest events, in future this will be replaced by datamodel / observer sending out events
+                IngestServices.getDefault().fireModuleContentEvent(new ModuleContentEvent(addedRoot));
+                if (commitListener != null) {
+                    commitListener.localFilesCommitted(addedRoot);
+                }
+            }
+            addedRoots.clear();
+        }
+    }
+
     @Override
     public synchronized void close() throws IOException {
+        IngestManager.removePropertyChangeListener(contentListener);
         tskCase = null;
+        clearCache();
     }
 }
@@ -0,0 +1,239 @@
+/*
+ * Autopsy Forensic Browser
+ *
+ * Copyright 2013 Basis Technology Corp.
+ * Contact: carrier <at> sleuthkit <dot> org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.sleuthkit.autopsy.casemodule.services;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import org.sleuthkit.autopsy.coreutils.Logger;
+import org.sleuthkit.datamodel.Content;
+import org.sleuthkit.datamodel.SleuthkitCase;
+import org.sleuthkit.datamodel.TskCoreException;
+
+/**
+ * Makes the unique paths of the content of a case from cached paths of their
+ * parents, instead of walking up the parents of every content through the
+ * database like Content.getUniquePath() does.
+ *
+ * When the parent ids of the children of a parent are looked up in object id
+ * order, as when the files of a case are listed, the parent ids of the next
+ * MAX_SIBLINGS children are loaded with each one that is not cached, so the
+ * paths of the files of a directory cost a query for every MAX_SIBLINGS files
+ * rather than several per file. Lookups in any other order, such as the ones
+ * of the sources of keyword hits, load only the parent id they need. Both
+ * caches are
+ * bounded, the least recently used entries are dropped first. The paths are
+ * the same as the ones of Content.getUniquePath(): the path of the parent, a
+ * '/' and the name.
+ */
+public class PathCache implements Closeable {
+
+    private static final Logger logger = Logger.getLogger(PathCache.class.getName());
+    private static final int MAX_PATHS = 50000;
+    private static final int MAX_PARENT_IDS = 200000;
+    // the most parent ids loaded with the one of a content
+    private static final int MAX_SIBLINGS = 1000;
+    // the last content whose parent id was not cached, and its parent
+    private long lastMissObjId = -1;
+    private long lastMissParentId = -1;
+    private volatile SleuthkitCase tskCase;
+    // unique paths of parents
+    private final Map<Long, String> paths = new LinkedHashMap<Long, String>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, String> eldest) {
+            return size() > MAX_PATHS;
+        }
+    };
+    // parent ids of content, absent for content without a parent
+    private final Map<Long, Long> parentIds = new LinkedHashMap<Long, Long>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Long> eldest) {
+            return size() > MAX_PARENT_IDS;
+        }
+    };
+
+    public PathCache(SleuthkitCase tskCase) {
+        this.tskCase = tskCase;
+    }
+
+    private SleuthkitCase getCase() throws TskCoreException {
+        SleuthkitCase skCase = tskCase;
+        if (skCase == null) {
+            throw new TskCoreException("Attempted to use PathCache after it was closed.");
+        }
+        return skCase;
+    }
+
+    /**
+     * Get the unique path of a content.
+     *
+     * @param content content of the case
+     * @return the same path as content.getUniquePath()
+     * @throws TskCoreException
+     */
+    public synchronized String getUniquePath(Content content) throws TskCoreException {
+        Long parentId = getParentId(content.getId());
+        if (parentId == null) {
+            return content.getUniquePath();
+        }
+        return append(getPath(parentId), content.getName());
+    }
+
+    /**
+     * Get the unique path of a content of the case by its id.
+     *
+     * @param objId object id of the content
+     * @return the unique path of the content
+     * @throws TskCoreException if there is no content with the id
+     */
+    public synchronized String getUniquePath(long objId) throws TskCoreException {
+        // like getUniquePath(Content), only the paths of the parents are cached
+        String path = paths.get(objId);
+        return path != null ? path : makePath(objId);
+    }
+
+    private static String append(String parentPath, String name) {
+        return name.isEmpty() ? parentPath : parentPath + "/" + name;
+    }
+
+    /**
+     * Get the cached path of a parent, or make it and cache it.
+     */
+    private String getPath(long objId) throws TskCoreException {
+        String path = paths.get(objId);
+        if (path == null) {
+            path = makePath(objId);
+            paths.put(objId, path);
+        }
+        return path;
+    }
+
+    /**
+     * Make the path of a content from the path of its parent, or from the
+     * content itself if it is not a file.
+     */
+    @SuppressWarnings("deprecation")
+    private String makePath(long objId) throws TskCoreException {
+        String path;
+        SleuthkitCase skCase = getCase();
+        Long parentId = getParentId(objId);
+        String name = null;
+        if (parentId != null) {
+            ResultSet rs = null;
+            try {
+                rs = skCase.runQuery("SELECT name FROM tsk_files WHERE obj_id = " + objId);
+                if (rs.next()) {
+                    name = rs.getString("name");
+                }
+            } catch (SQLException ex) {
+                throw new TskCoreException("Error getting the name of object " + objId, ex);
+            } finally {
+                closeQuery(skCase, rs);
+            }
+        }
+        if (name != null) {
+            path = append(getPath(parentId), name);
+        } else {
+            // images, volumes and file systems are few, they make their own paths
+            Content content = skCase.getContentById(objId);
+            if (content == null) {
+                throw new TskCoreException("No content with object id " + objId);
+            }
+            path = content.getUniquePath();
+        }
+        return path;
+    }
+
+    /**
+     * Get the parent id of a content if it is not cached, with the parent ids
+     * of the next children of its parent if the children are looked up in
+     * order.
+     *
+     * @return the parent id, or null if the content has no parent
+     */
+    @SuppressWarnings("deprecation")
+    private Long getParentId(long objId) throws TskCoreException {
+        Long parentId = parentIds.get(objId);
+        if (parentId != null) {
+            return parentId;
+        }
+        SleuthkitCase skCase = getCase();
+        ResultSet rs = null;
+        try {
+            rs = skCase.runQuery("SELECT par_obj_id FROM tsk_objects WHERE obj_id = " + objId);
+            if (rs.next()) {
+                long id = rs.getLong("par_obj_id");
+                if (!rs.wasNull()) {
+                    parentId = id;
+                }
+            }
+        } catch (SQLException ex) {
+            throw new TskCoreException("Error getting the parent of object " + objId, ex);
+        } finally {
+            closeQuery(skCase, rs);
+        }
+        if (parentId == null) {
+            return null;
+        }
+        parentIds.put(objId, parentId);
+        boolean sequential = parentId == lastMissParentId && objId > lastMissObjId;
+        lastMissObjId = objId;
+        lastMissParentId = parentId;
+        if (!sequential) {
+            return parentId;
+        }
+        // a limited number of them at a time, so that the children of a large
+        // directory are not loaded over and over
+        rs = null;
+        try {
+            rs = skCase.runQuery("SELECT obj_id FROM tsk_objects WHERE par_obj_id = " + parentId
+                    + " AND obj_id > " + objId + " ORDER BY obj_id LIMIT " + MAX_SIBLINGS);
+            while (rs.next()) {
+                parentIds.put(rs.getLong("obj_id"), parentId);
+            }
+        } catch (SQLException ex) {
+            logger.log(Level.WARNING, "Error getting the siblings of object " + objId, ex);
+        } finally {
+            closeQuery(skCase, rs);
+        }
+        return parentId;
+    }
+
+    @SuppressWarnings("deprecation")
+    private static void closeQuery(SleuthkitCase skCase, ResultSet rs) {
+        if (rs != null) {
+            try {
+                skCase.closeRunQuery(rs);
+            } catch (SQLException ex) {
+                logger.log(Level.WARNING, "Error closing the path query.", ex);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        tskCase = null;
+        paths.clear();
+        parentIds.clear();
+    }
+}
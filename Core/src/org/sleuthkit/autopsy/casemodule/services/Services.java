@@ -41,18 +41,25 @@ public class Services implements Closeable {
     
     // services
     private FileManager fileManager;
+    private PathCache pathCache;
 
     public Services(SleuthkitCase tskCase) {
         this.tskCase = tskCase;
         //create and initialize FileManager as early as possibly in the new/opened Case
         fileManager = new FileManager(tskCase);
         services.add(fileManager);
+        pathCache = new PathCache(tskCase);
+        services.add(pathCache);
     }
     
     public FileManager getFileManager() {
         return fileManager;
     }
 
+    public PathCache getPathCache() {
+        return pathCache;
+    }
+
     @Override
     public void close() throws IOException {
         // close all services
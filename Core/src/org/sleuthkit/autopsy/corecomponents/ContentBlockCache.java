@@ -0,0 +1,235 @@
+/*
+ * Autopsy Forensic Browser
+ *
+ * Copyright 2013 Basis Technology Corp.
+ * Contact: carrier <at> sleuthkit <dot> org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.sleuthkit.autopsy.corecomponents;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.logging.Level;
+import org.sleuthkit.autopsy.coreutils.Logger;
+import org.sleuthkit.datamodel.Content;
+import org.sleuthkit.datamodel.TskException;
+
+/**
+ * LRU cache of fixed size blocks of the content of a file, for the content
+ * viewers that show parts of arbitrarily large content.
+ *
+ * Missing blocks are read on a reader thread of the cache. The blocks the
+ * viewer shows are read before the blocks that are only read ahead, newest
+ * request first, so that the shown part of the content is read first after a
+ * jump, and the read-ahead requests left behind by a jump are dropped when the
+ * queue gets long.
+ */
+class ContentBlockCache {
+
+    /**
+     * Notified, in the reader thread, when a block was read or failed to be
+     * read.
+     */
+    interface Listener {
+
+        void blockLoaded(long blockIndex);
+    }
+    static final int BLOCK_SIZE = 64 * 1024;
+    private static final Logger logger = Logger.getLogger(ContentBlockCache.class.getName());
+    private static final int MAX_BLOCKS = 64;
+    private static final int MAX_QUEUED = 32;
+    private final Content content;
+    private final long blockCount;
+    private final Listener listener;
+    private final Map<Long, byte[]> blocks = new LinkedHashMap<Long, byte[]>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, byte[]> eldest) {
+            return size() > MAX_BLOCKS;
+        }
+    };
+    private final Set<Long> failed = new HashSet<>();
+    private final LinkedBlockingDeque<Long> queue = new LinkedBlockingDeque<>();
+    private final Set<Long> queued = new HashSet<>();
+    private final Thread reader;
+    private volatile boolean closed = false;
+
+    /**
+     * @param content content to read
+     * @param listener notified of the blocks read by the reader thread
+     */
+    ContentBlockCache(Content content, Listener listener) {
+        this.content = content;
+        this.blockCount = (content.getSize() + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        this.listener = listener;
+        this.reader = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                readQueued();
+            }
+        }, "Content block reader: " + content.getName());
+        this.reader.setDaemon(true);
+        this.reader.start();
+    }
+
+    /**
+     * @return number of blocks of the content, the last one can be shorter
+     */
+    long getBlockCount() {
+        return blockCount;
+    }
+
+    /**
+     * Get a block if it is cached, or queue it to be read.
+     *
+     * @param blockIndex index of the block
+     * @return the block, or null if it is not read yet
+     */
+    byte[] getBlock(long blockIndex) {
+        synchronized (this) {
+            byte[] block = blocks.get(blockIndex);
+            if (block != null || failed.contains(blockIndex)) {
+                return block;
+            }
+        }
+        request(blockIndex, true);
+        return null;
+    }
+
+    /**
+     * @return true if the block could not be read
+     */
+    synchronized boolean isFailed(long blockIndex) {
+        return failed.contains(blockIndex);
+    }
+
+    /**
+     * Queue the blocks after or before a block to be read.
+     *
+     * @param blockIndex the last shown block
+     * @param direction 1 to read the blocks after it, -1 the blocks before it
+     * @param count number of blocks to read
+     */
+    void readAhead(long blockIndex, int direction, int count) {
+        for (int i = 1; i <= count; i++) {
+            request(blockIndex + i * direction, false);
+        }
+    }
+
+    /**
+     * Get a block, reading it in the calling thread if it is not cached.
+     *
+     * @param blockIndex index of the block
+     * @return the block, or null if it could not be read
+     */
+    byte[] readBlock(long blockIndex) {
+        synchronized (this) {
+            byte[] block = blocks.get(blockIndex);
+            if (block != null || failed.contains(blockIndex)) {
+                return block;
+            }
+        }
+        return load(blockIndex);
+    }
+
+    /**
+     * Stop the reader thread. The cache can not be used after it is closed.
+     */
+    void close() {
+        closed = true;
+        reader.interrupt();
+    }
+
+    private void request(long blockIndex, boolean shown) {
+        if (closed || blockIndex < 0 || blockIndex >= blockCount) {
+            return;
+        }
+        synchronized (this) {
+            if (blocks.containsKey(blockIndex) || failed.contains(blockIndex)) {
+                return;
+            }
+            if (queued.contains(blockIndex)) {
+                if (!shown) {
+                    return;
+                }
+                // move it to the front
+                queue.remove(blockIndex);
+            } else {
+                queued.add(blockIndex);
+            }
+            if (shown) {
+                queue.offerFirst(blockIndex);
+            } else {
+                queue.offerLast(blockIndex);
+            }
+            while (queue.size() > MAX_QUEUED) {
+                Long dropped = queue.pollLast();
+                if (dropped != null) {
+                    queued.remove(dropped);
+                }
+            }
+        }
+    }
+
+    private void readQueued() {
+        try {
+            while (!closed) {
+                long blockIndex = queue.takeFirst();
+                synchronized (this) {
+                    queued.remove(blockIndex);
+                    if (blocks.containsKey(blockIndex) || failed.contains(blockIndex)) {
+                        continue;
+                    }
+                }
+                load(blockIndex);
+                if (!closed) {
+                    listener.blockLoaded(blockIndex);
+                }
+            }
+        } catch (InterruptedException ex) {
+            // closed
+        }
+    }
+
+    /**
+     * Read a block and add it to the cache.
+     *
+     * @return the block, or null if it could not be read
+     */
+    private byte[] load(long blockIndex) {
+        long offset = blockIndex * BLOCK_SIZE;
+        int length = (int) Math.min(BLOCK_SIZE, content.getSize() - offset);
+        byte[] block = new byte[length];
+        int read = 0;
+        try {
+            read = content.read(block, offset, length);
+        } catch (TskException ex) {
+            logger.log(Level.WARNING, "Error while reading offset " + offset + " of " + content.getName(), ex);
+        }
+        synchronized (this) {
+            if (read <= 0) {
+                failed.add(blockIndex);
+                return null;
+            }
+            if (read < length) {
+                block = Arrays.copyOf(block, read);
+            }
+            blocks.put(blockIndex, block);
+            return block;
+        }
+    }
+}
@@ -0,0 +1,452 @@
+/*
+ * Autopsy Forensic Browser
+ *
+ * Copyright 2013 Basis Technology Corp.
+ * Contact: carrier <at> sleuthkit <dot> org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.sleuthkit.autopsy.corecomponents;
+
+import java.awt.BorderLayout;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Insets;
+import java.awt.Rectangle;
+import java.awt.Toolkit;
+import java.awt.datatransfer.StringSelection;
+import java.awt.event.ActionEvent;
+import java.awt.event.AdjustmentEvent;
+import java.awt.event.AdjustmentListener;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
+import java.awt.event.InputEvent;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
+import javax.swing.AbstractAction;
+import javax.swing.ActionMap;
+import javax.swing.InputMap;
+import javax.swing.JComponent;
+import javax.swing.JPanel;
+import javax.swing.JScrollBar;
+import javax.swing.KeyStroke;
+import javax.swing.Scrollable;
+import javax.swing.SwingUtilities;
+import javax.swing.UIManager;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
+
+/**
+ * Base of the content viewer views that show any number of rows of text, e.g.
+ * the rows of a hex dump of a disk image.
+ *
+ * Only the rows in view are asked for and painted, so the subclasses can make
+ * them on demand, and the scroll bar is scaled down when there are more rows
+ * than fit in its int range. Rows can be selected with the mouse and copied.
+ */
+abstract class ContentRowView extends JPanel implements Scrollable {
+
+    private static final int WHEEL_ROWS = 3;
+    // copying more than this would build a huge string in the EDT
+    private static final int MAX_COPY_ROWS = 65536;
+    private static final long MAX_SCROLL_UNITS = Integer.MAX_VALUE / 2;
+    private final Rows rows = new Rows();
+    private final JScrollBar scrollBar = new JScrollBar(JScrollBar.VERTICAL);
+    private final int rowChars;
+    private long rowCount = 0;
+    private long firstRow = 0;
+    // rows per scroll bar unit
+    private long scrollScale = 1;
+    private boolean settingScrollBar = false;
+    // selected rows, -1 if there is no selection
+    private long selectionStart = -1;
+    private long selectionEnd = -1;
+
+    /**
+     * @param rowChars characters of a row, for the preferred width
+     */
+    ContentRowView(int rowChars) {
+        super(new BorderLayout());
+        this.rowChars = rowChars;
+        setBackground(Color.WHITE);
+        rows.setBackground(Color.WHITE);
+        rows.setOpaque(true);
+        rows.setFocusable(true);
+        rows.setInheritsPopupMenu(true);
+        add(rows, BorderLayout.CENTER);
+        add(scrollBar, BorderLayout.EAST);
+
+        scrollBar.addAdjustmentListener(new AdjustmentListener() {
+            @Override
+            public void adjustmentValueChanged(AdjustmentEvent e) {
+                if (!settingScrollBar) {
+                    setFirstRow(e.getValue() * scrollScale);
+                }
+            }
+        });
+        rows.addComponentListener(new ComponentAdapter() {
+            @Override
+            public void componentResized(ComponentEvent e) {
+                setFirstRow(firstRow);
+            }
+        });
+        MouseAdapter mouse = new MouseAdapter() {
+            @Override
+            public void mousePressed(MouseEvent e) {
+                rows.requestFocusInWindow();
+                if (SwingUtilities.isLeftMouseButton(e)) {
+                    long row = rowAt(e.getY());
+                    if (row >= 0) {
+                        if (e.isShiftDown() && selectionStart >= 0) {
+                            selectionEnd = row;
+                        } else {
+                            selectionStart = row;
+                            selectionEnd = row;
+                        }
+                        rows.repaint();
+                    }
+                }
+            }
+
+            @Override
+            public void mouseDragged(MouseEvent e) {
+                if (SwingUtilities.isLeftMouseButton(e) && selectionStart >= 0) {
+                    // scroll when dragging past the top or bottom
+                    if (e.getY() < 0) {
+                        setFirstRow(firstRow - 1);
+                    } else if (e.getY() > rows.getHeight()) {
+                        setFirstRow(firstRow + 1);
+                    }
+                    long row = rowAt(Math.max(0, Math.min(e.getY(), rows.getHeight() - 1)));
+                    if (row >= 0) {
+                        selectionEnd = row;
+                        rows.repaint();
+                    }
+                }
+            }
+
+            @Override
+            public void mouseWheelMoved(MouseWheelEvent e) {
+                setFirstRow(firstRow + e.getWheelRotation() * WHEEL_ROWS);
+            }
+        };
+        rows.addMouseListener(mouse);
+        rows.addMouseMotionListener(mouse);
+        rows.addMouseWheelListener(mouse);
+        installKeys();
+    }
+
+    /**
+     * Get the text of a row.
+     *
+     * @param row row index
+     * @param wait true to make the row in the calling thread if its data is
+     * not available yet, false to return a placeholder and repaint the row
+     * when the data is available
+     * @return the text of the row
+     */
+    abstract String getRowText(long row, boolean wait);
+
+    /**
+     * Called when the rows in view change, e.g. to read ahead.
+     *
+     * @param firstRow first row in view
+     * @param lastRow last row in view
+     * @param direction 1 if the view moved down, -1 if it moved up
+     */
+    void rowsShown(long firstRow, long lastRow, int direction) {
+    }
+
+    /**
+     * Set the number of rows, keeping the rows in view. Clears the selection
+     * if the rows are reset to a new first row.
+     *
+     * @param count number of rows
+     * @param reset true to scroll to the first row and clear the selection
+     */
+    void setRowCount(long count, boolean reset) {
+        rowCount = count;
+        scrollScale = Math.max(1, (rowCount + MAX_SCROLL_UNITS - 1) / MAX_SCROLL_UNITS);
+        if (reset) {
+            selectionStart = -1;
+            selectionEnd = -1;
+            firstRow = -1;
+            setFirstRow(0);
+        } else {
+            setFirstRow(firstRow);
+        }
+    }
+
+    long getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * @return the first row in view
+     */
+    long getFirstRow() {
+        return firstRow;
+    }
+
+    /**
+     * @return the first selected row, or -1 if there is no selection
+     */
+    long getSelectedRow() {
+        return selectionStart < 0 ? -1 : Math.min(selectionStart, selectionEnd);
+    }
+
+    /**
+     * Scroll so that a row is the first row in view, and select it.
+     *
+     * @param row row index
+     */
+    void scrollToRow(long row) {
+        row = Math.max(0, Math.min(row, rowCount - 1));
+        selectionStart = row;
+        selectionEnd = row;
+        setFirstRow(row);
+        rows.repaint();
+    }
+
+    /**
+     * Repaint the rows, e.g. when the data of rows in view is available.
+     */
+    void repaintRows() {
+        rows.repaint();
+    }
+
+    /**
+     * Notified when the rows in view change.
+     */
+    void addChangeListener(ChangeListener listener) {
+        listenerList.add(ChangeListener.class, listener);
+    }
+
+    boolean hasSelection() {
+        return selectionStart >= 0;
+    }
+
+    void selectAll() {
+        if (rowCount > 0) {
+            selectionStart = 0;
+            selectionEnd = rowCount - 1;
+            rows.repaint();
+        }
+    }
+
+    /**
+     * Copy the selected rows, at most MAX_COPY_ROWS of them, to the
+     * clipboard.
+     */
+    void copy() {
+        if (!hasSelection()) {
+            return;
+        }
+        long start = Math.min(selectionStart, selectionEnd);
+        long end = Math.min(Math.max(selectionStart, selectionEnd), start + MAX_COPY_ROWS - 1);
+        StringBuilder text = new StringBuilder();
+        for (long row = start; row <= end; row++) {
+            text.append(getRowText(row, true)).append("\n");
+        }
+        Toolkit.getDefaultToolkit().getSystemClipboard().setContents(new StringSelection(text.toString()), null);
+    }
+
+    @Override
+    public Dimension getPreferredSize() {
+        FontMetrics fm = rows.getFontMetrics(rows.getFont());
+        Insets insets = getInsets();
+        return new Dimension(fm.charWidth('0') * rowChars + scrollBar.getPreferredSize().width + insets.left + insets.right,
+                fm.getHeight() * 20);
+    }
+
+    @Override
+    public void setFont(Font font) {
+        super.setFont(font);
+        if (rows != null) {
+            rows.setFont(font);
+        }
+    }
+
+    @Override
+    public Dimension getPreferredScrollableViewportSize() {
+        return getPreferredSize();
+    }
+
+    @Override
+    public int getScrollableUnitIncrement(Rectangle visibleRect, int orientation, int direction) {
+        return rows.getFontMetrics(rows.getFont()).charWidth('0');
+    }
+
+    @Override
+    public int getScrollableBlockIncrement(Rectangle visibleRect, int orientation, int direction) {
+        return visibleRect.width;
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportWidth() {
+        // scroll horizontally only when the rows do not fit
+        return getParent() != null && getParent().getWidth() >= getPreferredSize().width;
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportHeight() {
+        // the rows are scrolled with the scroll bar of the view
+        return true;
+    }
+
+    private int getRowHeight() {
+        return Math.max(1, rows.getFontMetrics(rows.getFont()).getHeight());
+    }
+
+    /**
+     * @return number of whole rows that fit in the view
+     */
+    int getVisibleRows() {
+        return Math.max(1, rows.getHeight() / getRowHeight());
+    }
+
+    /**
+     * @return the row at a y coordinate of the rows, or -1
+     */
+    private long rowAt(int y) {
+        long row = firstRow + y / getRowHeight();
+        return row < rowCount ? row : -1;
+    }
+
+    private void setFirstRow(long row) {
+        int visibleRows = getVisibleRows();
+        row = Math.max(0, Math.min(row, rowCount - visibleRows));
+        int direction = row < firstRow ? -1 : 1;
+        boolean changed = row != firstRow;
+        firstRow = row;
+
+        settingScrollBar = true;
+        try {
+            int max = (int) ((rowCount + scrollScale - 1) / scrollScale);
+            int extent = (int) Math.max(1, Math.min(max, visibleRows / scrollScale));
+            scrollBar.setValues((int) (firstRow / scrollScale), extent, 0, Math.max(max, extent));
+            scrollBar.setUnitIncrement(1);
+            scrollBar.setBlockIncrement(extent);
+        } finally {
+            settingScrollBar = false;
+        }
+
+        if (rowCount > 0) {
+            rowsShown(firstRow, Math.min(firstRow + visibleRows, rowCount - 1), direction);
+        }
+        rows.repaint();
+        if (changed) {
+            ChangeEvent event = new ChangeEvent(this);
+            for (ChangeListener listener : listenerList.getListeners(ChangeListener.class)) {
+                listener.stateChanged(event);
+            }
+        }
+    }
+
+    private void installKeys() {
+        InputMap inputMap = rows.getInputMap(JComponent.WHEN_FOCUSED);
+        ActionMap actionMap = rows.getActionMap();
+        inputMap.put(KeyStroke.getKeyStroke(KeyEvent.VK_UP, 0), "rowUp");
+        inputMap.put(KeyStroke.getKeyStroke(KeyEvent.VK_DOWN, 0), "rowDown");
+        inputMap.put(KeyStroke.getKeyStroke(KeyEvent.VK_PAGE_UP, 0), "pageUp");
+        inputMap.put(KeyStroke.getKeyStroke(KeyEvent.VK_PAGE_DOWN, 0), "pageDown");
+        inputMap.put(KeyStroke.getKeyStroke(KeyEvent.VK_HOME, InputEvent.CTRL_DOWN_MASK), "start");
+        inputMap.put(KeyStroke.getKeyStroke(KeyEvent.VK_END, InputEvent.CTRL_DOWN_MASK), "end");
+        inputMap.put(KeyStroke.getKeyStroke(KeyEvent.VK_C, InputEvent.CTRL_DOWN_MASK), "copy");
+        inputMap.put(KeyStroke.getKeyStroke(KeyEvent.VK_A, InputEvent.CTRL_DOWN_MASK), "selectAll");
+        actionMap.put("rowUp", new ScrollAction(-1, false));
+        actionMap.put("rowDown", new ScrollAction(1, false));
+        actionMap.put("pageUp", new ScrollAction(-1, true));
+        actionMap.put("pageDown", new ScrollAction(1, true));
+        actionMap.put("start", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                setFirstRow(0);
+            }
+        });
+        actionMap.put("end", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                setFirstRow(rowCount);
+            }
+        });
+        actionMap.put("copy", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                copy();
+            }
+        });
+        actionMap.put("selectAll", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                selectAll();
+            }
+        });
+    }
+
+    /**
+     * Scrolls by a row or by the rows in view.
+     */
+    private class ScrollAction extends AbstractAction {
+
+        private final int sign;
+        private final boolean page;
+
+        ScrollAction(int sign, boolean page) {
+            this.sign = sign;
+            this.page = page;
+        }
+
+        @Override
+        public void actionPerformed(ActionEvent e) {
+            setFirstRow(firstRow + sign * (page ? getVisibleRows() : 1));
+        }
+    }
+
+    /**
+     * Paints the rows in view.
+     */
+    private class Rows extends JComponent {
+
+        @Override
+        protected void paintComponent(Graphics g) {
+            g.setColor(getBackground());
+            g.fillRect(0, 0, getWidth(), getHeight());
+            FontMetrics fm = g.getFontMetrics(getFont());
+            g.setFont(getFont());
+            int rowHeight = getRowHeight();
+            int visibleRows = getVisibleRows() + 1;
+            long selStart = Math.min(selectionStart, selectionEnd);
+            long selEnd = Math.max(selectionStart, selectionEnd);
+            Color selectionColor = UIManager.getColor("TextArea.selectionBackground");
+            if (selectionColor == null) {
+                selectionColor = new Color(184, 207, 229);
+            }
+            for (int i = 0; i < visibleRows && firstRow + i < rowCount; i++) {
+                long row = firstRow + i;
+                int y = i * rowHeight;
+                if (selectionStart >= 0 && row >= selStart && row <= selEnd) {
+                    g.setColor(selectionColor);
+                    g.fillRect(0, y, getWidth(), rowHeight);
+                }
+                g.setColor(getForeground());
+                g.drawString(getRowText(row, false), 2, y + fm.getAscent());
+            }
+        }
+    }
+}
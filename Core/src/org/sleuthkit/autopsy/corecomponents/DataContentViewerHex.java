@@ -19,30 +19,32 @@
 package org.sleuthkit.autopsy.corecomponents;
 
 import java.awt.Component;
-import java.awt.Cursor;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.util.logging.Level;
 import org.sleuthkit.autopsy.coreutils.Logger;
 import javax.swing.JMenuItem;
 import javax.swing.JOptionPane;
-import javax.swing.JTextPane;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
 import org.openide.nodes.Node;
 import org.openide.util.lookup.ServiceProvider;
 import org.sleuthkit.autopsy.corecomponentinterfaces.DataContentViewer;
-import org.sleuthkit.autopsy.datamodel.DataConversion;
 import org.sleuthkit.datamodel.Content;
-import org.sleuthkit.datamodel.TskException;
 
 /**
  * Hex view of file contents.
+ *
+ * The whole content can be scrolled through, the HexView reads the parts in
+ * view in the background. The pages are kept for the page navigation, as fixed
+ * size sections of the content, and the page of the first row in view is
+ * shown as the current page.
  */
 @ServiceProvider(service = DataContentViewer.class, position = 1)
 public class DataContentViewerHex extends javax.swing.JPanel implements DataContentViewer {
     private static final long pageLength = 16384;
-    private final byte[] data = new byte[(int) pageLength];
-    private static int currentPage = 1;
-    private int totalPages;
+    private int currentPage = 1;
+    private long totalPages;
     private Content dataSource;
 
     private static final Logger logger = Logger.getLogger(DataContentViewerHex.class.getName());
@@ -58,20 +60,27 @@ public DataContentViewerHex() {
     }
 
     private void customizeComponents() {
-        outputViewPane.setComponentPopupMenu(rightClickMenu);
+        hexView.setComponentPopupMenu(rightClickMenu);
         ActionListener actList = new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
                 JMenuItem jmi = (JMenuItem) e.getSource();
                 if (jmi.equals(copyMenuItem)) {
-                    outputViewPane.copy();
+                    hexView.copy();
                 } else if (jmi.equals(selectAllMenuItem)) {
-                    outputViewPane.selectAll();
+                    hexView.selectAll();
                 }
             }
         };
         copyMenuItem.addActionListener(actList);
         selectAllMenuItem.addActionListener(actList);
+        hexView.addChangeListener(new ChangeListener() {
+            @Override
+            public void stateChanged(ChangeEvent e) {
+                updatePageControls();
+            }
+        });
+        goToPageTextField.setToolTipText("Page number, or an offset in hex starting with 0x");
     }
 
     /**
@@ -88,11 +97,7 @@ private void initComponents() {
         selectAllMenuItem = new javax.swing.JMenuItem();
         hexViewerPanel = new javax.swing.JPanel();
         jScrollPane1 = new javax.swing.JScrollPane();
-        outputViewPane = new JTextPane(){
-     public boolean getScrollableTracksViewportWidth() {
-     return (getSize().width < 400);
- }};
-        this.outputViewPane.setBackground(new java.awt.Color(255, 255, 255)); // to make sure the background color is white
+        hexView = new org.sleuthkit.autopsy.corecomponents.HexView();
         totalPageLabel = new javax.swing.JLabel();
         ofLabel = new javax.swing.JLabel();
         currentPageLabel = new javax.swing.JLabel();
@@ -111,11 +116,8 @@ public boolean getScrollableTracksViewportWidth() {
 
         jScrollPane1.setBackground(new java.awt.Color(255, 255, 255));
 
-        outputViewPane.setEditable(false);
-        outputViewPane.setFont(new java.awt.Font("Courier New", 0, 11)); // NOI18N
-        outputViewPane.setMinimumSize(new java.awt.Dimension(700, 20));
-        outputViewPane.setPreferredSize(new java.awt.Dimension(700, 400));
-        jScrollPane1.setViewportView(outputViewPane);
+        hexView.setFont(new java.awt.Font("Courier New", 0, 11)); // NOI18N
+        jScrollPane1.setViewportView(hexView);
 
         totalPageLabel.setText(org.openide.util.NbBundle.getMessage(DataContentViewerHex.class, "DataContentViewerHex.totalPageLabel.text_1")); // NOI18N
 
@@ -248,11 +250,28 @@ private void nextPageButtonActionPerformed(java.awt.event.ActionEvent evt) {//GE
     }//GEN-LAST:event_nextPageButtonActionPerformed
 
     private void goToPageTextFieldActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_goToPageTextFieldActionPerformed
-        String pageNumberStr = goToPageTextField.getText();
-        int pageNumber = 0;
-        
+        String pageNumberStr = goToPageTextField.getText().trim();
+        long pageNumber = 0;
+
+        if (pageNumberStr.toLowerCase().startsWith("0x")) {
+            // jump to an offset
+            long offset = -1;
+            try {
+                offset = Long.parseLong(pageNumberStr.substring(2), 16);
+            } catch (NumberFormatException ex) {
+            }
+            if (dataSource == null || offset < 0 || offset >= dataSource.getSize()) {
+                JOptionPane.showMessageDialog(this, "Please enter a valid offset between 0x0 and 0x"
+                        + Long.toHexString(dataSource == null ? 0 : dataSource.getSize() - 1),
+                        "Invalid offset", JOptionPane.WARNING_MESSAGE);
+                return;
+            }
+            hexView.scrollToOffset(offset);
+            return;
+        }
+
         try {
-            pageNumber = Integer.parseInt(pageNumberStr);
+            pageNumber = Long.parseLong(pageNumberStr);
         } catch (NumberFormatException ex) {
             pageNumber = totalPages + 1;
         }
@@ -261,18 +280,18 @@ private void goToPageTextFieldActionPerformed(java.awt.event.ActionEvent evt) {/
                     "Invalid page number", JOptionPane.WARNING_MESSAGE);
             return;
         }
-        setDataView(pageNumber);
+        setDataView((int) pageNumber);
     }//GEN-LAST:event_goToPageTextFieldActionPerformed
     // Variables declaration - do not modify//GEN-BEGIN:variables
     private javax.swing.JMenuItem copyMenuItem;
     private javax.swing.JLabel currentPageLabel;
     private javax.swing.JLabel goToPageLabel;
     private javax.swing.JTextField goToPageTextField;
+    private org.sleuthkit.autopsy.corecomponents.HexView hexView;
     private javax.swing.JPanel hexViewerPanel;
     private javax.swing.JScrollPane jScrollPane1;
     private javax.swing.JButton nextPageButton;
     private javax.swing.JLabel ofLabel;
-    private javax.swing.JTextPane outputViewPane;
     private javax.swing.JLabel pageLabel;
     private javax.swing.JLabel pageLabel2;
     private javax.swing.JButton prevPageButton;
@@ -292,65 +311,25 @@ private void setDataView(int page) {
             return;
         }
         
-        if (page == 0) {
+        if (page < 1 || page > totalPages) {
             return;
         }
         
-        currentPage = page;
-        long offset = (currentPage - 1) * pageLength;
-        
-        // change the cursor to "waiting cursor" for this operation
-        this.setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
-
-        String errorText = null;     
-
-        int bytesRead = 0;
-        if (dataSource.getSize() > 0) {
-            try {
-                bytesRead = dataSource.read(data, offset, pageLength); // read the data
-            } catch (TskException ex) {
-                errorText = "(offset " + offset + "-" + (offset + pageLength)
-                    + " could not be read)";
-                logger.log(Level.WARNING, "Error while trying to show the hex content.", ex);
-            }
-        }
-
-        // set the data on the bottom and show it
-        if (bytesRead <= 0) {
-            errorText = "(offset " + offset + "-" + (offset + pageLength)
-                    + " could not be read)";
-        }
-        
-
-        // disable or enable the next button
-        if ((errorText == null) && (currentPage < totalPages)) {
-            nextPageButton.setEnabled(true);
-        } 
-        else {
-            nextPageButton.setEnabled(false);
-        }
+        hexView.scrollToOffset((page - 1) * pageLength);
+        updatePageControls();
+    }
 
-        if ((errorText == null) && (currentPage > 1)) {
-            prevPageButton.setEnabled(true);
-        } 
-        else {
-            prevPageButton.setEnabled(false);
+    /**
+     * Show the page of the first row in view, and enable the page buttons.
+     */
+    private void updatePageControls() {
+        if (this.dataSource == null) {
+            return;
         }
-        
+        currentPage = (int) (hexView.getFirstOffset() / pageLength) + 1;
+        nextPageButton.setEnabled(currentPage < totalPages);
+        prevPageButton.setEnabled(currentPage > 1);
         currentPageLabel.setText(Integer.toString(currentPage));
-        setComponentsVisibility(true); // shows the components that not needed
-
-        // set the output view
-        if (errorText == null) {
-            int showLength = bytesRead < pageLength ? bytesRead : (int) pageLength;
-            outputViewPane.setText(DataConversion.byteArrayToHex(data, showLength, offset));
-        }
-        else {
-            outputViewPane.setText(errorText);
-        }
-
-        outputViewPane.setCaretPosition(0);
-        this.setCursor(null);
     }
 
     @Override
@@ -369,11 +348,13 @@ public void setNode(Node selectedNode) {
         dataSource = content;
         totalPages = 0;
         if (dataSource.getSize() > 0) {
-            totalPages = Math.round((dataSource.getSize() - 1) / pageLength) + 1;
+            totalPages = (dataSource.getSize() - 1) / pageLength + 1;
         }
-        totalPageLabel.setText(Integer.toString(totalPages));
-            
-        this.setDataView(1);
+        totalPageLabel.setText(Long.toString(totalPages));
+        setComponentsVisibility(true);
+
+        hexView.setContent(dataSource);
+        updatePageControls();
     }
 
     @Override
@@ -399,7 +380,7 @@ public void resetComponent() {
         this.dataSource = null;
         currentPageLabel.setText("");
         totalPageLabel.setText("");
-        outputViewPane.setText("");
+        hexView.setContent(null);
         setComponentsVisibility(false); // hides the components that not needed
     }
 
@@ -452,7 +433,7 @@ private void maybeShowPopup(java.awt.event.MouseEvent evt) {
         if (evt.isPopupTrigger()) {
             rightClickMenu.setLocation(evt.getLocationOnScreen());
             rightClickMenu.setVisible(true);
-            copyMenuItem.setEnabled(outputViewPane.getSelectedText() != null);
+            copyMenuItem.setEnabled(hexView.hasSelection());
         } else {
             rightClickMenu.setVisible(false);
         }
@@ -19,7 +19,6 @@
 package org.sleuthkit.autopsy.corecomponents;
 
 import java.awt.Component;
-import java.awt.Cursor;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.util.List;
@@ -27,17 +26,16 @@
 import org.sleuthkit.autopsy.coreutils.Logger;
 import javax.swing.JMenuItem;
 import javax.swing.JOptionPane;
-import javax.swing.JTextPane;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
 import org.openide.nodes.Node;
 import org.openide.util.Lookup;
 import org.openide.util.lookup.ServiceProvider;
 import org.sleuthkit.autopsy.corecomponentinterfaces.DataContentViewer;
 import org.sleuthkit.autopsy.coreutils.StringExtract;
-import org.sleuthkit.autopsy.coreutils.StringExtract.StringExtractResult;
 import org.sleuthkit.autopsy.coreutils.StringExtract.StringExtractUnicodeTable.SCRIPT;
 import org.sleuthkit.autopsy.datamodel.StringContent;
 import org.sleuthkit.datamodel.Content;
-import org.sleuthkit.datamodel.TskException;
 
 /**
  * Viewer displays strings extracted from contents.
@@ -45,13 +43,11 @@
 @ServiceProvider(service = DataContentViewer.class, position = 2)
 public class DataContentViewerString extends javax.swing.JPanel implements DataContentViewer {
 
-    private static long currentOffset = 0;
-    private static final long pageLength = 16384;
-    private final byte[] data = new byte[(int) pageLength];
-    private static int currentPage = 1;
+    // a page is a chunk of the strings index
+    private static final long pageLength = StringsIndex.CHUNK_SIZE;
+    private int currentPage = 1;
+    private int totalPages = 0;
     private Content dataSource;
-    //string extract utility
-    private final StringExtract stringExtract = new StringExtract();
     private static final Logger logger = Logger.getLogger(DataContentViewerString.class.getName());
 
     /**
@@ -65,20 +61,26 @@ public DataContentViewerString() {
     }
 
     private void customizeComponents() {
-        outputViewPane.setComponentPopupMenu(rightClickMenu);
+        stringsView.setComponentPopupMenu(rightClickMenu);
         ActionListener actList = new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
                 JMenuItem jmi = (JMenuItem) e.getSource();
                 if (jmi.equals(copyMenuItem)) {
-                    outputViewPane.copy();
+                    stringsView.copy();
                 } else if (jmi.equals(selectAllMenuItem)) {
-                    outputViewPane.selectAll();
+                    stringsView.selectAll();
                 }
             }
         };
         copyMenuItem.addActionListener(actList);
         selectAllMenuItem.addActionListener(actList);
+        stringsView.addChangeListener(new ChangeListener() {
+            @Override
+            public void stateChanged(ChangeEvent e) {
+                updatePageControls();
+            }
+        });
 
         List<SCRIPT> supportedScripts = StringExtract.getSupportedScripts();
         for (SCRIPT s : supportedScripts) {
@@ -101,10 +103,7 @@ private void initComponents() {
         selectAllMenuItem = new javax.swing.JMenuItem();
         jPanel1 = new javax.swing.JPanel();
         jScrollPane1 = new javax.swing.JScrollPane();
-        outputViewPane = new JTextPane(){
-     public boolean getScrollableTracksViewportWidth() {
-     return (getSize().width < 400);
- }};
+        stringsView = new org.sleuthkit.autopsy.corecomponents.StringsView();
         totalPageLabel = new javax.swing.JLabel();
         ofLabel = new javax.swing.JLabel();
         currentPageLabel = new javax.swing.JLabel();
@@ -116,6 +115,8 @@ public boolean getScrollableTracksViewportWidth() {
         goToPageTextField = new javax.swing.JTextField();
         languageCombo = new javax.swing.JComboBox<>();
         languageLabel = new javax.swing.JLabel();
+        findLabel = new javax.swing.JLabel();
+        findTextField = new javax.swing.JTextField();
 
         copyMenuItem.setText(org.openide.util.NbBundle.getMessage(DataContentViewerString.class, "DataContentViewerString.copyMenuItem.text")); // NOI18N
         rightClickMenu.add(copyMenuItem);
@@ -127,10 +128,8 @@ public boolean getScrollableTracksViewportWidth() {
 
         jPanel1.setPreferredSize(new java.awt.Dimension(502, 424));
 
-        outputViewPane.setEditable(false);
-        outputViewPane.setFont(new java.awt.Font("Courier New", 0, 11)); // NOI18N
-        outputViewPane.setPreferredSize(new java.awt.Dimension(700, 400));
-        jScrollPane1.setViewportView(outputViewPane);
+        stringsView.setFont(new java.awt.Font("Courier New", 0, 11)); // NOI18N
+        jScrollPane1.setViewportView(stringsView);
 
         totalPageLabel.setText(org.openide.util.NbBundle.getMessage(DataContentViewerString.class, "DataContentViewerString.totalPageLabel.text_1")); // NOI18N
 
@@ -198,6 +197,15 @@ public void actionPerformed(java.awt.event.ActionEvent evt) {
         languageLabel.setText(org.openide.util.NbBundle.getMessage(DataContentViewerString.class, "DataContentViewerString.languageLabel.text")); // NOI18N
         languageLabel.setToolTipText(org.openide.util.NbBundle.getMessage(DataContentViewerString.class, "DataContentViewerString.languageLabel.toolTipText")); // NOI18N
 
+        findLabel.setText(org.openide.util.NbBundle.getMessage(DataContentViewerString.class, "DataContentViewerString.findLabel.text")); // NOI18N
+
+        findTextField.setToolTipText(org.openide.util.NbBundle.getMessage(DataContentViewerString.class, "DataContentViewerString.findTextField.toolTipText")); // NOI18N
+        findTextField.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                findTextFieldActionPerformed(evt);
+            }
+        });
+
         javax.swing.GroupLayout jPanel1Layout = new javax.swing.GroupLayout(jPanel1);
         jPanel1.setLayout(jPanel1Layout);
         jPanel1Layout.setHorizontalGroup(
@@ -224,7 +232,11 @@ public void actionPerformed(java.awt.event.ActionEvent evt) {
                 .addGap(33, 33, 33)
                 .addComponent(languageLabel)
                 .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
-                .addComponent(languageCombo, javax.swing.GroupLayout.PREFERRED_SIZE, 155, javax.swing.GroupLayout.PREFERRED_SIZE))
+                .addComponent(languageCombo, javax.swing.GroupLayout.PREFERRED_SIZE, 155, javax.swing.GroupLayout.PREFERRED_SIZE)
+                .addGap(33, 33, 33)
+                .addComponent(findLabel)
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                .addComponent(findTextField, javax.swing.GroupLayout.PREFERRED_SIZE, 120, javax.swing.GroupLayout.PREFERRED_SIZE))
             .addComponent(jScrollPane1, javax.swing.GroupLayout.PREFERRED_SIZE, 0, Short.MAX_VALUE)
         );
         jPanel1Layout.setVerticalGroup(
@@ -243,7 +255,9 @@ public void actionPerformed(java.awt.event.ActionEvent evt) {
                     .addGroup(jPanel1Layout.createParallelGroup(javax.swing.GroupLayout.Alignment.BASELINE)
                         .addComponent(goToPageTextField, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE)
                         .addComponent(languageCombo, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE)
-                        .addComponent(languageLabel)))
+                        .addComponent(languageLabel)
+                        .addComponent(findLabel)
+                        .addComponent(findTextField, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE)))
                 .addGap(0, 0, 0)
                 .addComponent(jScrollPane1, javax.swing.GroupLayout.DEFAULT_SIZE, 401, Short.MAX_VALUE))
         );
@@ -261,25 +275,20 @@ public void actionPerformed(java.awt.event.ActionEvent evt) {
     }// </editor-fold>//GEN-END:initComponents
 
     private void prevPageButtonActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_prevPageButtonActionPerformed
-        //@@@ this is part of the code dealing with the data viewer. could be copied/removed to implement the scrollbar
-        currentOffset -= pageLength;
-        currentPage = currentPage - 1;
-        currentPageLabel.setText(Integer.toString(currentPage));
-        setDataView(dataSource, currentOffset);
+        goToPage(currentPage - 1);
     }//GEN-LAST:event_prevPageButtonActionPerformed
 
     private void nextPageButtonActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_nextPageButtonActionPerformed
-        //@@@ this is part of the code dealing with the data viewer. could be copied/removed to implement the scrollbar
-        currentOffset += pageLength;
-        currentPage = currentPage + 1;
-        currentPageLabel.setText(Integer.toString(currentPage));
-        setDataView(dataSource, currentOffset);
+        goToPage(currentPage + 1);
     }//GEN-LAST:event_nextPageButtonActionPerformed
 
     private void goToPageTextFieldActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_goToPageTextFieldActionPerformed
+        if (dataSource == null) {
+            return;
+        }
         String pageNumberStr = goToPageTextField.getText();
         int pageNumber;
-        int maxPage = Math.round((dataSource.getSize() - 1) / pageLength) + 1;
+        int maxPage = totalPages;
         try {
             pageNumber = Integer.parseInt(pageNumberStr);
         } catch (NumberFormatException ex) {
@@ -290,21 +299,39 @@ private void goToPageTextFieldActionPerformed(java.awt.event.ActionEvent evt) {/
                     "Invalid page number", JOptionPane.WARNING_MESSAGE);
             return;
         }
-        currentOffset = (pageNumber - 1) * pageLength;
-        currentPage = pageNumber;
-        currentPageLabel.setText(Integer.toString(currentPage));
-        setDataView(dataSource, currentOffset);
+        goToPage(pageNumber);
     }//GEN-LAST:event_goToPageTextFieldActionPerformed
 
     private void languageComboActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_languageComboActionPerformed
 
         if (dataSource != null) {
-            setDataView(dataSource, currentOffset);
+            // the strings of each script are indexed separately
+            stringsView.setContent(dataSource, (SCRIPT) languageCombo.getSelectedItem());
+            updatePageControls();
         }
     }//GEN-LAST:event_languageComboActionPerformed
+
+    private void findTextFieldActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_findTextFieldActionPerformed
+        final String text = findTextField.getText();
+        if (text.isEmpty()) {
+            return;
+        }
+        stringsView.find(text, new StringsView.FindListener() {
+            @Override
+            public void findDone(boolean found) {
+                if (!found) {
+                    String scanned = stringsView.isScanComplete() ? "" : " in the part of the file scanned so far";
+                    JOptionPane.showMessageDialog(DataContentViewerString.this, "No string containing \"" + text + "\" was found" + scanned + ".",
+                            "Not found", JOptionPane.INFORMATION_MESSAGE);
+                }
+            }
+        });
+    }//GEN-LAST:event_findTextFieldActionPerformed
     // Variables declaration - do not modify//GEN-BEGIN:variables
     private javax.swing.JMenuItem copyMenuItem;
     private javax.swing.JLabel currentPageLabel;
+    private javax.swing.JLabel findLabel;
+    private javax.swing.JTextField findTextField;
     private javax.swing.JLabel goToPageLabel;
     private javax.swing.JTextField goToPageTextField;
     private javax.swing.JPanel jPanel1;
@@ -313,12 +340,12 @@ private void languageComboActionPerformed(java.awt.event.ActionEvent evt) {//GEN
     private javax.swing.JLabel languageLabel;
     private javax.swing.JButton nextPageButton;
     private javax.swing.JLabel ofLabel;
-    private javax.swing.JTextPane outputViewPane;
     private javax.swing.JLabel pageLabel;
     private javax.swing.JLabel pageLabel2;
     private javax.swing.JButton prevPageButton;
     private javax.swing.JPopupMenu rightClickMenu;
     private javax.swing.JMenuItem selectAllMenuItem;
+    private org.sleuthkit.autopsy.corecomponents.StringsView stringsView;
     private javax.swing.JLabel totalPageLabel;
     // End of variables declaration//GEN-END:variables
 
@@ -341,63 +368,48 @@ private void setDataView(Content dataSource, long offset) {
         if (dataSource == null) {
             return;
         }
-        
-        // change the cursor to "waiting cursor" for this operation
-        this.setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
-
-        this.dataSource = dataSource;
 
-        int bytesRead = 0;
-        // set the data on the bottom and show it
-        String text = "";
-        if (dataSource.getSize() > 0) {
-            try {
-                bytesRead = dataSource.read(data, offset, pageLength); // read the data
-            } catch (TskException ex) {
-                text = "(offset " + currentOffset + "-" + (currentOffset + pageLength)
-                        + " could not be read)";
-                logger.log(Level.WARNING, "Error while trying to show the String content.", ex);
-            }
+        if (dataSource != this.dataSource) {
+            this.dataSource = dataSource;
+            totalPages = (int) ((dataSource.getSize() - 1) / pageLength) + 1;
+            totalPageLabel.setText(Integer.toString(totalPages));
+            stringsView.setContent(dataSource, (SCRIPT) languageCombo.getSelectedItem());
+            setComponentsVisibility(true); // shows the components that not needed
         }
-
-        if (bytesRead > 0) {
-            //text = DataConversion.getString(data, bytesRead, 4);
-            final SCRIPT selScript = (SCRIPT) languageCombo.getSelectedItem();
-            stringExtract.setEnabledScript(selScript);
-            StringExtractResult res = stringExtract.extract(data, bytesRead, 0);
-            text = res.getText();
-            if (text.trim().isEmpty()) {
-                text = "(offset " + currentOffset + "-" + (currentOffset + pageLength)
-                        + " contains no text)";
-            }
-        } else {
-            text = "(offset " + currentOffset + "-" + (currentOffset + pageLength)
-                    + " could not be read)";
+        if (offset > 0) {
+            goToPage((int) (offset / pageLength) + 1);
         }
+        updatePageControls();
+    }
 
-        // disable or enable the next button
-        if (offset + pageLength < dataSource.getSize()) {
-            nextPageButton.setEnabled(true);
-        } else {
-            nextPageButton.setEnabled(false);
+    /**
+     * Scroll to the strings of a page, if it is scanned already.
+     *
+     * @param page page to show (1-based counting)
+     */
+    private void goToPage(int page) {
+        if (dataSource == null || page < 1 || page > totalPages) {
+            return;
         }
-
-        if (offset == 0) {
-            prevPageButton.setEnabled(false);
-            currentPage = 1; // reset the page number
-        } else {
-            prevPageButton.setEnabled(true);
+        if (!stringsView.scrollToChunk(page - 1)) {
+            JOptionPane.showMessageDialog(this, "Page " + page + " has not been scanned for strings yet, please try again later.",
+                    "Page not scanned", JOptionPane.INFORMATION_MESSAGE);
+            return;
         }
+        updatePageControls();
+    }
 
-        
-        int totalPage = Math.round((dataSource.getSize() - 1) / pageLength) + 1;
-        totalPageLabel.setText(Integer.toString(totalPage));
+    /**
+     * Show the page of the first string in view, and enable the page buttons.
+     */
+    private void updatePageControls() {
+        if (dataSource == null) {
+            return;
+        }
+        currentPage = stringsView.getFirstChunk() + 1;
         currentPageLabel.setText(Integer.toString(currentPage));
-        outputViewPane.setText(text); // set the output view
-        setComponentsVisibility(true); // shows the components that not needed
-        outputViewPane.moveCaretPosition(0);
-
-        this.setCursor(null);
+        prevPageButton.setEnabled(currentPage > 1);
+        nextPageButton.setEnabled(currentPage < totalPages);
     }
 
     /**
@@ -417,6 +429,8 @@ private void setComponentsVisibility(boolean isVisible) {
         goToPageLabel.setVisible(isVisible);
         languageCombo.setVisible(isVisible);
         languageLabel.setVisible(isVisible);
+        findLabel.setVisible(isVisible);
+        findTextField.setVisible(isVisible);
     }
 
     @Override
@@ -460,13 +474,13 @@ public DataContentViewer createInstance() {
     public void resetComponent() {
         // clear / reset the fields
         currentPage = 1;
-        currentOffset = 0;
+        totalPages = 0;
         this.dataSource = null;
         currentPageLabel.setText("");
         totalPageLabel.setText("");
         prevPageButton.setEnabled(false);
         nextPageButton.setEnabled(false);
-        outputViewPane.setText(""); // reset the output view
+        stringsView.setContent(null, null); // reset the output view
         setComponentsVisibility(false); // hides the components that not needed
     }
 
@@ -498,27 +512,21 @@ public Component getComponent() {
     }
 
     private void setDataView(StringContent dataSource) {
-        this.setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
-        try {
-            this.dataSource = null;
+        this.dataSource = null;
 
-            // set the data on the bottom and show it
-            String text = dataSource.getString();
+        // set the data on the bottom and show it
+        String text = dataSource.getString();
 
-            nextPageButton.setEnabled(false);
+        nextPageButton.setEnabled(false);
 
-            prevPageButton.setEnabled(false);
-            currentPage = 1;
+        prevPageButton.setEnabled(false);
+        currentPage = 1;
 
-            int totalPage = 1;
-            totalPageLabel.setText(Integer.toString(totalPage));
-            currentPageLabel.setText(Integer.toString(currentPage));
-            outputViewPane.setText(text); // set the output view
-            setComponentsVisibility(true); // shows the components that not needed
-            outputViewPane.moveCaretPosition(0);
-        } finally {
-            this.setCursor(null);
-        }
+        totalPages = 1;
+        totalPageLabel.setText(Integer.toString(totalPages));
+        currentPageLabel.setText(Integer.toString(currentPage));
+        stringsView.setText(text); // set the output view
+        setComponentsVisibility(true); // shows the components that not needed
     }
 
     /* Show the right click menu only if evt is the correct mouse event */
@@ -526,7 +534,7 @@ private void maybeShowPopup(java.awt.event.MouseEvent evt) {
         if (evt.isPopupTrigger()) {
             rightClickMenu.setLocation(evt.getLocationOnScreen());
             rightClickMenu.setVisible(true);
-            copyMenuItem.setEnabled(outputViewPane.getSelectedText() != null);
+            copyMenuItem.setEnabled(stringsView.hasSelection());
         } else {
             rightClickMenu.setVisible(false);
         }
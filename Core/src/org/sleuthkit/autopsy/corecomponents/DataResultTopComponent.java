@@ -320,7 +320,13 @@ public Node getRootNode() {
         return dataResultPanel.getRootNode();
     }
 
-    void setNumMatches(int matches) {
+    /**
+     * Set the number of matches shown, for results that are added after the
+     * window is created.
+     *
+     * @param matches number of matches
+     */
+    public void setNumMatches(int matches) {
         this.dataResultPanel.setNumMatches(matches);
     }
 }
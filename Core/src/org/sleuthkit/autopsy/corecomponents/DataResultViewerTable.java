@@ -217,9 +217,11 @@ private Node.Property[] getAllChildPropertyHeaders(Node parent) {
      */
     private void getAllChildPropertyHeadersRec(Node parent, int rows) {
         Children children = parent.getChildren();
-        int childCount = 0;
-        for (Node child : children.getNodes()) {            
-            if (++childCount > rows) {
+        // only touch the first rows, getNodes() would create the nodes of all of the children
+        int childCount = Math.min(rows, children.getNodesCount());
+        for (int i = 0; i < childCount; ++i) {
+            Node child = children.getNodeAt(i);
+            if (child == null) {
                 break;
             }
             for (PropertySet ps : child.getPropertySets()) {
@@ -381,12 +383,14 @@ private void setupTable(final Node root) {
     // Populate a two-dimensional array with rows of property values for up 
     // to maxRows children of the node passed in. 
     private static Object[][] getRowValues(Node node, int maxRows) {
-        Object[][] rowValues = new Object[Math.min(maxRows, node.getChildren().getNodesCount())][];        
+        Children children = node.getChildren();
+        Object[][] rowValues = new Object[Math.min(maxRows, children.getNodesCount())][];
         int rowCount = 0;
-        for (Node child : node.getChildren().getNodes()) {
-            if (rowCount >= maxRows) {
+        while (rowCount < rowValues.length) {
+            Node child = children.getNodeAt(rowCount);
+            if (child == null) {
                 break;
-            }                
+            }
             PropertySet[] propertySets = child.getPropertySets();
             if (propertySets.length > 0)
             {
@@ -414,6 +414,7 @@ protected Object doInBackground() throws Exception {
                 Node pageNode = root.getChildren().getNodeAt(curPage - 1);    
                 em.setExploredContext(pageNode);
                 curPageImages = pageNode.getChildren().getNodesCount();
+                prefetchThumbnails();
                 return null;
             }
 
@@ -427,6 +428,19 @@ protected void done() {
 
     }
 
+    /**
+     * Make the thumbnails of the current and the next page in the background,
+     * dropping the requests for the pages shown before.
+     */
+    private void prefetchThumbnails() {
+        Children children = em.getRootContext().getChildren();
+        if (children instanceof ThumbnailViewChildren) {
+            ThumbnailLoader.getInstance().cancelPrefetch();
+            ((ThumbnailViewChildren) children).prefetchPage(curPage);
+            ((ThumbnailViewChildren) children).prefetchPage(curPage + 1);
+        }
+    }
+
     private void updateControls() {
         if (totalPages == 0) {
             pagePrevButton.setEnabled(false);
@@ -509,6 +523,7 @@ public void propertyChange(PropertyChangeEvent evt) {
                 });
 
                 em.setExploredContext(pageNode);
+                prefetchThumbnails();
             }
 
 
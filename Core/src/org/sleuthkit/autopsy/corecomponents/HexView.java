@@ -0,0 +1,138 @@
+/*
+ * Autopsy Forensic Browser
+ *
+ * Copyright 2013 Basis Technology Corp.
+ * Contact: carrier <at> sleuthkit <dot> org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.sleuthkit.autopsy.corecomponents;
+
+import java.util.Arrays;
+import javax.swing.SwingUtilities;
+import org.sleuthkit.autopsy.datamodel.DataConversion;
+import org.sleuthkit.datamodel.Content;
+
+/**
+ * Hex dump of arbitrarily large content.
+ *
+ * The rows in view are formatted from the blocks of a ContentBlockCache.
+ * Blocks that are not read yet are shown as being read and painted when the
+ * reader thread has them, and the blocks after (or before) the view are read
+ * ahead in the direction the user scrolls.
+ */
+class HexView extends ContentRowView {
+
+    private static final int BYTES_PER_ROW = 16;
+    private static final int ROWS_PER_BLOCK = ContentBlockCache.BLOCK_SIZE / BYTES_PER_ROW;
+    // characters of a row of the hex dump, with a longer offset for content over 4 GB
+    private static final int ROW_CHARS = 82;
+    private static final int READ_AHEAD_BLOCKS = 4;
+    private ContentBlockCache cache;
+
+    HexView() {
+        super(ROW_CHARS);
+    }
+
+    /**
+     * Show content, or nothing.
+     *
+     * @param content content to show, or null
+     */
+    void setContent(Content content) {
+        if (cache != null) {
+            cache.close();
+            cache = null;
+        }
+        long rows = 0;
+        if (content != null && content.getSize() > 0) {
+            cache = new ContentBlockCache(content, new ContentBlockCache.Listener() {
+                @Override
+                public void blockLoaded(final long blockIndex) {
+                    SwingUtilities.invokeLater(new Runnable() {
+                        @Override
+                        public void run() {
+                            blockShown(blockIndex);
+                        }
+                    });
+                }
+            });
+            rows = (content.getSize() + BYTES_PER_ROW - 1) / BYTES_PER_ROW;
+        }
+        setRowCount(rows, true);
+    }
+
+    /**
+     * @return offset of the first row in view
+     */
+    long getFirstOffset() {
+        return getFirstRow() * BYTES_PER_ROW;
+    }
+
+    /**
+     * Scroll so that the row of an offset is the first row in view, and
+     * select it.
+     *
+     * @param offset offset in the content
+     */
+    void scrollToOffset(long offset) {
+        scrollToRow(offset / BYTES_PER_ROW);
+    }
+
+    @Override
+    void rowsShown(long firstRow, long lastRow, int direction) {
+        if (cache == null) {
+            return;
+        }
+        if (direction > 0) {
+            cache.readAhead(lastRow / ROWS_PER_BLOCK, 1, READ_AHEAD_BLOCKS);
+        } else {
+            cache.readAhead(firstRow / ROWS_PER_BLOCK, -1, READ_AHEAD_BLOCKS);
+        }
+    }
+
+    /**
+     * Repaint if a read block is in view.
+     */
+    private void blockShown(long blockIndex) {
+        long firstBlock = getFirstRow() / ROWS_PER_BLOCK;
+        long lastBlock = (getFirstRow() + getVisibleRows()) / ROWS_PER_BLOCK;
+        if (blockIndex >= firstBlock && blockIndex <= lastBlock) {
+            repaintRows();
+        }
+    }
+
+    /**
+     * Format a row in the layout of DataConversion.byteArrayToHex(). Blocks
+     * that are not cached are read in the calling thread when waiting.
+     */
+    @Override
+    String getRowText(long row, boolean wait) {
+        if (cache == null) {
+            return "";
+        }
+        long offset = row * BYTES_PER_ROW;
+        long blockIndex = row / ROWS_PER_BLOCK;
+        byte[] block = wait ? cache.readBlock(blockIndex) : cache.getBlock(blockIndex);
+        if (block == null && !cache.isFailed(blockIndex)) {
+            return String.format("0x%08x: ", offset) + "...";
+        }
+        int start = (int) (offset % ContentBlockCache.BLOCK_SIZE);
+        if (block == null || start >= block.length) {
+            return String.format("0x%08x: ", offset) + "(could not be read)";
+        }
+        int length = Math.min(BYTES_PER_ROW, block.length - start);
+        String text = DataConversion.byteArrayToHex(Arrays.copyOfRange(block, start, start + length), length, offset);
+        return text.endsWith("\n") ? text.substring(0, text.length() - 1) : text;
+    }
+}
@@ -0,0 +1,298 @@
+/*
+ * Autopsy Forensic Browser
+ *
+ * Copyright 2013 Basis Technology Corp.
+ * Contact: carrier <at> sleuthkit <dot> org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.sleuthkit.autopsy.corecomponents;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import org.sleuthkit.autopsy.casemodule.Case;
+import org.sleuthkit.autopsy.coreutils.Logger;
+import org.sleuthkit.autopsy.coreutils.StringExtract;
+import org.sleuthkit.autopsy.coreutils.StringExtract.StringExtractUnicodeTable.SCRIPT;
+import org.sleuthkit.datamodel.Content;
+import org.sleuthkit.datamodel.TskException;
+
+/**
+ * Index of the strings of a content, for one script: the number of strings
+ * extracted from each chunk of the content. The strings themselves are not
+ * kept, the strings of a chunk are extracted again when they are shown, so
+ * the index of even a disk image is small.
+ *
+ * The index is filled by a scan of the content on a thread of its own, which
+ * is stopped when the content is no longer viewed and resumed where it
+ * stopped when it is viewed again. The indexes of recently viewed content are
+ * kept, so that viewing the content again or switching back to a script does
+ * not scan it again. They are dropped when the current case changes, since
+ * object ids are only unique within a case.
+ */
+class StringsIndex {
+
+    /**
+     * Size of the chunks the strings are extracted from.
+     */
+    static final int CHUNK_SIZE = ContentBlockCache.BLOCK_SIZE;
+    private static final Logger logger = Logger.getLogger(StringsIndex.class.getName());
+    // chunks per group, the number of strings before each group is kept
+    private static final int GROUP_CHUNKS = 1024;
+    private static final int MAX_INDEXES = 8;
+    private static final Map<String, StringsIndex> indexes = new LinkedHashMap<String, StringsIndex>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, StringsIndex> eldest) {
+            return size() > MAX_INDEXES;
+        }
+    };
+    private static boolean listening = false;
+    private final Content content;
+    private final SCRIPT script;
+    private final long chunkCount;
+    // strings of each scanned chunk
+    private int[] chunkStrings = new int[GROUP_CHUNKS];
+    // strings before each group of scanned chunks
+    private long[] groupFirstStrings = new long[1];
+    private int scannedChunks = 0;
+    private long stringCount = 0;
+    private Thread scanner = null;
+
+    private StringsIndex(Content content, SCRIPT script) {
+        this.content = content;
+        this.script = script;
+        this.chunkCount = (content.getSize() + CHUNK_SIZE - 1) / CHUNK_SIZE;
+    }
+
+    /**
+     * Get the index of the strings of a content in a script, a new one if it
+     * was not viewed recently.
+     *
+     * @param content content
+     * @param script script of the strings
+     * @return the index, possibly not scanned yet
+     */
+    static synchronized StringsIndex get(Content content, SCRIPT script) {
+        if (!listening) {
+            Case.addPropertyChangeListener(new PropertyChangeListener() {
+                @Override
+                public void propertyChange(PropertyChangeEvent evt) {
+                    if (evt.getPropertyName().equals(Case.CASE_CURRENT_CASE)) {
+                        clear();
+                    }
+                }
+            });
+            listening = true;
+        }
+        String key = content.getId() + "-" + script.name();
+        StringsIndex index = indexes.get(key);
+        if (index == null) {
+            index = new StringsIndex(content, script);
+            indexes.put(key, index);
+        }
+        return index;
+    }
+
+    /**
+     * Drop the indexes of the content of the previous case, stopping their
+     * scans.
+     */
+    private static synchronized void clear() {
+        for (StringsIndex index : indexes.values()) {
+            index.stopScan();
+        }
+        indexes.clear();
+    }
+
+    /**
+     * Extract the strings of a chunk.
+     *
+     * @param extract string extractor, set to the script
+     * @param chunk the chunk, CHUNK_SIZE bytes or less at the end of the
+     * content
+     * @return the strings
+     */
+    static String[] extractStrings(StringExtract extract, byte[] chunk) {
+        String text = extract.extract(chunk, chunk.length, 0).getText();
+        if (text == null || text.isEmpty()) {
+            return new String[0];
+        }
+        // the extracted strings each end with a newline
+        return text.split("\n");
+    }
+
+    SCRIPT getScript() {
+        return script;
+    }
+
+    long getChunkCount() {
+        return chunkCount;
+    }
+
+    /**
+     * Scan the rest of the content, if it is not scanned yet or being
+     * scanned.
+     */
+    synchronized void startScan() {
+        if (scanner != null || isComplete()) {
+            return;
+        }
+        scanner = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                scan(Thread.currentThread());
+            }
+        }, "Strings scanner: " + content.getName());
+        scanner.setDaemon(true);
+        scanner.start();
+    }
+
+    /**
+     * Stop the scan after the current chunk.
+     */
+    synchronized void stopScan() {
+        if (scanner != null) {
+            scanner.interrupt();
+            scanner = null;
+        }
+    }
+
+    private void scan(Thread thread) {
+        StringExtract extract = new StringExtract();
+        extract.setEnabledScript(script);
+        byte[] buffer = new byte[CHUNK_SIZE];
+        while (!thread.isInterrupted()) {
+            int chunk;
+            synchronized (this) {
+                if (scanner != thread || isComplete()) {
+                    break;
+                }
+                chunk = scannedChunks;
+            }
+            long offset = (long) chunk * CHUNK_SIZE;
+            int length = (int) Math.min(CHUNK_SIZE, content.getSize() - offset);
+            int strings = 0;
+            try {
+                int read = content.read(buffer, offset, length);
+                if (read > 0) {
+                    strings = extractStrings(extract, read == buffer.length ? buffer : Arrays.copyOf(buffer, read)).length;
+                }
+            } catch (TskException ex) {
+                logger.log(Level.WARNING, "Error while reading offset " + offset + " of " + content.getName(), ex);
+            }
+            synchronized (this) {
+                if (scanner != thread) {
+                    break;
+                }
+                addChunk(strings);
+            }
+        }
+        synchronized (this) {
+            if (scanner == thread) {
+                scanner = null;
+            }
+        }
+    }
+
+    /**
+     * Add the number of strings of the next chunk.
+     */
+    private void addChunk(int strings) {
+        if (scannedChunks >= chunkCount) {
+            return;
+        }
+        if (scannedChunks == chunkStrings.length) {
+            chunkStrings = Arrays.copyOf(chunkStrings, (int) Math.min(chunkCount, chunkStrings.length * 2L));
+        }
+        if (scannedChunks % GROUP_CHUNKS == 0) {
+            int group = scannedChunks / GROUP_CHUNKS;
+            if (group == groupFirstStrings.length) {
+                groupFirstStrings = Arrays.copyOf(groupFirstStrings, groupFirstStrings.length * 2);
+            }
+            groupFirstStrings[group] = stringCount;
+        }
+        chunkStrings[scannedChunks++] = strings;
+        stringCount += strings;
+    }
+
+    synchronized int getScannedChunks() {
+        return scannedChunks;
+    }
+
+    synchronized boolean isComplete() {
+        return scannedChunks >= chunkCount;
+    }
+
+    /**
+     * @return number of strings in the scanned chunks
+     */
+    synchronized long getStringCount() {
+        return stringCount;
+    }
+
+    /**
+     * @param chunk a scanned chunk
+     * @return number of strings of the chunk
+     */
+    synchronized int getStrings(int chunk) {
+        return chunk < scannedChunks ? chunkStrings[chunk] : 0;
+    }
+
+    /**
+     * @param chunk a scanned chunk, or the number of scanned chunks
+     * @return number of strings before the chunk
+     */
+    synchronized long getFirstString(int chunk) {
+        if (chunk >= scannedChunks) {
+            return stringCount;
+        }
+        int group = chunk / GROUP_CHUNKS;
+        long first = groupFirstStrings[group];
+        for (int i = group * GROUP_CHUNKS; i < chunk; i++) {
+            first += chunkStrings[i];
+        }
+        return first;
+    }
+
+    /**
+     * @param string index of a string of the scanned chunks
+     * @return the chunk of the string
+     */
+    synchronized int getChunk(long string) {
+        if (scannedChunks == 0) {
+            return 0;
+        }
+        // the last group that starts at or before the string
+        int low = 0;
+        int high = (scannedChunks - 1) / GROUP_CHUNKS;
+        while (low < high) {
+            int mid = (low + high + 1) / 2;
+            if (groupFirstStrings[mid] <= string) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        long first = groupFirstStrings[low];
+        int chunk = low * GROUP_CHUNKS;
+        while (chunk < scannedChunks - 1 && first + chunkStrings[chunk] <= string) {
+            first += chunkStrings[chunk];
+            chunk++;
+        }
+        return chunk;
+    }
+}
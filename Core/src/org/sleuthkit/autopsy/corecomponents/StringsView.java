@@ -0,0 +1,356 @@
+/*
+ * Autopsy Forensic Browser
+ *
+ * Copyright 2013 Basis Technology Corp.
+ * Contact: carrier <at> sleuthkit <dot> org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.sleuthkit.autopsy.corecomponents;
+
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.logging.Level;
+import javax.swing.SwingUtilities;
+import javax.swing.SwingWorker;
+import javax.swing.Timer;
+import org.sleuthkit.autopsy.coreutils.Logger;
+import org.sleuthkit.autopsy.coreutils.StringExtract;
+import org.sleuthkit.autopsy.coreutils.StringExtract.StringExtractUnicodeTable.SCRIPT;
+import org.sleuthkit.datamodel.Content;
+import org.sleuthkit.datamodel.TskException;
+
+/**
+ * The strings of a content, one per row.
+ *
+ * The rows grow as the StringsIndex of the content is scanned in the
+ * background. The strings in view are extracted again from the blocks of a
+ * ContentBlockCache, a chunk at a time, and the strings of the last few chunks
+ * are kept. Also finds strings in the scanned part of the content, skipping
+ * the chunks the index has no strings for.
+ */
+class StringsView extends ContentRowView {
+
+    /**
+     * Notified in the EDT when a find is done.
+     */
+    interface FindListener {
+
+        /**
+         * @param found true if a string was found and selected
+         */
+        void findDone(boolean found);
+    }
+    private static final Logger logger = Logger.getLogger(StringsView.class.getName());
+    private static final int ROW_CHARS = 100;
+    private static final int READ_AHEAD_CHUNKS = 2;
+    private static final int MAX_CACHED_CHUNKS = 16;
+    private static final int REFRESH_INTERVAL_MS = 250;
+    private final StringExtract extract = new StringExtract();
+    private final Map<Integer, String[]> chunkStrings = new LinkedHashMap<Integer, String[]>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, String[]> eldest) {
+            return size() > MAX_CACHED_CHUNKS;
+        }
+    };
+    private final Timer refreshTimer;
+    private Content content;
+    private StringsIndex index;
+    private ContentBlockCache cache;
+    // the lines of a text that is shown instead of content
+    private String[] textLines;
+    private SwingWorker<Long, Void> finder;
+
+    StringsView() {
+        super(ROW_CHARS);
+        refreshTimer = new Timer(REFRESH_INTERVAL_MS, new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                refresh();
+            }
+        });
+    }
+
+    /**
+     * Show the strings of content in a script, or nothing.
+     *
+     * @param content content to show, or null
+     * @param script script of the strings
+     */
+    void setContent(Content content, SCRIPT script) {
+        close();
+        if (content != null && content.getSize() > 0) {
+            this.content = content;
+            index = StringsIndex.get(content, script);
+            extract.setEnabledScript(script);
+            cache = new ContentBlockCache(content, new ContentBlockCache.Listener() {
+                @Override
+                public void blockLoaded(final long blockIndex) {
+                    SwingUtilities.invokeLater(new Runnable() {
+                        @Override
+                        public void run() {
+                            chunkShown(blockIndex);
+                        }
+                    });
+                }
+            });
+            index.startScan();
+            if (!index.isComplete()) {
+                refreshTimer.start();
+            }
+        }
+        setRowCount(index == null ? 0 : index.getStringCount(), true);
+    }
+
+    /**
+     * Show a text, one line per row.
+     *
+     * @param text text to show
+     */
+    void setText(String text) {
+        close();
+        textLines = text.split("\n");
+        setRowCount(textLines.length, true);
+    }
+
+    /**
+     * @return true if all of the content is scanned for strings
+     */
+    boolean isScanComplete() {
+        return index == null || index.isComplete();
+    }
+
+    /**
+     * @return the chunk of the first string in view
+     */
+    int getFirstChunk() {
+        return index == null ? 0 : index.getChunk(getFirstRow());
+    }
+
+    /**
+     * Scroll to the first string of a chunk, or of the next chunk with
+     * strings.
+     *
+     * @param chunk chunk index
+     * @return false if the chunk is not scanned yet
+     */
+    boolean scrollToChunk(int chunk) {
+        if (index == null || chunk >= index.getScannedChunks()) {
+            return false;
+        }
+        scrollToRow(index.getFirstString(chunk));
+        return true;
+    }
+
+    /**
+     * Find the next string that contains a text, ignoring case, after the
+     * selected string or from the first string in view, in the scanned part
+     * of the content. Continues from the start if there is none after it. The
+     * found string is selected.
+     *
+     * @param text text to find
+     * @param listener notified when the find is done
+     */
+    void find(String text, final FindListener listener) {
+        cancelFind();
+        final String needle = text.toLowerCase();
+        final long from = hasSelection() ? getSelectedRow() + 1 : getFirstRow();
+        if (textLines != null) {
+            for (int n = 0; n < textLines.length; n++) {
+                int row = (int) ((from + n) % textLines.length);
+                if (textLines[row].toLowerCase().contains(needle)) {
+                    scrollToRow(row);
+                    listener.findDone(true);
+                    return;
+                }
+            }
+            listener.findDone(false);
+            return;
+        }
+        if (index == null) {
+            listener.findDone(false);
+            return;
+        }
+        final StringsIndex searchIndex = index;
+        final Content searchContent = content;
+        finder = new SwingWorker<Long, Void>() {
+            @Override
+            protected Long doInBackground() throws Exception {
+                return findString(searchContent, searchIndex, needle, from, this);
+            }
+
+            @Override
+            protected void done() {
+                if (isCancelled()) {
+                    return;
+                }
+                long row = -1;
+                try {
+                    row = get();
+                } catch (InterruptedException | ExecutionException ex) {
+                    logger.log(Level.WARNING, "Error while finding a string in " + searchContent.getName(), ex);
+                }
+                if (row >= 0) {
+                    scrollToRow(row);
+                }
+                listener.findDone(row >= 0);
+            }
+        };
+        finder.execute();
+    }
+
+    /**
+     * Find a string in the scanned chunks, in a background thread.
+     *
+     * @return the index of the string, or -1 if none was found
+     */
+    private static long findString(Content content, StringsIndex index, String needle, long from, SwingWorker<?, ?> worker) {
+        StringExtract searchExtract = new StringExtract();
+        searchExtract.setEnabledScript(index.getScript());
+        int chunks = index.getScannedChunks();
+        long count = index.getStringCount();
+        if (count == 0) {
+            return -1;
+        }
+        if (from >= count) {
+            from = 0;
+        }
+        int firstChunk = index.getChunk(from);
+        byte[] buffer = new byte[StringsIndex.CHUNK_SIZE];
+        // the first chunk is searched again last, for the strings before the start
+        for (int n = 0; n <= chunks && !worker.isCancelled(); n++) {
+            int chunk = (firstChunk + n) % chunks;
+            if (index.getStrings(chunk) == 0) {
+                continue;
+            }
+            long offset = (long) chunk * StringsIndex.CHUNK_SIZE;
+            int length = (int) Math.min(StringsIndex.CHUNK_SIZE, content.getSize() - offset);
+            String[] strings;
+            try {
+                int read = content.read(buffer, offset, length);
+                if (read <= 0) {
+                    continue;
+                }
+                strings = StringsIndex.extractStrings(searchExtract, read == buffer.length ? buffer : Arrays.copyOf(buffer, read));
+            } catch (TskException ex) {
+                logger.log(Level.WARNING, "Error while reading offset " + offset + " of " + content.getName(), ex);
+                continue;
+            }
+            long first = index.getFirstString(chunk);
+            for (int i = 0; i < strings.length; i++) {
+                long row = first + i;
+                if ((n == 0 && row < from) || (n == chunks && row >= from)) {
+                    continue;
+                }
+                if (strings[i].toLowerCase().contains(needle)) {
+                    return row;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private void cancelFind() {
+        if (finder != null) {
+            finder.cancel(true);
+            finder = null;
+        }
+    }
+
+    /**
+     * Stop showing the current content or text.
+     */
+    private void close() {
+        refreshTimer.stop();
+        cancelFind();
+        if (cache != null) {
+            cache.close();
+            cache = null;
+        }
+        if (index != null) {
+            index.stopScan();
+            index = null;
+        }
+        content = null;
+        textLines = null;
+        chunkStrings.clear();
+    }
+
+    /**
+     * Add the rows of the strings scanned since the last refresh.
+     */
+    private void refresh() {
+        if (index == null) {
+            refreshTimer.stop();
+            return;
+        }
+        if (index.isComplete()) {
+            refreshTimer.stop();
+        }
+        if (index.getStringCount() != getRowCount()) {
+            setRowCount(index.getStringCount(), false);
+        }
+    }
+
+    @Override
+    void rowsShown(long firstRow, long lastRow, int direction) {
+        if (cache == null || index == null) {
+            return;
+        }
+        if (direction > 0) {
+            cache.readAhead(index.getChunk(lastRow), 1, READ_AHEAD_CHUNKS);
+        } else {
+            cache.readAhead(index.getChunk(firstRow), -1, READ_AHEAD_CHUNKS);
+        }
+    }
+
+    /**
+     * Repaint if a read chunk is in view.
+     */
+    private void chunkShown(long chunk) {
+        if (index == null) {
+            return;
+        }
+        long firstChunk = index.getChunk(getFirstRow());
+        long lastChunk = index.getChunk(getFirstRow() + getVisibleRows());
+        if (chunk >= firstChunk && chunk <= lastChunk) {
+            repaintRows();
+        }
+    }
+
+    @Override
+    String getRowText(long row, boolean wait) {
+        if (textLines != null) {
+            return row < textLines.length ? textLines[(int) row] : "";
+        }
+        if (index == null) {
+            return "";
+        }
+        int chunk = index.getChunk(row);
+        String[] strings = chunkStrings.get(chunk);
+        if (strings == null) {
+            byte[] block = wait ? cache.readBlock(chunk) : cache.getBlock(chunk);
+            if (block == null) {
+                return cache.isFailed(chunk) ? "(could not be read)" : "...";
+            }
+            strings = StringsIndex.extractStrings(extract, block);
+            chunkStrings.put(chunk, strings);
+        }
+        int i = (int) (row - index.getFirstString(chunk));
+        return i < strings.length ? strings[i] : "";
+    }
+}
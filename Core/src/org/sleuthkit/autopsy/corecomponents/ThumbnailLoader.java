@@ -0,0 +1,176 @@
+/*
+ * Autopsy Forensic Browser
+ *
+ * Copyright 2013 Basis Technology Corp.
+ * Contact: carrier <at> sleuthkit <dot> org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.sleuthkit.autopsy.corecomponents;
+
+import java.awt.image.BufferedImage;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.sleuthkit.autopsy.coreutils.ThumbnailCache;
+import org.sleuthkit.datamodel.Content;
+
+/**
+ * Loads and makes thumbnails on a small pool of background threads, so that
+ * the thumbnail viewer never decodes images in the EDT.
+ *
+ * Thumbnails of shown nodes are loaded before the thumbnails that are only
+ * pre-generated for the pages around the current one, and the pre-generation
+ * requests can be dropped when the user moves to another page.
+ */
+class ThumbnailLoader {
+
+    /**
+     * Receives a loaded thumbnail, in the loader thread.
+     */
+    interface Callback {
+
+        /**
+         * @param thumbnail the thumbnail, or null if the file could not be
+         * decoded
+         */
+        void loaded(BufferedImage thumbnail);
+    }
+    private static final int PRIORITY_SHOWN = 0;
+    private static final int PRIORITY_PREFETCH = 1;
+    private static final int THREADS = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() - 1));
+    private static final ThumbnailLoader instance = new ThumbnailLoader();
+    private final AtomicLong sequence = new AtomicLong();
+    private final ThreadPoolExecutor executor;
+    // object id and size of the queued pre-generation requests
+    private final Set<String> prefetching = new HashSet<>();
+
+    private ThumbnailLoader() {
+        executor = new ThreadPoolExecutor(THREADS, THREADS, 30, TimeUnit.SECONDS,
+                new PriorityBlockingQueue<Runnable>(), new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "Thumbnail loader");
+                thread.setDaemon(true);
+                thread.setPriority(Thread.MIN_PRIORITY);
+                return thread;
+            }
+        });
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    static ThumbnailLoader getInstance() {
+        return instance;
+    }
+
+    /**
+     * Load the thumbnail of a shown node.
+     *
+     * @param content image file
+     * @param size thumbnail size
+     * @param callback receives the thumbnail
+     */
+    void load(Content content, int size, Callback callback) {
+        executor.execute(new Task(content, size, PRIORITY_SHOWN, callback));
+    }
+
+    /**
+     * Make the thumbnail of a file and add it to the thumbnail cache of the
+     * case, if it is not there yet.
+     *
+     * @param content image file
+     * @param size thumbnail size
+     */
+    void prefetch(Content content, int size) {
+        ThumbnailCache cache = ThumbnailCache.getInstance();
+        if (cache == null || cache.contains(content.getId(), size)) {
+            return;
+        }
+        synchronized (prefetching) {
+            if (!prefetching.add(content.getId() + "-" + size)) {
+                return;
+            }
+        }
+        executor.execute(new Task(content, size, PRIORITY_PREFETCH, null));
+    }
+
+    /**
+     * Drop the pre-generation requests that were not started yet.
+     */
+    void cancelPrefetch() {
+        Iterator<Runnable> it = executor.getQueue().iterator();
+        while (it.hasNext()) {
+            Task task = (Task) it.next();
+            if (task.priority == PRIORITY_PREFETCH) {
+                it.remove();
+                task.done();
+            }
+        }
+    }
+
+    private class Task implements Runnable, Comparable<Task> {
+
+        private final Content content;
+        private final int size;
+        private final int priority;
+        private final long order;
+        private final Callback callback;
+
+        Task(Content content, int size, int priority, Callback callback) {
+            this.content = content;
+            this.size = size;
+            this.priority = priority;
+            this.order = sequence.getAndIncrement();
+            this.callback = callback;
+        }
+
+        @Override
+        public void run() {
+            BufferedImage thumbnail;
+            try {
+                ThumbnailCache cache = ThumbnailCache.getInstance();
+                if (cache != null) {
+                    thumbnail = cache.getOrCreate(content, size);
+                } else {
+                    thumbnail = ThumbnailCache.createThumbnail(content, size);
+                }
+            } finally {
+                done();
+            }
+            if (callback != null) {
+                callback.loaded(thumbnail);
+            }
+        }
+
+        void done() {
+            if (priority == PRIORITY_PREFETCH) {
+                synchronized (prefetching) {
+                    prefetching.remove(content.getId() + "-" + size);
+                }
+            }
+        }
+
+        @Override
+        public int compareTo(Task other) {
+            if (priority != other.priority) {
+                return priority < other.priority ? -1 : 1;
+            }
+            return order < other.order ? -1 : (order == other.order ? 0 : 1);
+        }
+    }
+}
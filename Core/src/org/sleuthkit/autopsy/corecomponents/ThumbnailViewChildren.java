@@ -162,6 +162,25 @@ public void setIconSize(int iconSize) {
         this.iconSize = iconSize;
     }
 
+    /**
+     * Make the thumbnails of a page in the background, if they are not in the
+     * thumbnail cache yet, so that they are ready when the page is shown.
+     *
+     * @param pageNum page number, from 1, ignored if there is no such page
+     */
+    void prefetchPage(int pageNum) {
+        List<Node> pageContent = pages.get(pageNum);
+        if (pageContent == null) {
+            return;
+        }
+        for (Node node : pageContent) {
+            Content content = node.getLookup().lookup(Content.class);
+            if (content != null) {
+                ThumbnailLoader.getInstance().prefetch(content, iconSize);
+            }
+        }
+    }
+
     private static class IsSupportedContentVisitor extends ContentVisitor.Default<Boolean> {
 
         private final List<String> SUPP_EXTENSIONS;
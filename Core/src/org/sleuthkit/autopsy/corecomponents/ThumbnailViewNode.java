@@ -18,45 +18,32 @@
  */
 package org.sleuthkit.autopsy.corecomponents;
 
-import java.awt.Color;
-import java.awt.Graphics2D;
+import java.awt.EventQueue;
 import java.awt.Image;
-import java.awt.MediaTracker;
-import java.awt.Toolkit;
 import java.awt.image.BufferedImage;
-import java.io.File;
-import java.io.IOException;
-import java.io.InputStream;
 import java.lang.ref.SoftReference;
-import java.util.logging.Level;
-import javax.imageio.ImageIO;
 import javax.swing.ImageIcon;
-import javax.swing.JFrame;
 import org.openide.nodes.Children;
 import org.openide.nodes.FilterNode;
 import org.openide.nodes.Node;
-import org.openide.util.Exceptions;
-import org.sleuthkit.autopsy.casemodule.Case;
-import org.sleuthkit.autopsy.corelibs.ScalrWrapper;
-import org.sleuthkit.autopsy.coreutils.Logger;
+import org.sleuthkit.autopsy.coreutils.ThumbnailCache;
 import org.sleuthkit.datamodel.Content;
-import org.sleuthkit.datamodel.ReadContentInputStream;
-import org.sleuthkit.datamodel.TskException;
 
 /**
  * Node that wraps around original node and adds the bitmap icon representing
- * the picture
+ * the picture. The picture is loaded in the background by ThumbnailLoader,
+ * the default icon is shown until it is loaded.
  */
 class ThumbnailViewNode extends FilterNode {
 
     private SoftReference<Image> iconCache = null;
     private static final Image defaultIcon = new ImageIcon("/org/sleuthkit/autopsy/images/file-icon.png").getImage();
-    private static final Logger logger = Logger.getLogger(ThumbnailViewNode.class.getName());
     static final int ICON_SIZE_SMALL = 50;
-    static final int ICON_SIZE_MEDIUM = 100;
+    static final int ICON_SIZE_MEDIUM = ThumbnailCache.DEFAULT_SIZE;
     static final int ICON_SIZE_LARGE = 200;
     private int iconSize = ICON_SIZE_MEDIUM;
-    //private final BufferedImage defaultIconBI;
+    // true while the icon of the current size is being loaded, only used in the EDT
+    private boolean loading = false;
 
     /**
      * the constructor
@@ -82,99 +69,42 @@ public Image getIcon(int type) {
         if (iconCache != null) {
             icon = iconCache.get();
         }
-
-        if (icon == null) {
-            Content content = this.getLookup().lookup(Content.class);
-
-            if (content != null) {
-                // If a thumbnail file is already saved locally
-                if (getFile(content.getId()).exists()) {
-                    try {
-                        BufferedImage bicon = ImageIO.read(getFile(content.getId()));
-                        if (bicon == null) {
-                            icon = ThumbnailViewNode.defaultIcon;
-                        } else if (bicon.getWidth() != iconSize) {
-                            icon = generateAndSaveIcon(content);    
-                        } else {
-                            icon = bicon;    
-                        }
-                    } catch (IOException ex) {
-                        icon = ThumbnailViewNode.defaultIcon;
-                    }
-                } else { // Make a new icon
-                    icon = generateAndSaveIcon(content);
-                }
-            } else {
-                icon = ThumbnailViewNode.defaultIcon;
-            }
-
-            iconCache = new SoftReference<Image>(icon);
+        if (icon != null) {
+            return icon;
         }
-        
-        return icon;
-    }
-
-    private Image generateAndSaveIcon(Content content) { 
-        Image icon = null;
-        try {
-            icon = generateIcon(content);
-            if (icon == null) {
-                icon = ThumbnailViewNode.defaultIcon;
-            } else {
-                File f = getFile(content.getId());
-                if (f.exists()) {
-                    f.delete();
-                }
-                ImageIO.write((BufferedImage) icon, "jpg", getFile(content.getId()));
-            }         
-        } catch (IOException ex) {
-            logger.log(Level.WARNING, "Could not write cache thumbnail: " + content, ex);
-        }   
-        return icon;        
-    }
-    
-    /*
-     * Generate a scaled image
-     */
-    private BufferedImage generateIcon(Content content) {
-
-        InputStream inputStream = null;
-        try {
-            inputStream = new ReadContentInputStream(content);
-            BufferedImage bi = ImageIO.read(inputStream);
-            if (bi == null) {
-                logger.log(Level.WARNING, "No image reader for file: " + content.getName());
-                return null;
-            }
-            BufferedImage biScaled = ScalrWrapper.resizeFast(bi, iconSize);
 
-            return biScaled;
-        }catch (OutOfMemoryError e) {
-            logger.log(Level.WARNING, "Could not scale image (too large): " + content.getName(), e);
-            return null;
-        } 
-        catch (Exception e) {
-            logger.log(Level.WARNING, "Could not scale image: " + content.getName(), e);
-            return null;
-        } finally {
-            if (inputStream != null) {
-                try {
-                    inputStream.close();
-                } catch (IOException ex) {
-                    logger.log(Level.WARNING, "Could not close input stream after resizing thumbnail: " + content.getName(), ex);
+        Content content = this.getLookup().lookup(Content.class);
+        if (content == null) {
+            return ThumbnailViewNode.defaultIcon;
+        }
+        if (!loading) {
+            loading = true;
+            final int size = iconSize;
+            ThumbnailLoader.getInstance().load(content, size, new ThumbnailLoader.Callback() {
+                @Override
+                public void loaded(final BufferedImage thumbnail) {
+                    EventQueue.invokeLater(new Runnable() {
+                        @Override
+                        public void run() {
+                            if (size != iconSize) {
+                                // the size changed while loading, the new size is loaded separately
+                                return;
+                            }
+                            loading = false;
+                            iconCache = new SoftReference<Image>(thumbnail == null ? ThumbnailViewNode.defaultIcon : thumbnail);
+                            fireIconChange();
+                        }
+                    });
                 }
-            }
-
+            });
         }
+        return ThumbnailViewNode.defaultIcon;
     }
 
-    private static File getFile(long id) {
-        return new File(Case.getCurrentCase().getCacheDirectory() + File.separator + id + ".jpg");
-    }
-    
     public void setIconSize(int iconSize) {
         this.iconSize = iconSize;
         iconCache = null;
+        loading = false;
     }
 
 }
@@ -0,0 +1,373 @@
+/*
+ * Autopsy Forensic Browser
+ *
+ * Copyright 2013 Basis Technology Corp.
+ * Contact: carrier <at> sleuthkit <dot> org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.sleuthkit.autopsy.coreutils;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.logging.Level;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import org.sleuthkit.autopsy.casemodule.Case;
+import org.sleuthkit.autopsy.corelibs.ScalrWrapper;
+import org.sleuthkit.datamodel.Content;
+import org.sleuthkit.datamodel.ReadContentInputStream;
+
+/**
+ * Case-level cache of image thumbnails.
+ *
+ * The thumbnails of all of the files of a case, in all sizes, are kept as JPEG
+ * data in a single file in the case cache directory. An index file next to it
+ * has one fixed size entry per thumbnail (object id, size, offset and length
+ * in the data file), appended as the thumbnails are added, and is read into
+ * memory when the case is opened. Entries that point past the end of the data
+ * file, e.g. after a crash, are ignored.
+ *
+ * Also makes the thumbnails, decoding the images subsampled so that large
+ * images are not decoded at full resolution.
+ */
+public class ThumbnailCache {
+
+    /**
+     * Size of the thumbnails shown by default in the thumbnail viewer.
+     */
+    public static final int DEFAULT_SIZE = 100;
+    private static final Logger logger = Logger.getLogger(ThumbnailCache.class.getName());
+    private static final String DATA_FILE_NAME = "thumbnails.dat";
+    private static final String INDEX_FILE_NAME = "thumbnails.idx";
+    private static final String FORMAT = "jpg";
+    // object id, size, offset and length
+    private static final int INDEX_ENTRY_SIZE = 8 + 4 + 8 + 4;
+    private static ThumbnailCache instance;
+    private final Case currentCase;
+    private final RandomAccessFile data;
+    private final DataOutputStream index;
+    // (object id, size) to {offset, length} in the data file
+    private final Map<Key, long[]> entries = new HashMap<>();
+
+    static {
+        Case.addPropertyChangeListener(new PropertyChangeListener() {
+            @Override
+            public void propertyChange(PropertyChangeEvent evt) {
+                if (evt.getPropertyName().equals(Case.CASE_CURRENT_CASE)) {
+                    closeInstance();
+                }
+            }
+        });
+    }
+
+    /**
+     * Key of a thumbnail.
+     */
+    private static class Key {
+
+        private final long objId;
+        private final int size;
+
+        Key(long objId, int size) {
+            this.objId = objId;
+            this.size = size;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return objId == other.objId && size == other.size;
+        }
+
+        @Override
+        public int hashCode() {
+            return (int) (objId ^ (objId >>> 32)) * 31 + size;
+        }
+    }
+
+    private ThumbnailCache(Case currentCase) throws IOException {
+        this.currentCase = currentCase;
+        File dir = new File(currentCase.getCacheDirectory());
+        dir.mkdirs();
+        File dataFile = new File(dir, DATA_FILE_NAME);
+        File indexFile = new File(dir, INDEX_FILE_NAME);
+        readIndex(indexFile, dataFile.length());
+        data = new RandomAccessFile(dataFile, "rw");
+        index = new DataOutputStream(new FileOutputStream(indexFile, true));
+    }
+
+    /**
+     * Get the thumbnail cache of the current case, opening it the first time.
+     *
+     * @return the thumbnail cache, or null if there is no current case or the
+     * cache could not be opened
+     */
+    public static synchronized ThumbnailCache getInstance() {
+        if (!Case.existsCurrentCase()) {
+            return null;
+        }
+        Case currentCase = Case.getCurrentCase();
+        if (instance != null && instance.currentCase != currentCase) {
+            instance.close();
+            instance = null;
+        }
+        if (instance == null) {
+            try {
+                instance = new ThumbnailCache(currentCase);
+            } catch (IOException ex) {
+                logger.log(Level.WARNING, "Could not open the thumbnail cache of the case", ex);
+                return null;
+            }
+        }
+        return instance;
+    }
+
+    private static synchronized void closeInstance() {
+        if (instance != null) {
+            instance.close();
+            instance = null;
+        }
+    }
+
+    private void readIndex(File indexFile, long dataLength) throws IOException {
+        if (!indexFile.exists()) {
+            return;
+        }
+        // drop a partly written last entry, so that new entries are appended after the last whole one
+        long wholeEntries = indexFile.length() / INDEX_ENTRY_SIZE * INDEX_ENTRY_SIZE;
+        if (wholeEntries != indexFile.length()) {
+            try (RandomAccessFile raf = new RandomAccessFile(indexFile, "rw")) {
+                raf.setLength(wholeEntries);
+            }
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)))) {
+            while (true) {
+                long objId = in.readLong();
+                int size = in.readInt();
+                long offset = in.readLong();
+                int length = in.readInt();
+                if (offset + length <= dataLength) {
+                    entries.put(new Key(objId, size), new long[]{offset, length});
+                }
+            }
+        } catch (EOFException ex) {
+            // end of the index
+        } catch (IOException ex) {
+            logger.log(Level.WARNING, "Could not read the thumbnail cache index", ex);
+        }
+    }
+
+    private synchronized void close() {
+        try {
+            index.close();
+            data.close();
+        } catch (IOException ex) {
+            logger.log(Level.WARNING, "Could not close the thumbnail cache", ex);
+        }
+    }
+
+    /**
+     * @return true if the thumbnail of the file in the size is in the cache
+     */
+    public synchronized boolean contains(long objId, int size) {
+        return entries.containsKey(new Key(objId, size));
+    }
+
+    /**
+     * Get a thumbnail from the cache.
+     *
+     * @param objId object id of the file
+     * @param size thumbnail size
+     * @return the thumbnail, or null if it is not in the cache
+     */
+    public BufferedImage get(long objId, int size) {
+        byte[] bytes;
+        synchronized (this) {
+            long[] entry = entries.get(new Key(objId, size));
+            if (entry == null) {
+                return null;
+            }
+            bytes = new byte[(int) entry[1]];
+            try {
+                data.seek(entry[0]);
+                data.readFully(bytes);
+            } catch (IOException ex) {
+                logger.log(Level.WARNING, "Could not read thumbnail of " + objId + " from the cache", ex);
+                return null;
+            }
+        }
+        try {
+            return ImageIO.read(new ByteArrayInputStream(bytes));
+        } catch (IOException ex) {
+            logger.log(Level.WARNING, "Could not decode cached thumbnail of " + objId, ex);
+            return null;
+        }
+    }
+
+    /**
+     * Add a thumbnail to the cache, replacing an older one of the same file
+     * and size.
+     *
+     * @param objId object id of the file
+     * @param size thumbnail size
+     * @param thumbnail the thumbnail
+     */
+    public void put(long objId, int size, BufferedImage thumbnail) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            if (!ImageIO.write(toRGB(thumbnail), FORMAT, out)) {
+                return;
+            }
+        } catch (IOException ex) {
+            logger.log(Level.WARNING, "Could not encode thumbnail of " + objId, ex);
+            return;
+        }
+        byte[] bytes = out.toByteArray();
+        synchronized (this) {
+            try {
+                long offset = data.length();
+                data.seek(offset);
+                data.write(bytes);
+                index.writeLong(objId);
+                index.writeInt(size);
+                index.writeLong(offset);
+                index.writeInt(bytes.length);
+                index.flush();
+                entries.put(new Key(objId, size), new long[]{offset, bytes.length});
+            } catch (IOException ex) {
+                logger.log(Level.WARNING, "Could not write thumbnail of " + objId + " to the cache", ex);
+            }
+        }
+    }
+
+    /**
+     * Get the thumbnail of a file from the cache, or make it and add it to the
+     * cache.
+     *
+     * @param content image file
+     * @param size thumbnail size
+     * @return the thumbnail, or null if the file could not be decoded
+     */
+    public BufferedImage getOrCreate(Content content, int size) {
+        BufferedImage thumbnail = get(content.getId(), size);
+        if (thumbnail == null) {
+            thumbnail = createThumbnail(content, size);
+            if (thumbnail != null) {
+                put(content.getId(), size, thumbnail);
+            }
+        }
+        return thumbnail;
+    }
+
+    /**
+     * Make the thumbnail of a file.
+     *
+     * @param content image file
+     * @param size thumbnail size
+     * @return the thumbnail, or null if the file could not be decoded
+     */
+    public static BufferedImage createThumbnail(Content content, int size) {
+        try (InputStream in = new ReadContentInputStream(content)) {
+            return createThumbnail(in, size);
+        } catch (IOException ex) {
+            logger.log(Level.WARNING, "Could not read image: " + content.getName(), ex);
+            return null;
+        }
+    }
+
+    /**
+     * Make a thumbnail from an encoded image. The image is decoded subsampled,
+     * to about twice the thumbnail size, and then scaled down.
+     *
+     * @param in encoded image
+     * @param size thumbnail size
+     * @return the thumbnail, or null if the image could not be decoded
+     */
+    public static BufferedImage createThumbnail(InputStream in, int size) {
+        ImageInputStream imageIn = null;
+        ImageReader reader = null;
+        try {
+            imageIn = ImageIO.createImageInputStream(in);
+            if (imageIn == null) {
+                return null;
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(imageIn);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            reader = readers.next();
+            reader.setInput(imageIn, true, true);
+            int largest = Math.max(reader.getWidth(0), reader.getHeight(0));
+            int subsampling = Math.max(1, largest / (size * 2));
+            ImageReadParam param = reader.getDefaultReadParam();
+            param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+            BufferedImage image = reader.read(0, param);
+            return ScalrWrapper.resizeFast(image, size);
+        } catch (OutOfMemoryError e) {
+            logger.log(Level.WARNING, "Could not scale image (too large)", e);
+            return null;
+        } catch (Exception e) {
+            logger.log(Level.WARNING, "Could not scale image", e);
+            return null;
+        } finally {
+            if (reader != null) {
+                reader.dispose();
+            }
+            if (imageIn != null) {
+                try {
+                    imageIn.close();
+                } catch (IOException ex) {
+                    logger.log(Level.WARNING, "Could not close image stream", ex);
+                }
+            }
+        }
+    }
+
+    /**
+     * JPEG has no alpha channel, draw images with one on an opaque image.
+     */
+    private static BufferedImage toRGB(BufferedImage image) {
+        if (!image.getColorModel().hasAlpha()) {
+            return image;
+        }
+        BufferedImage rgb = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = rgb.createGraphics();
+        g.drawImage(image, 0, 0, Color.WHITE, null);
+        g.dispose();
+        return rgb;
+    }
+}
@@ -20,6 +20,7 @@
 
 import java.util.Map;
 import java.util.logging.Level;
+import org.sleuthkit.autopsy.casemodule.Case;
 import org.sleuthkit.autopsy.coreutils.Logger;
 import org.sleuthkit.datamodel.AbstractFile;
 import org.sleuthkit.datamodel.TskCoreException;
@@ -166,9 +167,9 @@ public static void fillPropertyMap(Map<String, Object> map, AbstractFile content
         
         String path = "";
         try {
-            path = content.getUniquePath();
+            path = Case.getCurrentCase().getServices().getPathCache().getUniquePath(content);
         } catch (TskCoreException ex) {
-            logger.log(Level.SEVERE, "Except while calling Content.getUniquePath() on " + content);
+            logger.log(Level.SEVERE, "Except while getting the unique path of " + content);
         }
         
         map.put(AbstractFilePropertyType.NAME.toString(), AbstractAbstractFileNode.getContentDisplayName(content));
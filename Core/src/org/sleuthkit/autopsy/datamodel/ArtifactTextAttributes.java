@@ -0,0 +1,107 @@
+/*
+ * Autopsy Forensic Browser
+ *
+ * Copyright 2013 Basis Technology Corp.
+ * Contact: carrier <at> sleuthkit <dot> org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.sleuthkit.autopsy.datamodel;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import org.sleuthkit.autopsy.coreutils.Logger;
+import org.sleuthkit.datamodel.BlackboardArtifact;
+import org.sleuthkit.datamodel.BlackboardAttribute;
+import org.sleuthkit.datamodel.SleuthkitCase;
+
+/**
+ * Reads the text attributes of many artifacts with a query for every
+ * ARTIFACTS_PER_QUERY artifacts, rather than a query per artifact with
+ * BlackboardArtifact.getAttributes().
+ */
+final class ArtifactTextAttributes {
+
+    private static final Logger logger = Logger.getLogger(ArtifactTextAttributes.class.getName());
+    private static final int ARTIFACTS_PER_QUERY = 500;
+
+    private ArtifactTextAttributes() {
+    }
+
+    /**
+     * Get the non-empty text attributes of some types of artifacts.
+     *
+     * @param skCase case of the artifacts
+     * @param artifacts the artifacts
+     * @param types types of the attributes to get
+     * @return the values by attribute type id, by artifact id. The artifacts
+     * without any of the attributes are left out.
+     */
+    @SuppressWarnings("deprecation")
+    static Map<Long, Map<Long, String>> get(SleuthkitCase skCase, Collection<BlackboardArtifact> artifacts,
+            BlackboardAttribute.ATTRIBUTE_TYPE... types) {
+        Map<Long, Map<Long, String>> values = new HashMap<Long, Map<Long, String>>();
+        StringBuilder typeIds = new StringBuilder();
+        for (BlackboardAttribute.ATTRIBUTE_TYPE type : types) {
+            typeIds.append(typeIds.length() == 0 ? "" : ", ").append(type.getTypeID());
+        }
+        List<Long> ids = new ArrayList<Long>(artifacts.size());
+        for (BlackboardArtifact artifact : artifacts) {
+            ids.add(artifact.getArtifactID());
+        }
+        for (int start = 0; start < ids.size(); start += ARTIFACTS_PER_QUERY) {
+            List<Long> page = ids.subList(start, Math.min(ids.size(), start + ARTIFACTS_PER_QUERY));
+            StringBuilder query = new StringBuilder("SELECT artifact_id, attribute_type_id, value_text FROM blackboard_attributes WHERE attribute_type_id IN (");
+            query.append(typeIds).append(") AND artifact_id IN (");
+            for (int i = 0; i < page.size(); i++) {
+                query.append(i == 0 ? "" : ", ").append(page.get(i));
+            }
+            query.append(")");
+            ResultSet rs = null;
+            try {
+                rs = skCase.runQuery(query.toString());
+                while (rs.next()) {
+                    String value = rs.getString("value_text");
+                    if (value == null || value.isEmpty()) {
+                        continue;
+                    }
+                    long artifactId = rs.getLong("artifact_id");
+                    Map<Long, String> artifactValues = values.get(artifactId);
+                    if (artifactValues == null) {
+                        artifactValues = new LinkedHashMap<Long, String>();
+                        values.put(artifactId, artifactValues);
+                    }
+                    artifactValues.put(rs.getLong("attribute_type_id"), value);
+                }
+            } catch (SQLException ex) {
+                logger.log(Level.WARNING, "Error getting the attributes of " + page.size() + " artifacts", ex);
+            } finally {
+                if (rs != null) {
+                    try {
+                        skCase.closeRunQuery(rs);
+                    } catch (SQLException ex) {
+                        logger.log(Level.WARNING, "Error closing result set after getting artifact attributes", ex);
+                    }
+                }
+            }
+        }
+        return values;
+    }
+}
@@ -18,58 +18,201 @@
  */
 package org.sleuthkit.autopsy.datamodel;
 
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 import org.sleuthkit.autopsy.coreutils.Logger;
 import org.openide.nodes.ChildFactory;
 import org.openide.nodes.Node;
+import org.sleuthkit.autopsy.datamodel.BlackboardArtifactNode.AttributeValue;
 import org.sleuthkit.datamodel.BlackboardArtifact;
+import org.sleuthkit.datamodel.BlackboardAttribute.TSK_BLACKBOARD_ATTRIBUTE_VALUE_TYPE;
 import org.sleuthkit.datamodel.SleuthkitCase;
 import org.sleuthkit.datamodel.TskException;
 
 /**
+ * Children of an ArtifactTypeNode. Only the first MAX_KEYS artifacts, in
+ * artifact id order, are listed, followed by a MoreResultsNode that lists the
+ * next MAX_KEYS when it is opened, so that a type with many artifacts is not
+ * read completely before any of it can be seen. The attributes of the listed
+ * artifacts are read together, a query for every ATTRIBUTES_PER_QUERY
+ * artifacts, instead of by each of their nodes.
  *
  * @author dfickling
  */
-class ArtifactTypeChildren extends ChildFactory<BlackboardArtifact>{
+class ArtifactTypeChildren extends ChildFactory<Object>{
     
+    private static final Logger logger = Logger.getLogger(ArtifactTypeChildren.class.getName());
+    private static final int MAX_KEYS = 10000;
+    private static final int ATTRIBUTES_PER_QUERY = 500;
+    // key of the node of the artifacts after the limit
+    private static final Object MORE_KEY = new Object();
     private SleuthkitCase skCase;
     private BlackboardArtifact.ARTIFACT_TYPE type;
+    // the number of artifacts listed, raised by the MoreResultsNode
+    private volatile int limit = MAX_KEYS;
+    // the number of artifacts listed by the last createKeys(), whose nodes were made
+    private int listed = 0;
+    // attributes of the artifacts whose nodes are not made yet
+    private final Map<Long, List<AttributeValue>> attributes = new ConcurrentHashMap<>();
 
     public ArtifactTypeChildren(BlackboardArtifact.ARTIFACT_TYPE type, SleuthkitCase skCase) {
         this.skCase = skCase;
         this.type = type;
     }
 
+    /**
+     * Add the ids of the artifacts up to the limit, and the key of the
+     * MoreResultsNode if there are more. The keys are all added at once, so
+     * that the nodes are not set again for every page of them.
+     */
     @Override
-    protected boolean createKeys(List<BlackboardArtifact> list) {
+    @SuppressWarnings("deprecation")
+    protected boolean createKeys(List<Object> list) {
+        int keyLimit = limit;
+        List<Long> ids = new ArrayList<>();
+        ResultSet rs = null;
         try {
-            List<BlackboardArtifact> arts = skCase.getBlackboardArtifacts(type.getTypeID());
-            //list.addAll(arts.subList(0, Math.min(arts.size(), getTypeLimit(type))));
-            list.addAll(arts);
-        } catch (TskException ex) {
-            Logger.getLogger(ArtifactTypeChildren.class.getName())
-                    .log(Level.SEVERE, "Couldn't get blackboard artifacts from database", ex);
+            rs = skCase.runQuery("SELECT artifact_id FROM blackboard_artifacts "
+                    + "WHERE artifact_type_id = " + type.getTypeID()
+                    + " ORDER BY artifact_id LIMIT " + (keyLimit + 1));
+            while (rs.next()) {
+                ids.add(rs.getLong("artifact_id"));
+            }
+        } catch (SQLException ex) {
+            logger.log(Level.SEVERE, "Couldn't get blackboard artifacts from database", ex);
+            return true;
+        } finally {
+            if (rs != null) {
+                try {
+                    skCase.closeRunQuery(rs);
+                } catch (SQLException ex) {
+                    logger.log(Level.WARNING, "Error closing result set after getting blackboard artifacts", ex);
+                }
+            }
+        }
+        boolean more = ids.size() > keyLimit;
+        if (more) {
+            ids.remove(ids.size() - 1);
+        }
+        // the nodes of the artifacts listed before are kept when more are listed
+        attributes.clear();
+        loadAttributes(ids.subList(Math.min(listed, ids.size()), ids.size()));
+        listed = ids.size();
+        list.addAll(ids);
+        if (more) {
+            list.add(MORE_KEY);
         }
         return true;
     }
-    
-    @Override
-    protected Node createNodeForKey(BlackboardArtifact key){
-        return new BlackboardArtifactNode(key);
-    }
-    
+
     /**
-    private static int getTypeLimit(BlackboardArtifact.ARTIFACT_TYPE type) {
-        switch(type) {
-            case TSK_WEB_HISTORY:
-                return 1000000;
-            case TSK_WEB_COOKIE:
-                return 1000000;
-            default:
-                return 1000000;
+     * Read the attributes of artifacts into the attributes map.
+     */
+    @SuppressWarnings("deprecation")
+    private void loadAttributes(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        Map<Integer, String> displayNames = new HashMap<>();
+        ResultSet rs = null;
+        try {
+            rs = skCase.runQuery("SELECT attribute_type_id, display_name FROM blackboard_attribute_types");
+            while (rs.next()) {
+                displayNames.put(rs.getInt("attribute_type_id"), rs.getString("display_name"));
+            }
+        } catch (SQLException ex) {
+            logger.log(Level.WARNING, "Couldn't get the attribute types from database", ex);
+            return;
+        } finally {
+            closeQuery(rs);
+        }
+        for (int start = 0; start < ids.size(); start += ATTRIBUTES_PER_QUERY) {
+            List<Long> page = ids.subList(start, Math.min(ids.size(), start + ATTRIBUTES_PER_QUERY));
+            StringBuilder query = new StringBuilder("SELECT artifact_id, attribute_type_id, value_type, "
+                    + "value_text, value_int32, value_int64, value_double, value_byte "
+                    + "FROM blackboard_attributes WHERE artifact_id IN (");
+            for (int i = 0; i < page.size(); i++) {
+                query.append(i == 0 ? "" : ", ").append(page.get(i));
+            }
+            query.append(") ORDER BY artifact_id");
+            Map<Long, List<AttributeValue>> pageAttributes = new HashMap<>();
+            for (Long id : page) {
+                pageAttributes.put(id, new ArrayList<AttributeValue>());
+            }
+            rs = null;
+            try {
+                rs = skCase.runQuery(query.toString());
+                while (rs.next()) {
+                    int typeId = rs.getInt("attribute_type_id");
+                    int valueType = rs.getInt("value_type");
+                    Object value;
+                    if (valueType == TSK_BLACKBOARD_ATTRIBUTE_VALUE_TYPE.INTEGER.getType()) {
+                        value = rs.getInt("value_int32");
+                    } else if (valueType == TSK_BLACKBOARD_ATTRIBUTE_VALUE_TYPE.LONG.getType()) {
+                        value = rs.getLong("value_int64");
+                    } else if (valueType == TSK_BLACKBOARD_ATTRIBUTE_VALUE_TYPE.DOUBLE.getType()) {
+                        value = rs.getDouble("value_double");
+                    } else if (valueType == TSK_BLACKBOARD_ATTRIBUTE_VALUE_TYPE.BYTE.getType()) {
+                        value = rs.getBytes("value_byte");
+                    } else {
+                        String text = rs.getString("value_text");
+                        value = text == null ? "" : text;
+                    }
+                    String displayName = displayNames.get(typeId);
+                    pageAttributes.get(rs.getLong("artifact_id")).add(
+                            new AttributeValue(typeId, displayName == null ? Integer.toString(typeId) : displayName, value));
+                }
+            } catch (SQLException ex) {
+                // the nodes read the attributes of their artifacts themselves
+                logger.log(Level.WARNING, "Couldn't get the attributes of blackboard artifacts from database", ex);
+                continue;
+            } finally {
+                closeQuery(rs);
+            }
+            attributes.putAll(pageAttributes);
+        }
+    }
+
+    @SuppressWarnings("deprecation")
+    private void closeQuery(ResultSet rs) {
+        if (rs != null) {
+            try {
+                skCase.closeRunQuery(rs);
+            } catch (SQLException ex) {
+                logger.log(Level.WARNING, "Error closing result set after getting blackboard attributes", ex);
+            }
         }
     }
-    */
     
+    @Override
+    protected Node createNodeForKey(Object key){
+        if (key == MORE_KEY) {
+            return new MoreResultsNode("Next " + MAX_KEYS + " results...", new Runnable() {
+                @Override
+                public void run() {
+                    limit += MAX_KEYS;
+                    refresh(false);
+                }
+            });
+        }
+        Long id = (Long) key;
+        try {
+            // the artifacts can only be read one at a time, their attributes were read with the keys
+            BlackboardArtifact artifact = skCase.getBlackboardArtifact(id);
+            List<AttributeValue> artifactAttributes = attributes.remove(id);
+            if (artifactAttributes != null) {
+                return new BlackboardArtifactNode(artifact, artifactAttributes);
+            }
+            return new BlackboardArtifactNode(artifact);
+        } catch (TskException ex) {
+            logger.log(Level.WARNING, "Couldn't get blackboard artifact " + key + " from database", ex);
+            return null;
+        }
+    }
 }
@@ -19,8 +19,8 @@
 package org.sleuthkit.autopsy.datamodel;
 
 import java.util.Map;
-import java.util.logging.Level;
-import org.sleuthkit.autopsy.coreutils.Logger;
+import java.util.concurrent.Callable;
+import javax.swing.SwingUtilities;
 import org.openide.nodes.AbstractNode;
 import org.openide.nodes.Children;
 import org.openide.nodes.Sheet;
@@ -36,21 +36,27 @@
 public class ArtifactTypeNode extends DisplayableItemNode {
 
     private BlackboardArtifact.ARTIFACT_TYPE type;
-    private long childCount = 0;
+    // null until the children are counted
+    private volatile Long childCount = null;
 
-    ArtifactTypeNode(BlackboardArtifact.ARTIFACT_TYPE type, SleuthkitCase skCase) {
+    ArtifactTypeNode(final BlackboardArtifact.ARTIFACT_TYPE type, final SleuthkitCase skCase) {
         super(Children.create(new ArtifactTypeChildren(type, skCase), true), Lookups.singleton(type.getDisplayName()));
         super.setName(type.getLabel());
-        // NOTE: This completely destroys our lazy-loading ideal
-        //    a performance increase might be had by adding a 
-        //    "getBlackboardArtifactCount()" method to skCase
-        try {
-            this.childCount = skCase.getBlackboardArtifactsTypeCount(type.getTypeID());
-        } catch (TskException ex) {
-            Logger.getLogger(ArtifactTypeNode.class.getName())
-                    .log(Level.WARNING, "Error getting child count", ex);
-        }
-        super.setDisplayName(type.getDisplayName() + " (" + childCount + ")");
+        // a count query, the children themselves are read a page at a time
+        ChildCountLoader.setDisplayName(this, type.getDisplayName(), new Callable<Long>() {
+            @Override
+            public Long call() throws TskException {
+                childCount = skCase.getBlackboardArtifactsTypeCount(type.getTypeID());
+                // show the count in the properties too
+                SwingUtilities.invokeLater(new Runnable() {
+                    @Override
+                    public void run() {
+                        setSheet(createSheet());
+                    }
+                });
+                return childCount;
+            }
+        });
         this.type = type;
         this.setIconBaseWithExtension("org/sleuthkit/autopsy/images/" + getIcon(type));
 
@@ -70,10 +76,13 @@ protected Sheet createSheet() {
                 "no description",
                 type.getDisplayName()));
 
-        ss.put(new NodeProperty<>("Child Count",
-                "Child Count",
-                "no description",
-                childCount));
+        Long count = childCount;
+        if (count != null) {
+            ss.put(new NodeProperty<>("Child Count",
+                    "Child Count",
+                    "no description",
+                    count));
+        }
 
         return s;
     }
@@ -24,6 +24,7 @@
 import java.util.List;
 import java.util.Map;
 import java.util.logging.Level;
+import org.sleuthkit.autopsy.casemodule.Case;
 import org.sleuthkit.autopsy.coreutils.Logger;
 import org.openide.nodes.Children;
 import org.openide.nodes.Sheet;
@@ -46,6 +47,8 @@ public class BlackboardArtifactNode extends DisplayableItemNode {
     private BlackboardArtifact artifact;
     private Content associated;
     private List<NodeProperty<? extends Object>> customProperties;
+    // attributes read with the ones of other artifacts, or null to read them from the artifact
+    private List<AttributeValue> preloadedAttributes;
     static final Logger logger = Logger.getLogger(BlackboardArtifactNode.class.getName());
     /**
      * Artifact types which should have the associated content's full unique path
@@ -93,6 +96,19 @@ public BlackboardArtifactNode(BlackboardArtifact artifact) {
 
     }
 
+    /**
+     * Construct blackboard artifact node from an artifact whose attributes
+     * were read in bulk with the ones of other artifacts, and using default
+     * icon for artifact type
+     *
+     * @param artifact artifact to encapsulate
+     * @param attributes the attributes of the artifact
+     */
+    BlackboardArtifactNode(BlackboardArtifact artifact, List<AttributeValue> attributes) {
+        this(artifact);
+        this.preloadedAttributes = attributes;
+    }
+
     @Override
     protected Sheet createSheet() {
         Sheet s = super.createSheet();
@@ -129,7 +145,7 @@ protected Sheet createSheet() {
         if (Arrays.asList(SHOW_UNIQUE_PATH).contains(artifactTypeId)) {
             String sourcePath = "";
             try {
-                sourcePath = associated.getUniquePath();
+                sourcePath = Case.getCurrentCase().getServices().getPathCache().getUniquePath(associated);
             } catch (TskCoreException ex) {
                 logger.log(Level.WARNING, "Failed to get unique path from: " + associated.getName());
             }
@@ -197,6 +213,20 @@ public <T> void addNodeProperty(NodeProperty<T> np) {
      * @param artifact to extract properties from
      */
     private void fillPropertyMap(Map<String, Object> map, BlackboardArtifact artifact) {
+        if (preloadedAttributes != null) {
+            for (AttributeValue attribute : preloadedAttributes) {
+                if (attribute.typeId == ATTRIBUTE_TYPE.TSK_PATH_ID.getTypeID()
+                        || attribute.typeId == ATTRIBUTE_TYPE.TSK_TAGGED_ARTIFACT.getTypeID()) {
+                    continue;
+                }
+                if (isDateTime(attribute.typeId) && attribute.value instanceof Long) {
+                    map.put(attribute.displayName, ContentUtils.getStringTime((Long) attribute.value, associated));
+                } else {
+                    map.put(attribute.displayName, attribute.value);
+                }
+            }
+            return;
+        }
         try {
             for (BlackboardAttribute attribute : artifact.getAttributes()) {
                 final int attributeTypeID = attribute.getAttributeTypeID();
@@ -214,14 +244,7 @@ private void fillPropertyMap(Map<String, Object> map, BlackboardArtifact artifac
                             map.put(attribute.getAttributeTypeDisplayName(), attribute.getValueInt());
                             break;
                         case LONG:
-                            if (attributeTypeID == ATTRIBUTE_TYPE.TSK_DATETIME.getTypeID()
-                                    || attributeTypeID == ATTRIBUTE_TYPE.TSK_DATETIME_ACCESSED.getTypeID()
-                                    || attributeTypeID == ATTRIBUTE_TYPE.TSK_DATETIME_CREATED.getTypeID() 
-                                    || attributeTypeID == ATTRIBUTE_TYPE.TSK_DATETIME_MODIFIED.getTypeID()
-                                    || attributeTypeID == ATTRIBUTE_TYPE.TSK_DATETIME_RCVD.getTypeID()
-                                    || attributeTypeID == ATTRIBUTE_TYPE.TSK_DATETIME_SENT.getTypeID() 
-                                    || attributeTypeID == ATTRIBUTE_TYPE.TSK_DATETIME_START.getTypeID()
-                                    || attributeTypeID == ATTRIBUTE_TYPE.TSK_DATETIME_END.getTypeID() ) {
+                            if (isDateTime(attributeTypeID)) {
                                 map.put(attribute.getAttributeTypeDisplayName(), ContentUtils.getStringTime(attribute.getValueLong(), associated));
                             } else {
                                 map.put(attribute.getAttributeTypeDisplayName(), attribute.getValueLong());
@@ -241,6 +264,34 @@ private void fillPropertyMap(Map<String, Object> map, BlackboardArtifact artifac
         }
     }
 
+    private static boolean isDateTime(int attributeTypeID) {
+        return attributeTypeID == ATTRIBUTE_TYPE.TSK_DATETIME.getTypeID()
+                || attributeTypeID == ATTRIBUTE_TYPE.TSK_DATETIME_ACCESSED.getTypeID()
+                || attributeTypeID == ATTRIBUTE_TYPE.TSK_DATETIME_CREATED.getTypeID()
+                || attributeTypeID == ATTRIBUTE_TYPE.TSK_DATETIME_MODIFIED.getTypeID()
+                || attributeTypeID == ATTRIBUTE_TYPE.TSK_DATETIME_RCVD.getTypeID()
+                || attributeTypeID == ATTRIBUTE_TYPE.TSK_DATETIME_SENT.getTypeID()
+                || attributeTypeID == ATTRIBUTE_TYPE.TSK_DATETIME_START.getTypeID()
+                || attributeTypeID == ATTRIBUTE_TYPE.TSK_DATETIME_END.getTypeID();
+    }
+
+    /**
+     * Attribute of an artifact read in bulk, as the display name of its type
+     * and its value.
+     */
+    static class AttributeValue {
+
+        private final int typeId;
+        private final String displayName;
+        private final Object value;
+
+        AttributeValue(int typeId, String displayName, Object value) {
+            this.typeId = typeId;
+            this.displayName = displayName;
+            this.value = value;
+        }
+    }
+
     @Override
     public <T> T accept(DisplayableItemNodeVisitor<T> v) {
         return v.visit(this);
@@ -0,0 +1,144 @@
+/*
+ * Autopsy Forensic Browser
+ *
+ * Copyright 2013 Basis Technology Corp.
+ * Contact: carrier <at> sleuthkit <dot> org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.sleuthkit.autopsy.datamodel;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.logging.Level;
+import javax.swing.SwingUtilities;
+import org.openide.nodes.Node;
+import org.sleuthkit.autopsy.casemodule.Case;
+import org.sleuthkit.autopsy.coreutils.Logger;
+
+/**
+ * Counts the children shown in the display names of tree nodes on a thread
+ * of its own, so that making the nodes, when a case is opened or the tree is
+ * refreshed, does not wait for the count queries. A node has its plain
+ * display name until its count is known.
+ *
+ * A node is counted once however many times it is named before its count
+ * starts, and the counts not started yet are dropped when the case changes.
+ */
+class ChildCountLoader {
+
+    private static final Logger logger = Logger.getLogger(ChildCountLoader.class.getName());
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "Tree node child counter");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+    // the counts not started yet, by node
+    private static final Map<Node, Future<?>> queued = new HashMap<>();
+    // incremented when the case changes, the counts of an older case are not shown
+    private static int caseGeneration = 0;
+    private static boolean listening = false;
+
+    private ChildCountLoader() {
+    }
+
+    /**
+     * Set the display name of a node, and add the count of its children to
+     * it when they are counted.
+     *
+     * @param node node to name
+     * @param displayName display name without the count
+     * @param counter counts the children, called off the EDT
+     */
+    static synchronized void setDisplayName(final Node node, final String displayName, final Callable<Long> counter) {
+        if (!listening) {
+            Case.addPropertyChangeListener(new PropertyChangeListener() {
+                @Override
+                public void propertyChange(PropertyChangeEvent evt) {
+                    if (evt.getPropertyName().equals(Case.CASE_CURRENT_CASE)) {
+                        clear();
+                    }
+                }
+            });
+            listening = true;
+        }
+        node.setDisplayName(displayName);
+        if (queued.containsKey(node)) {
+            // the queued count has not started, it will count the latest children
+            return;
+        }
+        final int generation = caseGeneration;
+        queued.put(node, executor.submit(new Runnable() {
+            @Override
+            public void run() {
+                if (!start(node, generation)) {
+                    return;
+                }
+                final long count;
+                try {
+                    count = counter.call();
+                } catch (Exception ex) {
+                    logger.log(Level.WARNING, "Error counting the children of " + displayName, ex);
+                    return;
+                }
+                SwingUtilities.invokeLater(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (isCurrent(generation)) {
+                            node.setDisplayName(displayName + " (" + count + ")");
+                        }
+                    }
+                });
+            }
+        }));
+    }
+
+    /**
+     * Take a node off the queue as its count starts.
+     *
+     * @return false if the count was queued for a previous case
+     */
+    private static synchronized boolean start(Node node, int generation) {
+        if (generation != caseGeneration) {
+            return false;
+        }
+        queued.remove(node);
+        return true;
+    }
+
+    private static synchronized boolean isCurrent(int generation) {
+        return generation == caseGeneration;
+    }
+
+    /**
+     * Drop the counts that have not started, the nodes are from the previous
+     * case.
+     */
+    private static synchronized void clear() {
+        ++caseGeneration;
+        for (Future<?> future : queued.values()) {
+            future.cancel(false);
+        }
+        queued.clear();
+    }
+}
@@ -0,0 +1,400 @@
+/*
+ * Autopsy Forensic Browser
+ *
+ * Copyright 2013 Basis Technology Corp.
+ * Contact: carrier <at> sleuthkit <dot> org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.sleuthkit.autopsy.datamodel;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import org.netbeans.api.progress.ProgressHandle;
+import org.sleuthkit.autopsy.coreutils.Logger;
+import org.sleuthkit.datamodel.AbstractFile;
+import org.sleuthkit.datamodel.Content;
+import org.sleuthkit.datamodel.DerivedFile;
+import org.sleuthkit.datamodel.Directory;
+import org.sleuthkit.datamodel.File;
+import org.sleuthkit.datamodel.LayoutFile;
+import org.sleuthkit.datamodel.LocalFile;
+import org.sleuthkit.datamodel.TskCoreException;
+import org.sleuthkit.datamodel.VirtualDirectory;
+
+/**
+ * Exports many files and directory trees to local files.
+ *
+ * The trees are walked by the calling thread, which creates the directories
+ * and queues the files to a small pool of writer threads. When the queue is
+ * full, the calling thread writes the next file itself, so the walk does not
+ * run far ahead of the writers.
+ *
+ * Each exported file is recorded in a manifest, if one is given. An export
+ * that was interrupted is resumed by exporting to the same destinations with
+ * the same manifest: the files in the manifest whose destination has the
+ * recorded size are not exported again. A manifest that is kept after the
+ * export completed, because it has the hashes of the files, ends with a
+ * completion marker, so that it is not taken for an interrupted export. The
+ * MD5 hash of the exported files can be computed while they are written, and
+ * is checked against the hash computed by ingest, if any.
+ */
+public class ContentExporter {
+
+    private static final Logger logger = Logger.getLogger(ContentExporter.class.getName());
+    private static final int WRITER_THREADS = 4;
+    private static final int MAX_QUEUED_FILES = 64;
+    private static final int BUFFER_SIZE = 1024 * 1024;
+    private static final long PROGRESS_INTERVAL_MS = 500;
+    private static final String NO_HASH = "-";
+    // last line of the manifest of a completed export
+    private static final String COMPLETE_MARKER = "# complete";
+    private final java.io.File manifestFile;
+    private final boolean computeHashes;
+    private final ProgressHandle progress;
+    private final ThreadPoolExecutor writers;
+    // size of the files recorded in the manifest by a previous export, by destination path
+    private final Map<String, Long> exported = new HashMap<>();
+    private Writer manifest;
+    private volatile boolean cancelled = false;
+    private final AtomicInteger filesExported = new AtomicInteger();
+    private final AtomicInteger filesSkipped = new AtomicInteger();
+    private final AtomicInteger filesFailed = new AtomicInteger();
+    private final AtomicInteger hashMismatches = new AtomicInteger();
+    private final AtomicLong bytesExported = new AtomicLong();
+    private final AtomicLong lastProgressTime = new AtomicLong();
+
+    /**
+     * @param manifestFile  the manifest of the exported files, to resume an
+     *                      export from, or null to export without one
+     * @param computeHashes true to compute the MD5 hash of the exported files
+     *                      and record it in the manifest
+     * @param progress      progress bar handle to update, if available. null
+     *                      otherwise
+     *
+     * @throws IOException if the manifest could not be read or opened
+     */
+    public ContentExporter(java.io.File manifestFile, boolean computeHashes, ProgressHandle progress) throws IOException {
+        this.manifestFile = manifestFile;
+        this.computeHashes = computeHashes;
+        this.progress = progress;
+        if (manifestFile != null) {
+            if (manifestFile.exists()) {
+                readManifest();
+            }
+            manifest = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(manifestFile, true), StandardCharsets.UTF_8));
+        }
+        writers = new ThreadPoolExecutor(WRITER_THREADS, WRITER_THREADS, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<Runnable>(MAX_QUEUED_FILES), new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "Content exporter");
+                thread.setDaemon(true);
+                return thread;
+            }
+        }, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * Export a file, or a directory and its contents, as the given
+     * destination. The directory to contain the destination must exist. The
+     * files may still be written when this returns, call finish() to wait for
+     * them.
+     *
+     * @param source file or directory to export
+     * @param dest   the local file or directory to export it as
+     */
+    public void export(AbstractFile source, final java.io.File dest) {
+        if (cancelled || ContentUtils.isDotDirectory(source)) {
+            return;
+        }
+        if (source instanceof Directory || source instanceof VirtualDirectory) {
+            dest.mkdir();
+            try {
+                for (Content child : source.getChildren()) {
+                    if (cancelled) {
+                        return;
+                    }
+                    if (child instanceof AbstractFile) {
+                        export((AbstractFile) child, new java.io.File(dest, child.getName()));
+                    }
+                }
+            } catch (TskCoreException ex) {
+                logger.log(Level.SEVERE, "Trouble fetching children to extract.", ex);
+            }
+        } else if (source instanceof File || source instanceof LayoutFile
+                || source instanceof DerivedFile || source instanceof LocalFile) {
+            final AbstractFile file = source;
+            Long exportedSize = exported.get(dest.getAbsolutePath());
+            if (exportedSize != null && dest.isFile() && dest.length() == exportedSize) {
+                filesSkipped.incrementAndGet();
+                return;
+            }
+            writers.execute(new Runnable() {
+                @Override
+                public void run() {
+                    if (!cancelled) {
+                        writeFile(file, dest);
+                    }
+                }
+            });
+        } else {
+            logger.log(Level.INFO, "Can't extract a " + source.getClass().getSimpleName() + ": " + source.getName());
+        }
+    }
+
+    /**
+     * Check if a manifest is the one of an export that completed, rather than
+     * of one that was interrupted and can be resumed.
+     *
+     * @param manifestFile an existing manifest
+     *
+     * @return true if the manifest ends with the completion marker
+     *
+     * @throws IOException if the manifest could not be read
+     */
+    public static boolean isComplete(java.io.File manifestFile) throws IOException {
+        String lastLine = null;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(manifestFile), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lastLine = line;
+            }
+        }
+        return COMPLETE_MARKER.equals(lastLine);
+    }
+
+    /**
+     * Wait for the queued files to be written, and close the manifest. The
+     * manifest is deleted when all the files were exported and it has no
+     * hashes to keep, or else marked complete if it has.
+     *
+     * @throws InterruptedException if interrupted while waiting, the export
+     *                              is then cancelled
+     */
+    public void finish() throws InterruptedException {
+        writers.shutdown();
+        try {
+            while (!writers.awaitTermination(1, TimeUnit.SECONDS)) {
+                updateProgress(null, true);
+            }
+        } catch (InterruptedException ex) {
+            cancel();
+            throw ex;
+        } finally {
+            if (!cancelled && filesFailed.get() == 0 && computeHashes) {
+                addLineToManifest(COMPLETE_MARKER);
+            }
+            closeManifest();
+        }
+        if (manifestFile != null && !cancelled && filesFailed.get() == 0 && !computeHashes) {
+            manifestFile.delete();
+        }
+    }
+
+    /**
+     * Cancel the export if it was not finished, and close the manifest once
+     * the files being written are done. To be called in a finally block, in
+     * case the export did not get to finish().
+     */
+    public void close() {
+        if (!writers.isTerminated()) {
+            cancel();
+            try {
+                writers.awaitTermination(PROGRESS_INTERVAL_MS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        closeManifest();
+    }
+
+    /**
+     * Stop exporting, after the files being written. The manifest is kept to
+     * resume the export.
+     */
+    public void cancel() {
+        cancelled = true;
+        writers.shutdownNow();
+    }
+
+    public int getFilesExported() {
+        return filesExported.get();
+    }
+
+    public int getFilesSkipped() {
+        return filesSkipped.get();
+    }
+
+    public int getFilesFailed() {
+        return filesFailed.get();
+    }
+
+    /**
+     * @return number of exported files whose hash differs from the hash
+     *         computed by ingest
+     */
+    public int getHashMismatches() {
+        return hashMismatches.get();
+    }
+
+    public long getBytesExported() {
+        return bytesExported.get();
+    }
+
+    private void writeFile(AbstractFile file, java.io.File dest) {
+        MessageDigest digest = null;
+        if (computeHashes) {
+            try {
+                digest = MessageDigest.getInstance("MD5");
+            } catch (NoSuchAlgorithmException ex) {
+                logger.log(Level.SEVERE, "MD5 is not available, not computing hashes", ex);
+            }
+        }
+        long size = file.getSize();
+        byte[] buffer = new byte[(int) Math.max(1, Math.min(BUFFER_SIZE, size))];
+        long offset = 0;
+        try (FileChannel out = new FileOutputStream(dest).getChannel()) {
+            while (offset < size) {
+                if (cancelled) {
+                    return;
+                }
+                int len = file.read(buffer, offset, (int) Math.min(buffer.length, size - offset));
+                if (len <= 0) {
+                    break;
+                }
+                ByteBuffer bytes = ByteBuffer.wrap(buffer, 0, len);
+                while (bytes.hasRemaining()) {
+                    out.write(bytes);
+                }
+                if (digest != null) {
+                    digest.update(buffer, 0, len);
+                }
+                offset += len;
+                bytesExported.addAndGet(len);
+                updateProgress(file.getName(), false);
+            }
+            if (offset < size) {
+                throw new IOException("Could only read " + offset + " of the " + size + " bytes of " + file.getName());
+            }
+        } catch (IOException | TskCoreException ex) {
+            filesFailed.incrementAndGet();
+            logger.log(Level.SEVERE, "Trouble extracting file to " + dest.getAbsolutePath(), ex);
+            return;
+        }
+
+        String md5 = NO_HASH;
+        if (digest != null) {
+            md5 = toHex(digest.digest());
+            String ingestMd5 = file.getMd5Hash();
+            if (ingestMd5 != null && !ingestMd5.isEmpty() && !ingestMd5.equalsIgnoreCase(md5)) {
+                hashMismatches.incrementAndGet();
+                logger.log(Level.WARNING, "MD5 of extracted file " + dest.getAbsolutePath() + " is " + md5
+                        + ", but the MD5 of " + file.getName() + " (" + file.getId() + ") is " + ingestMd5);
+            }
+        }
+        filesExported.incrementAndGet();
+        updateProgress(file.getName(), false);
+        addToManifest(file, dest, offset, md5);
+    }
+
+    private void updateProgress(String name, boolean force) {
+        if (progress == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        long last = lastProgressTime.get();
+        if ((force || now - last >= PROGRESS_INTERVAL_MS) && lastProgressTime.compareAndSet(last, now)) {
+            String status = filesExported.get() + " files, " + (bytesExported.get() / (1024 * 1024)) + " MB";
+            progress.progress(name == null ? status : status + ": " + name);
+        }
+    }
+
+    /**
+     * Read the destinations and sizes of the files exported before.
+     */
+    private void readManifest() throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(manifestFile), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                // object id, size, md5 and destination path, tab separated, or the completion marker
+                String[] fields = line.split("\t", 4);
+                if (fields.length < 4) {
+                    continue;
+                }
+                try {
+                    exported.put(fields[3], Long.parseLong(fields[1]));
+                } catch (NumberFormatException ex) {
+                    logger.log(Level.WARNING, "Invalid line in export manifest " + manifestFile.getPath() + ": " + line);
+                }
+            }
+        }
+    }
+
+    private void addToManifest(AbstractFile file, java.io.File dest, long size, String md5) {
+        addLineToManifest(file.getId() + "\t" + size + "\t" + md5 + "\t" + dest.getAbsolutePath());
+    }
+
+    private synchronized void addLineToManifest(String line) {
+        if (manifest == null) {
+            return;
+        }
+        try {
+            manifest.write(line + "\n");
+            // so that the file is not exported again if the export is interrupted right after it
+            manifest.flush();
+        } catch (IOException ex) {
+            logger.log(Level.WARNING, "Could not add to export manifest " + manifestFile.getPath(), ex);
+        }
+    }
+
+    private synchronized void closeManifest() {
+        if (manifest == null) {
+            return;
+        }
+        try {
+            manifest.close();
+        } catch (IOException ex) {
+            logger.log(Level.WARNING, "Could not close export manifest " + manifestFile.getPath(), ex);
+        }
+        manifest = null;
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(String.format("%02x", b & 0xff));
+        }
+        return hex.toString();
+    }
+}
@@ -21,6 +21,7 @@
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.Callable;
 import java.util.logging.Level;
 import javax.swing.JOptionPane;
 import javax.swing.SwingUtilities;
@@ -172,9 +173,13 @@ public class DeletedContentNode extends DisplayableItemNode {
                 this.setIconBaseWithExtension("org/sleuthkit/autopsy/images/file-icon-deleted.png");
 
                 //get count of children without preloading all children nodes
-                final long count = new DeletedContentChildren(filter, skCase).calculateItems();
-                //final long count = getChildren().getNodesCount(true);
-                super.setDisplayName(filter.getDisplayName() + " (" + count + ")");
+                final DeletedContentChildren counter = new DeletedContentChildren(filter, skCase);
+                ChildCountLoader.setDisplayName(this, filter.getDisplayName(), new Callable<Long>() {
+                    @Override
+                    public Long call() {
+                        return counter.calculateItems();
+                    }
+                });
             }
 
             @Override
@@ -91,6 +91,8 @@
 
     T visit(TagNodeRoot tnr);
 
+    T visit(MoreResultsNode mrn);
+
     T visit(ViewsNode vn);
 
     T visit(ResultsNode rn);
@@ -278,5 +280,10 @@ public T visit(TagsNodeRoot bksnr) {
         public T visit(TagNodeRoot tnr) {
             return defaultVisit(tnr);
         }
+
+        @Override
+        public T visit(MoreResultsNode mrn) {
+            return defaultVisit(mrn);
+        }
     }
 }
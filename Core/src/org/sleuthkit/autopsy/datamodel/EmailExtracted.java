@@ -21,10 +21,13 @@
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.logging.Level;
 import org.sleuthkit.autopsy.coreutils.Logger;
 import org.openide.nodes.AbstractNode;
@@ -54,15 +57,115 @@ public class EmailExtracted implements AutopsyVisitableItem {
     private static final String MAIL_PATH_SEPARATOR = "/";
     private SleuthkitCase skCase;
     private Map<String, Map<String, List<Long>>> accounts;
+    // ids of the messages in the accounts map
+    private Set<Long> messageIds;
+    // the accounts are read from the case once, and then kept up to date with addArtifacts()
+    private boolean loaded = false;
 
     public EmailExtracted(SleuthkitCase skCase) {
         this.skCase = skCase;
         accounts = new LinkedHashMap<String, Map<String, List<Long>>>();
+        messageIds = new HashSet<Long>();
+    }
+
+    /**
+     * Read the messages of the case, unless they were already read.
+     */
+    private synchronized void loadArtifacts() {
+        if (!loaded) {
+            initArtifacts();
+            loaded = true;
+        }
+    }
+
+    /**
+     * Add new messages to the messages that were read from the case, so that
+     * the nodes can be refreshed without reading all of the messages again.
+     *
+     * The paths of the messages are read with a bulk query, so this must not
+     * be called in the EDT, and it waits for the messages being read by a
+     * node.
+     *
+     * @param artifacts new TSK_EMAIL_MSG artifacts, or null if they are not
+     * known, in which case all of the messages are read again with the next
+     * node
+     */
+    public void addArtifacts(Collection<BlackboardArtifact> artifacts) {
+        if (artifacts == null) {
+            synchronized (this) {
+                loaded = false;
+            }
+            return;
+        }
+        Map<Long, Map<Long, String>> paths = ArtifactTextAttributes.get(skCase, artifacts,
+                BlackboardAttribute.ATTRIBUTE_TYPE.TSK_PATH);
+        Long pathId = Long.valueOf(BlackboardAttribute.ATTRIBUTE_TYPE.TSK_PATH.getTypeID());
+        synchronized (this) {
+            if (!loaded) {
+                return;
+            }
+            for (Map.Entry<Long, Map<Long, String>> entry : paths.entrySet()) {
+                addMessage(entry.getValue().get(pathId), entry.getKey());
+            }
+        }
+    }
+
+    private void addMessage(String path, long artifactId) {
+        if (!messageIds.add(artifactId)) {
+            return;
+        }
+        final Map<String, String> parsedPath = parsePath(path);
+        final String account = parsedPath.get(MAIL_ACCOUNT);
+        final String folder = parsedPath.get(MAIL_FOLDER);
+
+        Map<String, List<Long>> folders = accounts.get(account);
+        if (folders == null) {
+            folders = new LinkedHashMap<String, List<Long>>();
+            accounts.put(account, folders);
+        }
+        List<Long> messages = folders.get(folder);
+        if (messages == null) {
+            messages = new ArrayList<Long>();
+            folders.put(folder, messages);
+        }
+        messages.add(artifactId);
+    }
+
+    /**
+     * Get the names of the accounts, reading the messages first if they are
+     * not read yet. Called from the children factory, off the EDT.
+     */
+    private synchronized List<String> getAccountNames() {
+        loadArtifacts();
+        return new ArrayList<>(accounts.keySet());
+    }
+
+    private synchronized Map<String, List<Long>> getFolders(String account) {
+        Map<String, List<Long>> folders = new LinkedHashMap<String, List<Long>>();
+        Map<String, List<Long>> accountFolders = accounts.get(account);
+        if (accountFolders != null) {
+            for (Map.Entry<String, List<Long>> entry : accountFolders.entrySet()) {
+                folders.put(entry.getKey(), new ArrayList<>(entry.getValue()));
+            }
+        }
+        return folders;
+    }
+
+    private synchronized List<Long> getAllMessages() {
+        loadArtifacts();
+        List<Long> messages = new ArrayList<Long>();
+        for (Map<String, List<Long>> folders : accounts.values()) {
+            for (List<Long> folderMessages : folders.values()) {
+                messages.addAll(folderMessages);
+            }
+        }
+        return messages;
     }
 
     @SuppressWarnings("deprecation")
     private void initArtifacts() {
         accounts.clear();
+        messageIds.clear();
         try {
             int artId = BlackboardArtifact.ARTIFACT_TYPE.TSK_EMAIL_MSG.getTypeID();
             int pathAttrId = BlackboardAttribute.ATTRIBUTE_TYPE.TSK_PATH.getTypeID();
@@ -75,21 +178,7 @@ private void initArtifacts() {
             while (rs.next()) {
                 final String path = rs.getString("value_text");
                 final long artifactId = rs.getLong("artifact_id");
-                final Map<String, String> parsedPath = parsePath(path);
-                final String account = parsedPath.get(MAIL_ACCOUNT);
-                final String folder = parsedPath.get(MAIL_FOLDER);
-
-                Map<String, List<Long>> folders = accounts.get(account);
-                if (folders == null) {
-                    folders = new LinkedHashMap<String, List<Long>>();
-                    accounts.put(account, folders);
-                }
-                List<Long> messages = folders.get(folder);
-                if (messages == null) {
-                    messages = new ArrayList<Long>();
-                    folders.put(folder, messages);
-                }
-                messages.add(artifactId);
+                addMessage(path, artifactId);
             }
             skCase.closeRunQuery(rs);
 
@@ -129,7 +218,6 @@ public EmailExtractedRootNodeFlat() {
             super.setName(LABEL_NAME);
             super.setDisplayName(DISPLAY_NAME);
             this.setIconBaseWithExtension("org/sleuthkit/autopsy/images/mail-icon-16.png");
-            initArtifacts();
         }
 
         @Override
@@ -174,18 +262,12 @@ private EmailExtractedRootChildrenFlat() {
         protected boolean createKeys(List<BlackboardArtifact> list) {
             //flatten all emails            
             List<BlackboardArtifact> tempList = new ArrayList<>();
-            for (String account : accounts.keySet()) {
-                Map<String, List<Long>> folders = accounts.get(account);
-                for (String folder : folders.keySet()) {
-                    List<Long> messages = folders.get(folder);
-                    for (long l : messages) {
-                        try {
-                            //TODO: bulk artifact gettings
-                            tempList.add(skCase.getBlackboardArtifact(l));
-                        } catch (TskException ex) {
-                            logger.log(Level.WARNING, "Error creating mail messages nodes", ex);
-                        }
-                    }
+            for (long l : getAllMessages()) {
+                try {
+                    //TODO: bulk artifact gettings
+                    tempList.add(skCase.getBlackboardArtifact(l));
+                } catch (TskException ex) {
+                    logger.log(Level.WARNING, "Error creating mail messages nodes", ex);
                 }
             }
 
@@ -211,7 +293,6 @@ public EmailExtractedRootNode() {
             super.setName(LABEL_NAME);
             super.setDisplayName(DISPLAY_NAME);
             this.setIconBaseWithExtension("org/sleuthkit/autopsy/images/mail-icon-16.png");
-            initArtifacts();
         }
 
         @Override
@@ -250,13 +331,13 @@ private class EmailExtractedRootChildren extends ChildFactory<String> {
 
         @Override
         protected boolean createKeys(List<String> list) {
-            list.addAll(accounts.keySet());
+            list.addAll(getAccountNames());
             return true;
         }
 
         @Override
         protected Node createNodeForKey(String key) {
-            return new EmailExtractedAccountNode(key, accounts.get(key));
+            return new EmailExtractedAccountNode(key, getFolders(key));
         }
     }
 
@@ -21,6 +21,7 @@
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.Callable;
 import java.util.logging.Level;
 import org.openide.nodes.AbstractNode;
 import org.openide.nodes.ChildFactory;
@@ -174,9 +175,13 @@ public class FileSizeNode extends DisplayableItemNode {
                 this.setIconBaseWithExtension("org/sleuthkit/autopsy/images/file-size-16.png");
 
                 //get count of children without preloading all children nodes
-                final long count = new FileSizeChildren(filter, skCase).calculateItems();
-                //final long count = getChildren().getNodesCount(true);
-                super.setDisplayName(filter.getDisplayName() + " (" + count + ")");
+                final FileSizeChildren counter = new FileSizeChildren(filter, skCase);
+                ChildCountLoader.setDisplayName(this, filter.getDisplayName(), new Callable<Long>() {
+                    @Override
+                    public Long call() {
+                        return counter.calculateItems();
+                    }
+                });
             }
 
             @Override
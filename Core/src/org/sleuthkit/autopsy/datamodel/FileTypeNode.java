@@ -18,6 +18,7 @@
  */
 package org.sleuthkit.autopsy.datamodel;
 
+import java.util.concurrent.Callable;
 import org.openide.nodes.Children;
 import org.openide.nodes.Sheet;
 import org.openide.util.lookup.Lookups;
@@ -40,9 +41,13 @@ public class FileTypeNode extends DisplayableItemNode {
         super.setName(filter.getName());
         
         //get count of children without preloading all children nodes
-        final long count = new FileTypeChildren(filter, skCase).calculateItems();
-        //final long count = getChildren().getNodesCount(true);
-        super.setDisplayName(filter.getDisplayName() + " (" + count + ")");
+        final FileTypeChildren counter = new FileTypeChildren(filter, skCase);
+        ChildCountLoader.setDisplayName(this, filter.getDisplayName(), new Callable<Long>() {
+            @Override
+            public Long call() {
+                return counter.calculateItems();
+            }
+        });
 
         this.setIconBaseWithExtension("org/sleuthkit/autopsy/images/file-filter-icon.png");
     }
@@ -22,6 +22,7 @@
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -51,12 +52,77 @@ public class HashsetHits implements AutopsyVisitableItem {
     private static final Logger logger = Logger.getLogger(HashsetHits.class.getName());
     private SleuthkitCase skCase;
     private Map<String, Set<Long>> hashSetHitsMap;
+    // the map is read from the case once, and then kept up to date with addArtifacts()
+    private boolean loaded = false;
 
     public HashsetHits(SleuthkitCase skCase) {
         this.skCase = skCase;
         hashSetHitsMap = new LinkedHashMap<String, Set<Long>>();
     }
 
+    /**
+     * Read the hash set hits of the case, unless they were already read.
+     */
+    private synchronized void loadArtifacts() {
+        if (!loaded) {
+            initArtifacts();
+            loaded = true;
+        }
+    }
+
+    /**
+     * Add new hash set hits to the hits that were read from the case, so that
+     * the nodes can be refreshed without reading all of the hits again.
+     *
+     * The set names of the hits are read with a bulk query, so this must not
+     * be called in the EDT, and it waits for the hits being read by a node.
+     *
+     * @param artifacts new TSK_HASHSET_HIT artifacts, or null if they are not
+     * known, in which case all of the hits are read again with the next node
+     */
+    public void addArtifacts(Collection<BlackboardArtifact> artifacts) {
+        if (artifacts == null) {
+            synchronized (this) {
+                loaded = false;
+            }
+            return;
+        }
+        Map<Long, Map<Long, String>> setNames = ArtifactTextAttributes.get(skCase, artifacts,
+                BlackboardAttribute.ATTRIBUTE_TYPE.TSK_SET_NAME);
+        Long setNameId = Long.valueOf(BlackboardAttribute.ATTRIBUTE_TYPE.TSK_SET_NAME.getTypeID());
+        synchronized (this) {
+            if (!loaded) {
+                return;
+            }
+            for (Map.Entry<Long, Map<Long, String>> entry : setNames.entrySet()) {
+                addHit(entry.getValue().get(setNameId), entry.getKey());
+            }
+        }
+    }
+
+    private void addHit(String setName, long artifactId) {
+        Set<Long> hits = hashSetHitsMap.get(setName);
+        if (hits == null) {
+            hits = new HashSet<Long>();
+            hashSetHitsMap.put(setName, hits);
+        }
+        hits.add(artifactId);
+    }
+
+    /**
+     * Get the names of the hash sets, reading the hits first if they are not
+     * read yet. Called from the children factory, off the EDT.
+     */
+    private synchronized List<String> getSetNames() {
+        loadArtifacts();
+        return new ArrayList<>(hashSetHitsMap.keySet());
+    }
+
+    private synchronized Set<Long> getHits(String setName) {
+        Set<Long> hits = hashSetHitsMap.get(setName);
+        return hits == null ? new HashSet<Long>() : new HashSet<>(hits);
+    }
+
     @SuppressWarnings("deprecation")
     private void initArtifacts() {
         hashSetHitsMap.clear();
@@ -73,11 +139,7 @@ private void initArtifacts() {
             while (rs.next()) {
                 String value = rs.getString("value_text");
                 long artifactId = rs.getLong("artifact_id");
-                if (!hashSetHitsMap.containsKey(value)) {
-                    hashSetHitsMap.put(value, new HashSet<Long>());
-                }
-                hashSetHitsMap.get(value).add(artifactId);
-
+                addHit(value, artifactId);
             }
            
         } catch (SQLException ex) {
@@ -109,7 +171,6 @@ public HashsetHitsRootNode() {
             super.setName(HASHSET_HITS);
             super.setDisplayName(DISPLAY_NAME);
             this.setIconBaseWithExtension("org/sleuthkit/autopsy/images/hashset_hits.png");
-            initArtifacts();
         }
 
         @Override
@@ -144,13 +205,13 @@ private class HashsetHitsRootChildren extends ChildFactory<String> {
 
         @Override
         protected boolean createKeys(List<String> list) {
-            list.addAll(hashSetHitsMap.keySet());
+            list.addAll(getSetNames());
             return true;
         }
 
         @Override
         protected Node createNodeForKey(String key) {
-            return new HashsetHitsSetNode(key, hashSetHitsMap.get(key));
+            return new HashsetHitsSetNode(key, getHits(key));
         }
     }
 
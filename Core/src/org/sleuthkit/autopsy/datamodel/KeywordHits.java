@@ -21,6 +21,7 @@
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -60,6 +61,8 @@ public class KeywordHits implements AutopsyVisitableItem {
     // Map from String (regex keyword) to set<long> (artifact ids);
     private Map<String, Set<Long>> regexMap;
     Map<Long, Map<Long, String>> artifacts;
+    // the maps are read from the case once, and then kept up to date with addArtifacts()
+    private boolean loaded = false;
 
     public KeywordHits(SleuthkitCase skCase) {
         this.skCase = skCase;
@@ -78,34 +81,113 @@ private void initMaps() {
         regexMap.clear();
         literalMap.clear();
         for (Map.Entry<Long, Map<Long, String>> art : artifacts.entrySet()) {
-            long id = art.getKey();
-            Map<Long, String> attributes = art.getValue();
-            // I think we can use attributes.remove(...) here?
-            String listName = attributes.get(Long.valueOf(BlackboardAttribute.ATTRIBUTE_TYPE.TSK_SET_NAME.getTypeID()));
-            String word = attributes.get(Long.valueOf(BlackboardAttribute.ATTRIBUTE_TYPE.TSK_KEYWORD.getTypeID()));
-            String reg = attributes.get(Long.valueOf(BlackboardAttribute.ATTRIBUTE_TYPE.TSK_KEYWORD_REGEXP.getTypeID()));
-            if (listName != null) {
-                if (!listsMap.containsKey(listName)) {
-                    listsMap.put(listName, new LinkedHashMap<String, Set<Long>>());
-                }
-                if (!listsMap.get(listName).containsKey(word)) {
-                    listsMap.get(listName).put(word, new HashSet<Long>());
-                }
-                listsMap.get(listName).get(word).add(id);
-            } else if (reg != null) {
-                if (!regexMap.containsKey(reg)) {
-                    regexMap.put(reg, new HashSet<Long>());
+            addToMaps(art.getKey(), art.getValue());
+        }
+    }
+
+    /**
+     * Add a keyword hit to the list, regex or literal map it belongs to.
+     *
+     * @param id artifact id of the hit
+     * @param attributes non-empty set name, keyword and regex attributes of the
+     * hit, by attribute type id
+     */
+    private void addToMaps(long id, Map<Long, String> attributes) {
+        String listName = attributes.get(Long.valueOf(BlackboardAttribute.ATTRIBUTE_TYPE.TSK_SET_NAME.getTypeID()));
+        String word = attributes.get(Long.valueOf(BlackboardAttribute.ATTRIBUTE_TYPE.TSK_KEYWORD.getTypeID()));
+        String reg = attributes.get(Long.valueOf(BlackboardAttribute.ATTRIBUTE_TYPE.TSK_KEYWORD_REGEXP.getTypeID()));
+        if (listName != null) {
+            if (!listsMap.containsKey(listName)) {
+                listsMap.put(listName, new LinkedHashMap<String, Set<Long>>());
+                topLevelMap.put(listName, listsMap.get(listName));
+            }
+            if (!listsMap.get(listName).containsKey(word)) {
+                listsMap.get(listName).put(word, new HashSet<Long>());
+            }
+            listsMap.get(listName).get(word).add(id);
+        } else if (reg != null) {
+            if (!regexMap.containsKey(reg)) {
+                regexMap.put(reg, new HashSet<Long>());
+            }
+            regexMap.get(reg).add(id);
+        } else {
+            if (!literalMap.containsKey(word)) {
+                literalMap.put(word, new HashSet<Long>());
+            }
+            literalMap.get(word).add(id);
+        }
+    }
+
+    /**
+     * Read the keyword hits of the case, unless they were already read.
+     */
+    private synchronized void loadArtifacts() {
+        if (!loaded) {
+            initArtifacts();
+            initMaps();
+            loaded = true;
+        }
+    }
+
+    /**
+     * Add new keyword hits to the hits that were read from the case, so that
+     * the nodes can be refreshed without reading all of the hits again.
+     *
+     * The attributes of the hits are read with a bulk query, so this must not
+     * be called in the EDT, and it waits for the hits being read by a node.
+     *
+     * @param newArtifacts new TSK_KEYWORD_HIT artifacts, or null if they are
+     * not known, in which case all of the hits are read again with the next
+     * node
+     */
+    public void addArtifacts(Collection<BlackboardArtifact> newArtifacts) {
+        if (newArtifacts == null) {
+            synchronized (this) {
+                loaded = false;
+            }
+            return;
+        }
+        Map<Long, Map<Long, String>> newAttributes = ArtifactTextAttributes.get(skCase, newArtifacts,
+                BlackboardAttribute.ATTRIBUTE_TYPE.TSK_SET_NAME,
+                BlackboardAttribute.ATTRIBUTE_TYPE.TSK_KEYWORD,
+                BlackboardAttribute.ATTRIBUTE_TYPE.TSK_KEYWORD_REGEXP);
+        synchronized (this) {
+            if (!loaded) {
+                return;
+            }
+            for (BlackboardArtifact artifact : newArtifacts) {
+                long id = artifact.getArtifactID();
+                if (artifacts.containsKey(id)) {
+                    continue;
                 }
-                regexMap.get(reg).add(id);
-            } else {
-                if (!literalMap.containsKey(word)) {
-                    literalMap.put(word, new HashSet<Long>());
+                Map<Long, String> attributes = newAttributes.get(id);
+                if (attributes == null) {
+                    attributes = new LinkedHashMap<Long, String>();
                 }
-                literalMap.get(word).add(id);
+                artifacts.put(id, attributes);
+                addToMaps(id, attributes);
             }
-            topLevelMap.putAll(listsMap);
+        }
+    }
+
+    /**
+     * Get the names of the lists, reading the hits first if they are not
+     * read yet. Called from the children factory, off the EDT.
+     */
+    private synchronized List<String> getTopLevelNames() {
+        loadArtifacts();
+        return new ArrayList<>(topLevelMap.keySet());
+    }
 
+    private synchronized Map<String, Set<Long>> getKeywords(String topLevelName) {
+        Map<String, Set<Long>> keywords = new LinkedHashMap<String, Set<Long>>();
+        Map<String, Set<Long>> hits = topLevelMap.get(topLevelName);
+        if (hits != null) {
+            for (Map.Entry<String, Set<Long>> entry : hits.entrySet()) {
+                keywords.put(entry.getKey(), new HashSet<>(entry.getValue()));
+            }
         }
+        return keywords;
     }
 
     @SuppressWarnings("deprecation")
@@ -164,11 +246,6 @@ public KeywordHitsRootNode() {
             super.setName(NAME);
             super.setDisplayName(KEYWORD_HITS);
             this.setIconBaseWithExtension("org/sleuthkit/autopsy/images/keyword_hits.png");
-            //long start = System.currentTimeMillis();
-            initArtifacts();
-            initMaps();
-            //long finish = System.currentTimeMillis();
-            //logger.info("Process took " + (finish-start) + " ms" );
         }
 
         @Override
@@ -203,13 +280,13 @@ private class KeywordHitsRootChildren extends ChildFactory<String> {
 
         @Override
         protected boolean createKeys(List<String> list) {
-            list.addAll(topLevelMap.keySet());
+            list.addAll(getTopLevelNames());
             return true;
         }
 
         @Override
         protected Node createNodeForKey(String key) {
-            return new KeywordHitsListNode(key, topLevelMap.get(key));
+            return new KeywordHitsListNode(key, getKeywords(key));
         }
     }
 
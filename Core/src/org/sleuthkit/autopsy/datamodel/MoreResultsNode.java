@@ -0,0 +1,83 @@
+/*
+ * Autopsy Forensic Browser
+ *
+ * Copyright 2013 Basis Technology Corp.
+ * Contact: carrier <at> sleuthkit <dot> org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.sleuthkit.autopsy.datamodel;
+
+import org.openide.nodes.Children;
+import org.openide.nodes.Sheet;
+import org.openide.util.lookup.Lookups;
+
+/**
+ * Last child of a node whose children are listed up to a limit. Opening it
+ * lists the next children of the node in its place.
+ */
+public class MoreResultsNode extends DisplayableItemNode {
+
+    private final Runnable showMore;
+
+    /**
+     * @param displayName name of the node
+     * @param showMore raises the limit of the children of the parent node
+     */
+    MoreResultsNode(String displayName, Runnable showMore) {
+        super(Children.LEAF, Lookups.singleton(displayName));
+        super.setName(displayName);
+        super.setDisplayName(displayName);
+        this.showMore = showMore;
+        this.setIconBaseWithExtension("org/sleuthkit/autopsy/images/info-icon-16.png");
+    }
+
+    /**
+     * List the next children of the parent node.
+     */
+    public void showMore() {
+        showMore.run();
+    }
+
+    @Override
+    protected Sheet createSheet() {
+        Sheet s = super.createSheet();
+        Sheet.Set ss = s.get(Sheet.PROPERTIES);
+        if (ss == null) {
+            ss = Sheet.createPropertiesSet();
+            s.put(ss);
+        }
+
+        ss.put(new NodeProperty<>("Name",
+                "Name",
+                "no description",
+                getName()));
+
+        return s;
+    }
+
+    @Override
+    public TYPE getDisplayableItemNodeType() {
+        return TYPE.META;
+    }
+
+    @Override
+    public boolean isLeafTypeNode() {
+        return true;
+    }
+
+    @Override
+    public <T> T accept(DisplayableItemNodeVisitor<T> v) {
+        return v.visit(this);
+    }
+}
@@ -20,6 +20,7 @@
 
 import java.util.Calendar;
 import java.util.Locale;
+import java.util.concurrent.Callable;
 import org.sleuthkit.autopsy.coreutils.Logger;
 import org.openide.nodes.AbstractNode;
 import org.openide.nodes.Children;
@@ -52,9 +53,13 @@ public class RecentFilesFilterNode extends DisplayableItemNode {
         this.setIconBaseWithExtension("org/sleuthkit/autopsy/images/recent_files.png");
         
         //get count of children without preloading all children nodes
-        final long count = new RecentFilesFilterChildren(filter, skCase, lastDay).calculateItems();
-        //final long count = getChildren().getNodesCount(true);
-        super.setDisplayName(filter.getDisplayName() + " (" + count + ")");
+        final RecentFilesFilterChildren counter = new RecentFilesFilterChildren(filter, skCase, lastDay);
+        ChildCountLoader.setDisplayName(this, filter.getDisplayName(), new Callable<Long>() {
+            @Override
+            public Long call() {
+                return counter.calculateItems();
+            }
+        });
     }
 
     @Override
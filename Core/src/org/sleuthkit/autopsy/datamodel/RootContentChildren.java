@@ -61,6 +61,37 @@ public void refreshContentKeys() {
         }
     }
     
+    /**
+     * Add new artifacts to the results nodes that keep the artifacts of the
+     * case in memory, before their keys are refreshed with refreshKeys(), so
+     * that they do not have to read all of the artifacts again. Reads the
+     * attributes of the artifacts, so it must not be called in the EDT.
+     *
+     * @param type type of the new artifacts
+     * @param artifacts the new artifacts, or null if they are not known, in
+     * which case the nodes read all of the artifacts again when refreshed
+     */
+    public void addArtifacts(BlackboardArtifact.ARTIFACT_TYPE type, Collection<BlackboardArtifact> artifacts) {
+        for (Object o : contentKeys) {
+            switch (type) {
+                case TSK_HASHSET_HIT:
+                    if (o instanceof HashsetHits)
+                        ((HashsetHits) o).addArtifacts(artifacts);
+                    break;
+                case TSK_KEYWORD_HIT:
+                    if (o instanceof KeywordHits)
+                        ((KeywordHits) o).addArtifacts(artifacts);
+                    break;
+                case TSK_EMAIL_MSG:
+                    if (o instanceof EmailExtracted)
+                        ((EmailExtracted) o).addArtifacts(artifacts);
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
     //TODO use visitor
     //TODO this will be removed, Children should be listening for interesting 
     //events from datamodel and calling refresh / refreshKey() themselves
@@ -0,0 +1,272 @@
+/*
+ * Autopsy Forensic Browser
+ *
+ * Copyright 2013 Basis Technology Corp.
+ * Contact: carrier <at> sleuthkit <dot> org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.sleuthkit.autopsy.datamodel;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.logging.Level;
+import org.sleuthkit.autopsy.coreutils.Logger;
+import org.sleuthkit.datamodel.BlackboardArtifact.ARTIFACT_TYPE;
+import org.sleuthkit.datamodel.BlackboardAttribute.ATTRIBUTE_TYPE;
+import org.sleuthkit.datamodel.SleuthkitCase;
+
+/**
+ * In-memory index of the tags of a case: the tag artifacts by tag name, and
+ * the tag names by tagged artifact. It is read with a single query and then
+ * kept up to date by Tags as tags are created, so that the tag tree, the tag
+ * menus and the reports do not have to query the tags again.
+ */
+class TagIndex {
+
+    private static final Logger logger = Logger.getLogger(TagIndex.class.getName());
+
+    /**
+     * A tag artifact.
+     */
+    private static class TagInfo {
+
+        private final ARTIFACT_TYPE tagType;
+        private final String tagName;
+        // the tagged artifact of a result tag, or -1
+        private final long taggedArtifactId;
+
+        TagInfo(ARTIFACT_TYPE tagType, String tagName, long taggedArtifactId) {
+            this.tagType = tagType;
+            this.tagName = tagName;
+            this.taggedArtifactId = taggedArtifactId;
+        }
+    }
+    private final SleuthkitCase skCase;
+    // tag artifact id to tag
+    private final Map<Long, TagInfo> tagsById = new HashMap<>();
+    // tag type to tag name to tag artifact ids
+    private final Map<ARTIFACT_TYPE, Map<String, List<Long>>> tagsByName = new LinkedHashMap<>();
+    // tagged artifact id to the names of its tags
+    private final Map<Long, HashSet<String>> tagNamesByTaggedArtifact = new HashMap<>();
+    // tagged artifact id to its artifact type id
+    private final Map<Long, Integer> taggedArtifactTypes = new HashMap<>();
+    private final TreeSet<String> tagNames = new TreeSet<>();
+
+    private TagIndex(SleuthkitCase skCase) {
+        this.skCase = skCase;
+        tagsByName.put(ARTIFACT_TYPE.TSK_TAG_FILE, new LinkedHashMap<String, List<Long>>());
+        tagsByName.put(ARTIFACT_TYPE.TSK_TAG_ARTIFACT, new LinkedHashMap<String, List<Long>>());
+    }
+
+    /**
+     * Read the tags of a case.
+     *
+     * @param skCase case to read
+     * @return the index of the tags of the case, empty if they could not be
+     * read
+     */
+    @SuppressWarnings("deprecation")
+    static TagIndex load(SleuthkitCase skCase) {
+        TagIndex index = new TagIndex(skCase);
+        int fileTagTypeId = ARTIFACT_TYPE.TSK_TAG_FILE.getTypeID();
+        int resultTagTypeId = ARTIFACT_TYPE.TSK_TAG_ARTIFACT.getTypeID();
+        int tagNameTypeId = ATTRIBUTE_TYPE.TSK_TAG_NAME.getTypeID();
+        int taggedArtifactTypeId = ATTRIBUTE_TYPE.TSK_TAGGED_ARTIFACT.getTypeID();
+        // one row per tag, with the tagged artifact and its type for result tags
+        String query = "SELECT art.artifact_id AS artifact_id, art.artifact_type_id AS artifact_type_id,"
+                + " tag_name.value_text AS tag_name, tagged.value_int64 AS tagged_id,"
+                + " tagged_art.artifact_type_id AS tagged_type_id"
+                + " FROM blackboard_artifacts AS art"
+                + " JOIN blackboard_attributes AS tag_name ON tag_name.artifact_id = art.artifact_id"
+                + " AND tag_name.attribute_type_id = " + tagNameTypeId
+                + " LEFT JOIN blackboard_attributes AS tagged ON tagged.artifact_id = art.artifact_id"
+                + " AND tagged.attribute_type_id = " + taggedArtifactTypeId
+                + " LEFT JOIN blackboard_artifacts AS tagged_art ON tagged_art.artifact_id = tagged.value_int64"
+                + " WHERE art.artifact_type_id IN (" + fileTagTypeId + ", " + resultTagTypeId + ")"
+                + " ORDER BY art.artifact_id";
+        ResultSet rs = null;
+        try {
+            rs = skCase.runQuery(query);
+            while (rs.next()) {
+                ARTIFACT_TYPE tagType = rs.getInt("artifact_type_id") == fileTagTypeId
+                        ? ARTIFACT_TYPE.TSK_TAG_FILE : ARTIFACT_TYPE.TSK_TAG_ARTIFACT;
+                long taggedId = rs.getLong("tagged_id");
+                if (rs.wasNull()) {
+                    taggedId = -1;
+                }
+                int taggedTypeId = rs.getInt("tagged_type_id");
+                if (rs.wasNull()) {
+                    taggedTypeId = -1;
+                }
+                index.add(rs.getLong("artifact_id"), tagType, rs.getString("tag_name"), taggedId, taggedTypeId);
+            }
+        } catch (SQLException ex) {
+            logger.log(Level.SEVERE, "Failed to read the tags of the case", ex);
+        } finally {
+            if (rs != null) {
+                try {
+                    skCase.closeRunQuery(rs);
+                } catch (SQLException ex) {
+                    logger.log(Level.WARNING, "Failed to close the query for the tags of the case", ex);
+                }
+            }
+        }
+        return index;
+    }
+
+    /**
+     * @return true if this is the index of the tags of the given case
+     */
+    boolean isFor(SleuthkitCase skCase) {
+        return this.skCase == skCase;
+    }
+
+    /**
+     * Add a tag to the index.
+     *
+     * @param tagArtifactId artifact id of the tag
+     * @param tagType TSK_TAG_FILE or TSK_TAG_ARTIFACT
+     * @param tagName TSK_TAG_NAME of the tag
+     * @param taggedArtifactId artifact id of the tagged artifact of a result
+     * tag, -1 for a file tag
+     * @param taggedArtifactTypeId artifact type id of the tagged artifact, -1
+     * for a file tag
+     */
+    synchronized void add(long tagArtifactId, ARTIFACT_TYPE tagType, String tagName, long taggedArtifactId, int taggedArtifactTypeId) {
+        if (tagName == null || tagsById.containsKey(tagArtifactId)) {
+            return;
+        }
+        tagsById.put(tagArtifactId, new TagInfo(tagType, tagName, taggedArtifactId));
+        Map<String, List<Long>> byName = tagsByName.get(tagType);
+        List<Long> ids = byName.get(tagName);
+        if (ids == null) {
+            ids = new ArrayList<>();
+            byName.put(tagName, ids);
+        }
+        ids.add(tagArtifactId);
+        tagNames.add(tagName);
+
+        if (taggedArtifactId >= 0) {
+            HashSet<String> names = tagNamesByTaggedArtifact.get(taggedArtifactId);
+            if (names == null) {
+                names = new HashSet<>();
+                tagNamesByTaggedArtifact.put(taggedArtifactId, names);
+            }
+            names.add(tagName);
+            taggedArtifactTypes.put(taggedArtifactId, taggedArtifactTypeId);
+        }
+    }
+
+    /**
+     * @return the tag types, TSK_TAG_FILE and TSK_TAG_ARTIFACT
+     */
+    List<ARTIFACT_TYPE> getTagTypes() {
+        return new ArrayList<>(tagsByName.keySet());
+    }
+
+    /**
+     * @param tagType TSK_TAG_FILE or TSK_TAG_ARTIFACT
+     * @return the names of the tags of the type
+     */
+    synchronized List<String> getTagNames(ARTIFACT_TYPE tagType) {
+        return new ArrayList<>(tagsByName.get(tagType).keySet());
+    }
+
+    /**
+     * @param tagType TSK_TAG_FILE or TSK_TAG_ARTIFACT
+     * @param tagName name of the tags
+     * @return the artifact ids of the tags of the type with the name
+     */
+    synchronized List<Long> getTagArtifactIds(ARTIFACT_TYPE tagType, String tagName) {
+        List<Long> ids = tagsByName.get(tagType).get(tagName);
+        return ids == null ? new ArrayList<Long>() : new ArrayList<>(ids);
+    }
+
+    /**
+     * @return the names of all of the tags of the case, sorted
+     */
+    synchronized TreeSet<String> getAllTagNames() {
+        return new TreeSet<>(tagNames);
+    }
+
+    /**
+     * @param tagArtifactId artifact id of a result tag
+     * @return the artifact id of the tagged artifact, or -1 if the tag is not
+     * a result tag
+     */
+    synchronized long getTaggedArtifactId(long tagArtifactId) {
+        TagInfo tag = tagsById.get(tagArtifactId);
+        return tag == null ? -1 : tag.taggedArtifactId;
+    }
+
+    /**
+     * Get the tag names of a tag artifact (its own name) or of a tagged
+     * artifact (the names of its tags).
+     *
+     * @param artifactId artifact id
+     * @param artifactTypeId artifact type id
+     * @return the tag names, empty if there are none
+     */
+    synchronized HashSet<String> getTagNames(long artifactId, int artifactTypeId) {
+        HashSet<String> names = new HashSet<>();
+        if (artifactTypeId == ARTIFACT_TYPE.TSK_TAG_FILE.getTypeID()
+                || artifactTypeId == ARTIFACT_TYPE.TSK_TAG_ARTIFACT.getTypeID()) {
+            TagInfo tag = tagsById.get(artifactId);
+            if (tag != null) {
+                names.add(tag.tagName);
+            }
+        } else {
+            HashSet<String> tagged = tagNamesByTaggedArtifact.get(artifactId);
+            if (tagged != null) {
+                names.addAll(tagged);
+            }
+        }
+        return names;
+    }
+
+    /**
+     * Get the tag names of all of the artifacts of a type that have tags.
+     *
+     * @param artifactTypeId artifact type id
+     * @return artifact ids to their tag names
+     */
+    synchronized Map<Long, HashSet<String>> getTagNamesOfType(int artifactTypeId) {
+        Map<Long, HashSet<String>> result = new HashMap<>();
+        if (artifactTypeId == ARTIFACT_TYPE.TSK_TAG_FILE.getTypeID()
+                || artifactTypeId == ARTIFACT_TYPE.TSK_TAG_ARTIFACT.getTypeID()) {
+            for (Map.Entry<Long, TagInfo> entry : tagsById.entrySet()) {
+                if (entry.getValue().tagType.getTypeID() == artifactTypeId) {
+                    HashSet<String> names = new HashSet<>();
+                    names.add(entry.getValue().tagName);
+                    result.put(entry.getKey(), names);
+                }
+            }
+        } else {
+            for (Map.Entry<Long, HashSet<String>> entry : tagNamesByTaggedArtifact.entrySet()) {
+                Integer typeId = taggedArtifactTypes.get(entry.getKey());
+                if (typeId != null && typeId == artifactTypeId) {
+                    result.put(entry.getKey(), new HashSet<>(entry.getValue()));
+                }
+            }
+        }
+        return result;
+    }
+}
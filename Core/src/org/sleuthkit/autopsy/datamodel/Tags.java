@@ -19,12 +19,8 @@
 package org.sleuthkit.autopsy.datamodel;
 
 import java.awt.event.ActionEvent;
-import java.sql.ResultSet;
-import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.EnumMap;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -44,9 +40,7 @@
 import org.sleuthkit.autopsy.coreutils.ModuleSettings;
 import org.sleuthkit.datamodel.AbstractFile;
 import org.sleuthkit.datamodel.BlackboardArtifact;
-import org.sleuthkit.datamodel.BlackboardArtifact.ARTIFACT_TYPE;
 import org.sleuthkit.datamodel.BlackboardAttribute;
-import org.sleuthkit.datamodel.BlackboardAttribute.ATTRIBUTE_TYPE;
 import org.sleuthkit.datamodel.SleuthkitCase;
 import org.sleuthkit.datamodel.TskCoreException;
 
@@ -70,7 +64,9 @@ public class Tags implements AutopsyVisitableItem {
     //bookmarks are specializations of tags
     public static final String BOOKMARK_TAG_NAME = "Bookmark";
     private static final String BOOKMARK_ICON_PATH = "org/sleuthkit/autopsy/images/star-bookmark-icon-16.png";
-    private Map<BlackboardArtifact.ARTIFACT_TYPE, Map<String, List<BlackboardArtifact>>> tags;
+    // the tags of the current case, shared by the tree, the tag menus and the reports
+    private static TagIndex tagIndex;
+    private volatile TagIndex tags;
     private static final String EMPTY_COMMENT = "";
     private static final String APP_SETTINGS_FILE_NAME = "app"; // @@@ TODO: Need a general app settings or user preferences file, this will do for now.
     private static final String TAG_NAMES_SETTING_KEY = "tag_names";    
@@ -116,43 +112,6 @@ public TagsRootNode() {
             super.setName(NAME);
             super.setDisplayName(NAME);
             this.setIconBaseWithExtension(TAG_ICON_PATH);
-            initData();
-        }
-
-        private void initData() {
-            try {
-                // Get all file and artifact tags
-
-                //init data
-                tags = new EnumMap<>(BlackboardArtifact.ARTIFACT_TYPE.class);
-                tags.put(BlackboardArtifact.ARTIFACT_TYPE.TSK_TAG_FILE, new HashMap<String, List<BlackboardArtifact>>());
-                tags.put(BlackboardArtifact.ARTIFACT_TYPE.TSK_TAG_ARTIFACT, new HashMap<String, List<BlackboardArtifact>>());
-
-                //populate
-                for (BlackboardArtifact.ARTIFACT_TYPE artType : tags.keySet()) {
-                    final Map<String, List<BlackboardArtifact>> artTags = tags.get(artType);
-                    for (BlackboardArtifact artifact : skCase.getBlackboardArtifacts(artType)) {
-                        for (BlackboardAttribute attribute : artifact.getAttributes()) {
-                            if (attribute.getAttributeTypeID() == ATTRIBUTE_TYPE.TSK_TAG_NAME.getTypeID()) {
-                                String tagName = attribute.getValueString();
-                                if (artTags.containsKey(tagName)) {
-                                    List<BlackboardArtifact> artifacts = artTags.get(tagName);
-                                    artifacts.add(artifact);
-                                } else {
-                                    List<BlackboardArtifact> artifacts = new ArrayList<>();
-                                    artifacts.add(artifact);
-                                    artTags.put(tagName, artifacts);
-                                }
-                                break;
-                            }
-                        }
-                    }
-                }
-
-
-            } catch (TskCoreException ex) {
-                logger.log(Level.WARNING, "Count not initialize tag nodes", ex);
-            }
         }
 
         @Override
@@ -190,16 +149,16 @@ private class TagsRootChildren extends ChildFactory<BlackboardArtifact.ARTIFACT_
 
         @Override
         protected boolean createKeys(List<BlackboardArtifact.ARTIFACT_TYPE> list) {
-            for (BlackboardArtifact.ARTIFACT_TYPE artType : tags.keySet()) {
-                list.add(artType);
-            }
+            // the tags are read here, off the EDT, rather than with the root node
+            tags = getTagIndex(skCase);
+            list.addAll(tags.getTagTypes());
 
             return true;
         }
 
         @Override
         protected Node createNodeForKey(BlackboardArtifact.ARTIFACT_TYPE key) {
-            return new TagsNodeRoot(key, tags.get(key));
+            return new TagsNodeRoot(key, tags.getTagNames(key));
         }
     }
 
@@ -208,7 +167,7 @@ protected Node createNodeForKey(BlackboardArtifact.ARTIFACT_TYPE key) {
      */
     public class TagsNodeRoot extends DisplayableItemNode {
 
-        TagsNodeRoot(BlackboardArtifact.ARTIFACT_TYPE tagType, Map<String, List<BlackboardArtifact>> subTags) {
+        TagsNodeRoot(BlackboardArtifact.ARTIFACT_TYPE tagType, List<String> subTags) {
             super(Children.create(new TagRootChildren(tagType, subTags), true), Lookups.singleton(tagType.getDisplayName()));
 
             String name = null;
@@ -219,7 +178,7 @@ public class TagsNodeRoot extends DisplayableItemNode {
             }
 
             super.setName(name);
-            super.setDisplayName(name + " (" + subTags.values().size() + ")");
+            super.setDisplayName(name + " (" + subTags.size() + ")");
 
             this.setIconBaseWithExtension(TAG_ICON_PATH);
         }
@@ -263,10 +222,10 @@ public boolean isLeafTypeNode() {
      */
     private class TagRootChildren extends ChildFactory<String> {
 
-        private Map<String, List<BlackboardArtifact>> subTags;
+        private List<String> subTags;
         private BlackboardArtifact.ARTIFACT_TYPE tagType;
 
-        TagRootChildren(BlackboardArtifact.ARTIFACT_TYPE tagType, Map<String, List<BlackboardArtifact>> subTags) {
+        TagRootChildren(BlackboardArtifact.ARTIFACT_TYPE tagType, List<String> subTags) {
             super();
             this.tagType = tagType;
             this.subTags = subTags;
@@ -274,14 +233,14 @@ private class TagRootChildren extends ChildFactory<String> {
 
         @Override
         protected boolean createKeys(List<String> list) {
-            list.addAll(subTags.keySet());
+            list.addAll(subTags);
 
             return true;
         }
 
         @Override
         protected Node createNodeForKey(String key) {
-            return new Tags.TagNodeRoot(tagType, key, subTags.get(key));
+            return new Tags.TagNodeRoot(tagType, key, tags.getTagArtifactIds(tagType, key));
         }
     }
 
@@ -290,7 +249,7 @@ protected Node createNodeForKey(String key) {
      */
     public class TagNodeRoot extends DisplayableItemNode {
 
-        TagNodeRoot(BlackboardArtifact.ARTIFACT_TYPE tagType, String tagName, List<BlackboardArtifact> artifacts) {
+        TagNodeRoot(BlackboardArtifact.ARTIFACT_TYPE tagType, String tagName, List<Long> artifacts) {
             super(Children.create(new Tags.TagsChildrenNode(tagType, tagName, artifacts), true), Lookups.singleton(tagName));
 
             super.setName(tagName);
@@ -342,11 +301,11 @@ public boolean isLeafTypeNode() {
      */
     private class TagsChildrenNode extends ChildFactory<BlackboardArtifact> {
 
-        private List<BlackboardArtifact> artifacts;
+        private List<Long> artifacts;
         private BlackboardArtifact.ARTIFACT_TYPE tagType;
         private String tagName;
 
-        private TagsChildrenNode(BlackboardArtifact.ARTIFACT_TYPE tagType, String tagName, List<BlackboardArtifact> artifacts) {
+        private TagsChildrenNode(BlackboardArtifact.ARTIFACT_TYPE tagType, String tagName, List<Long> artifacts) {
             super();
             this.tagType = tagType;
             this.tagName = tagName;
@@ -355,7 +314,13 @@ private TagsChildrenNode(BlackboardArtifact.ARTIFACT_TYPE tagType, String tagNam
 
         @Override
         protected boolean createKeys(List<BlackboardArtifact> list) {
-            list.addAll(artifacts);
+            for (long id : artifacts) {
+                try {
+                    list.add(skCase.getBlackboardArtifact(id));
+                } catch (TskCoreException ex) {
+                    logger.log(Level.WARNING, "Failed to get tag artifact " + id, ex);
+                }
+            }
             return true;
         }
 
@@ -445,6 +410,7 @@ public static void createTag(AbstractFile file, String tagName, String comment)
                 attrs.add(attr2);
             }
             bookArt.addAttributes(attrs);
+            addToTagIndex(bookArt.getArtifactID(), BlackboardArtifact.ARTIFACT_TYPE.TSK_TAG_FILE, tagName, -1, -1);
             
             updateTagNamesAppSetting(tagName);            
         } 
@@ -485,6 +451,8 @@ public static void createTag(BlackboardArtifact artifact, String tagName, String
 
             attrs.add(attr3);
             bookArt.addAttributes(attrs);     
+            addToTagIndex(bookArt.getArtifactID(), BlackboardArtifact.ARTIFACT_TYPE.TSK_TAG_ARTIFACT, tagName,
+                    artifact.getArtifactID(), artifact.getArtifactTypeID());
             
             updateTagNamesAppSetting(tagName);
         } 
@@ -493,6 +461,41 @@ public static void createTag(BlackboardArtifact artifact, String tagName, String
         }
     }
 
+    /**
+     * Get the tag index of a case, reading the tags of the case the first time.
+     *
+     * @param skCase case
+     * @return the tag index of the case
+     */
+    private static synchronized TagIndex getTagIndex(SleuthkitCase skCase) {
+        if (tagIndex == null || !tagIndex.isFor(skCase)) {
+            tagIndex = TagIndex.load(skCase);
+        }
+        return tagIndex;
+    }
+
+    /**
+     * Get the tag index of the current case.
+     *
+     * @return the tag index
+     * @throws IllegalStateException if there is no current case
+     */
+    private static TagIndex getTagIndex() {
+        return getTagIndex(Case.getCurrentCase().getSleuthkitCase());
+    }
+
+    /**
+     * Add a new tag to the tag index of the current case.
+     */
+    private static void addToTagIndex(long tagArtifactId, BlackboardArtifact.ARTIFACT_TYPE tagType, String tagName,
+            long taggedArtifactId, int taggedArtifactTypeId) {
+        try {
+            getTagIndex().add(tagArtifactId, tagType, tagName, taggedArtifactId, taggedArtifactTypeId);
+        } catch (IllegalStateException ex) {
+            // no current case, the index is read again with the next case
+        }
+    }
+
     private static void updateTagNamesAppSetting(String tagName) {
         // If this tag name is not in the current tag names app setting...
         if (!appSettingTagNames.contains(tagName)) {
@@ -563,42 +566,18 @@ public static TreeSet<String> getAllTagNames() {
         
     /**
      * Get a list of all the unique tag names associated with the current case. 
-     * Uses a custom query for speed when dealing with thousands of tags.
+     * Uses the tag index of the case, which is read once per case.
      *
      * @return A collection of tag names.
      */
-    @SuppressWarnings("deprecation")
     public static TreeSet<String> getTagNamesFromCurrentCase() {
         TreeSet<String> tagNames = new TreeSet<>();
-        
-        ResultSet rs = null;
-        SleuthkitCase skCase = null;
         try {
-            skCase = Case.getCurrentCase().getSleuthkitCase();
-            rs = skCase.runQuery("SELECT value_text"
-                    + " FROM blackboard_attributes"
-                    + " WHERE attribute_type_id = " + BlackboardAttribute.ATTRIBUTE_TYPE.TSK_TAG_NAME.getTypeID()
-                    + " GROUP BY value_text"
-                    + " ORDER BY value_text");
-            while (rs.next()) {
-                tagNames.add(rs.getString("value_text"));
-            }
+            tagNames.addAll(getTagIndex().getAllTagNames());
         } 
         catch (IllegalStateException ex) {
             // Case.getCurrentCase() throws IllegalStateException if there is no current autopsy case.
         }
-        catch (SQLException ex) {
-            logger.log(Level.SEVERE, "Failed to query the blackboard for tag names", ex);
-        } 
-        finally {
-            if (null != skCase && null != rs) {
-                try {
-                    skCase.closeRunQuery(rs);
-                } catch (SQLException ex) {
-                    logger.log(Level.SEVERE, "Failed to close the query for blackboard for tag names", ex);
-                }
-            }
-        }
         
         // Make sure the book mark tag is always included.
         tagNames.add(BOOKMARK_TAG_NAME);
@@ -645,6 +624,11 @@ static BlackboardArtifact getArtifactFromTag(long tagArtifactId) {
             Case currentCase = Case.getCurrentCase();
             SleuthkitCase skCase = currentCase.getSleuthkitCase();
 
+            long taggedArtifactId = getTagIndex(skCase).getTaggedArtifactId(tagArtifactId);
+            if (taggedArtifactId >= 0) {
+                return skCase.getBlackboardArtifact(taggedArtifactId);
+            }
+
             BlackboardArtifact artifact = skCase.getBlackboardArtifact(tagArtifactId);
             if (artifact.getArtifactTypeID() == BlackboardArtifact.ARTIFACT_TYPE.TSK_TAG_FILE.getTypeID()
                     || artifact.getArtifactTypeID() == BlackboardArtifact.ARTIFACT_TYPE.TSK_TAG_ARTIFACT.getTypeID()) {
@@ -662,6 +646,21 @@ static BlackboardArtifact getArtifactFromTag(long tagArtifactId) {
         return null;
     }
 
+    /**
+     * Looks up the tag names of all the artifacts of a type in the tag index.
+     * For tag artifacts, these are the names of the tags themselves; for
+     * other artifacts, the names of the tags that were applied to them.
+     * Use this instead of getUniqueTagNamesForArtifact() when the tag names
+     * of many artifacts are needed, e.g., when generating reports.
+     *
+     * @param artifactTypeID The ID of the artifact type
+     * @return A map of artifact IDs to their unique tag names. Artifacts that
+     * do not have tags are not in the map.
+     */
+    public static Map<Long, HashSet<String>> getUniqueTagNamesForArtifacts(int artifactTypeID) {
+        return getTagIndex().getTagNamesOfType(artifactTypeID);
+    }
+
     /**
      * Looks up the tag names associated with either a tagged artifact or a tag artifact.
      * 
@@ -680,32 +679,6 @@ public static HashSet<String> getUniqueTagNamesForArtifact(BlackboardArtifact ar
      * @return A set of unique tag names
      */
     public static HashSet<String> getUniqueTagNamesForArtifact(long artifactID, int artifactTypeID) {
-        HashSet<String> tagNames = new HashSet<>();
-        
-        try {
-            ArrayList<Long> tagArtifactIDs = new ArrayList<>();
-            if (artifactTypeID == ARTIFACT_TYPE.TSK_TAG_FILE.getTypeID() ||
-                artifactTypeID == ARTIFACT_TYPE.TSK_TAG_ARTIFACT.getTypeID()) {
-                tagArtifactIDs.add(artifactID);
-            } else {
-                List<BlackboardArtifact> tags = Case.getCurrentCase().getSleuthkitCase().getBlackboardArtifacts(ATTRIBUTE_TYPE.TSK_TAGGED_ARTIFACT, artifactID);
-                for (BlackboardArtifact tag : tags) {
-                    tagArtifactIDs.add(tag.getArtifactID());
-                }
-            }
-
-            for (Long tagArtifactID : tagArtifactIDs) {
-                String whereClause = "WHERE artifact_id = " + tagArtifactID + " AND attribute_type_id = " + ATTRIBUTE_TYPE.TSK_TAG_NAME.getTypeID();
-                List<BlackboardAttribute> attributes = Case.getCurrentCase().getSleuthkitCase().getMatchingAttributes(whereClause);
-                for (BlackboardAttribute attr : attributes) {
-                    tagNames.add(attr.getValueString());
-                }
-            }
-        } 
-        catch (TskCoreException ex) {
-            logger.log(Level.SEVERE, "Failed to get tags for artifact " + artifactID, ex);
-        }
-        
-        return tagNames;
+        return getTagIndex().getTagNames(artifactID, artifactTypeID);
     }    
 }
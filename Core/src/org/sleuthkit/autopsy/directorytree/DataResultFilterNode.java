@@ -58,6 +58,7 @@
 import org.sleuthkit.autopsy.datamodel.KeywordHits.KeywordHitsRootNode;
 import org.sleuthkit.autopsy.datamodel.VirtualDirectoryNode;
 import org.sleuthkit.autopsy.datamodel.LayoutFileNode;
+import org.sleuthkit.autopsy.datamodel.MoreResultsNode;
 import org.sleuthkit.autopsy.datamodel.RecentFilesFilterNode;
 import org.sleuthkit.autopsy.datamodel.RecentFilesNode;
 import org.sleuthkit.autopsy.datamodel.FileTypesNode;
@@ -479,6 +480,16 @@ public AbstractAction visit(KeywordHitsKeywordNode khmln) {
             return openChild(khmln);
         }
 
+        @Override
+        public AbstractAction visit(final MoreResultsNode mrn) {
+            return new AbstractAction() {
+                @Override
+                public void actionPerformed(ActionEvent e) {
+                    mrn.showMore();
+                }
+            };
+        }
+
         @Override
         protected AbstractAction defaultVisit(DisplayableItemNode c) {
             return null;
@@ -23,17 +23,25 @@
 import java.beans.PropertyVetoException;
 import java.io.IOException;
 import org.sleuthkit.autopsy.corecomponentinterfaces.DataExplorer;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
 import java.beans.PropertyChangeSupport;
 import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 import java.util.logging.Level;
 import org.sleuthkit.autopsy.coreutils.Logger;
 import javax.swing.Action;
 import javax.swing.JPanel;
 import javax.swing.SwingUtilities;
+import javax.swing.Timer;
 import javax.swing.tree.TreeSelectionModel;
 import org.openide.util.NbBundle;
 import org.openide.windows.TopComponent;
@@ -93,6 +101,19 @@ public final class DirectoryTreeTopComponent extends TopComponent implements Dat
     private String className = this.getClass().toString();
     private static final Logger logger = Logger.getLogger(DirectoryTreeTopComponent.class.getName());
     private RootContentChildren contentChildren;
+    // the results tree is refreshed at most once per interval while ingest posts new data
+    private static final int RESULTS_REFRESH_INTERVAL_MS = 1000;
+    private final List<ModuleDataEvent> pendingDataEvents = new ArrayList<>();
+    private final Timer resultsRefreshTimer;
+    // applies the data events to the results nodes, which reads the attributes of the new artifacts
+    private final ExecutorService resultsUpdater = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "Results tree updater");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
 
     /**
      * the constructor
@@ -118,6 +139,14 @@ private DirectoryTreeTopComponent() {
         this.forwardList = new LinkedList<String[]>();
         backButton.setEnabled(false);
         forwardButton.setEnabled(false);
+
+        resultsRefreshTimer = new Timer(RESULTS_REFRESH_INTERVAL_MS, new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                refreshPendingResults();
+            }
+        });
+        resultsRefreshTimer.setRepeats(false);
     }
 
     /**
@@ -536,6 +565,7 @@ else if (changed.equals(Case.CASE_CURRENT_CASE)) {
             // opened events instead of property change events would be a better
             // solution. Either way, more probably needs to be done to clean up
             // data model objects when a case is closed.
+            clearPendingDataEvents();
             if (oldValue != null && newValue == null) {
                 // The current case has been closed. Reset the ExplorerManager.
                 Node emptyNode = new AbstractNode(Children.LEAF);
@@ -586,18 +616,37 @@ else if (changed.equals(ExplorerManager.PROP_SELECTED_NODES)) {
             respondSelection((Node[]) oldValue, (Node[]) newValue);
         } else if (changed.equals(IngestModuleEvent.DATA.toString())) {
             final ModuleDataEvent event = (ModuleDataEvent) oldValue;
+            synchronized (pendingDataEvents) {
+                pendingDataEvents.add(event);
+            }
             SwingUtilities.invokeLater(new Runnable() {
                 @Override
                 public void run() {
-                    refreshTree(event.getArtifactType());
+                    // the first event starts the timer, the events until it fires share its refresh
+                    if (!resultsRefreshTimer.isRunning()) {
+                        resultsRefreshTimer.start();
+                    }
                 }
             });
         } else if (changed.equals(IngestModuleEvent.COMPLETED.toString())) {
             SwingUtilities.invokeLater(new Runnable() {
                 @Override
                 public void run() {
+                    resultsRefreshTimer.stop();
                     refreshContentTree();
-                    refreshTree();
+                    final RootContentChildren resultsNodeChilds = getResultsNodeChildren();
+                    resultsUpdater.submit(new Runnable() {
+                        @Override
+                        public void run() {
+                            applyPendingDataEvents(resultsNodeChilds);
+                            SwingUtilities.invokeLater(new Runnable() {
+                                @Override
+                                public void run() {
+                                    refreshTree();
+                                }
+                            });
+                        }
+                    });
                 }
             });
         } else if (changed.equals(IngestModuleEvent.CONTENT_CHANGED.toString())) {
@@ -756,6 +805,84 @@ public BeanTreeView getTree() {
         return (BeanTreeView) this.jScrollPane1;
     }
 
+    /**
+     * Get the children of the Results node, which are the keys refreshed by
+     * refreshTree().
+     *
+     * @return the children, or null if the Results node is not in the tree
+     */
+    private RootContentChildren getResultsNodeChildren() {
+        Node results = em.getRootContext().getChildren().findChild(ResultsNode.NAME);
+        if (results == null) {
+            return null;
+        }
+        OriginalNode original = results.getLookup().lookup(OriginalNode.class);
+        ResultsNode resultsNode = (ResultsNode) original.getNode();
+        return (RootContentChildren) resultsNode.getChildren();
+    }
+
+    /**
+     * Add the artifacts of the ingest data events received since the last
+     * refresh to the results nodes on the results updater thread, and then
+     * refresh the results tree once for all of them in the EDT. Must be
+     * called in the EDT.
+     */
+    private void refreshPendingResults() {
+        final RootContentChildren resultsNodeChilds = getResultsNodeChildren();
+        resultsUpdater.submit(new Runnable() {
+            @Override
+            public void run() {
+                final Set<BlackboardArtifact.ARTIFACT_TYPE> types = applyPendingDataEvents(resultsNodeChilds);
+                if (!types.isEmpty()) {
+                    SwingUtilities.invokeLater(new Runnable() {
+                        @Override
+                        public void run() {
+                            refreshTree(types.toArray(new BlackboardArtifact.ARTIFACT_TYPE[types.size()]));
+                        }
+                    });
+                }
+            }
+        });
+    }
+
+    /**
+     * Add the artifacts of the ingest data events received since the last
+     * refresh to the results nodes, without refreshing the tree. Reads the
+     * attributes of the artifacts, so it runs on the results updater thread.
+     *
+     * @param resultsNodeChilds the children of the Results node, or null if
+     * it is not in the tree
+     * @return the artifact types of the events
+     */
+    private Set<BlackboardArtifact.ARTIFACT_TYPE> applyPendingDataEvents(RootContentChildren resultsNodeChilds) {
+        List<ModuleDataEvent> events;
+        synchronized (pendingDataEvents) {
+            events = new ArrayList<>(pendingDataEvents);
+            pendingDataEvents.clear();
+        }
+        Set<BlackboardArtifact.ARTIFACT_TYPE> types = EnumSet.noneOf(BlackboardArtifact.ARTIFACT_TYPE.class);
+        if (events.isEmpty()) {
+            return types;
+        }
+        for (ModuleDataEvent event : events) {
+            if (resultsNodeChilds != null) {
+                resultsNodeChilds.addArtifacts(event.getArtifactType(), event.getArtifacts());
+            }
+            types.add(event.getArtifactType());
+        }
+        return types;
+    }
+
+    /**
+     * Drop the ingest data events that were not applied yet, when the case
+     * changes and the results nodes are created again.
+     */
+    private void clearPendingDataEvents() {
+        synchronized (pendingDataEvents) {
+            pendingDataEvents.clear();
+        }
+    }
+
     /**
      * Refresh the content node part of the dir tree safely in the EDT thread
      */
@@ -812,17 +939,12 @@ void refreshTree(final BlackboardArtifact.ARTIFACT_TYPE... types) {
         //TODO: instead, we should choose a specific key to refresh? Maybe?
         //contentChildren.refreshKeys();
 
-        Children dirChilds = em.getRootContext().getChildren();
-
-        Node results = dirChilds.findChild(ResultsNode.NAME);
-
-        if (results == null) {
+        Node results = em.getRootContext().getChildren().findChild(ResultsNode.NAME);
+        RootContentChildren resultsNodeChilds = getResultsNodeChildren();
+        if (resultsNodeChilds == null) {
             logger.log(Level.SEVERE, "Cannot find Results filter node, won't refresh the bb tree");
             return;
         }
-        OriginalNode original = results.getLookup().lookup(OriginalNode.class);
-        ResultsNode resultsNode = (ResultsNode) original.getNode();
-        RootContentChildren resultsNodeChilds = (RootContentChildren) resultsNode.getChildren();
         resultsNodeChilds.refreshKeys(types);
 
         final TreeView tree = getTree();
@@ -21,13 +21,17 @@
 import java.awt.Component;
 import java.awt.event.ActionEvent;
 import java.io.File;
+import java.io.IOException;
+import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Date;
 import java.util.Iterator;
 import java.util.concurrent.CancellationException;
 import java.util.logging.Level;
 import org.sleuthkit.autopsy.coreutils.Logger;
 import javax.swing.AbstractAction;
+import javax.swing.JCheckBox;
 import javax.swing.JFileChooser;
 import javax.swing.JOptionPane;
 import javax.swing.SwingWorker;
@@ -37,18 +41,18 @@
 import org.openide.util.Utilities;
 import org.sleuthkit.autopsy.casemodule.Case;
 import org.sleuthkit.autopsy.coreutils.MessageNotifyUtil;
-import org.sleuthkit.autopsy.datamodel.ContentUtils.ExtractFscContentVisitor;
 import org.sleuthkit.datamodel.AbstractFile;
 import org.sleuthkit.autopsy.coreutils.FileUtil;
+import org.sleuthkit.autopsy.datamodel.ContentExporter;
 import org.sleuthkit.autopsy.datamodel.ContentUtils;
-import org.sleuthkit.datamodel.Content;
-import org.sleuthkit.datamodel.TskCoreException;
 
 /**
  * Extracts AbstractFiles to a location selected by the user.
  */
 public final class ExtractAction extends AbstractAction {
     private Logger logger = Logger.getLogger(ExtractAction.class.getName());
+    // manifest of the files extracted to a folder, kept until the extraction is complete
+    private static final String MANIFEST_NAME = "autopsy-extract-manifest.txt";
 
     // This class is a singleton to support multi-selection of nodes, since 
     // org.openide.nodes.NodeOp.findActions(Node[] nodes) will only pick up an Action if every 
@@ -95,7 +99,7 @@ private void extractFile(ActionEvent e, AbstractFile source) {
         if (fileChooser.showSaveDialog((Component)e.getSource()) == JFileChooser.APPROVE_OPTION) {
             ArrayList<FileExtractionTask> fileExtractionTasks = new ArrayList<>();
             fileExtractionTasks.add(new FileExtractionTask(source, fileChooser.getSelectedFile()));
-            doFileExtraction(e, fileExtractionTasks);            
+            doFileExtraction(e, fileExtractionTasks, null, false, false);            
         }        
     }
         
@@ -103,6 +107,9 @@ private void extractFiles(ActionEvent e, Collection<? extends AbstractFile> sele
         JFileChooser folderChooser = new JFileChooser();
         folderChooser.setFileSelectionMode(JFileChooser.DIRECTORIES_ONLY);
         folderChooser.setCurrentDirectory(new File(Case.getCurrentCase().getExportDirectory()));
+        JCheckBox hashCheckBox = new JCheckBox("Compute MD5 hashes");
+        hashCheckBox.setToolTipText("Compute the MD5 hashes of the extracted files, check them against the hashes computed by ingest, and keep them in " + MANIFEST_NAME);
+        folderChooser.setAccessory(hashCheckBox);
         if (folderChooser.showSaveDialog((Component)e.getSource()) == JFileChooser.APPROVE_OPTION) {
             File destinationFolder = folderChooser.getSelectedFile();
             if (!destinationFolder.exists()) {
@@ -116,15 +123,67 @@ private void extractFiles(ActionEvent e, Collection<? extends AbstractFile> sele
                 }
             }
 
+            // a manifest is left in the folder by an extraction that did not complete,
+            // or with the hashes of the files of one that did, which is kept under another name
+            File manifestFile = new File(destinationFolder, MANIFEST_NAME);
+            boolean resume = false;
+            boolean completed = false;
+            if (manifestFile.exists()) {
+                try {
+                    completed = ContentExporter.isComplete(manifestFile);
+                } catch (IOException ex) {
+                    logger.log(Level.WARNING, "Unable to read " + manifestFile.getAbsolutePath(), ex);
+                }
+            }
+            if (manifestFile.exists() && completed) {
+                if (!keepManifest((Component) e.getSource(), manifestFile)) {
+                    return;
+                }
+            } else if (manifestFile.exists()) {
+                resume = JOptionPane.showConfirmDialog((Component) e.getSource(), "A previous extraction to " + destinationFolder.getAbsolutePath() + " did not complete. Resume it, skipping the files already extracted?", "Resume Extraction", JOptionPane.YES_NO_OPTION) == JOptionPane.YES_OPTION;
+                if (!resume && !keepManifest((Component) e.getSource(), manifestFile)) {
+                    return;
+                }
+            }
+
             ArrayList<FileExtractionTask> fileExtractionTasks = new ArrayList<>();
             for (AbstractFile source : selectedFiles) {
                 fileExtractionTasks.add(new FileExtractionTask(source, new File(destinationFolder, source.getId() + "-" + source.getName())));
             }            
-            doFileExtraction(e, fileExtractionTasks);            
+            doFileExtraction(e, fileExtractionTasks, manifestFile, hashCheckBox.isSelected(), resume);            
         }
     }
         
-    private void doFileExtraction(ActionEvent e, ArrayList<FileExtractionTask> fileExtractionTasks) {
+    /**
+     * Rename the manifest of a previous extraction, with the time it was last
+     * written, so that a new extraction does not replace the hashes in it.
+     *
+     * @param parent       component to show messages over
+     * @param manifestFile the manifest
+     *
+     * @return true if the manifest was renamed
+     */
+    private boolean keepManifest(Component parent, File manifestFile) {
+        String timestamp = new SimpleDateFormat("yyyy-MM-dd_HH-mm-ss").format(new Date(manifestFile.lastModified()));
+        String name = MANIFEST_NAME.substring(0, MANIFEST_NAME.lastIndexOf('.')) + "-" + timestamp + ".txt";
+        File keptFile = new File(manifestFile.getParentFile(), name);
+        if (keptFile.exists() || !manifestFile.renameTo(keptFile)) {
+            JOptionPane.showMessageDialog(parent, "Couldn't rename " + manifestFile.getAbsolutePath() + " to " + name + ", no files were extracted.");
+            return false;
+        }
+        logger.log(Level.INFO, "Kept the manifest of a previous extraction as " + keptFile.getAbsolutePath());
+        MessageNotifyUtil.Notify.info("Previous extraction manifest kept", "The manifest of the previous extraction to this folder was renamed to " + name);
+        return true;
+    }
+
+    /**
+     * @param manifestFile  manifest of the extracted files, or null
+     * @param computeHashes true to compute the MD5 hashes of the extracted files
+     * @param resume        true to resume the extraction recorded in the
+     *                      manifest, the existing destinations are kept
+     */
+    private void doFileExtraction(ActionEvent e, ArrayList<FileExtractionTask> fileExtractionTasks,
+            File manifestFile, boolean computeHashes, boolean resume) {
         
         // verify all of the sources and destinations are OK
         for (Iterator<FileExtractionTask> it = fileExtractionTasks.iterator(); it.hasNext(); ) {
@@ -141,7 +200,7 @@ private void doFileExtraction(ActionEvent e, ArrayList<FileExtractionTask> fileE
              * - does not prevent us from having multiple files with the same target name in the task list (in which case, the first ones are overwritten)
              * Unique Id was added to set of names before calling this method to deal with that.
              */
-            if (task.destination.exists()) {
+            if (task.destination.exists() && !resume) {
                 if (JOptionPane.showConfirmDialog((Component) e.getSource(), "Destination file " + task.destination.getAbsolutePath() + " already exists, overwrite?", "File Exists", JOptionPane.YES_NO_OPTION) == JOptionPane.YES_OPTION) {
                     if (!FileUtil.deleteFileDir(task.destination)) {
                         JOptionPane.showMessageDialog((Component) e.getSource(), "Couldn't overwrite existing file " + task.destination.getAbsolutePath());
@@ -156,7 +215,7 @@ private void doFileExtraction(ActionEvent e, ArrayList<FileExtractionTask> fileE
 
         if (!fileExtractionTasks.isEmpty()) {
             try {
-                FileExtracter extracter = new FileExtracter(fileExtractionTasks);    
+                FileExtracter extracter = new FileExtracter(fileExtractionTasks, manifestFile, computeHashes);    
                 extracter.execute();
             } 
             catch (Exception ex) {
@@ -182,9 +241,14 @@ private class FileExtracter extends SwingWorker<Object,Void> {
         private Logger logger = Logger.getLogger(FileExtracter.class.getName());
         private ProgressHandle progress;
         private ArrayList<FileExtractionTask> extractionTasks;
+        private final File manifestFile;
+        private final boolean computeHashes;
+        private volatile ContentExporter exporter;
         
-        FileExtracter(ArrayList<FileExtractionTask> extractionTasks) {
+        FileExtracter(ArrayList<FileExtractionTask> extractionTasks, File manifestFile, boolean computeHashes) {
             this.extractionTasks = extractionTasks;            
+            this.manifestFile = manifestFile;
+            this.computeHashes = computeHashes;
         }
         
         @Override
@@ -200,24 +264,29 @@ protected Object doInBackground() throws Exception {
                 public boolean cancel() {
                     if (progress != null)
                         progress.setDisplayName(displayName + " (Cancelling...)");
+                    ContentExporter cancelledExporter = exporter;
+                    if (cancelledExporter != null) {
+                        cancelledExporter.cancel();
+                    }
                     return ExtractAction.FileExtracter.this.cancel(true);
                 }
             });
             progress.start();
             progress.switchToIndeterminate();
-            
-            /* @@@ Add back in -> Causes exceptions
-            int workUnits = 0;
-            for (FileExtractionTask task : extractionTasks) {
-                workUnits += calculateProgressBarWorkUnits(task.source);
-            }
-            progress.switchToDeterminate(workUnits);
-            */
         
-            // Do the extraction tasks.
-            for (FileExtractionTask task : this.extractionTasks) {
-                // @@@ Note, we are no longer passing in progress
-                ExtractFscContentVisitor.extract(task.source, task.destination, null, this);            
+            // Do the extraction tasks, the progress shows the number of files and bytes extracted
+            exporter = new ContentExporter(manifestFile, computeHashes, progress);
+            try {
+                for (FileExtractionTask task : this.extractionTasks) {
+                    if (isCancelled()) {
+                        exporter.cancel();
+                        break;
+                    }
+                    exporter.export(task.source, task.destination);
+                }
+                exporter.finish();
+            } finally {
+                exporter.close();
             }
             
             return null;
@@ -231,34 +300,33 @@ protected void done() {
             catch (CancellationException | InterruptedException ex) {
             } 
             catch (Exception ex) {
+                if (ex.getCause() instanceof IOException) {
+                    MessageNotifyUtil.Message.error("Couldn't open " + manifestFile.getAbsolutePath() + ", no files were extracted.");
+                }
                 logger.log(Level.SEVERE, "Fatal error during file extraction", ex);
             } 
             finally {
-                progress.finish();
-                if (!this.isCancelled()) {
-                    MessageNotifyUtil.Message.info("File(s) extracted.");
-                } 
-            }
-        }
-        
-        private int calculateProgressBarWorkUnits(AbstractFile file) {
-            int workUnits = 0;
-            if (file.isFile()) {
-                workUnits += file.getSize();
-            }
-            else {
-                try {
-                    for (Content child : file.getChildren()) {
-                       if (child instanceof AbstractFile) {
-                        workUnits += calculateProgressBarWorkUnits((AbstractFile)child);
-                       }
-                    }
-                }
-                catch (TskCoreException ex) {
-                    logger.log(Level.SEVERE, "Could not get children of content", ex);                
+                if (progress != null) {
+                    progress.finish();
                 }
+                if (!this.isCancelled() && exporter != null) {
+                    StringBuilder message = new StringBuilder("File(s) extracted.");
+                    if (exporter.getFilesSkipped() > 0) {
+                        message.append(" ").append(exporter.getFilesSkipped()).append(" file(s) were already extracted.");
+                    }
+                    if (exporter.getFilesFailed() > 0) {
+                        message.append(" ").append(exporter.getFilesFailed()).append(" file(s) could not be extracted, see the log.");
+                    }
+                    if (exporter.getHashMismatches() > 0) {
+                        message.append(" The MD5 hash of ").append(exporter.getHashMismatches()).append(" file(s) differs from the hash computed by ingest, see the log.");
+                    }
+                    if (exporter.getFilesFailed() > 0 || exporter.getHashMismatches() > 0) {
+                        MessageNotifyUtil.Message.warn(message.toString());
+                    } else {
+                        MessageNotifyUtil.Message.info(message.toString());
+                    }
+                } 
             }
-            return workUnits;            
         }
     } 
 }
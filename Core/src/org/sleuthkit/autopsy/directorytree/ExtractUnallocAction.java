@@ -24,11 +24,18 @@
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 import javax.swing.AbstractAction;
 import javax.swing.JFileChooser;
@@ -48,6 +55,7 @@
 import org.sleuthkit.datamodel.Image;
 import org.sleuthkit.datamodel.LayoutFile;
 import org.sleuthkit.datamodel.TskCoreException;
+import org.sleuthkit.datamodel.TskFileRange;
 import org.sleuthkit.datamodel.VirtualDirectory;
 import org.sleuthkit.datamodel.Volume;
 import org.sleuthkit.datamodel.VolumeSystem;
@@ -175,16 +183,22 @@ private List<LayoutFile> getUnallocFiles(Content c) {
     }
 
     /**
-     * Private class for dispatching the file IO in a background thread.
+     * Private class for dispatching the file IO in a background thread. The
+     * unallocated space of the volumes is written concurrently, in large
+     * chunks, reading the layout ranges that are contiguous in the image with
+     * one read from the image.
      */
     private class ExtractUnallocWorker extends SwingWorker<Integer, Integer> {
 
+        private static final int BUFFER_SIZE = 8 * 1024 * 1024;
+        private static final int MAX_CONCURRENT_VOLUMES = 2;
         private ProgressHandle progress;
-        private boolean canceled = false;
+        private volatile boolean canceled = false;
         private List<UnallocStruct> lus = new ArrayList<UnallocStruct>();
-        private File currentlyProcessing;
         private int totalSizeinMegs;
         long totalBytes = 0;
+        // bytes written by all of the volumes
+        private final AtomicLong bytesWritten = new AtomicLong();
 
         ExtractUnallocWorker(UnallocStruct us) {            
             //Getting the total megs this worker is going to be doing
@@ -221,69 +235,157 @@ private int toMb(long bytes) {
 
         @Override
         protected Integer doInBackground() {
-            try {
-                progress = ProgressHandleFactory.createHandle("Extracting Unallocated Space", new Cancellable() {
+            progress = ProgressHandleFactory.createHandle("Extracting Unallocated Space", new Cancellable() {
+                @Override
+                public boolean cancel() {
+                    logger.log(Level.INFO, "Canceling extraction of unallocated space");
+                    canceled = true;
+                    if (progress != null) {
+                        progress.setDisplayName("Extracting Unallocated Space" + " (Cancelling...)");
+                    }
+                    return true;
+                }
+            });
+
+            //Begin the actual File IO
+            progress.start(totalSizeinMegs);
+            int threads = Math.max(1, Math.min(MAX_CONCURRENT_VOLUMES, lus.size()));
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            List<Future<Void>> results = new ArrayList<Future<Void>>();
+            for (final UnallocStruct u : this.lus) {
+                results.add(executor.submit(new Callable<Void>() {
                     @Override
-                    public boolean cancel() {
-                        logger.log(Level.INFO, "Canceling extraction of unallocated space");
-                        canceled = true;
-                        if (progress != null) {
-                            progress.setDisplayName("Extracting Unallocated Space" + " (Cancelling...)");
-                        }
-                        return true;
+                    public Void call() throws Exception {
+                        writeUnalloc(u);
+                        return null;
                     }
-                });
-                int MAX_BYTES = 8192;
-                byte[] buf = new byte[MAX_BYTES];    //read 8kb at a time                         
-
-
-                //Begin the actual File IO
-                progress.start(totalSizeinMegs);
-                int kbs = 0; //Each completion of the while loop adds one to kbs. 16kb * 64 = 1mb. 
-                int mbs = 0; //Increments every 128th tick of  kbs
-                for (UnallocStruct u : this.lus) {
-                    currentlyProcessing = u.getFile();
-                    logger.log(Level.INFO, "Writing Unalloc file to " + currentlyProcessing.getPath());
-                    OutputStream dos = new FileOutputStream(currentlyProcessing);
-                    long bytes = 0;
-                    int i = 0;
-                    while(i < u.getLayouts().size() && bytes != u.getSizeInBytes()){                        
-                        LayoutFile f = u.getLayouts().get(i);
-                        long offsetPerFile = 0L;
-                        int bytesRead;
-                        while(offsetPerFile != f.getSize() && !canceled){
-                            if (++kbs % 128 == 0) {
-                                mbs++;                                
-                                progress.progress("processing " + mbs + " of " + totalSizeinMegs + " MBs", mbs-1);
-                            }
-                            bytesRead = f.read(buf, offsetPerFile, MAX_BYTES);  
-                            offsetPerFile+= bytesRead;
-                            dos.write(buf, 0, bytesRead);       
-                        }
-                        bytes+=f.getSize();
-                        i++;
+                }));
+            }
+            executor.shutdown();
+
+            int result = 1;
+            for (Future<Void> f : results) {
+                try {
+                    f.get();
+                } catch (InterruptedException ex) {
+                    canceled = true;
+                    result = -1;
+                } catch (ExecutionException ex) {
+                    if (ex.getCause() instanceof TskCoreException) {
+                        logger.log(Level.WARNING, "Could not create Unalloc File; error getting image info", ex.getCause());
+                    } else {
+                        logger.log(Level.WARNING, "Could not create Unalloc File; error writing file", ex.getCause());
                     }
-                    dos.flush();
-                    dos.close();
+                    result = -1;
+                }
+            }
+            progress.finish();
+            return result;
+        }
 
-                    if (canceled) {
-                        u.getFile().delete();
-                        logger.log(Level.INFO, "Canceled extraction of " + u.getFileName() + " and deleted file");
-                    } else {
-                        logger.log(Level.INFO, "Finished writing unalloc file " + u.getFile().getPath());
+        /**
+         * Write the unallocated space of a volume or image to its file.
+         */
+        private void writeUnalloc(UnallocStruct u) throws IOException, TskCoreException {
+            File currentlyProcessing = u.getFile();
+            logger.log(Level.INFO, "Writing Unalloc file to " + currentlyProcessing.getPath());
+            // Content.read() fills arrays, so each chunk is copied once to the
+            // direct buffer, which the channel would otherwise do with a temporary one
+            byte[] buf = new byte[BUFFER_SIZE];
+            ByteBuffer directBuf = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            boolean completed = false;
+            try (FileChannel channel = new FileOutputStream(currentlyProcessing).getChannel()) {
+                List<TskFileRange> runs = u.getImage() == null ? null : getContiguousRuns(u.getLayouts());
+                if (runs != null) {
+                    for (TskFileRange run : runs) {
+                        copy(u.getImage(), run.getByteStart(), run.getByteLen(), buf, directBuf, channel);
+                    }
+                } else {
+                    for (LayoutFile f : u.getLayouts()) {
+                        copy(f, 0, f.getSize(), buf, directBuf, channel);
                     }
                 }
-                progress.finish();
+                completed = !canceled;
+            } finally {
+                if (completed) {
+                    logger.log(Level.INFO, "Finished writing unalloc file " + u.getFile().getPath());
+                } else {
+                    u.getFile().delete();
+                    logger.log(Level.INFO, "Canceled or failed extraction of " + u.getFileName() + " and deleted file");
+                }
+            }
+        }
 
+        /**
+         * Copy a range of a content to the channel, in chunks of the size of
+         * the buffers.
+         */
+        private void copy(Content source, long offset, long length, byte[] buf, ByteBuffer directBuf, FileChannel channel) throws IOException, TskCoreException {
+            long end = offset + length;
+            while (offset < end && !canceled) {
+                int toRead = (int) Math.min(buf.length, end - offset);
+                int bytesRead = source.read(buf, offset, toRead);
+                if (bytesRead <= 0) {
+                    throw new TskCoreException("Could not read offset " + offset + " of " + source.getName());
+                }
+                offset += bytesRead;
+                directBuf.clear();
+                directBuf.put(buf, 0, bytesRead);
+                directBuf.flip();
+                while (directBuf.hasRemaining()) {
+                    channel.write(directBuf);
+                }
+                long written = bytesWritten.addAndGet(bytesRead);
+                int mbs = (int) Math.min(totalSizeinMegs, written / (1024 * 1024));
+                progress.progress("processing " + mbs + " of " + totalSizeinMegs + " MBs", mbs);
+            }
+        }
 
-            } catch (IOException ioe) {
-                logger.log(Level.WARNING, "Could not create Unalloc File; error writing file", ioe);
-                return -1;
-            } catch (TskCoreException tce) {
-                logger.log(Level.WARNING, "Could not create Unalloc File; error getting image info", tce);
-                return -1;
+        /**
+         * Coalesce the ranges of the layout files, in the order they are
+         * written, into the runs that are contiguous in the image.
+         *
+         * @return the runs, or null if the ranges could not be read
+         */
+        private List<TskFileRange> getContiguousRuns(List<LayoutFile> layouts) {
+            List<TskFileRange> runs = new ArrayList<TskFileRange>();
+            long runStart = -1;
+            long runLength = 0;
+            try {
+                for (LayoutFile f : layouts) {
+                    List<TskFileRange> ranges = new ArrayList<TskFileRange>(f.getRanges());
+                    Collections.sort(ranges, new Comparator<TskFileRange>() {
+                        @Override
+                        public int compare(TskFileRange r1, TskFileRange r2) {
+                            return Long.compare(r1.getSequence(), r2.getSequence());
+                        }
+                    });
+                    long rangesLength = 0;
+                    for (TskFileRange range : ranges) {
+                        rangesLength += range.getByteLen();
+                        if (runStart >= 0 && runStart + runLength == range.getByteStart()) {
+                            runLength += range.getByteLen();
+                        } else {
+                            if (runStart >= 0) {
+                                runs.add(new TskFileRange(runStart, runLength, runs.size()));
+                            }
+                            runStart = range.getByteStart();
+                            runLength = range.getByteLen();
+                        }
+                    }
+                    if (rangesLength != f.getSize()) {
+                        // the ranges do not add up to the file, read it as a file
+                        return null;
+                    }
+                }
+            } catch (TskCoreException ex) {
+                logger.log(Level.WARNING, "Could not get the ranges of the unallocated files, reading them one by one", ex);
+                return null;
+            }
+            if (runStart >= 0) {
+                runs.add(new TskFileRange(runStart, runLength, runs.size()));
             }
-            return 1;
+            return runs;
         }
 
         @Override
@@ -460,6 +562,8 @@ private class UnallocStruct {
         private long VolumeId;
         private long ImageId;
         private String ImageName;
+        // the image the layout ranges are in, or null if it is not known
+        private Image image;
         private String FileName;
         private File FileInstance;
 
@@ -474,6 +578,7 @@ private class UnallocStruct {
             this.VolumeId = 0;
             this.ImageId = img.getId();
             this.ImageName = img.getName();
+            this.image = img;
             this.FileName = this.ImageName + "-Unalloc-" + this.ImageId + "-" + 0 + ".dat";
             this.FileInstance = new File(Case.getCurrentCase().getCaseDirectory() + File.separator + "Export" + File.separator + this.FileName);
             this.SizeInBytes = calcSizeInBytes();
@@ -486,8 +591,9 @@ private class UnallocStruct {
          */
         UnallocStruct(Volume volu) {
             try {
-                this.ImageName = volu.getImage().getName();
-                this.ImageId = volu.getImage().getId();
+                this.image = volu.getImage();
+                this.ImageName = this.image.getName();
+                this.ImageId = this.image.getId();
                 this.VolumeId = volu.getId();
             } catch (TskCoreException tce) {
                 logger.log(Level.WARNING, "Unable to properly create ExtractUnallocAction, extraction may be incomplete", tce);
@@ -530,6 +636,10 @@ String getImageName() {
             return this.ImageName;
         }
 
+        Image getImage() {
+            return this.image;
+        }
+
         List<LayoutFile> getLayouts() {
             return this.llf;
         }
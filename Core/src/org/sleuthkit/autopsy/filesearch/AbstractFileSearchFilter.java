@@ -18,6 +18,8 @@
  */
 package org.sleuthkit.autopsy.filesearch;
 
+import java.util.Collections;
+import java.util.List;
 import javax.swing.JComponent;
 
 /**
@@ -37,4 +39,9 @@
     public T getComponent() {
         return this.component;
     }
+
+    @Override
+    public List<Object> getParameters() throws FilterValidationException {
+        return Collections.emptyList();
+    }
 }
@@ -0,0 +1,295 @@
+/*
+ * Autopsy Forensic Browser
+ *
+ * Copyright 2013 Basis Technology Corp.
+ * Contact: carrier <at> sleuthkit <dot> org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.sleuthkit.autopsy.filesearch;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.logging.Level;
+import org.sleuthkit.autopsy.casemodule.Case;
+import org.sleuthkit.autopsy.coreutils.Logger;
+
+/**
+ * Trigram index of the names of the files of a case, so that a search for
+ * names that contain a keyword does not scan all of tsk_files.
+ *
+ * The index is a database of its own in the cache directory of the case,
+ * with a row for each distinct three character sequence (lower case) of each
+ * name. It is filled in the order of the file ids by a thread of its own, and
+ * the id of the last indexed file is kept with it, so files added to the case
+ * later are indexed when the next search is done. Until then a search checks
+ * the names of the files after the last indexed one.
+ */
+class FileNameIndex {
+
+    /**
+     * Name the index database is attached as on a search connection.
+     */
+    static final String SCHEMA = "name_index";
+    private static final Logger logger = Logger.getLogger(FileNameIndex.class.getName());
+    private static final String JDBC_DRIVER = "org.sqlite.JDBC";
+    private static final String INDEX_FILE_NAME = "file_name_index.db";
+    private static final int GRAM_LENGTH = 3;
+    // the most grams of a keyword a search looks up
+    private static final int MAX_SEARCH_GRAMS = 8;
+    private static final int BATCH_SIZE = 10000;
+    private static final int BUSY_TIMEOUT_MS = 10000;
+    private static FileNameIndex instance = null;
+    private static boolean listening = false;
+    private final String caseDbPath;
+    private final String indexPath;
+    private Thread updater = null;
+
+    private FileNameIndex(Case currentCase) throws SQLException {
+        caseDbPath = currentCase.getCaseDirectory() + File.separator + "autopsy.db";
+        indexPath = currentCase.getCacheDirectory() + File.separator + INDEX_FILE_NAME;
+        try (Connection connection = openConnection(indexPath);
+                Statement statement = connection.createStatement()) {
+            statement.executeUpdate("CREATE TABLE IF NOT EXISTS name_trigrams (gram INTEGER NOT NULL, obj_id INTEGER NOT NULL, PRIMARY KEY (gram, obj_id))");
+            statement.executeUpdate("CREATE TABLE IF NOT EXISTS index_state (last_obj_id INTEGER NOT NULL)");
+            try (ResultSet rs = statement.executeQuery("SELECT COUNT(*) FROM index_state")) {
+                if (rs.next() && rs.getLong(1) == 0) {
+                    statement.executeUpdate("INSERT INTO index_state (last_obj_id) VALUES (0)");
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the index of the current case.
+     *
+     * @return the index
+     * @throws SQLException if the index database could not be created
+     */
+    static synchronized FileNameIndex getInstance() throws SQLException {
+        if (!listening) {
+            Case.addPropertyChangeListener(new PropertyChangeListener() {
+                @Override
+                public void propertyChange(PropertyChangeEvent evt) {
+                    if (evt.getPropertyName().equals(Case.CASE_CURRENT_CASE)) {
+                        closeInstance();
+                    }
+                }
+            });
+            listening = true;
+        }
+        if (instance == null) {
+            instance = new FileNameIndex(Case.getCurrentCase());
+        }
+        return instance;
+    }
+
+    private static synchronized void closeInstance() {
+        if (instance != null) {
+            instance.stopUpdate();
+            instance = null;
+        }
+    }
+
+    private static Connection openConnection(String path) throws SQLException {
+        try {
+            Class.forName(JDBC_DRIVER);
+        } catch (ClassNotFoundException ex) {
+            throw new SQLException("SQLite JDBC driver not found", ex);
+        }
+        Connection connection = DriverManager.getConnection("jdbc:sqlite:" + path);
+        try (Statement statement = connection.createStatement()) {
+            // the case database is written to by ingest while it is read
+            statement.execute("PRAGMA busy_timeout = " + BUSY_TIMEOUT_MS);
+        } catch (SQLException ex) {
+            connection.close();
+            throw ex;
+        }
+        return connection;
+    }
+
+    /**
+     * Open a connection to the case database to search it with, that has the
+     * index attached as SCHEMA.
+     *
+     * @return the connection, for the caller to close
+     * @throws SQLException
+     */
+    Connection openSearchConnection() throws SQLException {
+        Connection connection = openConnection(caseDbPath);
+        try (PreparedStatement attach = connection.prepareStatement("ATTACH DATABASE ? AS " + SCHEMA)) {
+            attach.setString(1, indexPath);
+            attach.execute();
+        } catch (SQLException ex) {
+            connection.close();
+            throw ex;
+        }
+        return connection;
+    }
+
+    /**
+     * Index the files added since the last update, if they are not being
+     * indexed already.
+     */
+    synchronized void startUpdate() {
+        if (updater != null) {
+            return;
+        }
+        updater = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                update(Thread.currentThread());
+            }
+        }, "File name indexer");
+        updater.setDaemon(true);
+        updater.start();
+    }
+
+    private synchronized void stopUpdate() {
+        if (updater != null) {
+            updater.interrupt();
+            updater = null;
+        }
+    }
+
+    private synchronized boolean isUpdater(Thread thread) {
+        return updater == thread;
+    }
+
+    private void update(Thread thread) {
+        try (Connection connection = openConnection(indexPath)) {
+            try (PreparedStatement attach = connection.prepareStatement("ATTACH DATABASE ? AS case_db")) {
+                attach.setString(1, caseDbPath);
+                attach.execute();
+            }
+            try (PreparedStatement select = connection.prepareStatement("SELECT obj_id, name FROM case_db.tsk_files WHERE obj_id > ? ORDER BY obj_id LIMIT " + BATCH_SIZE);
+                    PreparedStatement insert = connection.prepareStatement("INSERT OR IGNORE INTO name_trigrams (gram, obj_id) VALUES (?, ?)");
+                    PreparedStatement state = connection.prepareStatement("UPDATE index_state SET last_obj_id = ?");
+                    Statement statement = connection.createStatement()) {
+                long lastObjId;
+                try (ResultSet rs = statement.executeQuery("SELECT last_obj_id FROM index_state")) {
+                    lastObjId = rs.next() ? rs.getLong(1) : 0;
+                }
+                List<Long> ids = new ArrayList<>(BATCH_SIZE);
+                List<String> names = new ArrayList<>(BATCH_SIZE);
+                do {
+                    ids.clear();
+                    names.clear();
+                    // read the batch outside of a transaction and close the query before
+                    // indexing it, so that the case database is only locked while it is read
+                    select.setLong(1, lastObjId);
+                    try (ResultSet rs = select.executeQuery()) {
+                        while (rs.next()) {
+                            ids.add(rs.getLong(1));
+                            names.add(rs.getString(2));
+                        }
+                    }
+                    if (ids.isEmpty()) {
+                        break;
+                    }
+                    connection.setAutoCommit(false);
+                    for (int i = 0; i < ids.size(); i++) {
+                        if (names.get(i) != null) {
+                            for (long gram : getGrams(names.get(i))) {
+                                insert.setLong(1, gram);
+                                insert.setLong(2, ids.get(i));
+                                insert.addBatch();
+                            }
+                        }
+                    }
+                    insert.executeBatch();
+                    lastObjId = ids.get(ids.size() - 1);
+                    state.setLong(1, lastObjId);
+                    state.executeUpdate();
+                    connection.commit();
+                    connection.setAutoCommit(true);
+                } while (ids.size() == BATCH_SIZE && isUpdater(thread) && !thread.isInterrupted());
+            }
+        } catch (SQLException ex) {
+            logger.log(Level.WARNING, "Error while indexing file names", ex);
+        } finally {
+            synchronized (this) {
+                if (updater == thread) {
+                    updater = null;
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the distinct grams of a text, ignoring case.
+     */
+    private static Set<Long> getGrams(String text) {
+        Set<Long> grams = new LinkedHashSet<>();
+        for (int i = 0; i + GRAM_LENGTH <= text.length(); i++) {
+            grams.add(toGram(text, i));
+        }
+        return grams;
+    }
+
+    private static long toGram(String text, int start) {
+        long gram = 0;
+        for (int i = start; i < start + GRAM_LENGTH; i++) {
+            gram = (gram << 16) | Character.toLowerCase(text.charAt(i));
+        }
+        return gram;
+    }
+
+    /**
+     * Get the grams to look up for a LIKE pattern: grams of the runs of the
+     * pattern between wildcards, which every name the pattern matches has.
+     *
+     * @param pattern LIKE pattern
+     * @return the grams, empty if the pattern has no run long enough, in
+     * which case the index is of no use
+     */
+    static List<Long> getSearchGrams(String pattern) {
+        Set<Long> grams = new LinkedHashSet<>();
+        for (String run : pattern.split("[%_]")) {
+            grams.addAll(getGrams(run));
+        }
+        List<Long> searchGrams = new ArrayList<>(grams);
+        return searchGrams.size() > MAX_SEARCH_GRAMS ? searchGrams.subList(0, MAX_SEARCH_GRAMS) : searchGrams;
+    }
+
+    /**
+     * Get the SQL expression for the files that may match a LIKE pattern,
+     * given the grams of the pattern as parameters: the indexed files with
+     * all of the grams, and the files that are not indexed yet.
+     *
+     * @param column column of the file id
+     * @param gramCount the number of grams, more than 0
+     * @return the expression, with gramCount ? parameters
+     */
+    static String getCandidatesPredicate(String column, int gramCount) {
+        StringBuilder sql = new StringBuilder();
+        sql.append(column).append(" > (SELECT last_obj_id FROM ").append(SCHEMA).append(".index_state) OR ")
+                .append(column).append(" IN (SELECT obj_id FROM ").append(SCHEMA).append(".name_trigrams WHERE gram IN (");
+        for (int i = 0; i < gramCount; i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+        }
+        sql.append(") GROUP BY obj_id HAVING COUNT(*) = ").append(gramCount).append(")");
+        return sql.toString();
+    }
+}
@@ -19,6 +19,7 @@
 package org.sleuthkit.autopsy.filesearch;
 
 import java.awt.event.ActionListener;
+import java.util.List;
 import javax.swing.JComponent;
 
 /**
@@ -46,6 +47,15 @@ interface FileSearchFilter {
      * invalid state
      */
     String getPredicate() throws FilterValidationException;
+
+    /**
+     * Gets the values of the ? parameters of the predicate, in order. User
+     * input is passed as a parameter rather than put in the predicate.
+     * @return the parameter values, empty if the predicate has none
+     * @throws FilterValidationException with a message if the filter is in an
+     * invalid state
+     */
+    List<Object> getParameters() throws FilterValidationException;
     
     /**
      * Add an action listener to the fields of this panel
@@ -26,16 +26,12 @@
 
 import java.awt.BorderLayout;
 import java.awt.Component;
-import java.awt.Cursor;
 import java.awt.Dimension;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.List;
-import java.util.logging.Level;
-import org.sleuthkit.autopsy.coreutils.Logger;
 import javax.swing.BoxLayout;
 import javax.swing.JButton;
 import javax.swing.JLabel;
@@ -43,15 +39,10 @@
 import javax.swing.border.EmptyBorder;
 import org.openide.DialogDisplayer;
 import org.openide.NotifyDescriptor;
-import org.openide.windows.TopComponent;
-import org.sleuthkit.autopsy.casemodule.Case;
 import org.sleuthkit.autopsy.corecomponents.DataResultTopComponent;
 import org.sleuthkit.autopsy.corecomponents.TableFilterNode;
-import org.sleuthkit.autopsy.coreutils.MessageNotifyUtil;
 import org.sleuthkit.autopsy.filesearch.FileSearchFilter.FilterValidationException;
 import org.sleuthkit.datamodel.AbstractFile;
-import org.sleuthkit.datamodel.SleuthkitCase;
-import org.sleuthkit.datamodel.TskCoreException;
 
 /**
  * FileSearchPanel that present search options
@@ -60,6 +51,7 @@ public class FileSearchPanel extends javax.swing.JPanel {
 
     private List<FilterArea> filterAreas = new ArrayList<FilterArea>();
     private JButton searchButton;
+    private final NameSearchFilter nameFilter = new NameSearchFilter();
     private static int resultWindowCount = 0; //keep track of result windows so they get unique names
 
     /**
@@ -90,7 +82,7 @@ private void customizeComponents() {
         filterPanel.add(label);
 
         // Create and add filter areas
-        this.filterAreas.add(new FilterArea("Name", new NameSearchFilter()));
+        this.filterAreas.add(new FilterArea("Name", nameFilter));
 
         List<FileSearchFilter> metadataFilters = new ArrayList<FileSearchFilter>();
         metadataFilters.add(new SizeSearchFilter());
@@ -132,76 +124,48 @@ private boolean anyFiltersEnabled() {
     }
 
     /**
-     * Action when the "Search" button is pressed.
+     * Action when the "Search" button is pressed. The result window is shown
+     * at once and the matches are added to it as they are found.
      *
      */
     private void search() {
-        // change the cursor to "waiting cursor" for this operation
-        this.setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
         try {
             if (this.anyFiltersEnabled()) {
                 String title = "File Search Results " + (++resultWindowCount);
                 String pathText = "Filename Search Results:";
 
-                // try to get the number of matches first
-                Case currentCase = Case.getCurrentCase(); // get the most updated case
-                long totalMatches = 0;
-                List<AbstractFile> contentList = null;
-                try {
-                    SleuthkitCase tskDb = currentCase.getSleuthkitCase();
-                    //ResultSet rs = tempDb.runQuery(this.getQuery("count(*) as TotalMatches"));
-                    contentList = tskDb.findAllFilesWhere(this.getQuery());
-
-                } catch (TskCoreException ex) {
-                    Logger logger = Logger.getLogger(this.getClass().getName());
-                    logger.log(Level.WARNING, "Error while trying to get the number of matches.", ex);
-                }
-                
-                if (contentList == null) {
-                    contentList = Collections.<AbstractFile>emptyList();
-                }
-
-                final TopComponent searchResultWin = DataResultTopComponent.createInstance(title, pathText,
-                        new TableFilterNode(new SearchNode(contentList), true), contentList.size());
+                String predicate = this.getQuery();
+                List<Object> parameters = this.getParameters();
+                String namePattern = nameFilter.isEnabled() ? nameFilter.getPattern() : null;
+
+                SearchNode resultNode = new SearchNode(new ArrayList<AbstractFile>());
+                final DataResultTopComponent searchResultWin = DataResultTopComponent.createInstance(title, pathText,
+                        new TableFilterNode(resultNode, true), 0);
 
                 searchResultWin.requestActive(); // make it the active top component
 
-                /**
-                 * If total matches more than 1000, pop up a dialog box that say
-                 * the performance maybe be slow and to increase the
-                 * performance, tell the users to refine their search.
-                 */
-                if (totalMatches > 10000) {
-                    // show info
-                    String msg = "File Search: " + totalMatches + " matches found";
-                    String details = "Large number of matches may impact performance on some operations";
-                    MessageNotifyUtil.Notify.info(msg, details);
-                }
+                new FileSearchWorker(predicate, parameters, namePattern, resultNode, searchResultWin).execute();
             } else {
                 throw new FilterValidationException("At least one filter must be selected.");
             }
         } catch (FilterValidationException ex) {
             NotifyDescriptor d = new NotifyDescriptor.Message("Validation Error: " + ex.getMessage());
             DialogDisplayer.getDefault().notify(d);
-        } finally {
-            this.setCursor(null);
         }
     }
 
-
-
     /**
-     * Gets the SQL query to get the data from the database based on the
-     * criteria that user chooses on the FileSearch.
+     * Gets the SQL expression that selects the files from the database based
+     * on the criteria that user chooses on the FileSearch. User input is in
+     * the parameters of the expression.
      *
-     * @return query the SQL query
+     * @return query the SQL expression, with ? parameters
      * @throws
      * org.sleuthkit.autopsy.filesearch.FileSearchFilter.FilterValidationException
      * if an enabled filter is in an invalid state
      */
     private String getQuery() throws FilterValidationException {
 
-        //String query = "select " + tempQuery + " from tsk_files where 1";
         String query = " 1";
 
         for (FileSearchFilter f : this.getEnabledFilters()) {
@@ -211,6 +175,24 @@ private String getQuery() throws FilterValidationException {
         return query;
     }
 
+    /**
+     * Gets the values of the parameters of the query, in order.
+     *
+     * @return the parameter values
+     * @throws
+     * org.sleuthkit.autopsy.filesearch.FileSearchFilter.FilterValidationException
+     * if an enabled filter is in an invalid state
+     */
+    private List<Object> getParameters() throws FilterValidationException {
+        List<Object> parameters = new ArrayList<Object>();
+
+        for (FileSearchFilter f : this.getEnabledFilters()) {
+            parameters.addAll(f.getParameters());
+        }
+
+        return parameters;
+    }
+
     private Collection<FileSearchFilter> getFilters() {
         Collection<FileSearchFilter> filters = new ArrayList<FileSearchFilter>();
 
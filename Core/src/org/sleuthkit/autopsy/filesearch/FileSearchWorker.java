@@ -0,0 +1,169 @@
+/*
+ * Autopsy Forensic Browser
+ *
+ * Copyright 2013 Basis Technology Corp.
+ * Contact: carrier <at> sleuthkit <dot> org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.sleuthkit.autopsy.filesearch;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.logging.Level;
+import javax.swing.SwingWorker;
+import org.sleuthkit.autopsy.casemodule.Case;
+import org.sleuthkit.autopsy.corecomponents.DataResultTopComponent;
+import org.sleuthkit.autopsy.coreutils.Logger;
+import org.sleuthkit.autopsy.coreutils.MessageNotifyUtil;
+import org.sleuthkit.datamodel.AbstractFile;
+import org.sleuthkit.datamodel.SleuthkitCase;
+import org.sleuthkit.datamodel.TskCoreException;
+
+/**
+ * Runs a file search and adds the matching files to the search results a
+ * page at a time, so the first matches are shown while the rest are found.
+ *
+ * The ids of the matches are found with a prepared statement on a connection
+ * of its own to the case database, with the user input as parameters, a
+ * page of ids after the last one found at a time. When
+ * there is a name pattern, the FileNameIndex narrows the files whose names
+ * are compared with it.
+ */
+class FileSearchWorker extends SwingWorker<Integer, List<AbstractFile>> {
+
+    private static final Logger logger = Logger.getLogger(FileSearchWorker.class.getName());
+    private static final int PAGE_SIZE = 1000;
+    // more matches than this may make some operations slow
+    private static final int MANY_MATCHES = 10000;
+    private final String predicate;
+    private final List<Object> parameters;
+    private final String namePattern;
+    private final SearchNode resultNode;
+    private final DataResultTopComponent resultWin;
+    private int matches = 0;
+
+    /**
+     * @param predicate SQL expression the matching files satisfy, with ?
+     * parameters
+     * @param parameters values of the parameters, in order
+     * @param namePattern LIKE pattern of the names the predicate requires, or
+     * null
+     * @param resultNode node to add the matching files to
+     * @param resultWin window that shows the node
+     */
+    FileSearchWorker(String predicate, List<Object> parameters, String namePattern, SearchNode resultNode, DataResultTopComponent resultWin) {
+        this.predicate = predicate;
+        this.parameters = parameters;
+        this.namePattern = namePattern;
+        this.resultNode = resultNode;
+        this.resultWin = resultWin;
+    }
+
+    @Override
+    protected Integer doInBackground() throws Exception {
+        SleuthkitCase tskDb = Case.getCurrentCase().getSleuthkitCase();
+        FileNameIndex index = FileNameIndex.getInstance();
+        index.startUpdate();
+
+        List<Long> grams = namePattern == null ? new ArrayList<Long>() : FileNameIndex.getSearchGrams(namePattern);
+        String sql = "SELECT obj_id FROM tsk_files WHERE obj_id > ? AND (" + predicate + ")";
+        if (!grams.isEmpty()) {
+            sql += " AND (" + FileNameIndex.getCandidatesPredicate("obj_id", grams.size()) + ")";
+        }
+        sql += " ORDER BY obj_id LIMIT " + PAGE_SIZE;
+
+        int found = 0;
+        try (Connection connection = index.openSearchConnection()) {
+            long lastObjId = 0;
+            List<Long> page = new ArrayList<>(PAGE_SIZE);
+            do {
+                page.clear();
+                // a page at a time, so that no query is open on the case database while ingest writes to it
+                try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                    int i = 1;
+                    statement.setLong(i++, lastObjId);
+                    for (Object parameter : parameters) {
+                        statement.setObject(i++, parameter);
+                    }
+                    for (Long gram : grams) {
+                        statement.setLong(i++, gram);
+                    }
+                    try (ResultSet rs = statement.executeQuery()) {
+                        while (rs.next()) {
+                            page.add(rs.getLong(1));
+                        }
+                    }
+                }
+                if (!page.isEmpty() && !isCancelled()) {
+                    lastObjId = page.get(page.size() - 1);
+                    found += loadPage(tskDb, page);
+                }
+            } while (page.size() == PAGE_SIZE && !isCancelled());
+        }
+        return found;
+    }
+
+    /**
+     * Get the files of a page of ids and publish them.
+     *
+     * @return the number of files
+     */
+    private int loadPage(SleuthkitCase tskDb, List<Long> ids) throws TskCoreException {
+        StringBuilder where = new StringBuilder("obj_id IN (");
+        for (int i = 0; i < ids.size(); i++) {
+            where.append(i == 0 ? "" : ", ").append(ids.get(i));
+        }
+        where.append(")");
+        List<AbstractFile> files = tskDb.findAllFilesWhere(where.toString());
+        publish(files);
+        return files.size();
+    }
+
+    @Override
+    protected void process(List<List<AbstractFile>> pages) {
+        if (!resultWin.isOpened()) {
+            cancel(true);
+            return;
+        }
+        List<AbstractFile> files = new ArrayList<>();
+        for (List<AbstractFile> page : pages) {
+            files.addAll(page);
+        }
+        resultNode.addFiles(files);
+        matches += files.size();
+        resultWin.setNumMatches(matches);
+    }
+
+    @Override
+    protected void done() {
+        if (isCancelled()) {
+            return;
+        }
+        try {
+            int found = get();
+            if (found > MANY_MATCHES) {
+                String msg = "File Search: " + found + " matches found";
+                String details = "Large number of matches may impact performance on some operations";
+                MessageNotifyUtil.Notify.info(msg, details);
+            }
+        } catch (InterruptedException | ExecutionException ex) {
+            logger.log(Level.WARNING, "Error while searching for files.", ex);
+            MessageNotifyUtil.Notify.error("File Search: error while searching for files", ex.getCause() == null ? ex.getMessage() : ex.getCause().getMessage());
+        }
+    }
+}
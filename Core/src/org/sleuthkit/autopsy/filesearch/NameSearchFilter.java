@@ -19,6 +19,8 @@
 package org.sleuthkit.autopsy.filesearch;
 
 import java.awt.event.ActionListener;
+import java.util.Collections;
+import java.util.List;
 import org.sleuthkit.autopsy.filesearch.FileSearchFilter.FilterValidationException;
 
 /**
@@ -44,16 +46,29 @@ public boolean isEnabled() {
 
     @Override
     public String getPredicate() throws FilterValidationException {
+        getPattern();
+        return "name like ?";
+    }
+
+    @Override
+    public List<Object> getParameters() throws FilterValidationException {
+        return Collections.<Object>singletonList(getPattern());
+    }
+
+    /**
+     * Gets the LIKE pattern of the names to find. The % and _ wildcards of
+     * the keyword are kept.
+     * @return the keyword in % wildcards
+     * @throws FilterValidationException if no keyword is entered
+     */
+    String getPattern() throws FilterValidationException {
         String keyword = this.getComponent().getSearchTextField().getText();
 
         if (keyword.isEmpty()) {
             throw new FilterValidationException(EMPTY_NAME_MESSAGE);
         }
 
-        keyword.replace("'", "''"); // escape quotes in string        
-        //TODO: escaping might not be enough, would ideally be part of a prepared statement
-
-        return "name like '%" + keyword + "%'";
+        return "%" + keyword + "%";
     }
 
     @Override
@@ -20,6 +20,7 @@
 package org.sleuthkit.autopsy.filesearch;
 
 
+import java.util.ArrayList;
 import java.util.List;
 import org.openide.nodes.Children;
 import org.openide.nodes.Node;
@@ -37,9 +38,21 @@
  */
 class SearchChildren extends Children.Keys<AbstractFile> {
 
+    private final List<AbstractFile> files;
+
     SearchChildren(boolean lazy, List<AbstractFile> fileList) {
         super(lazy);
-        this.setKeys(fileList);
+        this.files = new ArrayList<AbstractFile>(fileList);
+        this.setKeys(files);
+    }
+
+    /**
+     * Add nodes for more files, after the nodes of the files added before.
+     * @param fileList files to add
+     */
+    void addFiles(List<AbstractFile> fileList) {
+        files.addAll(fileList);
+        this.setKeys(files);
     }
 
 
@@ -36,6 +36,14 @@ class SearchNode extends AbstractNode {
         this.children = (SearchChildren)this.getChildren();
     }
 
+    /**
+     * Add more files to the search results.
+     * @param keys files to add
+     */
+    void addFiles(List<AbstractFile> keys) {
+        children.addFiles(keys);
+    }
+
     @Override
     public String getName() {
         return "Search Result";
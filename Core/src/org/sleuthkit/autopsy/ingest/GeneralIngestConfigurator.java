@@ -150,8 +150,41 @@ public void setContent(List<Content> inputContent) {
 
     @Override
     public void start() {
+        start(null);
+    }
+
+    /**
+     * Starts (queues) only the file-level ingest modules of the ingest process
+     * for the content specified using the setContent() method. Used to analyze
+     * the parts of a local file set that are committed while the rest of it
+     * is still being added; startDataSourceIngest() is then called with the
+     * file set once it is added.
+     */
+    public void startFileIngest() {
+        start(IngestModuleAbstract.ModuleType.AbstractFile);
+    }
+
+    /**
+     * Starts (queues) only the data source-level ingest modules of the ingest
+     * process for the content specified using the setContent() method.
+     */
+    public void startDataSourceIngest() {
+        start(IngestModuleAbstract.ModuleType.DataSource);
+    }
+
+    /**
+     * Queue the ingest process with the selected modules of a type.
+     *
+     * @param type type of the modules to start, or null for all of them
+     */
+    private void start(IngestModuleAbstract.ModuleType type) {
         // Get the list of ingest modules selected by the user.
-        List<IngestModuleAbstract> modulesToStart = ingestDialogPanel.getModulesToStart();
+        List<IngestModuleAbstract> modulesToStart = new ArrayList<>();
+        for (IngestModuleAbstract module : ingestDialogPanel.getModulesToStart()) {
+            if (type == null || module.getType() == type) {
+                modulesToStart.add(module);
+            }
+        }
         
         // Get the user's selection of whether or not to process unallocated space.
         manager.setProcessUnallocSpace(ingestDialogPanel.processUnallocSpaceEnabled());
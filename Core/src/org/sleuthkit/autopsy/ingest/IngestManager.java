@@ -205,6 +205,15 @@ public static synchronized void addPropertyChangeListener(final PropertyChangeLi
         pcs.addPropertyChangeListener(l);
     }
 
+    /**
+     * Remove a property change listener added with addPropertyChangeListener().
+     *
+     * @param l PropertyChangeListener to unregister
+     */
+    public static synchronized void removePropertyChangeListener(final PropertyChangeListener l) {
+        pcs.removePropertyChangeListener(l);
+    }
+
     static synchronized void fireModuleEvent(String eventType, String moduleName) {
         pcs.firePropertyChange(eventType, moduleName, null);
     }
@@ -0,0 +1,153 @@
+/*
+ * Autopsy Forensic Browser
+ *
+ * Copyright 2013 Basis Technology Corp.
+ * Contact: carrier <at> sleuthkit <dot> org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.sleuthkit.autopsy.report;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.logging.Level;
+import org.sleuthkit.autopsy.coreutils.Logger;
+import org.sleuthkit.datamodel.AbstractFile;
+import org.sleuthkit.datamodel.SleuthkitCase;
+import org.sleuthkit.datamodel.TskCoreException;
+
+/**
+ * Iterates over the files (not directories) of a case one page at a time, in
+ * object id order, so that the files of the case are never all in memory.
+ *
+ * The files are returned in object id order, so the files of a directory
+ * mostly come together and their unique paths are made from the same cached
+ * parent path by the PathCache of the case.
+ */
+class FileListIterator implements Iterator<AbstractFile> {
+
+    private static final Logger logger = Logger.getLogger(FileListIterator.class.getName());
+    private static final String FILES_WHERE = "NOT meta_type = 2";
+    private static final int PAGE_SIZE = 1000;
+    private final SleuthkitCase skCase;
+    private long lastObjId = -1;
+    private boolean lastPage = false;
+    private List<AbstractFile> page = Collections.<AbstractFile>emptyList();
+    private int pagePos = 0;
+
+    FileListIterator(SleuthkitCase skCase) {
+        this.skCase = skCase;
+    }
+
+    /**
+     * @return the number of files the iterator will return
+     */
+    @SuppressWarnings("deprecation")
+    int getFileCount() {
+        ResultSet rs = null;
+        try {
+            rs = skCase.runQuery("SELECT COUNT(*) AS count FROM tsk_files WHERE " + FILES_WHERE);
+            if (rs.next()) {
+                return rs.getInt("count");
+            }
+        } catch (SQLException ex) {
+            logger.log(Level.WARNING, "Failed to count the files of the case.", ex);
+        } finally {
+            if (rs != null) {
+                try {
+                    skCase.closeRunQuery(rs);
+                } catch (SQLException ex) {
+                    logger.log(Level.WARNING, "Failed to close the file count query.", ex);
+                }
+            }
+        }
+        return 0;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (pagePos == page.size()) {
+            if (lastPage) {
+                return false;
+            }
+            readPage();
+        }
+        return true;
+    }
+
+    @Override
+    public AbstractFile next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return page.get(pagePos++);
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException("Files can not be removed from the case.");
+    }
+
+    /**
+     * Read the next page of files.
+     */
+    @SuppressWarnings("deprecation")
+    private void readPage() {
+        page = Collections.<AbstractFile>emptyList();
+        pagePos = 0;
+
+        long pageLastObjId = lastObjId;
+        int pageFiles = 0;
+        ResultSet rs = null;
+        try {
+            rs = skCase.runQuery("SELECT obj_id FROM tsk_files "
+                    + "WHERE " + FILES_WHERE + " AND obj_id > " + lastObjId + " "
+                    + "ORDER BY obj_id LIMIT " + PAGE_SIZE);
+            while (rs.next()) {
+                pageLastObjId = rs.getLong("obj_id");
+                pageFiles++;
+            }
+        } catch (SQLException ex) {
+            logger.log(Level.SEVERE, "Failed to query the files of the case.", ex);
+            lastPage = true;
+            return;
+        } finally {
+            if (rs != null) {
+                try {
+                    skCase.closeRunQuery(rs);
+                } catch (SQLException ex) {
+                    logger.log(Level.WARNING, "Failed to close the file query.", ex);
+                }
+            }
+        }
+
+        if (pageFiles < PAGE_SIZE) {
+            lastPage = true;
+        }
+        if (pageFiles == 0) {
+            return;
+        }
+
+        try {
+            page = skCase.findAllFilesWhere(FILES_WHERE + " AND obj_id > " + lastObjId + " AND obj_id <= " + pageLastObjId);
+        } catch (TskCoreException ex) {
+            logger.log(Level.SEVERE, "Failed to get the files of the case.", ex);
+            lastPage = true;
+        }
+        lastObjId = pageLastObjId;
+    }
+}
@@ -18,6 +18,7 @@
  */
 package org.sleuthkit.autopsy.report;
 
+import org.sleuthkit.autopsy.casemodule.Case;
 import org.sleuthkit.datamodel.AbstractFile;
 import org.sleuthkit.datamodel.TskCoreException;
 import org.sleuthkit.datamodel.TskData;
@@ -112,7 +113,7 @@ public String getValue(AbstractFile file) {
         @Override
         public String getValue(AbstractFile file) {
             try {
-                return file.getUniquePath();
+                return Case.getCurrentCase().getServices().getPathCache().getUniquePath(file);
             } catch (TskCoreException ex) {
                 return "";
             }
@@ -31,6 +31,7 @@
 import java.util.logging.Level;
 import javax.swing.JPanel;
 import org.sleuthkit.autopsy.casemodule.Case;
+import org.sleuthkit.autopsy.casemodule.services.PathCache;
 import org.sleuthkit.autopsy.coreutils.Logger;
 import org.sleuthkit.autopsy.ingest.IngestManager;
 import org.sleuthkit.autopsy.report.ReportProgressPanel.ReportStatus;
@@ -103,6 +104,7 @@ public void generateReport(String path, ReportProgressPanel progressPanel) {
                 out.write(ingestwarning);
                 // Loop files and write info to report
                 int count = 0;
+                PathCache pathCache = currentCase.getServices().getPathCache();
                 for (FsContent file : fs) {
                     if (progressPanel.getStatus() == ReportStatus.CANCELED) {
                         break;
@@ -117,8 +119,9 @@ public void generateReport(String path, ReportProgressPanel progressPanel) {
                         out.write(file.getMd5Hash());
                     }
                     out.write("|");
-                    if(file.getUniquePath()!=null) {
-                        out.write(file.getUniquePath());
+                    String uniquePath = pathCache.getUniquePath(file);
+                    if(uniquePath!=null) {
+                        out.write(uniquePath);
                     }
                     out.write("|");
                     out.write(Long.toString(file.getMetaAddr()));
@@ -18,20 +18,46 @@
  */
 package org.sleuthkit.autopsy.report;
 
+import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.logging.Level;
 import org.apache.poi.hssf.util.HSSFColor;
+import org.apache.poi.ss.SpreadsheetVersion;
 import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.sleuthkit.autopsy.casemodule.Case;
 import org.sleuthkit.autopsy.coreutils.Logger;
 
+/**
+ * Writes the report as an Excel workbook, streaming the rows to disk.
+ * 
+ * Only the last ROW_WINDOW_SIZE rows of each worksheet are kept in memory, and
+ * the cell values are written as inline strings instead of through the shared
+ * strings table, so the memory used does not grow with the number of rows.
+ * A data type with more rows than fit on a worksheet is continued on another
+ * worksheet.
+ */
 public class ReportExcel implements TableReportModule {
     private static final Logger logger = Logger.getLogger(ReportExcel.class.getName());
     private static ReportExcel instance;
+    // rows of each sheet kept in memory, the older ones are written to a temp file
+    private static final int ROW_WINDOW_SIZE = 100;
+    private static final int MAX_ROW_INDEX = SpreadsheetVersion.EXCEL2007.getLastRowIndex();
+    private static final int MAX_SHEET_NAME_LENGTH = 31;
+    // widths are in units of 1/256th of a character
+    private static final int MAX_COLUMN_WIDTH = 255 * 256;
+    private static final String SUMMARY_SHEET_NAME = "Summary";
+    // POI 3.8 writes the streamed rows of each sheet to a file with this prefix in
+    // this directory, and only deletes it when the application exits
+    private static final File POI_TEMP_DIR = new File(System.getProperty("java.io.tmpdir"), "poifiles");
+    private static final String POI_TEMP_SHEET_PREFIX = "poi-sxssf-sheet";
     
     private Workbook wb;
     private Sheet sheet;
@@ -39,10 +65,25 @@ public class ReportExcel implements TableReportModule {
     private CellStyle setStyle;
     private CellStyle elementStyle;
     private int rowIndex = 0;
-    private int sheetColCount = 0;
+    private int[] columnWidths = new int[0];
     private int artifactsCount = 0;
     private String reportPath;
     
+    // the artifact counts are written to the summary sheet at the end, after its
+    // other rows, since the earlier rows of a sheet may already be on disk
+    private Sheet summarySheet;
+    private int summaryRowIndex = 0;
+    private List<String> summaryNames = new ArrayList<>();
+    private List<Integer> summaryCounts = new ArrayList<>();
+    
+    // the temp sheet files there were before the report, the others are its own
+    private Set<String> previousTempFiles = new HashSet<>();
+    
+    // the current data type and table, to continue them on a new sheet
+    private String dataTypeName;
+    private int sheetNumber = 1;
+    private List<String> tableTitles = null;
+    
     // Get the default instance of this report
     public static synchronized ReportExcel getDefault() {
         if (instance == null) {
@@ -64,9 +105,12 @@ private ReportExcel() {
     public void startReport(String path) {        
         // Set the path and save it for when the report is written to disk.
         this.reportPath = path + getFilePath();
+        summaryNames.clear();
+        summaryCounts.clear();
+        previousTempFiles = listTempSheetFiles();
                 
-        // Make a workbook.
-        wb = new XSSFWorkbook();
+        // Make a streaming workbook.
+        wb = new SXSSFWorkbook(ROW_WINDOW_SIZE);
         
         // Create some cell styles.
         // TODO: The commented out cell style settings below do not work as desired when
@@ -105,6 +149,14 @@ public void startReport(String path) {
      */
     @Override
     public void endReport() {
+        // Add the artifact counts to the end of the summary sheet.
+        for (int i = 0; i < summaryNames.size(); ++i) {
+            Row row = summarySheet.createRow(summaryRowIndex + i);
+            row.setRowStyle(setStyle);
+            row.createCell(0).setCellValue(summaryNames.get(i) + ":");
+            row.createCell(1).setCellValue(summaryCounts.get(i));
+        }
+        
         FileOutputStream out = null;
         try {
             out = new FileOutputStream(reportPath);
@@ -118,7 +170,46 @@ public void endReport() {
                 } catch (IOException ex) {
                 }
             }
+            deleteTempSheetFiles();
         }
+        // let go of the rows that are still in memory
+        wb = null;
+        sheet = null;
+        summarySheet = null;
+        summaryNames.clear();
+        summaryCounts.clear();
+    }
+    
+    /**
+     * Get the names of the temp files POI has written sheets to.
+     */
+    private static Set<String> listTempSheetFiles() {
+        Set<String> names = new HashSet<>();
+        String[] files = POI_TEMP_DIR.list();
+        if (files != null) {
+            for (String name : files) {
+                if (name.startsWith(POI_TEMP_SHEET_PREFIX)) {
+                    names.add(name);
+                }
+            }
+        }
+        return names;
+    }
+    
+    /**
+     * Delete the temp files the sheets of this report were written to, POI 3.8
+     * has no way to do it and keeps them until the application exits.
+     */
+    private void deleteTempSheetFiles() {
+        for (String name : listTempSheetFiles()) {
+            if (!previousTempFiles.contains(name)) {
+                File file = new File(POI_TEMP_DIR, name);
+                if (!file.delete()) {
+                    logger.log(Level.WARNING, "Failed to delete Excel report temp file " + file.getPath());
+                }
+            }
+        }
+        previousTempFiles.clear();
     }
     
 
@@ -128,31 +219,7 @@ public void endReport() {
      */
     @Override
     public void startDataType(String name) {
-        // Create a worksheet for the data type (assumed to be an artifact type).
-        name = escapeForExcel(name);
-        sheet = wb.createSheet(name);
-        sheet.setAutobreaks(true);
-        rowIndex = 0;
-        artifactsCount = 0;
-        
-        // Add a title row to the worksheet.
-        Row row = sheet.createRow(rowIndex);
-        row.setRowStyle(setStyle);
-        row.createCell(0).setCellValue(name);
-        ++rowIndex;
-        
-        // Add an artifacts count row. The actual count will be filled in later.
-        row = sheet.createRow(rowIndex);
-        row.setRowStyle(setStyle);
-        row.createCell(0).setCellValue("Number of artifacts:");
-        ++rowIndex;
-
-        // Add an empty row as a separator.
-        sheet.createRow(rowIndex);
-        ++rowIndex;
-                        
-        // There will be at least two columns, one each for the artifacts count and its label.
-        sheetColCount = 2;
+        startDataType(name, "");
     }
 
     /**
@@ -165,37 +232,37 @@ public void startDataType(String name) {
     public void startDataType(String name, String comment) {
         // Create a worksheet for the data type (assumed to be an artifact type).
         name = escapeForExcel(name);
-        sheet = wb.createSheet(name);
-        sheet.setAutobreaks(true);
-        rowIndex = 0;
+        dataTypeName = name;
+        sheetNumber = 1;
+        tableTitles = null;
+        startSheet(getSheetName(name, sheetNumber));
         artifactsCount = 0;
         
         // Add a title row to the worksheet.
-        Row row = sheet.createRow(rowIndex);
+        Row row = nextRow();
         row.setRowStyle(setStyle);
         row.createCell(0).setCellValue(name);
-        ++rowIndex;
         
-        // Add an artifacts count row. The actual count will be filled in later.
-        row = sheet.createRow(rowIndex);
+        // Add the data type to the summary, the count is filled in at the end.
+        summaryNames.add(name);
+        summaryCounts.add(0);
+        
+        // Add an artifacts count row. The rows are written before the count
+        // is known, so the count is taken from the summary sheet.
+        row = nextRow();
         row.setRowStyle(setStyle);
         row.createCell(0).setCellValue("Number of artifacts:");
-        ++rowIndex;
+        row.createCell(1).setCellFormula("'" + SUMMARY_SHEET_NAME + "'!B" + (summaryRowIndex + summaryNames.size()));
 
         // Add a comment row, if a comment was supplied.
         if (!comment.isEmpty()) {
-            row = sheet.createRow(rowIndex);
+            row = nextRow();
             row.setRowStyle(setStyle);
             row.createCell(0).setCellValue(comment);
-            ++rowIndex;
         }
         
         // Add an empty row as a separator.
-        sheet.createRow(rowIndex);
-        ++rowIndex;
-                
-        // There will be at least two columns, one each for the artifacts count and its label.
-        sheetColCount = 2;
+        nextRow();
     }    
     
     /**
@@ -203,15 +270,13 @@ public void startDataType(String name, String comment) {
      */
     @Override
     public void endDataType() {
-        // Fill in the artifact count cell in row 0.
-        Row row = sheet.getRow(1);
-        row.setRowStyle(setStyle);
-        row.createCell(1).setCellValue(artifactsCount);
+        // Keep the artifact count for the summary sheet.
+        if (!summaryCounts.isEmpty()) {
+            summaryCounts.set(summaryCounts.size() - 1, artifactsCount);
+        }
     
         // Now that the sheet is complete, size the columns to the content.
-        for (int i = 0; i < sheetColCount; ++i) {
-            sheet.autoSizeColumn(i);
-        }
+        sizeColumns();
     }
 
     /**
@@ -221,10 +286,9 @@ public void endDataType() {
     @Override
     public void startSet(String setName) {
         setName = escapeForExcel(setName);
-        Row row = sheet.createRow(rowIndex);
+        Row row = nextRow();
         row.setRowStyle(setStyle);
-        row.createCell(0).setCellValue(setName);
-        ++rowIndex;
+        setCellValue(row, 0, setName);
     }
 
     /**
@@ -233,8 +297,7 @@ public void startSet(String setName) {
     @Override
     public void endSet() {
         // Add an empty row as a separator.
-        sheet.createRow(rowIndex);
-        ++rowIndex;
+        nextRow();
     }
 
     @Override
@@ -249,10 +312,9 @@ public void addSetIndex(List<String> sets) {
     @Override
     public void addSetElement(String elementName) {
         elementName = escapeForExcel(elementName);
-        Row row = sheet.createRow(rowIndex);
+        Row row = nextRow();
         row.setRowStyle(elementStyle);
-        row.createCell(0).setCellValue(elementName);
-        ++rowIndex;
+        setCellValue(row, 0, elementName);
     }
 
     /**
@@ -261,26 +323,15 @@ public void addSetElement(String elementName) {
      */
     @Override
     public void startTable(List<String> titles) {
-        int tableColCount = 0;
-        Row row = sheet.createRow(rowIndex);
-        row.setRowStyle(titleStyle);
-        for (int i=0; i<titles.size(); i++) {
-            row.createCell(i).setCellValue(titles.get(i));
-            ++tableColCount;
-        }
-        ++rowIndex;
-        
-        // Keep track of the number of columns with data in them for later column auto-sizing.
-        if (tableColCount > sheetColCount) {
-            sheetColCount = tableColCount;
-        }
+        writeTableTitles(titles);
+        tableTitles = titles;
     }
 
     @Override
     public void endTable() {
+        tableTitles = null;
         // Add an empty row as a separator.
-        sheet.createRow(rowIndex);
-        ++rowIndex;
+        nextRow();
     }
 
     /**
@@ -289,11 +340,10 @@ public void endTable() {
      */
     @Override
     public void addRow(List<String> rowData) {
-        Row row = sheet.createRow(rowIndex);
+        Row row = nextRow();
         for (int i = 0; i < rowData.size(); ++i) {
-            row.createCell(i).setCellValue(rowData.get(i));
+            setCellValue(row, i, rowData.get(i));
         }
-        ++rowIndex;
         ++artifactsCount;
     }
 
@@ -338,8 +388,105 @@ private static String escapeForExcel(String text) {
          return text.replaceAll("[\\/\\:\\?\\*\\\\]", "_");
     }
     
+    /**
+     * Get the name of a worksheet of a data type. Sheet names are limited to
+     * 31 characters, so the name is shortened to fit the sheet number.
+     * 
+     * @param name data type name
+     * @param number number of the sheet of the data type, 1 for the first
+     * @return sheet name
+     */
+    private static String getSheetName(String name, int number) {
+        String suffix = number > 1 ? " (" + number + ")" : "";
+        if (name.length() + suffix.length() > MAX_SHEET_NAME_LENGTH) {
+            name = name.substring(0, MAX_SHEET_NAME_LENGTH - suffix.length());
+        }
+        return name + suffix;
+    }
+    
+    /**
+     * Start a new worksheet.
+     * 
+     * @param name sheet name
+     */
+    private void startSheet(String name) {
+        sheet = wb.createSheet(name);
+        sheet.setAutobreaks(true);
+        rowIndex = 0;
+        columnWidths = new int[0];
+    }
+    
+    /**
+     * Create the next row of the current sheet. When the sheet is full, the
+     * data type, and the current table, are continued on a new sheet.
+     * 
+     * @return the new row
+     */
+    private Row nextRow() {
+        if (rowIndex > MAX_ROW_INDEX) {
+            sizeColumns();
+            ++sheetNumber;
+            startSheet(getSheetName(dataTypeName, sheetNumber));
+            
+            Row row = sheet.createRow(rowIndex);
+            row.setRowStyle(setStyle);
+            row.createCell(0).setCellValue(dataTypeName + " (continued)");
+            ++rowIndex;
+            
+            sheet.createRow(rowIndex);
+            ++rowIndex;
+            
+            if (tableTitles != null) {
+                writeTableTitles(tableTitles);
+            }
+        }
+        Row row = sheet.createRow(rowIndex);
+        ++rowIndex;
+        return row;
+    }
+    
+    /**
+     * Write the column names of a table.
+     * 
+     * @param titles column names
+     */
+    private void writeTableTitles(List<String> titles) {
+        Row row = nextRow();
+        row.setRowStyle(titleStyle);
+        for (int i=0; i<titles.size(); i++) {
+            setCellValue(row, i, titles.get(i));
+        }
+    }
+    
+    /**
+     * Set the value of a cell and keep track of the width of its column.
+     * Autosizing the columns would only take the rows still in memory into account.
+     */
+    private void setCellValue(Row row, int column, String value) {
+        row.createCell(column).setCellValue(value);
+        if (column >= columnWidths.length) {
+            columnWidths = Arrays.copyOf(columnWidths, column + 1);
+        }
+        int width = value != null ? value.length() : 0;
+        if (width > columnWidths[column]) {
+            columnWidths[column] = width;
+        }
+    }
+    
+    /**
+     * Size the columns of the current sheet to the longest values written to them.
+     */
+    private void sizeColumns() {
+        for (int i = 0; i < columnWidths.length; ++i) {
+            if (columnWidths[i] > 0) {
+                sheet.setColumnWidth(i, Math.min((columnWidths[i] + 2) * 256, MAX_COLUMN_WIDTH));
+            }
+        }
+    }
+    
     private void writeSummaryWorksheet() {
-        sheet = wb.createSheet("Summary");
+        sheet = wb.createSheet(SUMMARY_SHEET_NAME);
+        summarySheet = sheet;
         rowIndex = 0;
         
         Row row = sheet.createRow(rowIndex);
@@ -376,7 +523,19 @@ private void writeSummaryWorksheet() {
         row.createCell(1).setCellValue(currentCase.getImageIDs().length);
         ++rowIndex;
         
-        sheet.autoSizeColumn(0);
-        sheet.autoSizeColumn(1);        
+        // The artifact counts of the data types follow, after an empty row.
+        sheet.createRow(rowIndex);
+        ++rowIndex;
+        
+        row = sheet.createRow(rowIndex);
+        row.setRowStyle(setStyle);
+        row.createCell(0).setCellValue("Number of artifacts");
+        ++rowIndex;
+        summaryRowIndex = rowIndex;
+        
+        // Size the columns up front, the column widths can't be calculated
+        // from rows that were already written to disk.
+        sheet.setColumnWidth(0, 40 * 256);
+        sheet.setColumnWidth(1, 40 * 256);
     }
 }
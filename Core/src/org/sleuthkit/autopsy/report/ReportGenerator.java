@@ -33,7 +33,6 @@
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -102,6 +101,9 @@ public class ReportGenerator {
     private Map<FileReportModule, ReportProgressPanel> fileProgress;
     
     private String reportPath;
+    
+    private final DateFormat attributeDateFormat = new SimpleDateFormat("yyyy/MM/dd HH:mm:ss");
+    private static final HashSet<String> NO_TAGS = new HashSet<>();
     private ReportGenerationPanel panel = new ReportGenerationPanel();
     
     static final String REPORTS_DIR = "Reports";
@@ -277,8 +279,8 @@ protected Integer doInBackground() throws Exception {
                 }
             }
             
-            List<AbstractFile> files = getFiles();
-            int numFiles = files.size();
+            FileListIterator files = new FileListIterator(skCase);
+            int numFiles = files.getFileCount();
             for (FileReportModule module : fileModules) {
                 module.startReport(reportPath);
                 module.startTable(enabledInfo);
@@ -287,12 +289,13 @@ protected Integer doInBackground() throws Exception {
             }
             
             int i = 0;
-            // Add files to report.
-            for (AbstractFile file : files) {
+            // Add files to report, one page of files at a time.
+            while (files.hasNext()) {
                 // Check to see if any reports have been cancelled.
                 if (fileModules.isEmpty()) {
                     break;
                 }
+                AbstractFile file = files.next();
                 // Remove cancelled reports, add files to report otherwise.
                 Iterator<FileReportModule> iter = fileModules.iterator();
                 while (iter.hasNext()) {
@@ -320,29 +323,13 @@ protected Integer doInBackground() throws Exception {
             
             return 0;
         }
-        
-        /**
-         * Get all files in the image.
-         * @return 
-         */
-        private List<AbstractFile> getFiles() {
-            List<AbstractFile> absFiles;
-            try {
-                SleuthkitCase skCase = Case.getCurrentCase().getSleuthkitCase();
-                absFiles = skCase.findAllFilesWhere("NOT meta_type = 2");
-                return absFiles;
-            } catch (TskCoreException ex) {
-                // TODO
-                return Collections.<AbstractFile>emptyList();
-            }
-        }
     }
     
     /**
      * SwingWorker to generate reports on blackboard artifacts.
      */
     private class ArtifactsReportsWorker extends SwingWorker<Integer, Integer> {
-        private List<TableReportModule> tableModules  = new ArrayList<>();
+        private List<TableReportModuleWriter> tableModules  = new ArrayList<>();
         private List<ARTIFACT_TYPE> artifactTypes  = new ArrayList<>();
         private HashSet<String> tagNamesFilter = new HashSet<>();
         
@@ -350,7 +337,9 @@ private class ArtifactsReportsWorker extends SwingWorker<Integer, Integer> {
         ArtifactsReportsWorker(Map<ARTIFACT_TYPE, Boolean> artifactTypeSelections, Map<String, Boolean> tagSelections) {
             // Get the report modules selected by the user.
             for (Entry<TableReportModule, ReportProgressPanel> entry : tableProgress.entrySet()) {
-                tableModules.add(entry.getKey());
+                if (entry.getValue().getStatus() != ReportStatus.CANCELED) {
+                    tableModules.add(new TableReportModuleWriter(entry.getKey(), entry.getValue()));
+                }
             }
             
             // Get the artifact types selected by the user.
@@ -372,15 +361,10 @@ private class ArtifactsReportsWorker extends SwingWorker<Integer, Integer> {
 
         @Override
         protected Integer doInBackground() throws Exception {
-            // Start the report
-            for (TableReportModule module : tableModules) {
-                ReportProgressPanel progress = tableProgress.get(module);
-                if (progress.getStatus() != ReportStatus.CANCELED) {
-                    module.startReport(reportPath);
-                    progress.start();
-                    progress.setIndeterminate(false);
-                    progress.setMaximumProgress(ARTIFACT_TYPE.values().length);
-                }
+            // Start the report, each module writes its report on a thread of its own
+            for (TableReportModuleWriter module : tableModules) {
+                module.start();
+                module.startReport(reportPath);
             }
             
             // Make a comment on the tags filter.
@@ -397,16 +381,10 @@ protected Integer doInBackground() throws Exception {
                     break;
                 }
                 
-                Iterator<TableReportModule> iter = tableModules.iterator();
-                while (iter.hasNext()) {
-                    TableReportModule module = iter.next();
-                    if (tableProgress.get(module).getStatus() == ReportStatus.CANCELED) {
-                        iter.remove();
-                    }
-                }
+                removeCanceledModules(tableModules);
                 
-                for (TableReportModule module : tableModules) {
-                    tableProgress.get(module).updateStatusLabel("Now processing " + type.getDisplayName() + "...");  
+                for (TableReportModuleWriter module : tableModules) {
+                    module.updateStatusLabel("Now processing " + type.getDisplayName() + "...");  
                 }
                 
                 // If the type is keyword hit or hashset hit, use the helper
@@ -418,16 +396,17 @@ protected Integer doInBackground() throws Exception {
                     continue;
                 }
 
-                List<ArtifactData> unsortedArtifacts = getFilteredArtifacts(type, tagNamesFilter);
-                
-                if (unsortedArtifacts.isEmpty()) {
+                // The artifacts are read and written a page at a time, in the
+                // order they were made, so that only a page of them is in memory.
+                ArtifactPages pages = new ArtifactPages(type, tagNamesFilter);
+                List<ArtifactData> page = pages.next();
+                while (page != null && page.isEmpty()) {
+                    page = pages.next();
+                }
+                if (page == null) {
                     // Don't report on this artifact type if there are no results
                     continue;
                 }
-                // The most efficient way to sort all the Artifacts is to add them to a List, and then
-                // sort that List based off a Comparator. Adding to a TreeMap/Set/List sorts the list
-                // each time an element is added, which adds unnecessary overhead if we only need it sorted once.
-                Collections.sort(unsortedArtifacts);
 
                 // Get the column headers appropriate for the artifact type.
                 /* @@@ BC: Seems like a better design here would be to have a method that 
@@ -442,34 +421,14 @@ protected Integer doInBackground() throws Exception {
                     continue;
                 }
                 
-                for (TableReportModule module : tableModules) {                  
-
-                    // This is a temporary workaround to avoid modifying the TableReportModule interface.
-                    if (module instanceof ReportHTML) {
-                        ReportHTML htmlReportModule = (ReportHTML)module;
-                        htmlReportModule.startDataType(type.getDisplayName(), comment.toString());                        
-                        htmlReportModule.startTable(columnHeaders, type);
-                    }
-                    else if (module instanceof ReportExcel) {
-                        ReportExcel excelReportModule = (ReportExcel)module;
-                        excelReportModule.startDataType(type.getDisplayName(), comment.toString());                        
-                        excelReportModule.startTable(columnHeaders);                    
-                    }
-                    else {
-                        module.startDataType(type.getDisplayName());                        
-                        module.startTable(columnHeaders);
-                    }
+                for (TableReportModuleWriter module : tableModules) {                  
+                    module.startDataType(type.getDisplayName(), comment.toString());                        
+                    module.startTable(columnHeaders, type);
                 }
                 
                 boolean msgSent = false;    
-                for(ArtifactData artifactData : unsortedArtifacts) {
-                    HashSet<String> tags = artifactData.getTags();
-                    
-                    String tagsList = makeCommaSeparatedList(tags);
-                    
-                    // Add the row data to all of the reports.
-                    for (TableReportModule module : tableModules) {
-                        
+                for (; page != null; page = pages.next()) {
+                    for (ArtifactData artifactData : page) {
                         // Get the row data for this type of artifact.
                         List<String> rowData = artifactData.getRow();
                         if (rowData == null) {
@@ -480,40 +439,64 @@ else if (module instanceof ReportExcel) {
                             continue;
                         }
                         // Add the list of tag names if the artifact is not itself as tag.
-                        if (artifactData.getArtifact().getArtifactTypeID() != ARTIFACT_TYPE.TSK_TAG_ARTIFACT.getTypeID() &&
-                            artifactData.getArtifact().getArtifactTypeID() != ARTIFACT_TYPE.TSK_TAG_FILE.getTypeID())
-                        {
-                            rowData.add(tagsList);
+                        if (type != ARTIFACT_TYPE.TSK_TAG_ARTIFACT && type != ARTIFACT_TYPE.TSK_TAG_FILE) {
+                            rowData.add(makeCommaSeparatedList(artifactData.getTags()));
                         }
 
-                        // This is a temporary workaround to avoid modifying the TableReportModule interface.
-                        if (module instanceof ReportHTML) {
-                            ReportHTML htmlReportModule = (ReportHTML)module;
-                            htmlReportModule.addRow(rowData, artifactData.getArtifact());
+                        // Only the file tag rows need the artifact, to make a local copy of the tagged file.
+                        BlackboardArtifact artifact = null;
+                        if (type == ARTIFACT_TYPE.TSK_TAG_FILE) {
+                            artifact = artifactData.getArtifact();
+                        }
+
+                        // Add the row data to all of the reports.
+                        for (TableReportModuleWriter module : tableModules) {
+                            if (artifact != null) {
+                                module.addRow(rowData, artifact);
+                            }
+                            else {      
+                                module.addRow(rowData);
+                            }                        
                         }
-                        else {      
-                            module.addRow(rowData);
-                        }                        
                     }
                 }
                 // Finish up this data type
-                for (TableReportModule module : tableModules) {
-                    tableProgress.get(module).increment();
+                for (TableReportModuleWriter module : tableModules) {
+                    module.increment();
                     module.endTable();
                     module.endDataType();
                 }
             }
             
             // End the report
-            for (TableReportModule module : tableModules) {
-                tableProgress.get(module).complete();
+            removeCanceledModules(tableModules);
+            for (TableReportModuleWriter module : tableModules) {
                 module.endReport();
             }
+            for (TableReportModuleWriter module : tableModules) {
+                module.waitForCompletion();
+            }
             
             return 0;
         }
     }
     
+    /**
+     * Remove the modules whose reports were canceled, and stop their writers.
+     * 
+     * @param tableModules modules to report on
+     */
+    private void removeCanceledModules(List<TableReportModuleWriter> tableModules) {
+        Iterator<TableReportModuleWriter> iter = tableModules.iterator();
+        while (iter.hasNext()) {
+            TableReportModuleWriter module = iter.next();
+            if (module.isCanceled()) {
+                module.cancel();
+                iter.remove();
+            }
+        }
+    }
+    
     private Boolean failsTagFilter(HashSet<String> tags, HashSet<String> tagsFilter) 
     {
         if (null == tagsFilter || tagsFilter.isEmpty()) {
@@ -526,32 +509,128 @@ private Boolean failsTagFilter(HashSet<String> tags, HashSet<String> tagsFilter)
     }
     
     /**
-     * Get a List of the artifacts and data of the given type that pass the given Tag Filter.
+     * Get the tags of an artifact from a map made by Tags.getUniqueTagNamesForArtifacts().
      * 
-     * @param type The artifact type to get
-     * @param tagNamesFilter The tag names that should be included.
-     * @return a list of the filtered tags.
+     * @param tagNames map of artifact IDs to tag names
+     * @param artifactId the artifact to get the tags of
+     * @return the tag names of the artifact, must not be modified
      */
-    private List<ArtifactData> getFilteredArtifacts(ARTIFACT_TYPE type, HashSet<String> tagNamesFilter) {
-        List<ArtifactData> artifacts = new ArrayList<>();
-        try {
-             // For every artifact of the current type, add it and it's attributes to a list
-             for (BlackboardArtifact artifact : skCase.getBlackboardArtifacts(type)) {
-                 HashSet<String> tags = Tags.getUniqueTagNamesForArtifact(artifact);
-                 if(failsTagFilter(tags, tagNamesFilter)) {
-                     continue;
-                 }
-                 try {
-                     artifacts.add(new ArtifactData(artifact, skCase.getBlackboardAttributes(artifact), tags));
-                 } catch (TskCoreException ex) {
-                     logger.log(Level.SEVERE, "Failed to get Blackboard Attributes when generating report.", ex);
-                 }
-             }
-         } 
-         catch (TskCoreException ex) {
-             logger.log(Level.SEVERE, "Failed to get Blackboard Artifacts when generating report.", ex);
-         }
-        return artifacts;
+    private HashSet<String> getTags(Map<Long, HashSet<String>> tagNames, long artifactId) {
+        HashSet<String> tags = tagNames.get(artifactId);
+        return tags != null ? tags : NO_TAGS;
+    }
+    
+    /**
+     * Reads the artifacts of a type that pass a tag filter a page at a time,
+     * in artifact ID order.
+     * 
+     * The artifacts of a page and their attributes are read with a single
+     * query, and the tags of all the artifacts of the type with one more, and
+     * only the report row of each artifact is kept, not its attributes.
+     */
+    private class ArtifactPages {
+        private static final int ARTIFACTS_PER_PAGE = 10000;
+        private final ARTIFACT_TYPE type;
+        private final HashSet<String> tagNamesFilter;
+        private final Map<Long, HashSet<String>> tagNames;
+        private long lastArtifactId = -1;
+        private boolean done = false;
+        
+        /**
+         * @param type The artifact type to get
+         * @param tagNamesFilter The tag names that should be included.
+         */
+        ArtifactPages(ARTIFACT_TYPE type, HashSet<String> tagNamesFilter) {
+            this.type = type;
+            this.tagNamesFilter = tagNamesFilter;
+            this.tagNames = Tags.getUniqueTagNamesForArtifacts(type.getTypeID());
+        }
+        
+        /**
+         * Get the next page of artifacts.
+         * 
+         * @return the artifacts of the page that pass the tag filter, possibly
+         * none, or null when there are no more pages
+         */
+        @SuppressWarnings("deprecation")
+        List<ArtifactData> next() {
+            if (done) {
+                return null;
+            }
+            List<ArtifactData> artifacts = new ArrayList<>();
+            int artifactsRead = 0;
+            ResultSet rs = null;
+            try {
+                // One row per attribute, the attributes of an artifact are consecutive
+                rs = skCase.runQuery("SELECT art.artifact_id AS artifact_id, art.obj_id AS obj_id, " +
+                                            "att.attribute_type_id AS attribute_type_id, att.value_text AS value_text, " +
+                                            "att.value_int64 AS value_int64, att.value_double AS value_double " +
+                                     "FROM (SELECT artifact_id, obj_id FROM blackboard_artifacts " +
+                                           "WHERE artifact_type_id = " + type.getTypeID() + " AND artifact_id > " + lastArtifactId + " " +
+                                           "ORDER BY artifact_id LIMIT " + ARTIFACTS_PER_PAGE + ") AS art " +
+                                     "LEFT JOIN blackboard_attributes AS att ON att.artifact_id = art.artifact_id " +
+                                     "ORDER BY art.artifact_id");
+
+                long artifactId = -1;
+                long objId = -1;
+                HashSet<String> tags = NO_TAGS;
+                Map<Integer, String> attributes = null;
+                long taggedArtifactId = -1;
+                while (rs.next()) {
+                    long rowArtifactId = rs.getLong("artifact_id");
+                    if (rowArtifactId != artifactId) {
+                        if (attributes != null) {
+                            artifacts.add(new ArtifactData(artifactId, objId, type, attributes, taggedArtifactId, tags));
+                        }
+                        ++artifactsRead;
+                        artifactId = rowArtifactId;
+                        lastArtifactId = artifactId;
+                        objId = rs.getLong("obj_id");
+                        tags = getTags(tagNames, artifactId);
+                        taggedArtifactId = -1;
+                        // Skip the attributes of artifacts that don't pass the tag filter.
+                        attributes = failsTagFilter(tags, tagNamesFilter) ? null : new HashMap<Integer, String>();
+                    }
+                    if (attributes == null) {
+                        continue;
+                    }
+
+                    int attributeType = rs.getInt("attribute_type_id");
+                    if (rs.wasNull()) {
+                        // The artifact has no attributes.
+                        continue;
+                    }
+                    long valueLong = rs.getLong("value_int64");
+                    if (attributeType == ATTRIBUTE_TYPE.TSK_TAGGED_ARTIFACT.getTypeID()) {
+                        taggedArtifactId = valueLong;
+                    }
+                    attributes.put(attributeType, formatAttributeValue(attributeType, valueLong,
+                            rs.getDouble("value_double"), rs.getString("value_text")));
+                }
+                if (attributes != null) {
+                    artifacts.add(new ArtifactData(artifactId, objId, type, attributes, taggedArtifactId, tags));
+                }
+            } 
+            catch (SQLException ex) {
+                logger.log(Level.SEVERE, "Failed to get Blackboard Artifacts when generating report.", ex);
+                done = true;
+            } finally {
+                if (rs != null) {
+                    try {
+                        skCase.closeRunQuery(rs);
+                    } catch (SQLException ex) {
+                        logger.log(Level.WARNING, "Failed to close the query for Blackboard Artifacts.", ex);
+                    }
+                }
+            }
+            if (artifactsRead < ARTIFACTS_PER_PAGE) {
+                done = true;
+            }
+            if (done && artifactsRead == 0) {
+                return null;
+            }
+            return artifacts;
+        }
     }
             
     /**
@@ -559,7 +638,7 @@ private List<ArtifactData> getFilteredArtifacts(ARTIFACT_TYPE type, HashSet<Stri
      * @param tableModules modules to report on
      */
     @SuppressWarnings("deprecation")
-    private void writeKeywordHits(List<TableReportModule> tableModules, String comment, HashSet<String> tagNamesFilter) {
+    private void writeKeywordHits(List<TableReportModuleWriter> tableModules, String comment, HashSet<String> tagNamesFilter) {
         ResultSet listsRs = null;
         try {
             // Query for keyword lists
@@ -579,21 +658,10 @@ private void writeKeywordHits(List<TableReportModule> tableModules, String comme
             }
             
             // Make keyword data type and give them set index
-            for (TableReportModule module : tableModules) {
-                // This is a temporary workaround to avoid modifying the TableReportModule interface.
-                if (module instanceof ReportHTML) {
-                    ReportHTML htmlReportModule = (ReportHTML)module;
-                    htmlReportModule.startDataType(ARTIFACT_TYPE.TSK_KEYWORD_HIT.getDisplayName(), comment);                        
-                }
-                else if (module instanceof ReportExcel) {
-                    ReportExcel excelReportModule = (ReportExcel)module;
-                    excelReportModule.startDataType(ARTIFACT_TYPE.TSK_KEYWORD_HIT.getDisplayName(), comment);                                            
-                }
-                else {
-                   module.startDataType(ARTIFACT_TYPE.TSK_KEYWORD_HIT.getDisplayName());
-                }            
+            for (TableReportModuleWriter module : tableModules) {
+                module.startDataType(ARTIFACT_TYPE.TSK_KEYWORD_HIT.getDisplayName(), comment);                        
                 module.addSetIndex(lists);
-                tableProgress.get(module).updateStatusLabel("Now processing "
+                module.updateStatusLabel("Now processing "
                         + ARTIFACT_TYPE.TSK_KEYWORD_HIT.getDisplayName() + "...");
             }
         }
@@ -610,6 +678,8 @@ else if (module instanceof ReportExcel) {
         
         ResultSet rs = null;
         try {
+            Map<Long, HashSet<String>> tagNames = Tags.getUniqueTagNamesForArtifacts(ARTIFACT_TYPE.TSK_KEYWORD_HIT.getTypeID());
+
             // Query for keywords
             rs = skCase.runQuery("SELECT art.artifact_id, art.obj_id, att1.value_text AS keyword, att2.value_text AS preview, att3.value_text AS list, f.name AS name " +
                                            "FROM blackboard_artifacts AS art, blackboard_attributes AS att1, blackboard_attributes AS att2, blackboard_attributes AS att3, tsk_files AS f " +
@@ -629,16 +699,10 @@ else if (module instanceof ReportExcel) {
                 if (tableModules.isEmpty()) {
                     break;
                 }
-                Iterator<TableReportModule> iter = tableModules.iterator();
-                while (iter.hasNext()) {
-                    TableReportModule module = iter.next();
-                    if (tableProgress.get(module).getStatus() == ReportStatus.CANCELED) {
-                        iter.remove();
-                    }
-                }
+                removeCanceledModules(tableModules);
  
                // Get any tags that associated with this artifact and apply the tag filter.
-                HashSet<String> tags = Tags.getUniqueTagNamesForArtifact(rs.getLong("artifact_id"), ARTIFACT_TYPE.TSK_KEYWORD_HIT.getTypeID());
+                HashSet<String> tags = getTags(tagNames, rs.getLong("artifact_id"));
                 if (failsTagFilter(tags, tagNamesFilter)) {
                     continue;
                 }                    
@@ -648,53 +712,47 @@ else if (module instanceof ReportExcel) {
                 String keyword = rs.getString("keyword");
                 String preview = rs.getString("preview");
                 String list = rs.getString("list");
-                String uniquePath = "";
-
-                 try {
-                    uniquePath = skCase.getAbstractFileById(objId).getUniquePath();
-                } catch (TskCoreException ex) {
-                    logger.log(Level.WARNING, "Failed to get Abstract File by ID.", ex);
-                }
+                String uniquePath = getFileUniquePath(objId);
 
                 // If the lists aren't the same, we've started a new list
                 if((!list.equals(currentList) && !list.isEmpty()) || (list.isEmpty() && !currentList.equals("User Searches"))) {
                     if(!currentList.isEmpty()) {
-                        for (TableReportModule module : tableModules) {
+                        for (TableReportModuleWriter module : tableModules) {
                             module.endTable();
                             module.endSet();
                         }
                     }
                     currentList = list.isEmpty() ? "User Searches" : list;
                     currentKeyword = ""; // reset the current keyword because it's a new list
-                    for (TableReportModule module : tableModules) {
+                    for (TableReportModuleWriter module : tableModules) {
                         module.startSet(currentList);
-                        tableProgress.get(module).updateStatusLabel("Now processing "
+                        module.updateStatusLabel("Now processing "
                                 + ARTIFACT_TYPE.TSK_KEYWORD_HIT.getDisplayName()
                                 + " (" + currentList + ")...");
                     }
                 }
                 if (!keyword.equals(currentKeyword)) {
                     if(!currentKeyword.equals("")) {
-                        for (TableReportModule module : tableModules) {
+                        for (TableReportModuleWriter module : tableModules) {
                             module.endTable();
                         }
                     }
                     currentKeyword = keyword;
-                    for (TableReportModule module : tableModules) {
+                    for (TableReportModuleWriter module : tableModules) {
                         module.addSetElement(currentKeyword);
                         module.startTable(getArtifactTableColumnHeaders(ARTIFACT_TYPE.TSK_KEYWORD_HIT.getTypeID()));
                     }
                 }
                 
                 String previewreplace = EscapeUtil.escapeHtml(preview);
-                for (TableReportModule module : tableModules) {
+                for (TableReportModuleWriter module : tableModules) {
                     module.addRow(Arrays.asList(new String[] {previewreplace.replaceAll("<!", ""), uniquePath, tagsList}));
                 }
             }
             
             // Finish the current data type
-            for (TableReportModule module : tableModules) {
-                tableProgress.get(module).increment();
+            for (TableReportModuleWriter module : tableModules) {
+                module.increment();
                 module.endDataType();
             }
         } catch (SQLException ex) {
@@ -714,7 +772,7 @@ else if (module instanceof ReportExcel) {
      * @param tableModules modules to report on
      */
     @SuppressWarnings("deprecation")
-    private void writeHashsetHits(List<TableReportModule> tableModules,  String comment, HashSet<String> tagNamesFilter) {
+    private void writeHashsetHits(List<TableReportModuleWriter> tableModules,  String comment, HashSet<String> tagNamesFilter) {
         ResultSet listsRs = null;
         try {
             // Query for hashsets
@@ -729,21 +787,10 @@ private void writeHashsetHits(List<TableReportModule> tableModules,  String comm
                 lists.add(listsRs.getString("list"));
             }
             
-            for (TableReportModule module : tableModules) {
-                // This is a temporary workaround to avoid modifying the TableReportModule interface.
-                if (module instanceof ReportHTML) {
-                    ReportHTML htmlReportModule = (ReportHTML)module;
-                    htmlReportModule.startDataType(ARTIFACT_TYPE.TSK_HASHSET_HIT.getDisplayName(), comment);                        
-                }
-                else if (module instanceof ReportExcel) {
-                    ReportExcel excelReportModule = (ReportExcel)module;
-                    excelReportModule.startDataType(ARTIFACT_TYPE.TSK_HASHSET_HIT.getDisplayName(), comment);                                            
-                }
-                else {
-                   module.startDataType(ARTIFACT_TYPE.TSK_HASHSET_HIT.getDisplayName());
-                }            
+            for (TableReportModuleWriter module : tableModules) {
+                module.startDataType(ARTIFACT_TYPE.TSK_HASHSET_HIT.getDisplayName(), comment);                        
                 module.addSetIndex(lists);
-                tableProgress.get(module).updateStatusLabel("Now processing "
+                module.updateStatusLabel("Now processing "
                         + ARTIFACT_TYPE.TSK_HASHSET_HIT.getDisplayName() + "...");
             }
         } catch (SQLException ex) {        
@@ -759,6 +806,8 @@ else if (module instanceof ReportExcel) {
         
         ResultSet rs = null;
         try {
+            Map<Long, HashSet<String>> tagNames = Tags.getUniqueTagNamesForArtifacts(ARTIFACT_TYPE.TSK_HASHSET_HIT.getTypeID());
+
             // Query for hashset hits
             rs = skCase.runQuery("SELECT art.artifact_id, art.obj_id, att.value_text AS setname, f.name AS name, f.size AS size " +
                                            "FROM blackboard_artifacts AS art, blackboard_attributes AS att, tsk_files AS f " +
@@ -773,16 +822,10 @@ else if (module instanceof ReportExcel) {
                 if (tableModules.isEmpty()) {
                     break;
                 }
-                Iterator<TableReportModule> iter = tableModules.iterator();
-                while (iter.hasNext()) {
-                    TableReportModule module = iter.next();
-                    if (tableProgress.get(module).getStatus() == ReportStatus.CANCELED) {
-                        iter.remove();
-                    }
-                }
+                removeCanceledModules(tableModules);
                 
                // Get any tags that associated with this artifact and apply the tag filter.
-                HashSet<String> tags = Tags.getUniqueTagNamesForArtifact(rs.getLong("artifact_id"), ARTIFACT_TYPE.TSK_HASHSET_HIT.getTypeID());
+                HashSet<String> tags = getTags(tagNames, rs.getLong("artifact_id"));
                 if (failsTagFilter(tags, tagNamesFilter)) {
                     continue;
                 }                    
@@ -791,41 +834,35 @@ else if (module instanceof ReportExcel) {
                 Long objId = rs.getLong("obj_id");
                 String set = rs.getString("setname");
                 String size = rs.getString("size");
-                String uniquePath = "";
-                
-                try {
-                    uniquePath = skCase.getAbstractFileById(objId).getUniquePath();
-                } catch (TskCoreException ex) {
-                    logger.log(Level.WARNING, "Failed to get Abstract File from ID.", ex);
-                }
+                String uniquePath = getFileUniquePath(objId);
 
                 // If the sets aren't the same, we've started a new set
                 if(!set.equals(currentSet)) {
                     if(!currentSet.isEmpty()) {
-                        for (TableReportModule module : tableModules) {
+                        for (TableReportModuleWriter module : tableModules) {
                             module.endTable();
                             module.endSet();
                         }
                     }
                     currentSet = set;
-                    for (TableReportModule module : tableModules) {
+                    for (TableReportModuleWriter module : tableModules) {
                         module.startSet(currentSet);
                         module.startTable(getArtifactTableColumnHeaders(ARTIFACT_TYPE.TSK_HASHSET_HIT.getTypeID()));
-                        tableProgress.get(module).updateStatusLabel("Now processing "
+                        module.updateStatusLabel("Now processing "
                                 + ARTIFACT_TYPE.TSK_HASHSET_HIT.getDisplayName()
                                 + " (" + currentSet + ")...");
                     }
                 }
                 
                 // Add a row for this hit to every module
-                for (TableReportModule module : tableModules) {
+                for (TableReportModuleWriter module : tableModules) {
                     module.addRow(Arrays.asList(new String[] {uniquePath, size, tagsList}));
                 }
             }
             
             // Finish the current data type
-            for (TableReportModule module : tableModules) {
-                tableProgress.get(module).increment();
+            for (TableReportModuleWriter module : tableModules) {
+                module.increment();
                 module.endDataType();
             }
         } catch (SQLException ex) {
@@ -954,37 +991,53 @@ public Map<Integer, String> getMappedAttributes(List<BlackboardAttribute> attLis
             attributes.put(n, "");
         }
         for (BlackboardAttribute tempatt : attList) {
-            String value = "";
             Integer type = tempatt.getAttributeTypeID();
-            if (type.equals(ATTRIBUTE_TYPE.TSK_DATETIME.getTypeID()) || 
-                type.equals(ATTRIBUTE_TYPE.TSK_DATETIME_ACCESSED.getTypeID()) ||
-                type.equals(ATTRIBUTE_TYPE.TSK_DATETIME_CREATED.getTypeID()) ||
-                type.equals(ATTRIBUTE_TYPE.TSK_DATETIME_MODIFIED.getTypeID()) ||
-                type.equals(ATTRIBUTE_TYPE.TSK_DATETIME_SENT.getTypeID()) ||
-                type.equals(ATTRIBUTE_TYPE.TSK_DATETIME_RCVD.getTypeID()) ||
-                type.equals(ATTRIBUTE_TYPE.TSK_DATETIME_START.getTypeID()) ||
-                type.equals(ATTRIBUTE_TYPE.TSK_DATETIME_END.getTypeID())
-                    ) {
-                if (module.length > 0) {
-                    value = module[0].dateToString(tempatt.getValueLong());
-                } else {
-                    SimpleDateFormat sdf = new java.text.SimpleDateFormat("yyyy/MM/dd HH:mm:ss");
-                    value = sdf.format(new java.util.Date((tempatt.getValueLong() * 1000)));
-                }
-            } else if(type.equals(ATTRIBUTE_TYPE.TSK_GEO_LATITUDE.getTypeID()) ||
-                    type.equals(ATTRIBUTE_TYPE.TSK_GEO_LONGITUDE.getTypeID()) ||
-                    type.equals(ATTRIBUTE_TYPE.TSK_GEO_ALTITUDE.getTypeID())) {
-                value = Double.toString(tempatt.getValueDouble());
+            attributes.put(type, formatAttributeValue(type, tempatt.getValueLong(), tempatt.getValueDouble(),
+                    tempatt.getValueString(), module));
+        }
+        return attributes;
+    }
+    
+    /**
+     * Get the report value of an attribute, using module's dateToString method for
+     * date/time conversions if a module is supplied.
+     * 
+     * @param type attribute type ID
+     * @param valueLong long value of the attribute
+     * @param valueDouble double value of the attribute
+     * @param valueString string value of the attribute
+     * @param module the TableReportModule the value is for
+     * @return the HTML escaped value
+     */
+    private String formatAttributeValue(int type, long valueLong, double valueDouble, String valueString, TableReportModule... module) {
+        String value;
+        if (type == ATTRIBUTE_TYPE.TSK_DATETIME.getTypeID() || 
+            type == ATTRIBUTE_TYPE.TSK_DATETIME_ACCESSED.getTypeID() ||
+            type == ATTRIBUTE_TYPE.TSK_DATETIME_CREATED.getTypeID() ||
+            type == ATTRIBUTE_TYPE.TSK_DATETIME_MODIFIED.getTypeID() ||
+            type == ATTRIBUTE_TYPE.TSK_DATETIME_SENT.getTypeID() ||
+            type == ATTRIBUTE_TYPE.TSK_DATETIME_RCVD.getTypeID() ||
+            type == ATTRIBUTE_TYPE.TSK_DATETIME_START.getTypeID() ||
+            type == ATTRIBUTE_TYPE.TSK_DATETIME_END.getTypeID()
+                ) {
+            if (module.length > 0) {
+                value = module[0].dateToString(valueLong);
             } else {
-                value = tempatt.getValueString();
-            }
-            if (value == null) {
-                value = "";
+                synchronized (attributeDateFormat) {
+                    value = attributeDateFormat.format(new java.util.Date((valueLong * 1000)));
+                }
             }
-            value = EscapeUtil.escapeHtml(value);
-            attributes.put(type, value);
+        } else if(type == ATTRIBUTE_TYPE.TSK_GEO_LATITUDE.getTypeID() ||
+                type == ATTRIBUTE_TYPE.TSK_GEO_LONGITUDE.getTypeID() ||
+                type == ATTRIBUTE_TYPE.TSK_GEO_ALTITUDE.getTypeID()) {
+            value = Double.toString(valueDouble);
+        } else {
+            value = valueString;
         }
-        return attributes;
+        if (value == null) {
+            value = "";
+        }
+        return EscapeUtil.escapeHtml(value);
     }
     
     /**
@@ -1009,9 +1062,9 @@ private String makeCommaSeparatedList(Collection<String> items) {
      */
     private String getFileUniquePath(long objId) {
         try {
-            return skCase.getAbstractFileById(objId).getUniquePath();
+            return currentCase.getServices().getPathCache().getUniquePath(objId);
         } catch (TskCoreException ex) {
-            logger.log(Level.WARNING, "Failed to get Abstract File by ID.", ex);
+            logger.log(Level.WARNING, "Failed to get the unique path of object " + objId, ex);
         }
         return "";
     }
@@ -1026,86 +1079,68 @@ private String getFileName(long objId) {
         try {
             return skCase.getAbstractFileById(objId).getName();
         } catch (TskCoreException ex) {
-            logger.log(Level.WARNING, "Failed to get Abstract File by ID.", ex);
+            logger.log(Level.WARNING, "Failed to get the name of file " + objId, ex);
         }
         return "";
     }
     
     /**
-     * Return the file associated with a tsk_file obj_id.
-     * 
-     * @param objId tsk_file obj_id
-     * @return AbstractFile associated with objId
-     */
-    private AbstractFile getAbstractFile(long objId) {
-        try {
-            return skCase.getAbstractFileById(objId);
-        } catch (TskCoreException ex) {
-            logger.log(Level.WARNING, "Failed to get Abstract File by ID.", ex);
-        }
-        return null;
-    }
-    
-    /**
-     * Container class that holds data about an Artifact to eliminate duplicate
-     * calls to the Sleuthkit database.
+     * Container class that holds the report row of an Artifact. The row is made
+     * when the artifact is loaded, so that its attributes don't have to be kept.
      */
-    private class ArtifactData implements Comparable<ArtifactData> {
-        private BlackboardArtifact artifact;
-        private List<BlackboardAttribute> attributes;
-        private HashSet<String> tags;
+    private class ArtifactData {
+        private final long artifactId;
+        private final long objectId;
+        private final ARTIFACT_TYPE type;
+        private final long taggedArtifactId;
+        private final HashSet<String> tags;
+        private Map<Integer, String> mappedAttributes;
         private List<String> rowData = null;
         
-        ArtifactData(BlackboardArtifact artifact, List<BlackboardAttribute> attrs, HashSet<String> tags) {
-            this.artifact = artifact;
-            this.attributes = attrs;
+        /**
+         * @param artifactId the artifact ID
+         * @param objectId the object ID of the source file of the artifact
+         * @param type the artifact type
+         * @param mappedAttributes the report values of the attributes, mapped to their attribute type ID
+         * @param taggedArtifactId the artifact a tag artifact applies to, or -1
+         * @param tags the tag names of the artifact
+         */
+        ArtifactData(long artifactId, long objectId, ARTIFACT_TYPE type, Map<Integer, String> mappedAttributes, long taggedArtifactId, HashSet<String> tags) {
+            this.artifactId = artifactId;
+            this.objectId = objectId;
+            this.type = type;
+            this.mappedAttributes = mappedAttributes;
+            this.taggedArtifactId = taggedArtifactId;
             this.tags = tags;
+            getRow();
         }
         
-        public BlackboardArtifact getArtifact() { return artifact; }
-        
-        public List<BlackboardAttribute> getAttributes() { return attributes; }
+        /**
+         * Get the artifact from the case. Only use for the few rows that need it.
+         */
+        public BlackboardArtifact getArtifact() { return getArtifactByID(artifactId); }
         
         public HashSet<String> getTags() { return tags; }
         
-        public long getArtifactID() { return artifact.getArtifactID(); }
+        public long getArtifactID() { return artifactId; }
         
-        public long getObjectID() { return artifact.getObjectID(); }
+        public long getObjectID() { return objectId; }
 
-        
-        /**
-         * Compares ArtifactData objects by the first attribute they have in
-         * common in their List<BlackboardAttribute>. 
-         * 
-         * If all attributes are the same, they are assumed duplicates and are
-         * compared by their artifact id. Should only be used with attributes
-         * of the same type.
-         */
-        @Override
-        public int compareTo(ArtifactData otherArtifactData) {
-            List<String> thisRow = getRow();
-            List<String> otherRow = otherArtifactData.getRow();
-            for (int i = 0; i < thisRow.size(); i++) {
-                int compare = thisRow.get(i).compareTo(otherRow.get(i));
-                if (compare != 0) {
-                    return compare;
-                }
-            }
-            // If all attributes are the same, they're most likely duplicates so sort by artifact ID
-            return ((Long) this.getArtifactID()).compareTo((Long) otherArtifactData.getArtifactID());
-        }
-        
         /**
          * Get the values for each row in the table report.
          */
         public List<String> getRow() {
-            if (rowData == null) {
-                try {
-                    rowData = getOrderedRowDataAsStrings();
-                } catch (TskCoreException ex) {
-                    logger.log(Level.WARNING, "Core exception while generating row data for artifact report.", ex);
-                    rowData = Collections.<String>emptyList();
+            if (rowData == null && mappedAttributes != null) {
+                rowData = getOrderedRowDataAsStrings();
+                if (rowData != null) {
+                    // attributes the artifact doesn't have are reported as empty
+                    for (int i = 0; i < rowData.size(); i++) {
+                        if (rowData.get(i) == null) {
+                            rowData.set(i, "");
+                        }
+                    }
                 }
+                mappedAttributes = null;
             }
             return rowData;
         }
@@ -1115,12 +1150,8 @@ public List<String> getRow() {
         * correct order to be written to the report.
         * 
         * @return List<String> row values
-        * @throws TskCoreException 
         */
-       private List<String> getOrderedRowDataAsStrings() throws TskCoreException {
-           Map<Integer, String> mappedAttributes = getMappedAttributes();
-           BlackboardArtifact.ARTIFACT_TYPE type = BlackboardArtifact.ARTIFACT_TYPE.fromID(this.getArtifact().getArtifactTypeID());
-
+       private List<String> getOrderedRowDataAsStrings() {
            switch (type) {
                case TSK_WEB_BOOKMARK:
                    List<String> bookmark = new ArrayList<>();
@@ -1194,36 +1225,23 @@ private List<String> getOrderedRowDataAsStrings() throws TskCoreException {
                    return exif;
                case TSK_TAG_FILE:
                    List<String> taggedFileRow = new ArrayList<>();
-                   AbstractFile taggedFile = getAbstractFile(this.getObjectID());
-                   if (taggedFile != null) {
-                       taggedFileRow.add(taggedFile.getUniquePath());
-                   } else {
-                       taggedFileRow.add("");
-                   }
+                   taggedFileRow.add(getFileUniquePath(this.getObjectID()));
                    taggedFileRow.add(mappedAttributes.get(ATTRIBUTE_TYPE.TSK_TAG_NAME.getTypeID()));
                    taggedFileRow.add(mappedAttributes.get(ATTRIBUTE_TYPE.TSK_COMMENT.getTypeID()));
                    return taggedFileRow;
                case TSK_TAG_ARTIFACT:
                    List<String> taggedArtifactRow = new ArrayList<>();
                    String taggedArtifactType = "";
-                   for (BlackboardAttribute attr : this.getAttributes()) {
-                       if (attr.getAttributeTypeID() == ATTRIBUTE_TYPE.TSK_TAGGED_ARTIFACT.getTypeID()) {
-                           BlackboardArtifact taggedArtifact = this.getArtifactByID(attr.getValueLong());
-                           if (taggedArtifact != null) {
-                               taggedArtifactType = taggedArtifact.getDisplayName();
-                           }
-                           break;
+                   if (taggedArtifactId != -1) {
+                       BlackboardArtifact taggedArtifact = this.getArtifactByID(taggedArtifactId);
+                       if (taggedArtifact != null) {
+                           taggedArtifactType = taggedArtifact.getDisplayName();
                        }
                    }
                    taggedArtifactRow.add(taggedArtifactType);
                    taggedArtifactRow.add(mappedAttributes.get(ATTRIBUTE_TYPE.TSK_TAG_NAME.getTypeID()));
                    taggedArtifactRow.add(mappedAttributes.get(ATTRIBUTE_TYPE.TSK_COMMENT.getTypeID()));
-                   AbstractFile sourceFile = getAbstractFile(this.getObjectID());
-                   if (sourceFile != null) {
-                       taggedArtifactRow.add(sourceFile.getUniquePath());
-                   } else {
-                       taggedArtifactRow.add("");
-                   }
+                   taggedArtifactRow.add(getFileUniquePath(this.getObjectID()));
                    return taggedArtifactRow;
                 case TSK_CONTACT:
                    List<String> contact = new ArrayList<>();
@@ -1343,14 +1361,6 @@ private List<String> getOrderedRowDataAsStrings() throws TskCoreException {
             return null;
         }
        
-        /**
-         * Returns a mapping of Attribute Type ID to the String representation
-         * of an Attribute Value.
-         */
-        private Map<Integer,String> getMappedAttributes() {
-            return ReportGenerator.this.getMappedAttributes(attributes);
-        }
-       
         /**
          * Get a BlackboardArtifact.
          * 
@@ -35,11 +35,19 @@
 import java.io.Writer;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
+import java.nio.file.Files;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import org.openide.filesystems.FileUtil;
 import org.openide.util.Exceptions;
@@ -47,7 +55,6 @@
 import org.sleuthkit.autopsy.coreutils.Logger;
 import org.sleuthkit.autopsy.datamodel.Tags;
 import org.sleuthkit.autopsy.datamodel.ContentUtils;
-import org.sleuthkit.autopsy.datamodel.ContentUtils.ExtractFscContentVisitor;
 import org.sleuthkit.autopsy.ingest.IngestManager;
 import org.sleuthkit.datamodel.Image;
 import org.sleuthkit.datamodel.SleuthkitCase;
@@ -70,6 +77,14 @@ public class ReportHTML implements TableReportModule {
     private Integer rowCount;       // number of rows (aka artifacts or tags) for the current data type
     private Writer out;
     
+    // The local copies of the tagged files are made in the background by a
+    // small pool of threads, so that writing the rows doesn't wait for them.
+    private static final int COPY_THREADS = 4;
+    private static final int COPY_QUEUE_SIZE = 256;
+    private static final int COPY_BUFFER_SIZE = 1024 * 1024;
+    private ThreadPoolExecutor fileCopier;
+    private HashSet<String> localCopyPaths;          // local copies made or being made
+    private Map<String, Future<File>> localCopiesByHash; // first local copy of each MD5
 
     private ReportBranding reportBranding;
     
@@ -279,6 +294,13 @@ public void startReport(String path) {
         writeCss();
         writeIndex();
         writeSummary();
+        
+        // When the queue is full, the report thread makes the copy itself.
+        fileCopier = new ThreadPoolExecutor(COPY_THREADS, COPY_THREADS, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<Runnable>(COPY_QUEUE_SIZE), new ThreadPoolExecutor.CallerRunsPolicy());
+        fileCopier.allowCoreThreadTimeOut(true);
+        localCopyPaths = new HashSet<>();
+        localCopiesByHash = new HashMap<>();
     }
 
     /**
@@ -295,6 +317,22 @@ public void endReport() {
                 logger.log(Level.WARNING, "Could not close the output writer when ending report.", ex);
             }
         }
+        
+        // Wait for the local copies of the tagged files.
+        if (fileCopier != null) {
+            fileCopier.shutdown();
+            try {
+                while (!fileCopier.awaitTermination(1, TimeUnit.MINUTES)) {
+                    logger.log(Level.INFO, "Waiting for the local copies of the tagged files.");
+                }
+            } catch (InterruptedException ex) {
+                logger.log(Level.WARNING, "Interrupted while waiting for the local copies of the tagged files.", ex);
+                Thread.currentThread().interrupt();
+            }
+            fileCopier = null;
+            localCopyPaths = null;
+            localCopiesByHash = null;
+        }
     }
 
     /**
@@ -628,8 +666,8 @@ private void addRowDataForFileTagArtifact(List<String> row, BlackboardArtifact s
             // If the local file doesn't already exist, create it now. 
             // The existence check is necessary because it is possible to apply multiple tags with the same name to a file.
             File localFile = new File(localFilePath.toString());
-            if (!localFile.exists()) {
-                ExtractFscContentVisitor.extract(file, localFile, null, null);
+            if (localCopyPaths.add(localFile.getPath()) && !localFile.exists()) {
+                saveLocalCopy(file, localFile);
             }
 
             // Add the hyperlink to the row. A column header for it was created in startTable().
@@ -645,6 +683,88 @@ private void addRowDataForFileTagArtifact(List<String> row, BlackboardArtifact s
         }                                    
     }
     
+    /**
+     * Make a local copy of a tagged file in the background. Only the first
+     * file with a given MD5 is read from the image; files with the same
+     * content are hard links to, or copies of, that first local copy.
+     * 
+     * @param file the tagged file
+     * @param localFile the local copy to make
+     */
+    private void saveLocalCopy(final AbstractFile file, final File localFile) {
+        String md5 = file.getMd5Hash();
+        boolean hasHash = md5 != null && !md5.isEmpty();
+        final Future<File> original = hasHash ? localCopiesByHash.get(md5) : null;
+        
+        Future<File> localCopy = fileCopier.submit(new Callable<File>() {
+            @Override
+            public File call() {
+                if (original != null) {
+                    try {
+                        // The original was queued first, so it is being made or done.
+                        File originalFile = original.get();
+                        if (originalFile != null) {
+                            try {
+                                Files.createLink(localFile.toPath(), originalFile.toPath());
+                            } catch (IOException | UnsupportedOperationException ex) {
+                                // No hard links on this file system, copy the local copy.
+                                Files.copy(originalFile.toPath(), localFile.toPath());
+                            }
+                            return localFile;
+                        }
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                        return null;
+                    } catch (ExecutionException | IOException ex) {
+                        logger.log(Level.WARNING, "Failed to link " + localFile + " to the copy of the same file.", ex);
+                    }
+                }
+                return copyContent(file, localFile) ? localFile : null;
+            }
+        });
+        
+        if (hasHash && original == null) {
+            localCopiesByHash.put(md5, localCopy);
+        }
+    }
+    
+    /**
+     * Copy the content of a file from the image to a local file.
+     * 
+     * @param file the file to copy
+     * @param localFile the local file to write
+     * @return true if the file was copied
+     */
+    private static boolean copyContent(AbstractFile file, File localFile) {
+        byte[] buffer = new byte[COPY_BUFFER_SIZE];
+        long size = file.getSize();
+        OutputStream localOut = null;
+        try {
+            localOut = new FileOutputStream(localFile);
+            long offset = 0;
+            while (offset < size) {
+                int len = file.read(buffer, offset, Math.min(buffer.length, size - offset));
+                if (len <= 0) {
+                    break;
+                }
+                localOut.write(buffer, 0, len);
+                offset += len;
+            }
+            return true;
+        } catch (IOException | TskCoreException ex) {
+            logger.log(Level.WARNING, "Failed to save a local copy of " + file.getName() + " to " + localFile, ex);
+            return false;
+        } finally {
+            if (localOut != null) {
+                try {
+                    localOut.close();
+                } catch (IOException ex) {
+                    logger.log(Level.WARNING, "Failed to close " + localFile, ex);
+                }
+            }
+        }
+    }
+    
     /**
      * Return a String date for the long date given.
      * @param date date as a long
@@ -0,0 +1,333 @@
+/*
+ * Autopsy Forensic Browser
+ *
+ * Copyright 2013 Basis Technology Corp.
+ * Contact: carrier <at> sleuthkit <dot> org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.sleuthkit.autopsy.report;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import org.sleuthkit.autopsy.coreutils.Logger;
+import org.sleuthkit.autopsy.report.ReportProgressPanel.ReportStatus;
+import org.sleuthkit.datamodel.BlackboardArtifact;
+import org.sleuthkit.datamodel.BlackboardArtifact.ARTIFACT_TYPE;
+
+/**
+ * Writes a TableReportModule report on a thread of its own.
+ *
+ * The calls to the module, and the updates of its progress panel, are queued
+ * in a bounded queue and made in order by the writer thread. The artifacts are
+ * read once and handed to the writers of all of the table modules, which then
+ * write at the same time; the reading is only held back when the queue of the
+ * slowest module is full.
+ *
+ * Also hides the extra methods of the HTML and Excel modules, which are used
+ * instead of the TableReportModule ones when the module has them.
+ */
+class TableReportModuleWriter {
+
+    private static final Logger logger = Logger.getLogger(TableReportModuleWriter.class.getName());
+    private static final int QUEUE_SIZE = 1000;
+    private static final long OFFER_TIMEOUT_MS = 100;
+    // ends the writer thread, always queued last
+    private static final Runnable END = new Runnable() {
+        @Override
+        public void run() {
+        }
+    };
+    private final TableReportModule module;
+    private final ReportProgressPanel progress;
+    private final BlockingQueue<Runnable> queue = new ArrayBlockingQueue<>(QUEUE_SIZE);
+    private final Thread thread;
+    private volatile boolean canceled = false;
+
+    TableReportModuleWriter(TableReportModule module, ReportProgressPanel progress) {
+        this.module = module;
+        this.progress = progress;
+        this.thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                write();
+            }
+        }, "Report writer: " + module.getName());
+    }
+
+    /**
+     * Start the writer thread, before any of the other calls.
+     */
+    void start() {
+        thread.start();
+    }
+
+    /**
+     * @return true if the report was canceled by the user or with cancel()
+     */
+    boolean isCanceled() {
+        return canceled || progress.getStatus() == ReportStatus.CANCELED;
+    }
+
+    /**
+     * Stop writing the report, dropping the calls that were not made yet.
+     */
+    void cancel() {
+        canceled = true;
+        thread.interrupt();
+    }
+
+    /**
+     * Wait until all of the queued calls are made.
+     */
+    void waitForCompletion() throws InterruptedException {
+        thread.join();
+    }
+
+    void startReport(final String path) {
+        enqueue(new Runnable() {
+            @Override
+            public void run() {
+                module.startReport(path);
+                progress.start();
+                progress.setIndeterminate(false);
+                progress.setMaximumProgress(ARTIFACT_TYPE.values().length);
+            }
+        });
+    }
+
+    /**
+     * End the report, mark it complete and end the writer thread.
+     */
+    void endReport() {
+        enqueue(new Runnable() {
+            @Override
+            public void run() {
+                progress.complete();
+                module.endReport();
+            }
+        });
+        enqueueEnd();
+    }
+
+    void startDataType(final String title, final String comment) {
+        enqueue(new Runnable() {
+            @Override
+            public void run() {
+                if (module instanceof ReportHTML) {
+                    ((ReportHTML) module).startDataType(title, comment);
+                } else if (module instanceof ReportExcel) {
+                    ((ReportExcel) module).startDataType(title, comment);
+                } else {
+                    module.startDataType(title);
+                }
+            }
+        });
+    }
+
+    void endDataType() {
+        enqueue(new Runnable() {
+            @Override
+            public void run() {
+                module.endDataType();
+            }
+        });
+    }
+
+    void startSet(final String setName) {
+        enqueue(new Runnable() {
+            @Override
+            public void run() {
+                module.startSet(setName);
+            }
+        });
+    }
+
+    void endSet() {
+        enqueue(new Runnable() {
+            @Override
+            public void run() {
+                module.endSet();
+            }
+        });
+    }
+
+    void addSetIndex(final List<String> sets) {
+        enqueue(new Runnable() {
+            @Override
+            public void run() {
+                module.addSetIndex(sets);
+            }
+        });
+    }
+
+    void addSetElement(final String elementName) {
+        enqueue(new Runnable() {
+            @Override
+            public void run() {
+                module.addSetElement(elementName);
+            }
+        });
+    }
+
+    void startTable(final List<String> titles) {
+        enqueue(new Runnable() {
+            @Override
+            public void run() {
+                module.startTable(titles);
+            }
+        });
+    }
+
+    void startTable(final List<String> titles, final ARTIFACT_TYPE type) {
+        enqueue(new Runnable() {
+            @Override
+            public void run() {
+                if (module instanceof ReportHTML) {
+                    ((ReportHTML) module).startTable(titles, type);
+                } else {
+                    module.startTable(titles);
+                }
+            }
+        });
+    }
+
+    void endTable() {
+        enqueue(new Runnable() {
+            @Override
+            public void run() {
+                module.endTable();
+            }
+        });
+    }
+
+    /**
+     * Add a row to the current table. The row is shared with the other
+     * writers and must not be changed.
+     */
+    void addRow(final List<String> row) {
+        enqueue(new Runnable() {
+            @Override
+            public void run() {
+                module.addRow(row);
+            }
+        });
+    }
+
+    /**
+     * Add a row to the current table, with the extra cells the HTML module
+     * adds for the source artifact. The row is shared with the other writers
+     * and must not be changed.
+     */
+    void addRow(final List<String> row, final BlackboardArtifact sourceArtifact) {
+        enqueue(new Runnable() {
+            @Override
+            public void run() {
+                if (module instanceof ReportHTML) {
+                    // the HTML module adds cells to the row
+                    ((ReportHTML) module).addRow(new ArrayList<>(row), sourceArtifact);
+                } else {
+                    module.addRow(row);
+                }
+            }
+        });
+    }
+
+    void updateStatusLabel(final String statusMessage) {
+        enqueue(new Runnable() {
+            @Override
+            public void run() {
+                progress.updateStatusLabel(statusMessage);
+            }
+        });
+    }
+
+    void increment() {
+        enqueue(new Runnable() {
+            @Override
+            public void run() {
+                progress.increment();
+            }
+        });
+    }
+
+    /**
+     * Queue a call, waiting while the queue is full.
+     */
+    private void enqueue(Runnable call) {
+        try {
+            while (!isCanceled()) {
+                if (queue.offer(call, OFFER_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                    return;
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            cancel();
+        }
+    }
+
+    /**
+     * Queue the end of the writer thread whether or not the report was
+     * canceled, waiting while the queue is full until the thread has ended.
+     */
+    private void enqueueEnd() {
+        boolean interrupted = false;
+        while (thread.isAlive()) {
+            try {
+                if (queue.offer(END, OFFER_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                    break;
+                }
+            } catch (InterruptedException ex) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Make the queued calls until the report is ended or canceled.
+     */
+    private void write() {
+        try {
+            while (!isCanceled()) {
+                // wake up now and then to see if the report was canceled in its progress panel
+                Runnable call = queue.poll(OFFER_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                if (call == null) {
+                    continue;
+                }
+                if (call == END) {
+                    break;
+                }
+                try {
+                    call.run();
+                } catch (RuntimeException ex) {
+                    logger.log(Level.SEVERE, "Error writing the " + module.getName() + " report.", ex);
+                }
+            }
+        } catch (InterruptedException ex) {
+            if (!isCanceled()) {
+                logger.log(Level.WARNING, "The " + module.getName() + " report writer was interrupted.", ex);
+            }
+        } finally {
+            // drop the rest of a canceled report, the producer stops when it sees the cancel
+            queue.clear();
+        }
+    }
+}
@@ -26,7 +26,9 @@
 import com.drew.metadata.exif.ExifIFD0Directory;
 import com.drew.metadata.exif.ExifSubIFDDirectory;
 import com.drew.metadata.exif.GpsDirectory;
+import java.awt.image.BufferedImage;
 import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
@@ -34,6 +36,8 @@
 import java.util.Date;
 import java.util.logging.Level;
 import org.sleuthkit.autopsy.coreutils.Logger;
+import org.sleuthkit.autopsy.coreutils.ModuleSettings;
+import org.sleuthkit.autopsy.coreutils.ThumbnailCache;
 import org.sleuthkit.autopsy.coreutils.Version;
 import org.sleuthkit.autopsy.ingest.PipelineContext;
 import org.sleuthkit.autopsy.ingest.IngestServices;
@@ -53,6 +57,8 @@
  * Ingest module to parse image Exif metadata. Currently only supports JPEG
  * files. Ingests an image file and, if available, adds it's date, latitude,
  * longitude, altitude, device model, and device make to a blackboard artifact.
+ * Optionally also makes the thumbnail of the image from the same read of the
+ * file and adds it to the thumbnail cache of the case.
  */
 public final class ExifParserFileIngestModule extends IngestModuleAbstractFile {
 
@@ -60,9 +66,15 @@ public final class ExifParserFileIngestModule extends IngestModuleAbstractFile {
     final public static String MODULE_NAME = "Exif Parser";
     final public static String MODULE_VERSION = Version.getVersion();
     private static final Logger logger = Logger.getLogger(ExifParserFileIngestModule.class.getName());
+    private static final String PROPERTIES_FILE = "ExifParser";
+    private static final String PROPERTIES_GENERATE_THUMBNAILS = "GenerateThumbnails";
+    // larger images are only parsed, and get their thumbnails when viewed
+    private static final long MAX_THUMBNAIL_FILE_SIZE = 32 * 1024 * 1024;
     private static ExifParserFileIngestModule defaultInstance = null;
     private int filesProcessed = 0;
     private boolean filesToFire = false;
+    private boolean generateThumbnails = false;
+    private ExifParserSimplePanel simplePanel;
 
     //file ingest modules require a private constructor
     //to ensure singleton instances
@@ -108,9 +120,18 @@ public IngestModuleAbstractFile.ProcessResult process(PipelineContext<IngestModu
     public IngestModuleAbstractFile.ProcessResult processFile(AbstractFile f) {
         InputStream in = null;
         BufferedInputStream bin = null;
+        // content of the file, when it is read once for both the metadata and the thumbnail
+        byte[] content = null;
 
         try {
-            in = new ReadContentInputStream(f);
+            ThumbnailCache thumbnailCache = generateThumbnails ? ThumbnailCache.getInstance() : null;
+            if (thumbnailCache != null && f.getSize() <= MAX_THUMBNAIL_FILE_SIZE
+                    && !thumbnailCache.contains(f.getId(), ThumbnailCache.DEFAULT_SIZE)) {
+                content = readContent(f);
+                in = new ByteArrayInputStream(content);
+            } else {
+                in = new ReadContentInputStream(f);
+            }
             bin = new BufferedInputStream(in);
 
             Collection<BlackboardAttribute> attributes = new ArrayList<BlackboardAttribute>();
@@ -163,6 +184,13 @@ public IngestModuleAbstractFile.ProcessResult processFile(AbstractFile f) {
                 filesToFire = true;
             }
 
+            if (content != null) {
+                BufferedImage thumbnail = ThumbnailCache.createThumbnail(new ByteArrayInputStream(content), ThumbnailCache.DEFAULT_SIZE);
+                if (thumbnail != null) {
+                    thumbnailCache.put(f.getId(), ThumbnailCache.DEFAULT_SIZE, thumbnail);
+                }
+            }
+
             return IngestModuleAbstractFile.ProcessResult.OK;
 
         } catch (TskCoreException ex) {
@@ -188,6 +216,28 @@ public IngestModuleAbstractFile.ProcessResult processFile(AbstractFile f) {
         return IngestModuleAbstractFile.ProcessResult.ERROR;
     }
 
+    /**
+     * Read the whole content of a file.
+     *
+     * @param f file to read, no larger than MAX_THUMBNAIL_FILE_SIZE
+     * @return the content of the file
+     * @throws IOException if the file could not be read
+     */
+    private static byte[] readContent(AbstractFile f) throws IOException {
+        byte[] content = new byte[(int) f.getSize()];
+        try (InputStream in = new ReadContentInputStream(f)) {
+            int offset = 0;
+            while (offset < content.length) {
+                int read = in.read(content, offset, content.length - offset);
+                if (read <= 0) {
+                    throw new IOException("Could not read " + f.getName() + " past offset " + offset);
+                }
+                offset += read;
+            }
+        }
+        return content;
+    }
+
     /**
      * Checks if should try to attempt to extract exif. Currently checks if JPEG
      * image (by signature)
@@ -266,6 +316,7 @@ public void init(IngestModuleInit initContext) {
 
         filesProcessed = 0;
         filesToFire = false;
+        generateThumbnails = Boolean.parseBoolean(ModuleSettings.getConfigSetting(PROPERTIES_FILE, PROPERTIES_GENERATE_THUMBNAILS));
     }
 
     @Override
@@ -276,4 +327,24 @@ public void stop() {
     public boolean hasBackgroundJobsRunning() {
         return false;
     }
+
+    @Override
+    public boolean hasSimpleConfiguration() {
+        return true;
+    }
+
+    @Override
+    public javax.swing.JPanel getSimpleConfiguration(String context) {
+        boolean generate = Boolean.parseBoolean(ModuleSettings.getConfigSetting(PROPERTIES_FILE, PROPERTIES_GENERATE_THUMBNAILS));
+        simplePanel = new ExifParserSimplePanel(generate);
+        return simplePanel;
+    }
+
+    @Override
+    public void saveSimpleConfiguration() {
+        if (simplePanel != null) {
+            ModuleSettings.setConfigSetting(PROPERTIES_FILE, PROPERTIES_GENERATE_THUMBNAILS,
+                    Boolean.toString(simplePanel.getGenerateThumbnails()));
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,45 @@
+/*
+ * Autopsy Forensic Browser
+ *
+ * Copyright 2013 Basis Technology Corp.
+ * Contact: carrier <at> sleuthkit <dot> org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.sleuthkit.autopsy.exifparser;
+
+import java.awt.BorderLayout;
+import javax.swing.JCheckBox;
+import javax.swing.JPanel;
+
+/**
+ * Simple configuration panel of the Exif parser, shown in the ingest
+ * configuration.
+ */
+class ExifParserSimplePanel extends JPanel {
+
+    private final JCheckBox thumbnailsCheckBox;
+
+    ExifParserSimplePanel(boolean generateThumbnails) {
+        super(new BorderLayout());
+        thumbnailsCheckBox = new JCheckBox("Generate image thumbnails during ingest");
+        thumbnailsCheckBox.setToolTipText("Makes the thumbnails shown in the thumbnail viewer while the images are parsed, "
+                + "so that they do not have to be made when the images are viewed.");
+        thumbnailsCheckBox.setSelected(generateThumbnails);
+        add(thumbnailsCheckBox, BorderLayout.NORTH);
+    }
+
+    boolean getGenerateThumbnails() {
+        return thumbnailsCheckBox.isSelected();
+    }
+}
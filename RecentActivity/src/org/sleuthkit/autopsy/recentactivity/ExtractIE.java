@@ -24,36 +24,28 @@
 
 //IO imports
 import java.io.BufferedReader;
-import org.sleuthkit.autopsy.coreutils.ExecUtil;
-import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.io.Reader;
-import java.io.Writer;
 
 //Util Imports
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.logging.Level;
 import org.sleuthkit.autopsy.coreutils.Logger;
 import java.util.Collection;
-import java.util.Scanner;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+
+// pasco2 Imports
+import isi.pasco2.handler.HistoryAccessHandler;
+import isi.pasco2.io.FastReadIndexFile;
+import isi.pasco2.io.IndexFile;
+import isi.pasco2.parser.DateTime;
+import isi.pasco2.parser.IEHistoryFileParser;
+import isi.pasco2.parser.IEIndexFileParser;
 
 // TSK Imports
-import org.openide.modules.InstalledFileLocator;
-import org.sleuthkit.autopsy.casemodule.Case;
 import org.sleuthkit.autopsy.coreutils.JLNK;
 import org.sleuthkit.autopsy.coreutils.JLnkParser;
 import org.sleuthkit.autopsy.coreutils.JLnkParserException;
-import org.sleuthkit.autopsy.datamodel.ContentUtils;
 import org.sleuthkit.autopsy.ingest.IngestDataSourceWorkerController;
 import org.sleuthkit.autopsy.ingest.IngestServices;
 import org.sleuthkit.autopsy.ingest.ModuleDataEvent;
@@ -62,7 +54,6 @@
 import org.sleuthkit.datamodel.BlackboardAttribute;
 import org.sleuthkit.datamodel.BlackboardAttribute.ATTRIBUTE_TYPE;
 import org.sleuthkit.datamodel.Content;
-import org.sleuthkit.autopsy.coreutils.PlatformUtil;
 import org.sleuthkit.autopsy.ingest.PipelineContext;
 import org.sleuthkit.autopsy.ingest.IngestModuleDataSource;
 import org.sleuthkit.autopsy.ingest.IngestModuleInit;
@@ -72,21 +63,11 @@ public class ExtractIE extends Extract {
     private static final Logger logger = Logger.getLogger(ExtractIE.class.getName());
     private IngestServices services;
     
-    //paths set in init()
-    private String moduleTempResultsDir;
-    private String PASCO_LIB_PATH;
-    private String JAVA_PATH;
-    
     final public static String MODULE_VERSION = "1.0";
-    private static final SimpleDateFormat dateFormatter = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'");
-    
-    private  ExecUtil execPasco;
 
     //hide public constructor to prevent from instantiation by ingest module loader
     ExtractIE() {
         moduleName = "Internet Explorer";
-        moduleTempResultsDir = RAImageIngestModule.getRATempPath(Case.getCurrentCase(), "IE") + File.separator + "results";
-        JAVA_PATH = PlatformUtil.getJavaPath();
     }
 
     @Override
@@ -300,30 +281,14 @@ private void getRecentDocuments(Content dataSource, IngestDataSourceWorkerContro
     }
             
     /**
-     * Locates index.dat files, runs Pasco on them, and creates artifacts. 
+     * Locates index.dat files, parses them in-process with the pasco2 library,
+     * and creates artifacts.
      * @param dataSource
      * @param controller 
      */
     private void getHistory(Content dataSource, IngestDataSourceWorkerController controller) {
-        logger.log(Level.INFO, "Pasco results path: " + moduleTempResultsDir);
         boolean foundHistory = false;
 
-        final File pascoRoot = InstalledFileLocator.getDefault().locate("pasco2", ExtractIE.class.getPackage().getName(), false);
-        if (pascoRoot == null) {
-            this.addErrorMessage(this.getName() + ": Unable to get IE History: pasco not found");
-            logger.log(Level.SEVERE, "Error finding pasco program ");
-            return;
-        } 
-       
-        final String pascoHome = pascoRoot.getAbsolutePath();
-        logger.log(Level.INFO, "Pasco2 home: " + pascoHome);
-
-        PASCO_LIB_PATH = pascoHome + File.separator + "pasco2.jar" + File.pathSeparator
-                + pascoHome + File.separator + "*";
-
-        File resultsDir = new File(moduleTempResultsDir);
-        resultsDir.mkdirs();
-     
         // get index.dat files
         org.sleuthkit.autopsy.casemodule.services.FileManager fileManager = currentCase.getServices().getFileManager();
         List<AbstractFile> indexFiles = null;
@@ -342,42 +307,24 @@ private void getHistory(Content dataSource, IngestDataSourceWorkerController con
         }
         
         dataFound = true;
-        String temps;
-        String indexFileName;
         for (AbstractFile indexFile : indexFiles) {
-            // Since each result represent an index.dat file,
-            // just create these files with the following notation:
-            // index<Number>.dat (i.e. index0.dat, index1.dat,..., indexN.dat)
-            // Write each index.dat file to a temp directory.
-            //BlackboardArtifact bbart = fsc.newArtifact(ARTIFACT_TYPE.TSK_WEB_HISTORY);
-            indexFileName = "index" + Integer.toString((int) indexFile.getId()) + ".dat";
-            //indexFileName = "index" + Long.toString(bbart.getArtifactID()) + ".dat";
-            temps = RAImageIngestModule.getRATempPath(currentCase, "IE") + File.separator + indexFileName;
-            File datFile = new File(temps);
             if (controller.isCancelled()) {
                 break;
             }
-            try {
-                ContentUtils.writeToFile(indexFile, datFile);
-            } catch (IOException e) {
-                logger.log(Level.SEVERE, "Error while trying to write index.dat file " + datFile.getAbsolutePath(), e);
-                this.addErrorMessage(this.getName() + ": Error while trying to write file:" + datFile.getAbsolutePath());
+            
+            if (indexFile.getSize() == 0) {
+                continue;
+            }
+            
+            // pasco2 reads the whole file into a single buffer
+            if (indexFile.getSize() > Integer.MAX_VALUE) {
+                logger.log(Level.WARNING, "Skipping IE history file that is too large to parse: " + indexFile.getName());
                 continue;
             }
 
-            String filename = "pasco2Result." + indexFile.getId() + ".txt";
-            boolean bPascProcSuccess = executePasco(temps, filename);
-
-            //At this point pasco2 proccessed the index files.
-            //Now fetch the results, parse them and the delete the files.
-            if (bPascProcSuccess) {
-                parsePascoOutput(indexFile, filename);
+            if (parseIndexFile(indexFile, controller)) {
                 foundHistory = true;
-                
-                //Delete index<n>.dat file since it was succcessfully by Pasco
-                datFile.delete();
             } else {
-                logger.log(Level.WARNING, "pasco execution failed on: " + this.getName());
                 this.addErrorMessage(this.getName() + ": Error processing Internet Explorer history.");
             }
         }
@@ -388,152 +335,142 @@ private void getHistory(Content dataSource, IngestDataSourceWorkerController con
     }
 
     /**
-     * Execute pasco on a single file that has been saved to disk. 
-     * @param indexFilePath Path to local index.dat file to analyze
-     * @param outputFileName Name of file to save output to
+     * Parse a single index.dat file with pasco2 directly from the content, 
+     * without saving it to disk, and create an artifact per URL record.
+     * @param indexFile index.dat file to analyze
+     * @param controller
      * @return false on error
      */
-    private boolean executePasco(String indexFilePath, String outputFileName) {
-        boolean success = true;
-
-        Writer writer = null;
+    private boolean parseIndexFile(AbstractFile indexFile, IngestDataSourceWorkerController controller) {
         try {
-            final String outputFileFullPath = moduleTempResultsDir + File.separator + outputFileName;
-            logger.log(Level.INFO, "Writing pasco results to: " + outputFileFullPath);
-            writer = new FileWriter(outputFileFullPath);
-            execPasco = new ExecUtil();
-            execPasco.execute(writer, JAVA_PATH, 
-                    "-cp", PASCO_LIB_PATH, 
-                    "isi.pasco2.Main", "-T", "history", indexFilePath );
-            // @@@ Investigate use of history versus cache as type.
+            IndexFile pascoFile = new FastReadIndexFile(indexFile.getName(), 
+                    new ReadContentInputStream(indexFile), indexFile.getSize());
+            IEIndexFileParser parser = new IEHistoryFileParser(indexFile.getName(), pascoFile,
+                    new HistoryRecordHandler(indexFile, controller));
+            parser.parseFile();
+            return true;
         } catch (IOException ex) {
-            success = false;
-            logger.log(Level.SEVERE, "Unable to execute Pasco to process Internet Explorer web history.", ex);
-        } catch (InterruptedException ex) {
-            success = false;
-            logger.log(Level.SEVERE, "Pasco has been interrupted, failed to extract some web history from Internet Explorer.", ex);
+            logger.log(Level.WARNING, "Error parsing IE history file: " + indexFile.getName(), ex);
+        } catch (RuntimeException ex) {
+            // pasco2 does not validate offsets read from the file, so corrupt 
+            // or truncated files surface as buffer and index exceptions
+            logger.log(Level.WARNING, "Corrupt IE history file: " + indexFile.getName(), ex);
         }
-        finally {
-            if (writer != null) {
-                try {
-                    writer.flush();
-                    writer.close();
-                } catch (IOException ex) {
-                    logger.log(Level.WARNING, "Error closing writer stream after for Pasco result", ex);
-                }
-            }
-        }
-        return success;
+        return false;
     }
 
     /**
-     * parse Pasco output and create artifacts
-     * @param origFile Original index.dat file that was analyzed to get this output
-     * @param pascoOutputFileName name of pasco output file
+     * Make an artifact out of a single pasco2 URL record. 
+     * @param origFile Original index.dat file that the record came from
+     * @param url URL field of the record
+     * @param accessTime Last access time of the record
      */
-    private void parsePascoOutput(AbstractFile origFile, String pascoOutputFileName) {
-        
-        String fnAbs = moduleTempResultsDir + File.separator + pascoOutputFileName;
-
-        File file = new File(fnAbs);
-        if (file.exists() == false) {
-            this.addErrorMessage(this.getName() + ": Pasco output not found: " + file.getName());
-            logger.log(Level.WARNING, "Pasco Output not found: " + file.getPath());
-            return;
+    private void addHistoryArtifact(AbstractFile origFile, String url, DateTime accessTime) {
+        String user = "";
+        String realurl = "";
+        String domain = "";
+
+        /* We've seen two types of URLs: 
+         * http://XYZ.com ....
+         * Visited: Joe@http://XYZ.com ....
+         */
+        if (url.contains("@")) {
+            String urlParts[] = url.split("@", 2);
+            user = urlParts[0];
+            user = user.replace("Visited:", "");
+            user = user.replace(":Host:", "");
+            user = user.replaceAll("(:)(.*?)(:)", "");
+            user = user.trim();
+            realurl = urlParts[1];
+            realurl = realurl.replace("Visited:", "");
+            realurl = realurl.replaceAll(":(.*?):", "");
+            realurl = realurl.replace(":Host:", "");
+            realurl = realurl.trim();
+        } else {
+            user = "";
+            realurl = url.trim();
         }
 
-        // Make sure the file the is not empty or the Scanner will
-        // throw a "No Line found" Exception
-        if (file.length() == 0) {
-            return;
+        domain = Util.extractDomain(realurl);
+
+        long ftime = 0;
+        if (accessTime != null) {
+            ftime = accessTime.asDate().getTime() / 1000;
         }
 
-        Scanner fileScanner;
         try {
-            fileScanner = new Scanner(new FileInputStream(file.toString()));
-        } catch (FileNotFoundException ex) {
-            this.addErrorMessage(this.getName() + ": Error parsing IE history entry " + file.getName());
-            logger.log(Level.WARNING, "Unable to find the Pasco file at " + file.getPath(), ex);
-            return;
+            BlackboardArtifact bbart = origFile.newArtifact(ARTIFACT_TYPE.TSK_WEB_HISTORY);
+            Collection<BlackboardAttribute> bbattributes = new ArrayList<>();
+            bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_URL.getTypeID(), "RecentActivity", realurl));
+            //bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_URL_DECODED.getTypeID(), "RecentActivity", EscapeUtil.decodeURL(realurl)));
+
+            bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_DATETIME_ACCESSED.getTypeID(), "RecentActivity", ftime));
+            bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_REFERRER.getTypeID(), "RecentActivity", ""));
+            // @@@ NOte that other browser modules are adding TITLE in hre for the title
+            bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_PROG_NAME.getTypeID(), "RecentActivity", "Internet Explorer"));
+            bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_DOMAIN.getTypeID(), "RecentActivity", domain));
+            bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_USER_NAME.getTypeID(), "RecentActivity", user));
+            bbart.addAttributes(bbattributes);
+        } catch (TskCoreException ex) {
+            logger.log(Level.SEVERE, "Error writing Internet Explorer web history artifact to the blackboard.", ex);
         }
+    }
 
-        while (fileScanner.hasNext()) {
-            String line = fileScanner.nextLine();
-            if (!line.startsWith("URL")) {  
-                continue;
+    /**
+     * Receives the records that pasco2 finds in a history index.dat file
+     * and turns the URL records into artifacts.  The other record types
+     * are not used for web history. 
+     */
+    private class HistoryRecordHandler implements HistoryAccessHandler {
+        private final AbstractFile origFile;
+        private final IngestDataSourceWorkerController controller;
+        
+        HistoryRecordHandler(AbstractFile origFile, IngestDataSourceWorkerController controller) {
+            this.origFile = origFile;
+            this.controller = controller;
+        }
+        
+        @Override
+        public void URLRecord(DateTime localAccessTime, DateTime accessTime, DateTime modTime, String url) {
+            if (controller.isCancelled()) {
+                return;
             }
+            addHistoryArtifact(origFile, url, accessTime);
+        }
 
-            String[] lineBuff = line.split("\\t");
+        @Override
+        public void URLRecord(DateTime localAccessTime, DateTime accessTime, DateTime modTime, String url, int numberOfAccesses) {
+            URLRecord(localAccessTime, accessTime, modTime, url);
+        }
 
-            if (lineBuff.length < 4) {
-                logger.log(Level.INFO, "Found unrecognized IE history format.");
-                continue;
-            }
+        @Override
+        public void startDocument(String fileName, float version) {
+        }
 
-            String ddtime = lineBuff[2];
-            String actime = lineBuff[3];
-            Long ftime = (long) 0;
-            String user = "";
-            String realurl = "";
-            String domain = "";
-
-            /* We've seen two types of lines: 
-             * URL  http://XYZ.com ....
-             * URL  Visited: Joe@http://XYZ.com ....
-             */
-            if (lineBuff[1].contains("@")) {
-                String url[] = lineBuff[1].split("@", 2);
-                user = url[0];
-                user = user.replace("Visited:", "");
-                user = user.replace(":Host:", "");
-                user = user.replaceAll("(:)(.*?)(:)", "");
-                user = user.trim();
-                realurl = url[1];
-                realurl = realurl.replace("Visited:", "");
-                realurl = realurl.replaceAll(":(.*?):", "");
-                realurl = realurl.replace(":Host:", "");
-                realurl = realurl.trim();
-            } else {
-                user = "";
-                realurl = lineBuff[1].trim();
-            }
+        @Override
+        public void endDocument() {
+        }
 
-            domain = Util.extractDomain(realurl);
+        @Override
+        public void unknownRecord(String type, int offset, byte[] record) {
+        }
 
-            if (!ddtime.isEmpty()) {
-                ddtime = ddtime.replace("T", " ");
-                ddtime = ddtime.substring(ddtime.length() - 5);
-            }
+        @Override
+        public void unusedRecord(int offset) {
+        }
 
-            if (!actime.isEmpty()) {
-                try {
-                    Long epochtime = dateFormatter.parse(actime).getTime();
-                    ftime = epochtime.longValue();
-                    ftime = ftime / 1000;
-                } catch (ParseException e) {
-                    this.addErrorMessage(this.getName() + ": Error parsing Internet Explorer History entry.");
-                    logger.log(Level.SEVERE, "Error parsing Pasco results.", e);
-                }
-            }
+        @Override
+        public void invalidRecord(int offset) {
+            logger.log(Level.INFO, "Found unrecognized IE history record at offset " + offset + " in " + origFile.getName());
+        }
 
-            try {
-                BlackboardArtifact bbart = origFile.newArtifact(ARTIFACT_TYPE.TSK_WEB_HISTORY);
-                Collection<BlackboardAttribute> bbattributes = new ArrayList<>();
-                bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_URL.getTypeID(), "RecentActivity", realurl));
-                //bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_URL_DECODED.getTypeID(), "RecentActivity", EscapeUtil.decodeURL(realurl)));
-
-                bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_DATETIME_ACCESSED.getTypeID(), "RecentActivity", ftime));
-                bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_REFERRER.getTypeID(), "RecentActivity", ""));
-                // @@@ NOte that other browser modules are adding TITLE in hre for the title
-                bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_PROG_NAME.getTypeID(), "RecentActivity", "Internet Explorer"));
-                bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_DOMAIN.getTypeID(), "RecentActivity", domain));
-                bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_USER_NAME.getTypeID(), "RecentActivity", user));
-                bbart.addAttributes(bbattributes);
-            } catch (TskCoreException ex) {
-                logger.log(Level.SEVERE, "Error writing Internet Explorer web history artifact to the blackboard.", ex);
-            }                                    
+        @Override
+        public void record(int currentOffset, byte[] rec) {
+        }
+
+        @Override
+        public void REDRRecord(String url) {
         }
-        fileScanner.close();        
     }
 
     @Override
@@ -547,11 +484,6 @@ public void complete() {
 
     @Override
     public void stop() {
-        if (execPasco != null) {
-            execPasco.stop();
-            execPasco = null;
-        }
-        
         //call regular cleanup from complete() method
         complete();
     }
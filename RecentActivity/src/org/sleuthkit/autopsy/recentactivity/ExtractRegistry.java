@@ -28,9 +28,10 @@
 import java.text.SimpleDateFormat;
 import java.util.*;
 import java.util.logging.Level;
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import org.openide.modules.InstalledFileLocator;
 import org.sleuthkit.autopsy.coreutils.ExecUtil;
 import org.sleuthkit.autopsy.coreutils.Logger;
@@ -39,17 +40,13 @@
 import org.sleuthkit.autopsy.ingest.IngestDataSourceWorkerController;
 import org.sleuthkit.autopsy.ingest.IngestModuleDataSource;
 import org.sleuthkit.autopsy.ingest.IngestModuleInit;
+import org.sleuthkit.autopsy.ingest.IngestServices;
+import org.sleuthkit.autopsy.ingest.ModuleDataEvent;
 import org.sleuthkit.autopsy.ingest.PipelineContext;
 import org.sleuthkit.autopsy.recentactivity.ExtractUSB.USBInfo;
 import org.sleuthkit.datamodel.*;
 import org.sleuthkit.datamodel.BlackboardArtifact.ARTIFACT_TYPE;
 import org.sleuthkit.datamodel.BlackboardAttribute.ATTRIBUTE_TYPE;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
-import org.xml.sax.InputSource;
-import org.xml.sax.SAXException;
 
 /**
  * Extract windows registry data using regripper.
@@ -66,9 +63,16 @@ public class ExtractRegistry extends Extract {
     boolean rrFullFound = false; // true if we found the full version of regripper
     final public static String MODULE_VERSION = "1.0";
     private ExecUtil execRR;
+    // reused for every time stamp in the RegRipper output
+    private final SimpleDateFormat regRipperDateFormat = new SimpleDateFormat("EEE MMM d HH:mm:ss yyyy");
+    private final XMLInputFactory xmlInputFactory;
 
     //hide public constructor to prevent from instantiation by ingest module loader
     ExtractRegistry() {
+        xmlInputFactory = XMLInputFactory.newInstance();
+        xmlInputFactory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        xmlInputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        
         final File rrRoot = InstalledFileLocator.getDefault().locate("rr", ExtractRegistry.class.getPackage().getName(), false);
         if (rrRoot == null) {
             logger.log(Level.SEVERE, "RegRipper not found");
@@ -128,17 +132,17 @@ private List<AbstractFile> findRegistryFiles(Content dataSource) {
             logger.log(Level.WARNING, "Error fetching 'ntuser.dat' file.");
         }
 
-        // find the system hives'
+        // find the system hives', all in one lookup
         String[] regFileNames = new String[] {"system", "software", "security", "sam"};
-        for (String regFileName : regFileNames) {
-            try {
-                allRegistryFiles.addAll(fileManager.findFiles(dataSource, regFileName, "/system32/config"));
-            } 
-            catch (TskCoreException ex) {
-                String msg = "Error fetching registry file: " + regFileName;
-                logger.log(Level.WARNING, msg);
-                this.addErrorMessage(this.getName() + ": " + msg);
+        try {
+            for (List<AbstractFile> regFiles : fileManager.findFiles(dataSource, Arrays.asList(regFileNames), "/system32/config").values()) {
+                allRegistryFiles.addAll(regFiles);
             }
+        } 
+        catch (TskCoreException ex) {
+            String msg = "Error fetching registry files: " + Arrays.toString(regFileNames);
+            logger.log(Level.WARNING, msg);
+            this.addErrorMessage(this.getName() + ": " + msg);
         }
         return allRegistryFiles;
     }
@@ -198,7 +202,7 @@ private void analyzeRegistryFiles(Content dataSource, IngestDataSourceWorkerCont
             
             // parse the autopsy-specific output
             if (regOutputFiles.autopsyPlugins.isEmpty() == false) {
-                if (parseAutopsyPluginOutput(regOutputFiles.autopsyPlugins, regFile.getId(), extrctr) == false) {
+                if (parseAutopsyPluginOutput(regOutputFiles.autopsyPlugins, regFile, extrctr) == false) {
                     this.addErrorMessage(this.getName() + ": Failed parsing registry file results " + regFileName);
                 }
             }
@@ -351,182 +355,135 @@ else if (regFilePath.toLowerCase().contains("security")) {
         return regOutputFiles;
     }
     
+    /**
+     * State of the plug-in section (i.e. "usb", "uninstall") that the parser
+     * is currently in.
+     */
+    private static class PluginSection {
+        final String dataType;
+        Long mtime = null;
+        String winver = "";
+
+        PluginSection(String dataType) {
+            this.dataType = dataType;
+        }
+    }
+
+    /**
+     * Parse a RegRipper time stamp (i.e. "Thu Jan 10 15:01:02 2013").
+     * @param time Time string from the RegRipper output
+     * @return seconds since the epoch
+     * @throws ParseException 
+     */
+    private long parseRegRipperTime(String time) throws ParseException {
+        return regRipperDateFormat.parse(time.trim()).getTime() / 1000;
+    }
+
     // @@@ VERIFY that we are doing the right thing when we parse multiple NTUSER.DAT
-    private boolean parseAutopsyPluginOutput(String regRecord, long orgId, ExtractUSB extrctr) {
-        FileInputStream fstream = null;
+    /**
+     * Stream the output of the Autopsy-specific RegRipper plug-ins through a 
+     * StAX parser and create artifacts as the elements are read, so that the
+     * output never has to be held in memory as a whole.
+     * @param regRecord Path to the output file
+     * @param regFile Registry hive the output was made from
+     * @param extrctr
+     * @return false on error
+     */
+    private boolean parseAutopsyPluginOutput(String regRecord, AbstractFile regFile, ExtractUSB extrctr) {
+        long start = System.currentTimeMillis();
+        XMLStreamReader xml = null;
+        Reader reader = null;
+        ArtifactBatch batch = new ArtifactBatch(regFile);
         try {
-            SleuthkitCase tempDb = currentCase.getSleuthkitCase();
-     
-            // Read the file in and create a Document and elements
-            File regfile = new File(regRecord);
-            fstream = new FileInputStream(regfile);
+            reader = new RegRipperOutputReader(new InputStreamReader(new FileInputStream(regRecord), "UTF-8"));
+            xml = xmlInputFactory.createXMLStreamReader(reader);
             
-            String regString = new Scanner(fstream, "UTF-8").useDelimiter("\\Z").next();
-            String startdoc = "<?xml version=\"1.0\"?><document>";
-            String result = regString.replaceAll("----------------------------------------", "");
-            result = result.replaceAll("\\n", "");
-            result = result.replaceAll("\\r", "");
-            result = result.replaceAll("'", "&apos;");
-            result = result.replaceAll("&", "&amp;");
-            String enddoc = "</document>";
-            String stringdoc = startdoc + result + enddoc;
-            DocumentBuilder builder = DocumentBuilderFactory.newInstance().newDocumentBuilder();
-            Document doc = builder.parse(new InputSource(new StringReader(stringdoc)));
+            // document element is at depth 1, the plug-in sections at depth 2
+            // and the individual artifact elements at depth 4
+            int depth = 0;
+            PluginSection section = null;
+            boolean inArtifacts = false;
+            StringBuilder mtimeText = null;
+            String artName = null;
+            Map<String, String> artAttributes = null;
+            StringBuilder artText = null;
             
-            // cycle through the elements in the doc
-            Element oroot = doc.getDocumentElement();
-            NodeList children = oroot.getChildNodes();
-            int len = children.getLength();
-            for (int i = 0; i < len; i++) {
-                Element tempnode = (Element) children.item(i);
-                
-                String dataType = tempnode.getNodeName();
-
-                NodeList timenodes = tempnode.getElementsByTagName("mtime");
-                Long mtime = null;
-                if (timenodes.getLength() > 0) {
-                    Element timenode = (Element) timenodes.item(0);
-                    String etime = timenode.getTextContent();
-                    try {
-                        Long epochtime = new SimpleDateFormat("EEE MMM d HH:mm:ss yyyy").parse(etime).getTime();
-                        mtime = epochtime.longValue();
-                        String Tempdate = mtime.toString();
-                        mtime = Long.valueOf(Tempdate) / 1000;
-                    } catch (ParseException ex) {
-                        logger.log(Level.WARNING, "Failed to parse epoch time when parsing the registry.");
-                    }
-                }
-
-                NodeList artroots = tempnode.getElementsByTagName("artifacts");
-                if (artroots.getLength() == 0) {
-                    // If there isn't an artifact node, skip this entry
-                    continue;
-                }
-                
-                Element artroot = (Element) artroots.item(0);
-                NodeList myartlist = artroot.getChildNodes();
-                String winver = "";
-                for (int j = 0; j < myartlist.getLength(); j++) {
-                    Node artchild = myartlist.item(j);
-                    // If it has attributes, then it is an Element (based off API)
-                    if (artchild.hasAttributes()) {
-                        Element artnode = (Element) artchild;
-                        
-                        String value = artnode.getTextContent().trim();
-                        Collection<BlackboardAttribute> bbattributes = new ArrayList<BlackboardAttribute>();
-
-                        if ("recentdocs".equals(dataType)) {
-                            //               BlackboardArtifact bbart = tempDb.getContentById(orgId).newArtifact(ARTIFACT_TYPE.TSK_RECENT_OBJECT);
-                            //               bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_LAST_ACCESSED.getTypeID(), "RecentActivity", dataType, mtime));
-                            //               bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_NAME.getTypeID(), "RecentActivity", dataType, mtimeItem));
-                            //               bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_VALUE.getTypeID(), "RecentActivity", dataType, value));
-                            //               bbart.addAttributes(bbattributes);
-                            // @@@ BC: Why are we ignoring this...
-                        } 
-                        else if ("usb".equals(dataType)) {
-                            try {      
-                                Long usbMtime = Long.parseLong(artnode.getAttribute("mtime"));
-                                usbMtime = Long.valueOf(usbMtime.toString());
-
-                                BlackboardArtifact bbart = tempDb.getContentById(orgId).newArtifact(ARTIFACT_TYPE.TSK_DEVICE_ATTACHED);
-                                bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_DATETIME.getTypeID(), "RecentActivity", usbMtime));
-                                String dev = artnode.getAttribute("dev");       
-                                String model = dev; 
-                                if (dev.toLowerCase().contains("vid")) {
-                                    USBInfo info = extrctr.get(dev);
-                                    if(info.getVendor()!=null)
-                                        bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_DEVICE_MAKE.getTypeID(), "RecentActivity", info.getVendor()));
-                                    if(info.getProduct() != null)
-                                        model = info.getProduct();
-                                }
-                                bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_DEVICE_MODEL.getTypeID(), "RecentActivity", model));
-                                bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_DEVICE_ID.getTypeID(), "RecentActivity", value));
-                                bbart.addAttributes(bbattributes);
-                            } catch (TskCoreException ex) {
-                                logger.log(Level.SEVERE, "Error adding device attached artifact to blackboard.");
+            while (xml.hasNext()) {
+                switch (xml.next()) {
+                    case XMLStreamConstants.START_ELEMENT:
+                        depth++;
+                        if (depth == 2) {
+                            section = new PluginSection(xml.getLocalName());
+                        } else if (depth == 3) {
+                            if ("mtime".equals(xml.getLocalName()) && section.mtime == null) {
+                                mtimeText = new StringBuilder();
+                            } else if ("artifacts".equals(xml.getLocalName())) {
+                                inArtifacts = true;
                             }
-                        } 
-                        else if ("uninstall".equals(dataType)) {
-                            Long itemMtime = null;
-                            try {
-                                Long epochtime = new SimpleDateFormat("EEE MMM d HH:mm:ss yyyy").parse(artnode.getAttribute("mtime")).getTime();
-                                itemMtime = epochtime.longValue();
-                                itemMtime = itemMtime / 1000;
-                            } catch (ParseException e) {
-                                logger.log(Level.WARNING, "Failed to parse epoch time for installed program artifact.");
+                        } else if (depth == 4 && inArtifacts && xml.getAttributeCount() > 0) {
+                            // only elements with attributes are artifacts
+                            artName = xml.getLocalName();
+                            artAttributes = new HashMap<>();
+                            for (int i = 0; i < xml.getAttributeCount(); i++) {
+                                artAttributes.put(xml.getAttributeLocalName(i), xml.getAttributeValue(i));
                             }
-
-                            try {
-                                bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_PROG_NAME.getTypeID(), "RecentActivity", value));
-                                bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_DATETIME.getTypeID(), "RecentActivity", itemMtime));
-                                BlackboardArtifact bbart = tempDb.getContentById(orgId).newArtifact(ARTIFACT_TYPE.TSK_INSTALLED_PROG);
-                                bbart.addAttributes(bbattributes);
-                            } catch (TskCoreException ex) {
-                                logger.log(Level.SEVERE, "Error adding installed program artifact to blackboard.");
-                            }
-                        } 
-                        else if ("WinVersion".equals(dataType)) {
-                            String name = artnode.getAttribute("name");
-
-                            if (name.contains("ProductName")) {
-                                winver = value;
-                            }
-                            if (name.contains("CSDVersion")) {
-                                winver = winver + " " + value;
-                            }
-                            if (name.contains("InstallDate")) {
-                                Long installtime = null;
-                                try {
-                                    Long epochtime = new SimpleDateFormat("EEE MMM d HH:mm:ss yyyy").parse(value).getTime();
-                                    installtime = epochtime.longValue();
-                                    String Tempdate = installtime.toString();
-                                    installtime = Long.valueOf(Tempdate) / 1000;
-                                } catch (ParseException e) {
-                                    logger.log(Level.SEVERE, "RegRipper::Conversion on DateTime -> ", e);
-                                }
+                            artText = new StringBuilder();
+                        }
+                        break;
+                        
+                    case XMLStreamConstants.CHARACTERS:
+                    case XMLStreamConstants.CDATA:
+                    case XMLStreamConstants.SPACE:
+                        if (artText != null) {
+                            artText.append(xml.getText());
+                        } else if (mtimeText != null) {
+                            mtimeText.append(xml.getText());
+                        }
+                        break;
+                        
+                    case XMLStreamConstants.END_ELEMENT:
+                        if (depth == 4 && artText != null) {
+                            addPluginArtifact(batch, section, artName, artAttributes, artText.toString().trim(), extrctr);
+                            artName = null;
+                            artAttributes = null;
+                            artText = null;
+                        } else if (depth == 3) {
+                            if (mtimeText != null) {
                                 try {
-                                    bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_PROG_NAME.getTypeID(), "RecentActivity", winver));
-                                    bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_DATETIME.getTypeID(), "RecentActivity", installtime));
-                                    BlackboardArtifact bbart = tempDb.getContentById(orgId).newArtifact(ARTIFACT_TYPE.TSK_INSTALLED_PROG);
-                                    bbart.addAttributes(bbattributes);
-                                } catch (TskCoreException ex) {
-                                    logger.log(Level.SEVERE, "Error adding installed program artifact to blackboard.");
+                                    section.mtime = parseRegRipperTime(mtimeText.toString());
+                                } catch (ParseException ex) {
+                                    logger.log(Level.WARNING, "Failed to parse epoch time when parsing the registry.");
                                 }
+                                mtimeText = null;
                             }
-                        } 
-                        else if ("office".equals(dataType)) {
-                            String name = artnode.getAttribute("name");
-                            
-                            try {
-                                BlackboardArtifact bbart = tempDb.getContentById(orgId).newArtifact(ARTIFACT_TYPE.TSK_RECENT_OBJECT);
-                                // @@@ BC: Consider removing this after some more testing. It looks like an Mtime associated with the root key and not the individual item
-                                if (mtime != null) {
-                                    bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_DATETIME_ACCESSED.getTypeID(), "RecentActivity", mtime));
-                                }
-                                bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_NAME.getTypeID(), "RecentActivity", name));
-                                bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_VALUE.getTypeID(), "RecentActivity", value));
-                                bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_PROG_NAME.getTypeID(), "RecentActivity", artnode.getNodeName()));
-                                bbart.addAttributes(bbattributes);
-                            } catch (TskCoreException ex) {
-                                logger.log(Level.SEVERE, "Error adding recent object artifact to blackboard.");
-                            }
+                            inArtifacts = false;
+                        } else if (depth == 2) {
+                            section = null;
                         }
-                    }
+                        depth--;
+                        break;
                 }
             }
+            logger.log(Level.INFO, "Parsed RegRipper output " + regRecord + " in " + (System.currentTimeMillis() - start) + " ms");
             return true;
         } catch (FileNotFoundException ex) {
             logger.log(Level.SEVERE, "Error finding the registry file.");
-        } catch (SAXException ex) {
+        } catch (XMLStreamException ex) {
             logger.log(Level.SEVERE, "Error parsing the registry XML: {0}", ex);
         } catch (IOException ex) {
-            logger.log(Level.SEVERE, "Error building the document parser: {0}", ex);
-        } catch (ParserConfigurationException ex) {
-            logger.log(Level.SEVERE, "Error configuring the registry parser: {0}", ex);
+            logger.log(Level.SEVERE, "Error opening the registry output: {0}", ex);
         } finally {
+            // the artifacts parsed before an error are added as well
+            batch.flush();
             try {
-                if (fstream != null) {
-                    fstream.close();
+                if (xml != null) {
+                    xml.close();
+                }
+            } catch (XMLStreamException ex) {
+            }
+            try {
+                if (reader != null) {
+                    reader.close();
                 }
             } catch (IOException ex) {
             }
@@ -534,6 +491,156 @@ else if ("office".equals(dataType)) {
         return false;
     }
 
+    /**
+     * Make an artifact for a single element of the Autopsy-specific 
+     * RegRipper output.
+     * @param batch Batch of the artifacts of the registry hive the output was made from
+     * @param section Plug-in section that the element is in
+     * @param artName Element name
+     * @param artAttributes Element attributes
+     * @param value Trimmed text content of the element
+     * @param extrctr 
+     */
+    private void addPluginArtifact(ArtifactBatch batch, PluginSection section, String artName,
+            Map<String, String> artAttributes, String value, ExtractUSB extrctr) {
+        String dataType = section.dataType;
+        Collection<BlackboardAttribute> bbattributes = new ArrayList<BlackboardAttribute>();
+
+        if ("recentdocs".equals(dataType)) {
+            //               BlackboardArtifact bbart = regFile.newArtifact(ARTIFACT_TYPE.TSK_RECENT_OBJECT);
+            //               bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_LAST_ACCESSED.getTypeID(), "RecentActivity", dataType, mtime));
+            //               bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_NAME.getTypeID(), "RecentActivity", dataType, mtimeItem));
+            //               bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_VALUE.getTypeID(), "RecentActivity", dataType, value));
+            //               bbart.addAttributes(bbattributes);
+            // @@@ BC: Why are we ignoring this...
+        } 
+        else if ("usb".equals(dataType)) {
+            try {      
+                Long usbMtime = Long.parseLong(getAttribute(artAttributes, "mtime"));
+
+                bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_DATETIME.getTypeID(), "RecentActivity", usbMtime));
+                String dev = getAttribute(artAttributes, "dev");
+                String model = dev; 
+                if (dev.toLowerCase().contains("vid")) {
+                    USBInfo info = extrctr.get(dev);
+                    if(info.getVendor()!=null)
+                        bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_DEVICE_MAKE.getTypeID(), "RecentActivity", info.getVendor()));
+                    if(info.getProduct() != null)
+                        model = info.getProduct();
+                }
+                bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_DEVICE_MODEL.getTypeID(), "RecentActivity", model));
+                bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_DEVICE_ID.getTypeID(), "RecentActivity", value));
+                batch.add(ARTIFACT_TYPE.TSK_DEVICE_ATTACHED, bbattributes);
+            } catch (NumberFormatException ex) {
+                logger.log(Level.WARNING, "Failed to parse time of device attached artifact.");
+            }
+        } 
+        else if ("uninstall".equals(dataType)) {
+            Long itemMtime = null;
+            try {
+                itemMtime = parseRegRipperTime(getAttribute(artAttributes, "mtime"));
+            } catch (ParseException e) {
+                logger.log(Level.WARNING, "Failed to parse epoch time for installed program artifact.");
+            }
+
+            bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_PROG_NAME.getTypeID(), "RecentActivity", value));
+            bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_DATETIME.getTypeID(), "RecentActivity", itemMtime));
+            batch.add(ARTIFACT_TYPE.TSK_INSTALLED_PROG, bbattributes);
+        } 
+        else if ("WinVersion".equals(dataType)) {
+            String name = getAttribute(artAttributes, "name");
+
+            if (name.contains("ProductName")) {
+                section.winver = value;
+            }
+            if (name.contains("CSDVersion")) {
+                section.winver = section.winver + " " + value;
+            }
+            if (name.contains("InstallDate")) {
+                Long installtime = null;
+                try {
+                    installtime = parseRegRipperTime(value);
+                } catch (ParseException e) {
+                    logger.log(Level.SEVERE, "RegRipper::Conversion on DateTime -> ", e);
+                }
+                bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_PROG_NAME.getTypeID(), "RecentActivity", section.winver));
+                bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_DATETIME.getTypeID(), "RecentActivity", installtime));
+                batch.add(ARTIFACT_TYPE.TSK_INSTALLED_PROG, bbattributes);
+            }
+        } 
+        else if ("office".equals(dataType)) {
+            String name = getAttribute(artAttributes, "name");
+
+            // @@@ BC: Consider removing this after some more testing. It looks like an Mtime associated with the root key and not the individual item
+            if (section.mtime != null) {
+                bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_DATETIME_ACCESSED.getTypeID(), "RecentActivity", section.mtime));
+            }
+            bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_NAME.getTypeID(), "RecentActivity", name));
+            bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_VALUE.getTypeID(), "RecentActivity", value));
+            bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_PROG_NAME.getTypeID(), "RecentActivity", artName));
+            batch.add(ARTIFACT_TYPE.TSK_RECENT_OBJECT, bbattributes);
+        }
+    }
+
+    /**
+     * Artifacts parsed from the RegRipper output of a hive, added to the
+     * blackboard a batch at a time rather than as each element is parsed.
+     * Listeners get one event per artifact type and batch.
+     */
+    private class ArtifactBatch {
+
+        private static final int BATCH_SIZE = 500;
+        private final AbstractFile regFile;
+        private final List<ARTIFACT_TYPE> types = new ArrayList<>();
+        private final List<Collection<BlackboardAttribute>> attributes = new ArrayList<>();
+
+        ArtifactBatch(AbstractFile regFile) {
+            this.regFile = regFile;
+        }
+
+        void add(ARTIFACT_TYPE type, Collection<BlackboardAttribute> artAttributes) {
+            types.add(type);
+            attributes.add(artAttributes);
+            if (types.size() >= BATCH_SIZE) {
+                flush();
+            }
+        }
+
+        /**
+         * Add the artifacts of the batch to the blackboard.
+         */
+        void flush() {
+            Map<ARTIFACT_TYPE, Collection<BlackboardArtifact>> added = new EnumMap<>(ARTIFACT_TYPE.class);
+            for (int i = 0; i < types.size(); i++) {
+                ARTIFACT_TYPE type = types.get(i);
+                try {
+                    BlackboardArtifact bbart = regFile.newArtifact(type);
+                    bbart.addAttributes(attributes.get(i));
+                    if (!added.containsKey(type)) {
+                        added.put(type, new ArrayList<BlackboardArtifact>());
+                    }
+                    added.get(type).add(bbart);
+                } catch (TskCoreException ex) {
+                    logger.log(Level.SEVERE, "Error adding " + type.getDisplayName() + " artifact to blackboard.", ex);
+                }
+            }
+            types.clear();
+            attributes.clear();
+            for (Map.Entry<ARTIFACT_TYPE, Collection<BlackboardArtifact>> entry : added.entrySet()) {
+                IngestServices.getDefault().fireModuleDataEvent(new ModuleDataEvent("RecentActivity", entry.getKey(), entry.getValue()));
+            }
+        }
+    }
+
+    /**
+     * Get an attribute of an element, with the same empty string default
+     * as the DOM Element.getAttribute().
+     */
+    private static String getAttribute(Map<String, String> attributes, String name) {
+        String value = attributes.get(name);
+        return (value != null) ? value : "";
+    }
+
     @Override
     public void process(PipelineContext<IngestModuleDataSource>pipelineContext, Content dataSource, IngestDataSourceWorkerController controller) {
         analyzeRegistryFiles(dataSource, controller);
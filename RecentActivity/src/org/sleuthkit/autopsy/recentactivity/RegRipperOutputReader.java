@@ -0,0 +1,109 @@
+ /*
+ *
+ * Autopsy Forensic Browser
+ *
+ * Copyright 2013 Basis Technology Corp.
+ * Contact: carrier <at> sleuthkit <dot> org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.sleuthkit.autopsy.recentactivity;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Wraps the raw output of the Autopsy-specific RegRipper plug-ins and
+ * presents it as a well-formed XML document, one line at a time.
+ *
+ * RegRipper prints the plug-in XML fragments with separator lines and
+ * unescaped '&' characters in between, so each line is cleaned up before
+ * it is handed to the XML parser:
+ * the separator dashes and line breaks are dropped, and '&' and '\'' are
+ * escaped.  The fragments are wrapped in a single document element.
+ */
+class RegRipperOutputReader extends Reader {
+    private static final String SEPARATOR = "----------------------------------------";
+    private static final String START_DOC = "<?xml version=\"1.0\"?><document>";
+    private static final String END_DOC = "</document>";
+
+    private final BufferedReader input;
+    private final StringBuilder pending = new StringBuilder();
+    private int pendingPos = 0;
+    private boolean started = false;
+    private boolean finished = false;
+
+    RegRipperOutputReader(Reader input) {
+        this.input = new BufferedReader(input);
+    }
+
+    @Override
+    public int read(char[] cbuf, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        while (pendingPos == pending.length()) {
+            if (fill() == false) {
+                return -1;
+            }
+        }
+        int count = Math.min(len, pending.length() - pendingPos);
+        pending.getChars(pendingPos, pendingPos + count, cbuf, off);
+        pendingPos += count;
+        return count;
+    }
+
+    /**
+     * Load the next cleaned-up line into the pending buffer.
+     * @return false if there is nothing more to read
+     */
+    private boolean fill() throws IOException {
+        pending.setLength(0);
+        pendingPos = 0;
+
+        if (started == false) {
+            started = true;
+            pending.append(START_DOC);
+            return true;
+        }
+        if (finished) {
+            return false;
+        }
+
+        String line = input.readLine();
+        if (line == null) {
+            finished = true;
+            pending.append(END_DOC);
+            return true;
+        }
+
+        line = line.replace(SEPARATOR, "");
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '&') {
+                pending.append("&amp;");
+            } else if (c == '\'') {
+                pending.append("&apos;");
+            } else if (c != '\r') {
+                pending.append(c);
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        input.close();
+    }
+}
@@ -24,12 +24,19 @@
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.net.URLDecoder;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.logging.Level;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
@@ -49,6 +56,7 @@
 import org.sleuthkit.datamodel.Content;
 import org.sleuthkit.datamodel.TskException;
 import org.w3c.dom.Document;
+import org.w3c.dom.Element;
 import org.w3c.dom.NamedNodeMap;
 import org.w3c.dom.NodeList;
 import org.xml.sax.SAXException;
@@ -70,13 +78,16 @@ public class SearchEngineURLQueryAnalyzer extends Extract {
     public final static String MODULE_VERSION = "1.0";
     
     public static final String XMLFILE = "SEUQAMappings.xml";
+    // object ids in each query for the parents of the source files of the queries
+    private static final int OBJECTS_PER_QUERY = 500;
     private static final String XSDFILE = "SearchEngineSchema.xsd";
 
     
     private static String[] searchEngineNames;
     private static SearchEngineURLQueryAnalyzer.SearchEngine[] engines;
     private static Document xmlinput;
-    private static final SearchEngineURLQueryAnalyzer.SearchEngine NullEngine = new SearchEngineURLQueryAnalyzer.SearchEngine("NONE", "NONE", new HashMap<String,String>());
+    private static EngineMatcher engineMatcher;
+    private static final SearchEngineURLQueryAnalyzer.SearchEngine NullEngine = new SearchEngineURLQueryAnalyzer.SearchEngine("NONE", "NONE", new HashMap<String,Pattern>());
 
     
     //hide public constructor to prevent from instantiation by ingest module loader
@@ -87,10 +98,10 @@ public class SearchEngineURLQueryAnalyzer extends Extract {
     private static class SearchEngine   {
         private  String _engineName;
         private  String _domainSubstring;
-        private  Map<String,String> _splits;
+        private  Map<String,Pattern> _splits;
         private  int _count;
         
-        SearchEngine(String engineName, String domainSubstring, Map<String, String> splits){
+        SearchEngine(String engineName, String domainSubstring, Map<String, Pattern> splits){
             _engineName = engineName;
             _domainSubstring = domainSubstring;
             _splits = splits;
@@ -113,21 +124,83 @@ int getTotal(){
             return _count;
         }
         
-        Set<Map.Entry<String,String>> getSplits(){
+        Set<Map.Entry<String,Pattern>> getSplits(){
             return this._splits.entrySet();
         }
         
         @Override
         public String toString(){
             String split = " ";
-            for(Map.Entry<String,String> kvp : getSplits()){
-                split = split + "[ " + kvp.getKey() + " :: " +  kvp.getValue() + " ]" + ", ";
+            for(Map.Entry<String,Pattern> kvp : getSplits()){
+                split = split + "[ " + kvp.getKey() + " :: " +  kvp.getValue().pattern() + " ]" + ", ";
             }
             return "Name: " + _engineName + "\n Domain Substring: " + _domainSubstring + "\n count: " + _count + "\n Split Tokens: \n " + split;
         }
                 
     }
     
+    /**
+     * Matches URLs against the domain substrings of all engines in a 
+     * single pass over the URL.  The substrings are kept in a character
+     * trie and the trie is walked from every position of the URL.  When 
+     * several substrings match, the engine that comes first in the 
+     * configuration file wins, as it did with the linear contains() scan.
+     */
+    private static class EngineMatcher {
+        private static class TrieNode {
+            final Map<Character, TrieNode> children = new HashMap<>();
+            int engineIndex = -1;
+        }
+        
+        private final TrieNode root = new TrieNode();
+        
+        EngineMatcher(SearchEngineURLQueryAnalyzer.SearchEngine[] engines) {
+            for (int i = 0; i < engines.length; i++) {
+                String substring = engines[i].getDomainSubstring();
+                if (substring.isEmpty()) {
+                    continue;
+                }
+                TrieNode node = root;
+                for (int c = 0; c < substring.length(); c++) {
+                    Character key = substring.charAt(c);
+                    TrieNode child = node.children.get(key);
+                    if (child == null) {
+                        child = new TrieNode();
+                        node.children.put(key, child);
+                    }
+                    node = child;
+                }
+                if (node.engineIndex == -1) {
+                    node.engineIndex = i;
+                }
+            }
+        }
+        
+        /**
+         * @param url URL to match
+         * @return index of the matching engine, or -1 if none matches
+         */
+        int match(String url) {
+            int best = -1;
+            for (int start = 0; start < url.length(); start++) {
+                TrieNode node = root;
+                for (int i = start; i < url.length(); i++) {
+                    node = node.children.get(url.charAt(i));
+                    if (node == null) {
+                        break;
+                    }
+                    if (node.engineIndex != -1 && (best == -1 || node.engineIndex < best)) {
+                        best = node.engineIndex;
+                    }
+                }
+                if (best == 0) {
+                    break;
+                }
+            }
+            return best;
+        }
+    }
+    
     private void createEngines(){
         NodeList nlist = xmlinput.getElementsByTagName("SearchEngine");
         SearchEngineURLQueryAnalyzer.SearchEngine[] listEngines = new SearchEngineURLQueryAnalyzer.SearchEngine[nlist.getLength()];
@@ -136,13 +209,21 @@ private void createEngines(){
 
             String EngineName = nnm.getNamedItem("engine").getNodeValue();
             String EnginedomainSubstring = nnm.getNamedItem("domainSubstring").getNodeValue();
-            Map<String,String> splits = new HashMap<String,String>();
+            Map<String,Pattern> splits = new LinkedHashMap<String,Pattern>();
 
-            NodeList listSplits = xmlinput.getElementsByTagName("splitToken");
+            NodeList listSplits = ((Element) nlist.item(i)).getElementsByTagName("splitToken");
             for(int k = 0; k<listSplits.getLength();k++){
-               if(listSplits.item(k).getParentNode().getAttributes().getNamedItem("engine").getNodeValue().equals(EngineName)){
-                   splits.put(listSplits.item(k).getAttributes().getNamedItem("plainToken").getNodeValue(), listSplits.item(k).getAttributes().getNamedItem("regexToken").getNodeValue());
-               }
+                NamedNodeMap splitAttributes = listSplits.item(k).getAttributes();
+                String regexToken = splitAttributes.getNamedItem("regexToken").getNodeValue();
+                //Want to determine if string contains a string based on splitkey, but we want to split the string on splitKeyConverted due to regex
+                if (regexToken.contains("\\?")) {
+                    regexToken = regexToken.replace("\\?", "?");
+                }
+                try {
+                    splits.put(splitAttributes.getNamedItem("plainToken").getNodeValue(), Pattern.compile(regexToken));
+                } catch (PatternSyntaxException ex) {
+                    logger.log(Level.WARNING, "Invalid regexToken for search engine " + EngineName + ": " + regexToken, ex);
+                }
             }
 
             SearchEngineURLQueryAnalyzer.SearchEngine Se = new SearchEngineURLQueryAnalyzer.SearchEngine(EngineName, EnginedomainSubstring, splits);
@@ -150,6 +231,7 @@ private void createEngines(){
             listEngines[i] = Se;
         }
         engines = listEngines;
+        engineMatcher = new EngineMatcher(listEngines);
     }
     
     /**
@@ -162,13 +244,12 @@ private void createEngines(){
      */
     
     private static SearchEngineURLQueryAnalyzer.SearchEngine getSearchEngine(String domain){     
-        if (engines == null) {
+        if (engines == null || engineMatcher == null) {
             return SearchEngineURLQueryAnalyzer.NullEngine;
         }
-        for(int i = 0; i < engines.length; i++){
-            if(domain.contains(engines[i].getDomainSubstring())){
-                return engines[i];
-            }
+        int index = engineMatcher.match(domain);
+        if (index != -1) {
+            return engines[index];
         }
         return SearchEngineURLQueryAnalyzer.NullEngine;
     }
@@ -188,15 +269,15 @@ private void getSearchEngineNames(){
     /**
      * Attempts to extract the query from a URL.
      *
+     * @param eng The search engine that the URL belongs to.
      * @param url The URL string to be dissected.
      * @return The extracted search query.
      */
        
 
-    private String extractSearchEngineQuery(String url){
+    private String extractSearchEngineQuery(SearchEngineURLQueryAnalyzer.SearchEngine eng, String url){
         String x = "NoQuery";
-        SearchEngineURLQueryAnalyzer.SearchEngine eng = getSearchEngine(url);
-        for(Map.Entry<String,String> kvp : eng.getSplits()){
+        for(Map.Entry<String,Pattern> kvp : eng.getSplits()){
             if(url.contains(kvp.getKey())){
                 x = split2(url, kvp.getValue());
                 break;
@@ -215,96 +296,161 @@ private String extractSearchEngineQuery(String url){
      * Splits URLs based on a delimeter (key). .contains() and .split()
      *
      * @param url The URL to be split
-     * @param value the delimeter value used to split the URL into its
+     * @param value the compiled delimeter used to split the URL into its
      * search token, extracted from the xml.
      * @return The extracted search query
      *
      */
-    private String split2(String url, String value) {
+    private String split2(String url, Pattern value) {
         String basereturn = "NoQuery";
-        String v = value;
-        //Want to determine if string contains a string based on splitkey, but we want to split the string on splitKeyConverted due to regex
-        if (value.contains("\\?")) {
-            v = value.replace("\\?", "?");
-        }
-        String[] sp = url.split(v);
+        String[] sp = value.split(url);
         if (sp.length >= 2) {
-            if (sp[sp.length - 1].contains("&")) {
-                basereturn = sp[sp.length - 1].split("&")[0];
+            String last = sp[sp.length - 1];
+            int amp = last.indexOf('&');
+            if (amp != -1) {
+                basereturn = last.substring(0, amp);
             } else {
-                basereturn = sp[sp.length - 1];
+                basereturn = last;
             }
         }
         return basereturn;
     }
 
+    /**
+     * A search query found in a web history or bookmark artifact, waiting 
+     * to be turned into a TSK_WEB_SEARCH_QUERY artifact.
+     */
+    private static class SearchQuery {
+        long fileId;
+        SearchEngineURLQueryAnalyzer.SearchEngine se;
+        String query;
+        String searchEngineDomain = "";
+        String browser = "";
+        long last_accessed = -1;
+    }
+
+    /**
+     * Check the URL of the artifact read so far and remember it if it is a 
+     * search engine query.
+     */
+    private void addIfQuery(SearchQuery candidate, String url, List<SearchQuery> queries) {
+        if (url == null) {
+            return;
+        }
+        SearchEngineURLQueryAnalyzer.SearchEngine se = getSearchEngine(url);
+        if (se.equals(NullEngine)) {
+            return;    //could not determine type. Will move onto next artifact
+        }
+        String query = extractSearchEngineQuery(se, url);
+        if (query.equals("NoQuery") || query.equals("")) {   //False positive match, artifact was not a query.
+            return;
+        }
+        candidate.se = se;
+        candidate.query = query;
+        queries.add(candidate);
+    }
+
     private void getURLs(Content dataSource, IngestDataSourceWorkerController controller) {
         int totalQueries = 0;
+        List<SearchQuery> queries = new ArrayList<>();
+        ResultSet rs = null;
         try {
-            //from blackboard_artifacts
-            Collection<BlackboardArtifact> listArtifacts = currentCase.getSleuthkitCase().getMatchingArtifacts("WHERE (`artifact_type_id` = '" + ARTIFACT_TYPE.TSK_WEB_BOOKMARK.getTypeID()
-                    + "' OR `artifact_type_id` = '" + ARTIFACT_TYPE.TSK_WEB_HISTORY.getTypeID() + "') ");  //List of every 'web_history' and 'bookmark' artifact
-            logger.info("Processing " + listArtifacts.size() + " blackboard artifacts.");
-            getAll:
-            for (BlackboardArtifact artifact : listArtifacts) {
-                //initializing default attributes
-                String query = "";
-                String searchEngineDomain = "";
-                String browser = "";
-                long last_accessed = -1;
-
-                long fileId = artifact.getObjectID();
-                boolean isFromSource = tskCase.isFileFromSource(dataSource, fileId);
-                if (!isFromSource) {
-                    //File was from a different dataSource. Skipping.
-                    continue;
+            // Read the attributes of every 'web_history' and 'bookmark' artifact in 
+            // one pass, sorted by artifact so that each artifact can be checked as 
+            // soon as all of its attributes are read.  Only the matching queries 
+            // are kept until the result set is closed. 
+            rs = tskCase.runQuery("SELECT art.artifact_id, art.obj_id, att.attribute_type_id, att.value_text, att.value_int64 "
+                    + "FROM blackboard_artifacts AS art, blackboard_attributes AS att "
+                    + "WHERE art.artifact_id = att.artifact_id "
+                    + "AND (art.artifact_type_id = " + ARTIFACT_TYPE.TSK_WEB_BOOKMARK.getTypeID()
+                    + " OR art.artifact_type_id = " + ARTIFACT_TYPE.TSK_WEB_HISTORY.getTypeID() + ") "
+                    + "AND att.attribute_type_id IN (" + ATTRIBUTE_TYPE.TSK_URL.getTypeID()
+                    + ", " + ATTRIBUTE_TYPE.TSK_PROG_NAME.getTypeID()
+                    + ", " + ATTRIBUTE_TYPE.TSK_DOMAIN.getTypeID()
+                    + ", " + ATTRIBUTE_TYPE.TSK_DATETIME_ACCESSED.getTypeID() + ") "
+                    + "ORDER BY art.artifact_id");
+            
+            long curArtifactId = -1;
+            SearchQuery candidate = null;
+            String url = null;
+            int numArtifacts = 0;
+            while (rs.next()) {
+                if (controller.isCancelled()) {
+                    break;       //User cancled the process.
+                }
+                long artifactId = rs.getLong("artifact_id");
+                if (artifactId != curArtifactId) {
+                    if (candidate != null) {
+                        addIfQuery(candidate, url, queries);
+                    }
+                    curArtifactId = artifactId;
+                    candidate = new SearchQuery();
+                    candidate.fileId = rs.getLong("obj_id");
+                    url = null;
+                    ++numArtifacts;
                 }
                 
-                AbstractFile file = tskCase.getAbstractFileById(fileId);
-                if (file == null ) {
-                    continue; 
+                int typeId = rs.getInt("attribute_type_id");
+                if (typeId == ATTRIBUTE_TYPE.TSK_URL.getTypeID()) {
+                    url = rs.getString("value_text");
+                } else if (typeId == ATTRIBUTE_TYPE.TSK_PROG_NAME.getTypeID()) {
+                    candidate.browser = rs.getString("value_text");
+                } else if (typeId == ATTRIBUTE_TYPE.TSK_DOMAIN.getTypeID()) {
+                    candidate.searchEngineDomain = rs.getString("value_text");
+                } else if (typeId == ATTRIBUTE_TYPE.TSK_DATETIME_ACCESSED.getTypeID()) {
+                    candidate.last_accessed = rs.getLong("value_int64");
                 }
-
-                SearchEngineURLQueryAnalyzer.SearchEngine se = NullEngine;
-                //from blackboard_attributes
-                Collection<BlackboardAttribute> listAttributes = currentCase.getSleuthkitCase().getMatchingAttributes("Where `artifact_id` = " + artifact.getArtifactID());
-                getAttributes:
-                for (BlackboardAttribute attribute : listAttributes) {
-                    if (controller.isCancelled()) {
-                        break getAll;       //User cancled the process.
-                    }
-                    if (attribute.getAttributeTypeID() == BlackboardAttribute.ATTRIBUTE_TYPE.TSK_URL.getTypeID()) {
-                        final String urlString = attribute.getValueString();
-                        se = getSearchEngine(urlString);
-                        if (!se.equals(NullEngine)) {
-                            query = extractSearchEngineQuery(attribute.getValueString());
-                            if (query.equals("NoQuery") || query.equals("")) {   //False positive match, artifact was not a query.
-                                break getAttributes;
-                            }
-                        } else if (se.equals(NullEngine)) {
-                            break getAttributes;    //could not determine type. Will move onto next artifact
-                        }
-                    } else if (attribute.getAttributeTypeID() == BlackboardAttribute.ATTRIBUTE_TYPE.TSK_PROG_NAME.getTypeID()) {
-                        browser = attribute.getValueString();
-                    } else if (attribute.getAttributeTypeID() == BlackboardAttribute.ATTRIBUTE_TYPE.TSK_DOMAIN.getTypeID()) {
-                        searchEngineDomain = attribute.getValueString();
-                    } else if (attribute.getAttributeTypeID() == BlackboardAttribute.ATTRIBUTE_TYPE.TSK_DATETIME_ACCESSED.getTypeID()) {
-                        last_accessed = attribute.getValueLong();
-                    }
+            }
+            if (candidate != null && !controller.isCancelled()) {
+                addIfQuery(candidate, url, queries);
+            }
+            logger.info("Processed " + numArtifacts + " blackboard artifacts.");
+        } catch (SQLException e) {
+            logger.log(Level.SEVERE, "Encountered error retrieving artifacts for search engine queries", e);
+        } finally {
+            if (rs != null) {
+                try {
+                    tskCase.closeRunQuery(rs);
+                } catch (SQLException ex) {
+                    logger.log(Level.WARNING, "Error closing result set after getting web artifacts", ex);
                 }
+            }
+        }
 
-                if (!se.equals(NullEngine) && !query.equals("NoQuery") && !query.equals("")) {
-                        Collection<BlackboardAttribute> bbattributes = new ArrayList<BlackboardAttribute>();
-                        bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_DOMAIN.getTypeID(), MODULE_NAME, searchEngineDomain));
-                        bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_TEXT.getTypeID(), MODULE_NAME, query));
-                        bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_PROG_NAME.getTypeID(), MODULE_NAME, browser));
-                        bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_DATETIME_ACCESSED.getTypeID(), MODULE_NAME, last_accessed));
-                        this.addArtifact(ARTIFACT_TYPE.TSK_WEB_SEARCH_QUERY, file, bbattributes);
-                        se.increment();
-                        ++totalQueries;
+        // The artifacts usually come from a handful of files (i.e. one History 
+        // database per profile), so find the ones in this data source all at 
+        // once and get each of them only once. 
+        Map<Long, AbstractFile> sourceFiles = new HashMap<>();
+        try {
+            Set<Long> fileIds = new HashSet<>();
+            for (SearchQuery sq : queries) {
+                fileIds.add(sq.fileId);
+            }
+            Set<Long> sourceFileIds = getFilesFromSource(dataSource, fileIds);
+            for (SearchQuery sq : queries) {
+                if (controller.isCancelled()) {
+                    break;
+                }
+                if (!sourceFileIds.contains(sq.fileId)) {
+                    //File was from a different dataSource. Skipping.
+                    continue;
                 }
+                AbstractFile file = sourceFiles.get(sq.fileId);
+                if (file == null) {
+                    file = tskCase.getAbstractFileById(sq.fileId);
+                    sourceFiles.put(sq.fileId, file);
+                }
+
+                Collection<BlackboardAttribute> bbattributes = new ArrayList<BlackboardAttribute>();
+                bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_DOMAIN.getTypeID(), MODULE_NAME, sq.searchEngineDomain));
+                bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_TEXT.getTypeID(), MODULE_NAME, sq.query));
+                bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_PROG_NAME.getTypeID(), MODULE_NAME, sq.browser));
+                bbattributes.add(new BlackboardAttribute(ATTRIBUTE_TYPE.TSK_DATETIME_ACCESSED.getTypeID(), MODULE_NAME, sq.last_accessed));
+                this.addArtifact(ARTIFACT_TYPE.TSK_WEB_SEARCH_QUERY, file, bbattributes);
+                sq.se.increment();
+                ++totalQueries;
             }
-        } catch (TskException e) {
+        } catch (TskException | SQLException e) {
             logger.log(Level.SEVERE, "Encountered error retrieving artifacts for search engine queries", e);
         } finally {
             if (controller.isCancelled()) {
@@ -315,6 +461,67 @@ private void getURLs(Content dataSource, IngestDataSourceWorkerController contro
         }
     }
 
+    /**
+     * Get the files of a data source among some files. The ancestors of all 
+     * the files are read a level at a time, instead of walking up from each 
+     * file with SleuthkitCase.isFileFromSource(). 
+     *
+     * @param dataSource the data source
+     * @param fileIds object ids of the files
+     * @return the object ids of the files that are in the data source
+     */
+    @SuppressWarnings("deprecation")
+    private Set<Long> getFilesFromSource(Content dataSource, Set<Long> fileIds) throws SQLException {
+        Set<Long> sourceFileIds = new HashSet<>();
+        // the ancestor reached so far by each file still being walked up
+        Map<Long, Long> ancestors = new HashMap<>();
+        for (Long fileId : fileIds) {
+            ancestors.put(fileId, fileId);
+        }
+        while (!ancestors.isEmpty()) {
+            Set<Long> ancestorIds = new HashSet<>();
+            for (Map.Entry<Long, Long> entry : ancestors.entrySet()) {
+                if (entry.getValue() == dataSource.getId()) {
+                    sourceFileIds.add(entry.getKey());
+                } else {
+                    ancestorIds.add(entry.getValue());
+                }
+            }
+            
+            // Get the parents of the ancestors, the roots have none.
+            Map<Long, Long> parents = new HashMap<>();
+            List<Long> ids = new ArrayList<>(ancestorIds);
+            for (int start = 0; start < ids.size(); start += OBJECTS_PER_QUERY) {
+                StringBuilder query = new StringBuilder("SELECT obj_id, par_obj_id FROM tsk_objects WHERE obj_id IN (");
+                for (int i = start; i < Math.min(ids.size(), start + OBJECTS_PER_QUERY); i++) {
+                    query.append(i == start ? "" : ", ").append(ids.get(i));
+                }
+                query.append(")");
+                ResultSet rs = tskCase.runQuery(query.toString());
+                try {
+                    while (rs.next()) {
+                        long parentId = rs.getLong("par_obj_id");
+                        if (!rs.wasNull()) {
+                            parents.put(rs.getLong("obj_id"), parentId);
+                        }
+                    }
+                } finally {
+                    tskCase.closeRunQuery(rs);
+                }
+            }
+            
+            Map<Long, Long> nextAncestors = new HashMap<>();
+            for (Map.Entry<Long, Long> entry : ancestors.entrySet()) {
+                Long parentId = parents.get(entry.getValue());
+                if (parentId != null) {
+                    nextAncestors.put(entry.getKey(), parentId);
+                }
+            }
+            ancestors = nextAncestors;
+        }
+        return sourceFileIds;
+    }
+
    private String getTotals() {
         String total = "";
         if (engines == null) {
@@ -24,13 +24,8 @@
 import java.awt.EventQueue;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
-import java.io.BufferedWriter;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.io.Writer;
-import java.text.DateFormat;
+import java.sql.SQLException;
 import java.text.DateFormatSymbols;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
@@ -39,7 +34,6 @@
 import java.util.Date;
 import java.util.List;
 import java.util.Locale;
-import java.util.Scanner;
 import java.util.Stack;
 import java.util.logging.Level;
 import javafx.application.Platform;
@@ -74,7 +68,6 @@
 import org.openide.awt.ActionReference;
 import org.openide.awt.ActionReferences;
 import org.openide.awt.ActionRegistration;
-import org.openide.modules.InstalledFileLocator;
 import org.openide.modules.ModuleInstall;
 import org.openide.nodes.Children;
 import org.openide.nodes.Node;
@@ -89,14 +82,12 @@
 import org.sleuthkit.autopsy.corecomponents.DataContentPanel;
 import org.sleuthkit.autopsy.corecomponents.DataResultPanel;
 import org.sleuthkit.autopsy.coreutils.Logger;
-import org.sleuthkit.autopsy.coreutils.PlatformUtil;
 import org.sleuthkit.autopsy.datamodel.FilterNodeLeaf;
 import org.sleuthkit.autopsy.datamodel.DirectoryNode;
 import org.sleuthkit.autopsy.datamodel.DisplayableItemNode;
 import org.sleuthkit.autopsy.datamodel.DisplayableItemNodeVisitor;
 import org.sleuthkit.autopsy.datamodel.FileNode;
 import org.sleuthkit.autopsy.ingest.IngestManager;
-import org.sleuthkit.autopsy.coreutils.ExecUtil;
 import org.sleuthkit.datamodel.AbstractFile;
 import org.sleuthkit.datamodel.SleuthkitCase;
 import org.sleuthkit.datamodel.TskCoreException;
@@ -114,7 +105,6 @@
 public class Timeline extends CallableSystemAction implements Presenter.Toolbar, PropertyChangeListener {
 
     private static final Logger logger = Logger.getLogger(Timeline.class.getName());
-    private final java.io.File macRoot = InstalledFileLocator.getDefault().locate("mactime", Timeline.class.getPackage().getName(), false);
     private TimelineFrame mainFrame;          //frame for holding all the elements
     private Group fxGroupCharts; //Orders the charts
     private Scene fxSceneCharts; //Displays the charts
@@ -133,8 +123,8 @@ public class Timeline extends CallableSystemAction implements Presenter.Toolbar,
     private DataContentPanel dataContentPanel;
     private ProgressHandle progress;
     private java.io.File moduleDir;
-    private String mactimeFileName;
     private List<YearEpoch> data;
+    private TimelineIndex timelineIndex;
     private boolean listeningToAddImage = false;
     private long lastObjectId = -1;
     private TimelineProgressDialog progressDialog;
@@ -235,28 +225,22 @@ public void run() {
                     }
 
                     int currentProgress = 0;
-                    java.io.File mactimeFile = new java.io.File(moduleDir, mactimeFileName);
-                    if (!mactimeFile.exists()) {
-                        progressDialog.setProgressTotal(3); //total 3 units
-                        logger.log(Level.INFO, "Creating body file");
-                        progressDialog.updateProgressBar("Generating Bodyfile");
-                        String bodyFilePath = makeBodyFile();
-                        progressDialog.updateProgressBar(++currentProgress);
-                        logger.log(Level.INFO, "Creating mactime file: " + mactimeFile.getAbsolutePath());
-                        progressDialog.updateProgressBar("Generating Mactime");
-                        makeMacTime(bodyFilePath);
+                    if (data == null) {
+                        progressDialog.setProgressTotal(2); //total 2 units
+                        logger.log(Level.INFO, "Opening timeline index");
+                        progressDialog.updateProgressBar("Updating Timeline Index");
+                        try {
+                            timelineIndex = TimelineIndex.open(moduleDir, skCase);
+                        } catch (IOException | SQLException | TskCoreException ex) {
+                            logger.log(Level.SEVERE, "Error creating the timeline index", ex);
+                            timelineIndex = null;
+                        }
                         progressDialog.updateProgressBar(++currentProgress);
-                        data = null;
+                        progressDialog.updateProgressBar("Grouping Events");
+                        data = makeEpochs(timelineIndex); //YearEpochs contain everything you need to make a timeline.
                     } else {
                         progressDialog.setProgressTotal(1); //total 1 units
-                        logger.log(Level.INFO, "Mactime file already exists; parsing that: " + mactimeFile.getAbsolutePath());
-                    }
-
-
-                    progressDialog.updateProgressBar("Parsing Mactime");
-                    if (data == null) {
-                        logger.log(Level.INFO, "Parsing mactime file: " + mactimeFile.getAbsolutePath());
-                        data = parseMacTime(mactimeFile); //The sum total of the mactime parsing.  YearEpochs contain everything you need to make a timeline.
+                        logger.log(Level.INFO, "Timeline data already exists; using that");
                     }
                     progressDialog.updateProgressBar(++currentProgress);
 
@@ -335,9 +319,9 @@ public void run() {
 
     /**
      * Creates a BarChart with datapoints for all the years from the parsed
-     * mactime file.
+     * file system events.
      *
-     * @param allYears The list of years that have barData from the mactime file
+     * @param allYears The list of years that have barData from the file system events
      * @return BarChart scaled to the year level
      */
     private BarChart<String, Number> createYearChartWithDrill(final List<YearEpoch> allYears) {
@@ -616,7 +600,7 @@ public void propertyChange(PropertyChangeEvent evt) {
         String prop = evt.getPropertyName();
         if (prop.equals(Case.CASE_ADD_DATA_SOURCE)) {
             if (mainFrame != null && !mainFrame.isVisible()) {
-                // change the lastObjectId to trigger a reparse of mactime barData
+                // change the lastObjectId to trigger a reload of the barData
                 ++lastObjectId;
                 return;
             }
@@ -626,7 +610,7 @@ public void propertyChange(PropertyChangeEvent evt) {
                 return;
             }
 
-            clearMactimeData();
+            clearTimelineData();
 
             // call performAction as if the user selected 'Make Timeline' from the menu
             performAction();
@@ -637,16 +621,15 @@ public void propertyChange(PropertyChangeEvent evt) {
             }
 
             data = null;
+            timelineIndex = null;
         }
     }
 
-    private void clearMactimeData() {
-        // get rid of the old barData
+    private void clearTimelineData() {
+        // get rid of the old barData, the index on disk is updated with
+        // the new files the next time the timeline is opened
         data = null;
-
-        // get rid of the mactime file
-        java.io.File mactimeFile = new java.io.File(moduleDir, mactimeFileName);
-        mactimeFile.delete();
+        timelineIndex = null;
 
         // close the jframe
         if (mainFrame != null) {
@@ -702,25 +685,6 @@ public MonthEpoch getMonth(int monthNum) {
             }
             return month;
         }
-
-        public void add(long fileId, int month, int day) {
-            // see if this month is in the list
-            MonthEpoch monthEpoch = null;
-            for (MonthEpoch me : months) {
-                if (me.getMonthInt() == month) {
-                    monthEpoch = me;
-                    break;
-                }
-            }
-
-            if (monthEpoch == null) {
-                monthEpoch = new MonthEpoch(month);
-                months.add(monthEpoch);
-            }
-
-            // add the file the the MonthEpoch object
-            monthEpoch.add(fileId, day);
-        }
     }
 
     private class MonthEpoch extends Epoch {
@@ -762,23 +726,6 @@ public DayEpoch getDay(int dayNum) {
             return de;
         }
 
-        public void add(long fileId, int day) {
-            DayEpoch dayEpoch = null;
-            for (DayEpoch de : days) {
-                if (de.getDayInt() == day) {
-                    dayEpoch = de;
-                    break;
-                }
-            }
-
-            if (dayEpoch == null) {
-                dayEpoch = new DayEpoch(day);
-                days.add(dayEpoch);
-            }
-
-            dayEpoch.add(fileId);
-        }
-
         /**
          * Returns the month's name in String format, e.g., September, July,
          */
@@ -796,11 +743,17 @@ List<DayEpoch> getDays() {
 
     private class DayEpoch extends Epoch {
 
-        private final List<Long> fileIds = new ArrayList<>();
+        // the events of the day are a range of the sorted events in the index
+        private final TimelineIndex index;
+        private final int start;
+        private final int end;
         int dayNum = 0; //Day of the month this Epoch represents, 1 indexed: 28=28.
 
-        DayEpoch(int dayOfMonth) {
+        DayEpoch(int dayOfMonth, TimelineIndex index, int start, int end) {
             this.dayNum = dayOfMonth;
+            this.index = index;
+            this.start = start;
+            this.end = end;
         }
 
         public int getDayInt() {
@@ -809,15 +762,15 @@ public int getDayInt() {
 
         @Override
         public int getNumFiles() {
-            return fileIds.size();
-        }
-
-        public void add(long fileId) {
-            fileIds.add(fileId);
+            return end - start;
         }
 
         List<Long> getEvents() {
-            return this.fileIds;
+            List<Long> fileIds = new ArrayList<>(end - start);
+            for (int i = start; i < end; i++) {
+                fileIds.add(index.getObjId(i));
+            }
+            return fileIds;
         }
     }
 
@@ -896,194 +849,35 @@ public <T> T accept(DisplayableItemNodeVisitor<T> v) {
         }
     }
 
-    private List<YearEpoch> parseMacTime(java.io.File f) {
+    /**
+     * Make the years, months and days from the day summary of the index.
+     * The events themselves are only read when a day is selected.
+     *
+     * @param index timeline index, or null if it could not be opened
+     * @return years that have events, in order
+     */
+    private List<YearEpoch> makeEpochs(TimelineIndex index) {
         List<YearEpoch> years = new ArrayList<>();
-        Scanner scan;
-        try {
-            scan = new Scanner(new FileInputStream(f));
-        } catch (FileNotFoundException ex) {
-            logger.log(Level.SEVERE, "Error: could not find mactime file.", ex);
+        if (index == null) {
             return years;
         }
-        scan.useDelimiter(",");
-        scan.nextLine();   // skip the header line
-
-        int prevYear = -1;
         YearEpoch ye = null;
-        while (scan.hasNextLine()) {
-            String[] s = scan.nextLine().split(","); //1999-02-08T11:08:08Z, 78706, m..b, rrwxrwxrwx, 0, 0, 8355, /img...
-            String[] datetime = s[0].split("T"); //{1999-02-08, 11:08:08Z}
-            String[] date = datetime[0].split("-"); // {1999, 02, 08}
-            int year = Integer.valueOf(date[0]);
-            int month = Integer.valueOf(date[1]) - 1; //Months are zero indexed: 1 = February, 6 = July, 11 = December
-            int day = Integer.valueOf(date[2]); //Days are 1 indexed
-            long ObjId = Long.valueOf(s[4]);
-
-            // when the year changes, create and add a new YearEpoch object to the list
-            if (year != prevYear) {
-                ye = new YearEpoch(year);
+        MonthEpoch me = null;
+        for (TimelineIndex.Day day : index.getDays()) {
+            if (ye == null || ye.getYear() != day.year) {
+                ye = new YearEpoch(day.year);
                 years.add(ye);
-                prevYear = year;
+                me = null;
             }
-
-            if (ye != null) {
-                ye.add(ObjId, month, day);
+            if (me == null || me.getMonthInt() != day.month) {
+                me = new MonthEpoch(day.month);
+                ye.months.add(me);
             }
+            me.days.add(new DayEpoch(day.day, index, day.start, day.end));
         }
-
-        scan.close();
-
         return years;
     }
 
-    /**
-     * Crate a body file and return its path or null if error
-     *
-     * @return absolute path string or null if error
-     */
-    private String makeBodyFile() {
-        // Setup timestamp
-        DateFormat dateFormat = new SimpleDateFormat("MM-dd-yyyy-HH-mm-ss");
-        Date date = new Date();
-        String datenotime = dateFormat.format(date);
-
-        final Case currentCase = Case.getCurrentCase();
-
-        // Get report path
-        String bodyFilePath = moduleDir.getAbsolutePath()
-                + java.io.File.separator + currentCase.getName() + "-" + datenotime + ".txt";
-
-        // Run query to get all files
-        final String filesAndDirs = "name != '.' "
-                + "AND name != '..'";
-        List<Long> fileIds = null;
-        try {
-            fileIds = skCase.findAllFileIdsWhere(filesAndDirs);
-        } catch (TskCoreException ex) {
-            logger.log(Level.SEVERE, "Error querying image files to make a body file: " + bodyFilePath, ex);
-            return null;
-        }
-
-        // Loop files and write info to report
-        FileWriter fileWriter = null;
-        try {
-            fileWriter = new FileWriter(bodyFilePath, true);
-        } catch (IOException ex) {
-            logger.log(Level.SEVERE, "Error creating output stream to write body file to: " + bodyFilePath, ex);
-            return null;
-        }
-
-        BufferedWriter out = null;
-        try {
-            out = new BufferedWriter(fileWriter);
-            for (long fileId : fileIds) {
-                AbstractFile file = skCase.getAbstractFileById(fileId);
-                // try {
-                // MD5|name|inode|mode_as_string|ObjId|GID|size|atime|mtime|ctime|crtime
-                if (file.getMd5Hash() != null) {
-                    out.write(file.getMd5Hash());
-                }
-                out.write("|");
-                String path = null;
-                try {
-                    path = file.getUniquePath();
-                } catch (TskCoreException e) {
-                    logger.log(Level.SEVERE, "Failed to get the unique path of: " + file + " and writing body file.", e);
-                    return null;
-                }
-
-                out.write(path);
-
-                out.write("|");
-                out.write(Long.toString(file.getMetaAddr()));
-                out.write("|");
-                String modeString = file.getModesAsString();
-                if (modeString != null) {
-                    out.write(modeString);
-                }
-                out.write("|");
-                out.write(Long.toString(file.getId()));
-                out.write("|");
-                out.write(Long.toString(file.getGid()));
-                out.write("|");
-                out.write(Long.toString(file.getSize()));
-                out.write("|");
-                out.write(Long.toString(file.getAtime()));
-                out.write("|");
-                out.write(Long.toString(file.getMtime()));
-                out.write("|");
-                out.write(Long.toString(file.getCtime()));
-                out.write("|");
-                out.write(Long.toString(file.getCrtime()));
-                out.write("\n");
-            }
-        } catch (TskCoreException ex) {
-            logger.log(Level.SEVERE, "Error querying file by id", ex);
-            return null;
-
-        } catch (IOException ex) {
-            logger.log(Level.WARNING, "Error while trying to write data to the body file.", ex);
-            return null;
-        } finally {
-            if (out != null) {
-                try {
-                    out.flush();
-                    out.close();
-                } catch (IOException ex1) {
-                    logger.log(Level.WARNING, "Could not flush and/or close body file.", ex1);
-                }
-            }
-        }
-
-
-        return bodyFilePath;
-    }
-
-    private String makeMacTime(String pathToBodyFile) {
-        String cmdpath = "";
-        String macpath = "";
-        String[] mactimeArgs;
-        final String machome = macRoot.getAbsolutePath();
-        pathToBodyFile = PlatformUtil.getOSFilePath(pathToBodyFile);
-        if (PlatformUtil.isWindowsOS()) {
-            macpath = machome + java.io.File.separator + "mactime.exe";
-            cmdpath = PlatformUtil.getOSFilePath(macpath);
-            mactimeArgs = new String[]{"-b", pathToBodyFile, "-d", "-y"};
-        } else {
-            cmdpath = "perl";
-            macpath = machome + java.io.File.separator + "mactime.pl";
-            mactimeArgs = new String[]{macpath, "-b", pathToBodyFile, "-d", "-y"};
-        }
-
-        String macfile = moduleDir.getAbsolutePath() + java.io.File.separator + mactimeFileName;
-        
-
-        String output = "";
-        ExecUtil execUtil = new ExecUtil();
-        Writer writer = null;
-        try {
-            //JavaSystemCaller.Exec.execute("\"" + command + "\"");
-            writer = new FileWriter(macfile);
-            execUtil.execute(writer, cmdpath, mactimeArgs);
-        } catch (InterruptedException ie) {
-            logger.log(Level.WARNING, "Mactime process was interrupted by user", ie);
-            return null;
-        } catch (IOException ioe) {
-            logger.log(Level.SEVERE, "Could not create mactime file, encountered error ", ioe);
-            return null;
-        } finally {
-            if (writer != null) {
-                try {
-                    writer.close();
-                } catch (IOException ex) {
-                    logger.log(Level.SEVERE, "Could not clsoe writer after creating mactime file, encountered error ", ex);
-                }
-            }
-        }
-
-        return macfile;
-    }
-
     @Override
     public boolean isEnabled() {
         return Case.isCaseOpen() && this.fxInited;
@@ -1141,14 +935,11 @@ public void run() {
                     }
                 });
 
-                // initialize mactimeFileName
-                mactimeFileName = currentCase.getName() + "-MACTIME.txt";
-
                 // see if barData has been added to the database since the last
                 // time timeline ran
                 long objId = skCase.getLastObjectId();
                 if (objId != lastObjectId && lastObjectId != -1) {
-                    clearMactimeData();
+                    clearTimelineData();
                 }
                 lastObjectId = objId;
 
@@ -0,0 +1,250 @@
+/*
+ * Autopsy Forensic Browser
+ *
+ * Copyright 2013 Basis Technology Corp.
+ * Contact: carrier <at> sleuthkit <dot> org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.sleuthkit.autopsy.timeline;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.logging.Level;
+import org.sleuthkit.autopsy.coreutils.Logger;
+import org.sleuthkit.datamodel.SleuthkitCase;
+
+/**
+ * File system events read from the case, stored column-wise in primitive
+ * arrays and sorted by time. Replaces the body file + mactime round trip:
+ * every distinct non-zero time stamp of a file is one event, and the time
+ * stamps of a file that are equal are merged into a single event, like
+ * mactime does. TimelineIndex persists them in the case directory.
+ */
+class TimelineEvents {
+
+    private static final Logger logger = Logger.getLogger(TimelineEvents.class.getName());
+
+    // event type flags, combined when several time stamps of a file are equal
+    static final int TYPE_MODIFIED = 1;
+    static final int TYPE_ACCESSED = 2;
+    static final int TYPE_CHANGED = 4;
+    static final int TYPE_CREATED = 8;
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int INSERTION_SORT_THRESHOLD = 16;
+
+    private long[] times;   // seconds since the epoch
+    private int[] types;    // TYPE_ flags
+    private long[] objIds;  // file object ids
+    private int size = 0;
+
+    TimelineEvents() {
+        this(INITIAL_CAPACITY);
+    }
+
+    TimelineEvents(int capacity) {
+        capacity = Math.max(capacity, 1);
+        times = new long[capacity];
+        types = new int[capacity];
+        objIds = new long[capacity];
+    }
+
+    /**
+     * Read the time stamps of the files and directories in a range of object
+     * ids with a single query and return them as sorted events.
+     *
+     * @param skCase case to read
+     * @param afterObjId only read files with a larger object id, -1 for all
+     * @param lastObjId only read files up to and including this object id
+     * @return sorted events
+     * @throws SQLException
+     */
+    static TimelineEvents load(SleuthkitCase skCase, long afterObjId, long lastObjId) throws SQLException {
+        TimelineEvents events = new TimelineEvents();
+        String query = "SELECT obj_id, atime, mtime, ctime, crtime FROM tsk_files "
+                + "WHERE name != '.' AND name != '..'";
+        if (afterObjId >= 0) {
+            query += " AND obj_id > " + afterObjId;
+        }
+        query += " AND obj_id <= " + lastObjId;
+        ResultSet rs = null;
+        try {
+            rs = skCase.runQuery(query);
+            while (rs.next()) {
+                events.addFile(rs.getLong("obj_id"), rs.getLong("atime"), rs.getLong("mtime"),
+                        rs.getLong("ctime"), rs.getLong("crtime"));
+            }
+        } finally {
+            if (rs != null) {
+                try {
+                    skCase.closeRunQuery(rs);
+                } catch (SQLException ex) {
+                    logger.log(Level.WARNING, "Error closing result set after reading file times", ex);
+                }
+            }
+        }
+        events.sort();
+        return events;
+    }
+
+    /**
+     * Add the events of one file. Call sort() once all files are added.
+     */
+    void addFile(long objId, long atime, long mtime, long ctime, long crtime) {
+        long[] fileTimes = {mtime, atime, ctime, crtime};
+        int[] fileTypes = {TYPE_MODIFIED, TYPE_ACCESSED, TYPE_CHANGED, TYPE_CREATED};
+        for (int i = 0; i < fileTimes.length; i++) {
+            if (fileTimes[i] <= 0) {
+                continue;
+            }
+            // merge with an equal time stamp that was already seen
+            int type = fileTypes[i];
+            boolean seen = false;
+            for (int j = 0; j < i; j++) {
+                if (fileTimes[j] == fileTimes[i]) {
+                    seen = true;
+                    break;
+                }
+            }
+            if (seen) {
+                continue;
+            }
+            for (int j = i + 1; j < fileTimes.length; j++) {
+                if (fileTimes[j] == fileTimes[i]) {
+                    type |= fileTypes[j];
+                }
+            }
+            add(fileTimes[i], type, objId);
+        }
+    }
+
+    /**
+     * Add a single event. Call sort() once all events are added.
+     */
+    void add(long time, int type, long objId) {
+        if (size == times.length) {
+            int capacity = times.length * 2;
+            times = Arrays.copyOf(times, capacity);
+            types = Arrays.copyOf(types, capacity);
+            objIds = Arrays.copyOf(objIds, capacity);
+        }
+        times[size] = time;
+        types[size] = type;
+        objIds[size] = objId;
+        ++size;
+    }
+
+    int size() {
+        return size;
+    }
+
+    long getTime(int index) {
+        return times[index];
+    }
+
+    int getType(int index) {
+        return types[index];
+    }
+
+    long getObjId(int index) {
+        return objIds[index];
+    }
+
+    /**
+     * Sort the events by time, and by object id for equal times, without
+     * boxing them.
+     */
+    void sort() {
+        quickSort(0, size - 1);
+    }
+
+    private void quickSort(int lo, int hi) {
+        while (hi - lo > INSERTION_SORT_THRESHOLD) {
+            // median of three as pivot
+            int mid = (lo + hi) >>> 1;
+            if (compare(mid, lo) < 0) {
+                swap(mid, lo);
+            }
+            if (compare(hi, lo) < 0) {
+                swap(hi, lo);
+            }
+            if (compare(hi, mid) < 0) {
+                swap(hi, mid);
+            }
+            long pivotTime = times[mid];
+            long pivotObjId = objIds[mid];
+
+            int i = lo;
+            int j = hi;
+            while (i <= j) {
+                while (compare(i, pivotTime, pivotObjId) < 0) {
+                    i++;
+                }
+                while (compare(j, pivotTime, pivotObjId) > 0) {
+                    j--;
+                }
+                if (i <= j) {
+                    swap(i, j);
+                    i++;
+                    j--;
+                }
+            }
+
+            // recurse into the smaller part to bound the stack depth
+            if (j - lo < hi - i) {
+                quickSort(lo, j);
+                lo = i;
+            } else {
+                quickSort(i, hi);
+                hi = j;
+            }
+        }
+        insertionSort(lo, hi);
+    }
+
+    private void insertionSort(int lo, int hi) {
+        for (int i = lo + 1; i <= hi; i++) {
+            for (int j = i; j > lo && compare(j, j - 1) < 0; j--) {
+                swap(j, j - 1);
+            }
+        }
+    }
+
+    private int compare(int a, int b) {
+        return compare(a, times[b], objIds[b]);
+    }
+
+    private int compare(int a, long time, long objId) {
+        if (times[a] != time) {
+            return times[a] < time ? -1 : 1;
+        }
+        if (objIds[a] != objId) {
+            return objIds[a] < objId ? -1 : 1;
+        }
+        return 0;
+    }
+
+    private void swap(int a, int b) {
+        long t = times[a];
+        times[a] = times[b];
+        times[b] = t;
+        int ty = types[a];
+        types[a] = types[b];
+        types[b] = ty;
+        long o = objIds[a];
+        objIds[a] = objIds[b];
+        objIds[b] = o;
+    }
+}
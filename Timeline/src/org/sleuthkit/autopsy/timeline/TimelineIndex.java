@@ -0,0 +1,369 @@
+/*
+ * Autopsy Forensic Browser
+ *
+ * Copyright 2013 Basis Technology Corp.
+ * Contact: carrier <at> sleuthkit <dot> org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.sleuthkit.autopsy.timeline;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.logging.Level;
+import org.sleuthkit.autopsy.coreutils.Logger;
+import org.sleuthkit.datamodel.SleuthkitCase;
+import org.sleuthkit.datamodel.TskCoreException;
+
+/**
+ * The timeline events of a case, persisted in the case directory so that the
+ * timeline does not have to be rebuilt every time it is opened.
+ *
+ * The events are stored sorted by time in an events file that is memory
+ * mapped, and a small index file lists the days that have events with the
+ * range of events of each day. Opening the timeline only reads the index;
+ * the events of a day are read from the mapped file when the day is
+ * selected. When files are added to the case, only the new files are read
+ * from the database and merged into a new events file.
+ */
+class TimelineIndex {
+
+    private static final Logger logger = Logger.getLogger(TimelineIndex.class.getName());
+    private static final String INDEX_FILE_NAME = "timeline-index.dat";
+    private static final String EVENTS_FILE_PREFIX = "timeline-events-";
+    private static final String EVENTS_FILE_SUFFIX = ".dat";
+    private static final int VERSION = 1;
+    // time (long) + type (int) + object id (long)
+    private static final int RECORD_SIZE = 20;
+    // events per mapped segment, keeps each mapping below 2GB
+    private static final int RECORDS_PER_SEGMENT = 50 * 1000 * 1000;
+
+    /**
+     * A day that has events, and the range of sorted events that are in it.
+     */
+    static class Day {
+
+        final int year;
+        final int month; //Zero-indexed: June = 5, August = 7, etc
+        final int day;   //1 indexed
+        final int start;
+        int end;
+
+        Day(int year, int month, int day, int start, int end) {
+            this.year = year;
+            this.month = month;
+            this.day = day;
+            this.start = start;
+            this.end = end;
+        }
+    }
+
+    private final String eventsFileName;
+    private final long lastObjId;
+    private final int eventCount;
+    private final List<Day> days;
+    private final MappedByteBuffer[] segments;
+
+    private TimelineIndex(File dir, String eventsFileName, long lastObjId, int eventCount, List<Day> days) throws IOException {
+        this.eventsFileName = eventsFileName;
+        this.lastObjId = lastObjId;
+        this.eventCount = eventCount;
+        this.days = Collections.unmodifiableList(days);
+        this.segments = mapEvents(new File(dir, eventsFileName), eventCount);
+    }
+
+    /**
+     * Open the timeline index of a case, creating it or adding the files
+     * that were added to the case since it was last updated.
+     *
+     * @param dir directory of the index in the case
+     * @param skCase case
+     * @return up to date index
+     * @throws IOException
+     * @throws SQLException
+     * @throws TskCoreException
+     */
+    static TimelineIndex open(File dir, SleuthkitCase skCase) throws IOException, SQLException, TskCoreException {
+        long caseLastObjId = skCase.getLastObjectId();
+
+        TimelineIndex index = null;
+        try {
+            index = read(dir);
+        } catch (IOException ex) {
+            logger.log(Level.WARNING, "Could not read the timeline index, it will be rebuilt", ex);
+        }
+
+        if (index == null) {
+            logger.log(Level.INFO, "Creating timeline index in " + dir.getAbsolutePath());
+            TimelineEvents events = TimelineEvents.load(skCase, -1, caseLastObjId);
+            index = write(dir, null, events, caseLastObjId);
+        } else if (index.lastObjId < caseLastObjId) {
+            logger.log(Level.INFO, "Adding objects " + index.lastObjId + " to " + caseLastObjId + " to the timeline index");
+            TimelineEvents events = TimelineEvents.load(skCase, index.lastObjId, caseLastObjId);
+            index = write(dir, index, events, caseLastObjId);
+        }
+
+        deleteUnusedEventFiles(dir, index.eventsFileName);
+        return index;
+    }
+
+    /**
+     * @return the days that have events, in order
+     */
+    List<Day> getDays() {
+        return days;
+    }
+
+    int size() {
+        return eventCount;
+    }
+
+    long getTime(int index) {
+        return segment(index).getLong(offset(index));
+    }
+
+    int getType(int index) {
+        return segment(index).getInt(offset(index) + 8);
+    }
+
+    long getObjId(int index) {
+        return segment(index).getLong(offset(index) + 12);
+    }
+
+    private MappedByteBuffer segment(int index) {
+        return segments[index / RECORDS_PER_SEGMENT];
+    }
+
+    private static int offset(int index) {
+        return (index % RECORDS_PER_SEGMENT) * RECORD_SIZE;
+    }
+
+    /**
+     * Read an existing index.
+     *
+     * @return the index, or null if there is no usable index
+     */
+    private static TimelineIndex read(File dir) throws IOException {
+        File indexFile = new File(dir, INDEX_FILE_NAME);
+        if (indexFile.exists() == false) {
+            return null;
+        }
+
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)));
+        try {
+            if (in.readInt() != VERSION) {
+                return null;
+            }
+            // the days depend on the time zone they were computed in
+            if (in.readUTF().equals(TimeZone.getDefault().getID()) == false) {
+                return null;
+            }
+            String eventsFileName = in.readUTF();
+            long lastObjId = in.readLong();
+            int eventCount = in.readInt();
+            File eventsFile = new File(dir, eventsFileName);
+            if (eventsFile.length() != (long) eventCount * RECORD_SIZE) {
+                return null;
+            }
+
+            int dayCount = in.readInt();
+            List<Day> days = new ArrayList<>(dayCount);
+            for (int i = 0; i < dayCount; i++) {
+                days.add(new Day(in.readShort(), in.readByte(), in.readByte(), in.readInt(), in.readInt()));
+            }
+            return new TimelineIndex(dir, eventsFileName, lastObjId, eventCount, days);
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Write a new events file with the events of the old index and the new
+     * events merged in time order, and a new index for it.
+     *
+     * @param old index to merge with, or null
+     * @param newEvents sorted events to add
+     * @param lastObjId last object id that the new index covers
+     * @return the new index
+     */
+    private static TimelineIndex write(File dir, TimelineIndex old, TimelineEvents newEvents, long lastObjId) throws IOException {
+        dir.mkdirs();
+        String eventsFileName = EVENTS_FILE_PREFIX + lastObjId + EVENTS_FILE_SUFFIX;
+        List<Day> days = new ArrayList<>();
+        DayBuilder dayBuilder = new DayBuilder(days);
+
+        int oldCount = (old != null) ? old.size() : 0;
+        int newCount = newEvents.size();
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new FileOutputStream(new File(dir, eventsFileName)), 1 << 16));
+        int i = 0;
+        int j = 0;
+        int count = 0;
+        try {
+            while (i < oldCount || j < newCount) {
+                boolean takeOld;
+                if (i == oldCount) {
+                    takeOld = false;
+                } else if (j == newCount) {
+                    takeOld = true;
+                } else {
+                    takeOld = old.getTime(i) <= newEvents.getTime(j);
+                }
+
+                long time;
+                if (takeOld) {
+                    time = old.getTime(i);
+                    out.writeLong(time);
+                    out.writeInt(old.getType(i));
+                    out.writeLong(old.getObjId(i));
+                    i++;
+                } else {
+                    time = newEvents.getTime(j);
+                    out.writeLong(time);
+                    out.writeInt(newEvents.getType(j));
+                    out.writeLong(newEvents.getObjId(j));
+                    j++;
+                }
+                dayBuilder.add(time, count++);
+            }
+        } finally {
+            out.close();
+        }
+
+        // write the index to a temporary file first so that a failure
+        // leaves the old index in place
+        File tmpIndexFile = new File(dir, INDEX_FILE_NAME + ".tmp");
+        DataOutputStream indexOut = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpIndexFile)));
+        try {
+            indexOut.writeInt(VERSION);
+            indexOut.writeUTF(TimeZone.getDefault().getID());
+            indexOut.writeUTF(eventsFileName);
+            indexOut.writeLong(lastObjId);
+            indexOut.writeInt(count);
+            indexOut.writeInt(days.size());
+            for (Day day : days) {
+                indexOut.writeShort(day.year);
+                indexOut.writeByte(day.month);
+                indexOut.writeByte(day.day);
+                indexOut.writeInt(day.start);
+                indexOut.writeInt(day.end);
+            }
+        } finally {
+            indexOut.close();
+        }
+        File indexFile = new File(dir, INDEX_FILE_NAME);
+        if (indexFile.exists() && indexFile.delete() == false) {
+            throw new IOException("Could not replace timeline index " + indexFile.getAbsolutePath());
+        }
+        if (tmpIndexFile.renameTo(indexFile) == false) {
+            throw new IOException("Could not rename timeline index " + tmpIndexFile.getAbsolutePath());
+        }
+
+        return new TimelineIndex(dir, eventsFileName, lastObjId, count, days);
+    }
+
+    /**
+     * Map the events file in segments of at most RECORDS_PER_SEGMENT
+     * events.
+     */
+    private static MappedByteBuffer[] mapEvents(File eventsFile, int eventCount) throws IOException {
+        int numSegments = (eventCount + RECORDS_PER_SEGMENT - 1) / RECORDS_PER_SEGMENT;
+        MappedByteBuffer[] segments = new MappedByteBuffer[numSegments];
+        RandomAccessFile raf = new RandomAccessFile(eventsFile, "r");
+        try {
+            FileChannel channel = raf.getChannel();
+            for (int s = 0; s < numSegments; s++) {
+                long start = (long) s * RECORDS_PER_SEGMENT * RECORD_SIZE;
+                long length = Math.min((long) RECORDS_PER_SEGMENT * RECORD_SIZE, channel.size() - start);
+                segments[s] = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+            }
+        } finally {
+            // the mappings stay valid after the file is closed
+            raf.close();
+        }
+        return segments;
+    }
+
+    /**
+     * Delete the events files of previous versions of the index. Files that
+     * are still mapped can not be deleted on some platforms, those are
+     * deleted the next time the index is opened.
+     */
+    private static void deleteUnusedEventFiles(File dir, String eventsFileName) {
+        File[] files = dir.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File f : files) {
+            String name = f.getName();
+            if (name.startsWith(EVENTS_FILE_PREFIX) && name.endsWith(EVENTS_FILE_SUFFIX)
+                    && name.equals(eventsFileName) == false) {
+                f.delete();
+            }
+        }
+    }
+
+    /**
+     * Groups sorted event times into days of the local time zone, like
+     * mactime does.
+     */
+    private static class DayBuilder {
+
+        private final List<Day> days;
+        private final Calendar cal = Calendar.getInstance();
+        private Day current = null;
+        private long dayEnd = Long.MIN_VALUE; // start of the day after the current day, in seconds
+
+        DayBuilder(List<Day> days) {
+            this.days = days;
+        }
+
+        void add(long time, int index) {
+            // the events are sorted, so the calendar is only needed when a new day starts
+            if (time >= dayEnd) {
+                cal.setTimeInMillis(time * 1000);
+                int year = cal.get(Calendar.YEAR);
+                int month = cal.get(Calendar.MONTH);
+                int day = cal.get(Calendar.DAY_OF_MONTH);
+
+                cal.set(Calendar.HOUR_OF_DAY, 0);
+                cal.set(Calendar.MINUTE, 0);
+                cal.set(Calendar.SECOND, 0);
+                cal.set(Calendar.MILLISECOND, 0);
+                cal.add(Calendar.DAY_OF_MONTH, 1);
+                dayEnd = cal.getTimeInMillis() / 1000;
+
+                if (current == null || current.year != year || current.month != month || current.day != day) {
+                    current = new Day(year, month, day, index, index);
+                    days.add(current);
+                }
+            }
+            current.end = index + 1;
+        }
+    }
+}